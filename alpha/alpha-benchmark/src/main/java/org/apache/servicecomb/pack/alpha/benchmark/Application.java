@@ -45,6 +45,9 @@ public class Application implements CommandLineRunner {
   @Value("${w:0}")
   int warmUp;
 
+  @Value("${p:0}")
+  int payloadSize;
+
   public static void main(String[] args) {
     boolean hasAlphaAddress = false;
     for(String arg : args){
@@ -64,7 +67,7 @@ public class Application implements CommandLineRunner {
 
     try {
       if (checkParamter()) {
-        sagaEventBenchmark.send(warmUp,requests, concurrency);
+        sagaEventBenchmark.send(warmUp,requests, concurrency, payloadSize);
       } else {
         printHelp();
       }
@@ -102,5 +105,7 @@ public class Application implements CommandLineRunner {
         "Number of multiple requests to make at a time"));
     System.out.println(String.format("%-5s %-15s %-25s", "  --w", "warm-up",
         "Number of multiple requests warm-Up, w * 10"));
+    System.out.println(String.format("%-5s %-15s %-25s", "  --p", "payload",
+        "Size in bytes of the payload of every sub-transaction"));
   }
 }
@@ -21,6 +21,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class BenchmarkMetrics {
 
@@ -30,6 +31,7 @@ public class BenchmarkMetrics {
   private int concurrency;
   private long timeTaken;
   private List<Long> transactionTime = Collections.synchronizedList(new ArrayList());
+  private AtomicLong allocatedBytes = new AtomicLong();
 
   private int beforeProgress;
 
@@ -88,6 +90,15 @@ public class BenchmarkMetrics {
     return this.timeTaken / (completeRequests.get() / concurrency);
   }
 
+  public void addAllocatedBytes(long bytes) {
+    allocatedBytes.addAndGet(bytes);
+  }
+
+  //每个请求在发送线程上分配的内存
+  public long getAllocatedBytesPerRequest() {
+    return completeRequests.get() == 0 ? 0 : allocatedBytes.get() / completeRequests.get();
+  }
+
   public List<Long> getTransactionTime() {
     return transactionTime;
   }
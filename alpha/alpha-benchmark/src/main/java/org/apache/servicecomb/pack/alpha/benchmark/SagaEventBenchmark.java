@@ -18,6 +18,7 @@
 package org.apache.servicecomb.pack.alpha.benchmark;
 
 import java.lang.invoke.MethodHandles;
+import java.lang.management.ManagementFactory;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.OptionalDouble;
@@ -46,10 +47,12 @@ public class SagaEventBenchmark {
   int warmUpConcurrency;
   int warmUpRequests;
   BenchmarkMetrics metrics;
+  Object[] payloads;
 
-  public void send(int warmUpConcurrency, int requests, int concurrency) {
+  public void send(int warmUpConcurrency, int requests, int concurrency, int payloadSize) {
     this.warmUpConcurrency = warmUpConcurrency;
     this.warmUpRequests = 10;
+    this.payloads = payloadOf(payloadSize);
     System.out.print("Benchmarking ");
 
     // 预热
@@ -88,6 +91,8 @@ public class SagaEventBenchmark {
           .format("%-25s %s", "Requests per second", metrics.getRequestsPerSecond() + " [#/sec]"));
       System.out.println(
           String.format("%-25s %s", "Time per request", metrics.getTimePerRequest() + " [ms]"));
+      System.out.println(String.format("%-25s %s", "Allocated per request",
+          metrics.getAllocatedBytesPerRequest() + " [bytes]"));
       System.out.println();
       System.out.println("Percentage of the requests served within a certain time (ms)");
 
@@ -158,6 +163,7 @@ public class SagaEventBenchmark {
     public void run() {
       try {
         begin.await();
+        long allocatedBytes = allocatedBytes();
         for (int i = 0; i < requests; i++) {
           metrics.completeRequestsIncrement();
           long s = System.currentTimeMillis();
@@ -180,6 +186,7 @@ public class SagaEventBenchmark {
             metrics.addTransactionTime(e - s);
           }
         }
+        metrics.addAllocatedBytes(allocatedBytes() - allocatedBytes);
         end.countDown();
       } catch (InterruptedException e) {
         Thread.currentThread().interrupt();
@@ -196,19 +203,19 @@ public class SagaEventBenchmark {
             0, 0, 0, 0, 0));
     sagaEvents.add(
         new TxEvent(EventType.TxStartedEvent, globalTxId, localTxId_1, globalTxId, "service a", 0,
-            null, 0, 0, 0, 0, 0));
+            null, 0, 0, 0, 0, 0, payloads));
     sagaEvents.add(
         new TxEvent(EventType.TxEndedEvent, globalTxId, localTxId_1, globalTxId, "service a", 0,
             null, 0, 0, 0, 0, 0));
     sagaEvents.add(
         new TxEvent(EventType.TxStartedEvent, globalTxId, localTxId_2, globalTxId, "service b", 0,
-            null, 0, 0, 0, 0, 0));
+            null, 0, 0, 0, 0, 0, payloads));
     sagaEvents.add(
         new TxEvent(EventType.TxEndedEvent, globalTxId, localTxId_2, globalTxId, "service b", 0,
             null, 0, 0, 0, 0, 0));
     sagaEvents.add(
         new TxEvent(EventType.TxStartedEvent, globalTxId, localTxId_3, globalTxId, "service c", 0,
-            null, 0, 0, 0, 0, 0));
+            null, 0, 0, 0, 0, 0, payloads));
     sagaEvents.add(
         new TxEvent(EventType.TxEndedEvent, globalTxId, localTxId_3, globalTxId, "service c", 0,
             null, 0, 0, 0, 0, 0));
@@ -217,6 +224,21 @@ public class SagaEventBenchmark {
     return sagaEvents;
   }
 
+  private Object[] payloadOf(int payloadSize) {
+    if (payloadSize <= 0) {
+      return new Object[0];
+    }
+    byte[] payload = new byte[payloadSize];
+    SECURERANDOM.nextBytes(payload);
+    return new Object[] {payload};
+  }
+
+  // bytes allocated by the current thread, it covers the serialization and sending of the events
+  private long allocatedBytes() {
+    return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+        .getThreadAllocatedBytes(Thread.currentThread().getId());
+  }
+
   private String[] generateRandomIdPrefix(int numberOfWords) {
     String[] randomStrings = new String[numberOfWords];
     for (int i = 0; i < numberOfWords; i++) {
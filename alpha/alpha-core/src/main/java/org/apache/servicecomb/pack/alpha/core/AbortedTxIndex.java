@@ -0,0 +1,144 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.servicecomb.pack.alpha.core;
+
+import static org.apache.servicecomb.pack.common.EventType.SagaStartedEvent;
+import static org.apache.servicecomb.pack.common.EventType.TxAbortedEvent;
+
+import java.lang.invoke.MethodHandles;
+import java.util.Date;
+import java.util.List;
+
+import com.google.common.base.Charsets;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * In-memory index of the aborted global transactions, it answers the admission check of
+ * {@link TxConsistentService} without querying the TxEvent table.
+ *
+ * <ul>
+ *   <li>The global transactions which are confirmed as aborted are kept in a bounded set.</li>
+ *   <li>The Bloom filter remembers every global transaction which got a TxAbortedEvent, a miss of
+ *   the filter proves the global transaction is not aborted.</li>
+ *   <li>The negative answer is only trusted for the global transactions whose SagaStartedEvent
+ *   was saved through this index, the other ones (e.g. started before a restart) and the hits
+ *   of the Bloom filter fall back to the {@link TxEventRepository}.</li>
+ *   <li>In a cluster the TxAbortedEvent may be saved by another alpha instance and never reach
+ *   the filter, so the negative answers fall back to the {@link TxEventRepository} as well and
+ *   only the confirmed aborts are answered from memory.</li>
+ * </ul>
+ */
+public class AbortedTxIndex implements TxEventListener {
+  private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  private static final double FALSE_POSITIVE_PROBABILITY = 0.01;
+
+  private final TxEventRepository eventRepository;
+
+  private final int capacity;
+
+  // all the events are saved by this alpha instance
+  private final boolean singleNode;
+
+  private final Cache<String, Boolean> abortedGlobalTxIds;
+
+  private final Cache<String, Boolean> trackedGlobalTxIds;
+
+  private final Object filterLock = new Object();
+
+  // guarded by filterLock, BloomFilter of guava 20 is not thread safe
+  private BloomFilter<CharSequence> abortFilter;
+
+  private int filterInsertions;
+
+  public AbortedTxIndex(TxEventRepository eventRepository, int capacity) {
+    this(eventRepository, capacity, true);
+  }
+
+  public AbortedTxIndex(TxEventRepository eventRepository, int capacity, boolean singleNode) {
+    this.eventRepository = eventRepository;
+    this.capacity = capacity;
+    this.singleNode = singleNode;
+    this.abortedGlobalTxIds = CacheBuilder.newBuilder().maximumSize(capacity).build();
+    this.trackedGlobalTxIds = CacheBuilder.newBuilder().maximumSize(capacity).build();
+    this.abortFilter = newFilter();
+  }
+
+  /**
+   * Load the global transactions which were aborted since the given time, so that the admission
+   * checks right after a restart don't need to hit the database for them.
+   */
+  public void warmUp(Date since) {
+    List<String> globalTxIds = eventRepository.findAbortedGlobalTxIds(since, capacity);
+    globalTxIds.forEach(globalTxId -> abortedGlobalTxIds.put(globalTxId, Boolean.TRUE));
+    LOG.info("Warmed up the aborted transaction index with {} global transactions", globalTxIds.size());
+  }
+
+  /**
+   * Record a persisted event, only SagaStartedEvent and TxAbortedEvent change the index.
+   */
+  @Override
+  public void onEventSaved(TxEvent event) {
+    if (SagaStartedEvent.name().equals(event.type())) {
+      synchronized (filterLock) {
+        trackedGlobalTxIds.put(event.globalTxId(), Boolean.TRUE);
+      }
+    } else if (TxAbortedEvent.name().equals(event.type())) {
+      // a retryable sub transaction doesn't abort the global transaction, let the repository decide
+      synchronized (filterLock) {
+        if (filterInsertions >= capacity) {
+          // a saturated filter is replaced, the tracked transactions lose their negative answers with it
+          abortFilter = newFilter();
+          filterInsertions = 0;
+          trackedGlobalTxIds.invalidateAll();
+        }
+        abortFilter.put(event.globalTxId());
+        filterInsertions++;
+      }
+    }
+  }
+
+  public boolean isAborted(String globalTxId) {
+    if (abortedGlobalTxIds.getIfPresent(globalTxId) != null) {
+      return true;
+    }
+    if (singleNode) {
+      synchronized (filterLock) {
+        if (!abortFilter.mightContain(globalTxId) && trackedGlobalTxIds.getIfPresent(globalTxId) != null) {
+          return false;
+        }
+      }
+    }
+    boolean aborted = !eventRepository.findTransactions(globalTxId, TxAbortedEvent.name()).isEmpty();
+    if (aborted) {
+      // an aborted global transaction never turns back, it is safe to cache it
+      abortedGlobalTxIds.put(globalTxId, Boolean.TRUE);
+    }
+    return aborted;
+  }
+
+  private BloomFilter<CharSequence> newFilter() {
+    return BloomFilter.create(Funnels.stringFunnel(Charsets.UTF_8), capacity, FALSE_POSITIVE_PROBABILITY);
+  }
+}
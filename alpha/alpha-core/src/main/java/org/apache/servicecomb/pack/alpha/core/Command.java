@@ -38,6 +38,7 @@ public class Command {
   private String serviceName;
   private String instanceId;
   private String globalTxId;
+  private Integer partitionKey;
   private String localTxId;
   private String parentTxId;
   private String compensationMethod;
@@ -66,6 +67,7 @@ public class Command {
     this.serviceName = serviceName;
     this.instanceId = instanceId;
     this.globalTxId = globalTxId;
+    this.partitionKey = ScannerPartitions.partitionKeyOf(globalTxId);
     this.localTxId = localTxId;
     this.parentTxId = parentTxId;
     this.compensationMethod = compensationMethod;
@@ -133,6 +135,10 @@ public class Command {
     return surrogateId;
   }
 
+  long eventId() {
+    return eventId;
+  }
+
   @Override
   public String toString() {
     return "Command{" +
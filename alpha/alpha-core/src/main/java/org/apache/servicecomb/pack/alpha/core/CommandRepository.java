@@ -27,5 +27,17 @@ public interface CommandRepository {
 
   List<Command> findUncompletedCommands(String globalTxId);
 
+  /**
+   * @return true if the global transaction has NEW commands or compensations in flight
+   */
+  boolean hasUncompletedCommands(String globalTxId);
+
+  /**
+   * Claim a NEW command before sending its compensation.
+   *
+   * @return true if the command was moved from NEW to PENDING by this call
+   */
+  boolean markCommandAsPending(String globalTxId, String localTxId);
+
   List<Command> findFirstCommandToCompensate();
 }
@@ -0,0 +1,203 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.servicecomb.pack.alpha.core;
+
+import static org.apache.servicecomb.pack.common.EventType.TxStartedEvent;
+
+import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+
+import org.apache.servicecomb.pack.alpha.core.metrics.EventScannerMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Sends the compensations of the {@link EventScanner} from in-memory queues instead of picking one command per
+ * global transaction from the Command table on every polling. Every global transaction has its own queue which
+ * is compensated in the reverse order of the events with one compensation in flight at a time, while the queues
+ * of different global transactions are drained in parallel on the executor. The Command rows are only used for
+ * the status transitions, a command is claimed by moving it from NEW to PENDING before it is sent so that it is
+ * never sent twice by the alpha cluster. A compensation which can't be sent is queued again and retried on the next
+ * {@link #dispatchQueued()}, so the {@link OmegaCallback} must report the failures instead of retrying by itself
+ * like the {@link PushBackOmegaCallback} does.
+ */
+public class CompensationDispatcher {
+  private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  private final Map<String, SagaCompensations> sagas = new HashMap<>();
+
+  private final CommandRepository commandRepository;
+
+  private final OmegaCallback omegaCallback;
+
+  private final ExecutorService executor;
+
+  private final EventScannerMetrics metrics;
+
+  public CompensationDispatcher(CommandRepository commandRepository, OmegaCallback omegaCallback,
+      ExecutorService executor, EventScannerMetrics metrics) {
+    this.commandRepository = commandRepository;
+    this.omegaCallback = omegaCallback;
+    this.executor = executor;
+    this.metrics = metrics;
+  }
+
+  /**
+   * Queue the NEW commands of a global transaction and start compensating it if nothing is in flight.
+   */
+  public void enqueue(String globalTxId) {
+    List<Command> commands = commandRepository.findUncompletedCommands(globalTxId);
+    if (commands.isEmpty()) {
+      return;
+    }
+    synchronized (sagas) {
+      SagaCompensations saga = sagas.computeIfAbsent(globalTxId, id -> new SagaCompensations());
+      commands.stream()
+          .filter(command -> !command.localTxId().equals(saga.inFlight))
+          .forEach(command -> saga.queue.putIfAbsent(command.eventId(), command));
+    }
+    dispatchNext(globalTxId);
+  }
+
+  /**
+   * Release the global transaction once the compensation in flight is done and send the next one.
+   */
+  public void onCompensated(String globalTxId, String localTxId) {
+    synchronized (sagas) {
+      SagaCompensations saga = sagas.get(globalTxId);
+      if (saga == null) {
+        return;
+      }
+      if (localTxId.equals(saga.inFlight)) {
+        saga.inFlight = null;
+      }
+    }
+    dispatchNext(globalTxId);
+  }
+
+  /**
+   * Send the next compensation of the global transactions which have nothing in flight, e.g. the ones whose
+   * compensation failed to be sent.
+   */
+  public void dispatchQueued() {
+    List<String> idle = new ArrayList<>();
+    synchronized (sagas) {
+      sagas.forEach((globalTxId, saga) -> {
+        if (saga.inFlight == null) {
+          idle.add(globalTxId);
+        }
+      });
+    }
+    idle.forEach(this::dispatchNext);
+  }
+
+  int queuedGlobalTransactions() {
+    synchronized (sagas) {
+      return sagas.size();
+    }
+  }
+
+  private void dispatchNext(String globalTxId) {
+    while (true) {
+      Command command;
+      boolean claimed;
+      synchronized (sagas) {
+        SagaCompensations saga = sagas.get(globalTxId);
+        if (saga == null || saga.inFlight != null) {
+          return;
+        }
+        Map.Entry<Long, Command> next = saga.queue.pollFirstEntry();
+        if (next == null) {
+          sagas.remove(globalTxId);
+          return;
+        }
+        command = next.getValue();
+        saga.inFlight = command.localTxId();
+        claimed = saga.claimed.remove(command.eventId());
+      }
+      if (claimed || commandRepository.markCommandAsPending(command.globalTxId(), command.localTxId())) {
+        executor.execute(() -> compensate(command));
+        return;
+      }
+      // the command was claimed by another alpha or is done already
+      synchronized (sagas) {
+        SagaCompensations saga = sagas.get(globalTxId);
+        if (saga != null && command.localTxId().equals(saga.inFlight)) {
+          saga.inFlight = null;
+        }
+      }
+    }
+  }
+
+  private void compensate(Command command) {
+    long beginTime = System.currentTimeMillis();
+    LOG.info("Compensating transaction with globalTxId {} and localTxId {}",
+        command.globalTxId(),
+        command.localTxId());
+    omegaCallback.compensateAsync(txStartedEventOf(command)).whenComplete((result, e) -> {
+      if (e == null) {
+        metrics.doCompensationSent(1, System.currentTimeMillis() - beginTime);
+      } else {
+        LOG.warn("Failed to compensate transaction with globalTxId {} and localTxId {}",
+            command.globalTxId(), command.localTxId(), e);
+        requeue(command);
+      }
+    });
+  }
+
+  private void requeue(Command command) {
+    synchronized (sagas) {
+      SagaCompensations saga = sagas.computeIfAbsent(command.globalTxId(), id -> new SagaCompensations());
+      if (command.localTxId().equals(saga.inFlight)) {
+        saga.inFlight = null;
+      }
+      // the command stays PENDING, it is still claimed by this alpha
+      saga.queue.putIfAbsent(command.eventId(), command);
+      saga.claimed.add(command.eventId());
+    }
+  }
+
+  private TxEvent txStartedEventOf(Command command) {
+    return new TxEvent(
+        command.serviceName(),
+        command.instanceId(),
+        command.globalTxId(),
+        command.localTxId(),
+        command.parentTxId(),
+        TxStartedEvent.name(),
+        command.compensationMethod(),
+        command.payloads());
+  }
+
+  private static class SagaCompensations {
+    // the compensations are sent in the reverse order of the events
+    private final TreeMap<Long, Command> queue = new TreeMap<>(Comparator.reverseOrder());
+    private String inFlight;
+    // the queued commands which were moved to PENDING by this alpha already
+    private final Set<Long> claimed = new HashSet<>();
+  }
+}
@@ -21,8 +21,12 @@ import static java.util.Collections.emptyMap;
 
 import java.lang.invoke.MethodHandles;
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
 
 import org.apache.servicecomb.pack.alpha.core.exception.CompensateAckFailedException;
 import org.apache.servicecomb.pack.alpha.core.exception.CompensateConnectException;
@@ -32,27 +36,21 @@ import org.slf4j.LoggerFactory;
 public class CompositeOmegaCallback implements OmegaCallback {
   private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
   private final Map<String, Map<String, OmegaCallback>> callbacks;
+  private final OmegaCallbackPicker picker;
 
   public CompositeOmegaCallback(Map<String, Map<String, OmegaCallback>> callbacks) {
+    this(callbacks, new LeastInFlightOmegaCallbackPicker());
+  }
+
+  public CompositeOmegaCallback(Map<String, Map<String, OmegaCallback>> callbacks, OmegaCallbackPicker picker) {
     this.callbacks = callbacks;
+    this.picker = picker;
   }
 
   @Override
   public void compensate(TxEvent event) {
     Map<String, OmegaCallback> serviceCallbacks = callbacks.getOrDefault(event.serviceName(), emptyMap());
-
-    OmegaCallback omegaCallback = serviceCallbacks.get(event.instanceId());
-    if (omegaCallback == null) {
-      LOG.info("Cannot find the service with the instanceId {}, call the other instance.", event.instanceId());
-      // TODO extract an Interface to let user define the serviceCallback instance pick strategy
-      Iterator<OmegaCallback> iterator = new ArrayList<>(serviceCallbacks.values()).iterator();
-      if(iterator.hasNext()) {
-        omegaCallback = iterator.next();
-      }
-    }
-    if(omegaCallback==null){
-      throw new AlphaException("No such omega callback found for service " + event.serviceName());
-    }
+    OmegaCallback omegaCallback = callbackOf(event, serviceCallbacks);
 
     try {
       omegaCallback.compensate(event);
@@ -66,4 +64,74 @@ public class CompositeOmegaCallback implements OmegaCallback {
       throw e;
     }
   }
+
+  @Override
+  public CompletableFuture<Void> compensateAsync(TxEvent event) {
+    Map<String, OmegaCallback> serviceCallbacks = callbacks.getOrDefault(event.serviceName(), emptyMap());
+    OmegaCallback omegaCallback;
+    try {
+      omegaCallback = callbackOf(event, serviceCallbacks);
+    } catch (AlphaException e) {
+      CompletableFuture<Void> future = new CompletableFuture<>();
+      future.completeExceptionally(e);
+      return future;
+    }
+
+    // the future of the callback is returned as it is, so that the caller is able to time it out
+    CompletableFuture<Void> future = omegaCallback.compensateAsync(event);
+    future.whenComplete((result, e) -> {
+      if (e != null && !(e instanceof CompensateAckFailedException) && !(e instanceof TimeoutException)) {
+        serviceCallbacks.values().remove(omegaCallback);
+      }
+    });
+    return future;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public List<CompletableFuture<Void>> compensateAllAsync(List<TxEvent> events) {
+    CompletableFuture<Void>[] futures = new CompletableFuture[events.size()];
+    // the events bound for the same omega instance are handed over together, keeping their order
+    Map<OmegaCallback, List<Integer>> positions = new LinkedHashMap<>();
+    Map<OmegaCallback, Map<String, OmegaCallback>> owners = new LinkedHashMap<>();
+    for (int i = 0; i < events.size(); i++) {
+      TxEvent event = events.get(i);
+      Map<String, OmegaCallback> serviceCallbacks = callbacks.getOrDefault(event.serviceName(), emptyMap());
+      try {
+        OmegaCallback omegaCallback = callbackOf(event, serviceCallbacks);
+        positions.computeIfAbsent(omegaCallback, key -> new ArrayList<>()).add(i);
+        owners.put(omegaCallback, serviceCallbacks);
+      } catch (AlphaException e) {
+        futures[i] = new CompletableFuture<>();
+        futures[i].completeExceptionally(e);
+      }
+    }
+    positions.forEach((omegaCallback, indexes) -> {
+      List<TxEvent> batch = new ArrayList<>(indexes.size());
+      indexes.forEach(index -> batch.add(events.get(index)));
+      List<CompletableFuture<Void>> sent = omegaCallback.compensateAllAsync(batch);
+      for (int i = 0; i < indexes.size(); i++) {
+        CompletableFuture<Void> future = sent.get(i);
+        future.whenComplete((result, e) -> {
+          if (e != null && !(e instanceof CompensateAckFailedException) && !(e instanceof TimeoutException)) {
+            owners.get(omegaCallback).values().remove(omegaCallback);
+          }
+        });
+        futures[indexes.get(i)] = future;
+      }
+    });
+    return Arrays.asList(futures);
+  }
+
+  private OmegaCallback callbackOf(TxEvent event, Map<String, OmegaCallback> serviceCallbacks) {
+    OmegaCallback omegaCallback = serviceCallbacks.get(event.instanceId());
+    if (omegaCallback == null) {
+      LOG.info("Cannot find the service with the instanceId {}, call the other instance.", event.instanceId());
+      omegaCallback = picker.pick(event.globalTxId(), serviceCallbacks, OmegaCallback::inFlight);
+    }
+    if(omegaCallback==null){
+      throw new AlphaException("No such omega callback found for service " + event.serviceName());
+    }
+    return omegaCallback;
+  }
 }
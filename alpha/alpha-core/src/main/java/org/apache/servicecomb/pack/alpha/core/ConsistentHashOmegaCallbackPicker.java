@@ -0,0 +1,56 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.servicecomb.pack.alpha.core;
+
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.function.ToIntFunction;
+
+/**
+ * Rendezvous hashing of the global transaction id over the instance ids, all the compensations of
+ * a global transaction go to the same instance and only the global transactions of a removed
+ * instance are moved.
+ */
+public class ConsistentHashOmegaCallbackPicker implements OmegaCallbackPicker {
+
+  @Override
+  public <T> T pick(String globalTxId, Map<String, T> callbacks, ToIntFunction<T> inFlight) {
+    T picked = null;
+    int pickedWeight = 0;
+    for (Entry<String, T> entry : callbacks.entrySet()) {
+      int weight = weight(globalTxId, entry.getKey());
+      if (picked == null || weight > pickedWeight) {
+        picked = entry.getValue();
+        pickedWeight = weight;
+      }
+    }
+    return picked;
+  }
+
+  static int weight(String globalTxId, String instanceId) {
+    // murmur3 finalizer to spread the combined hash codes
+    int hash = globalTxId.hashCode() * 31 + instanceId.hashCode();
+    hash ^= hash >>> 16;
+    hash *= 0x85ebca6b;
+    hash ^= hash >>> 13;
+    hash *= 0xc2b2ae35;
+    hash ^= hash >>> 16;
+    return hash;
+  }
+}
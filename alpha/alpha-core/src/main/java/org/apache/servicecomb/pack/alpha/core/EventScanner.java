@@ -24,9 +24,12 @@ import static org.apache.servicecomb.pack.common.EventType.TxEndedEvent;
 import static org.apache.servicecomb.pack.common.EventType.TxStartedEvent;
 
 import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ScheduledExecutorService;
 
+import org.apache.servicecomb.pack.alpha.core.metrics.EventScannerMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -53,19 +56,32 @@ public class EventScanner implements Runnable {
 
   private NodeStatus nodeStatus;
 
-  public EventScanner(ScheduledExecutorService scheduler,
-      TxEventRepository eventRepository,
-      CommandRepository commandRepository,
-      TxTimeoutRepository timeoutRepository,
-      OmegaCallback omegaCallback,
-      int eventPollingInterval,NodeStatus nodeStatus) {
-    this.scheduler = scheduler;
-    this.eventRepository = eventRepository;
-    this.commandRepository = commandRepository;
-    this.timeoutRepository = timeoutRepository;
-    this.omegaCallback = omegaCallback;
-    this.eventPollingInterval = eventPollingInterval;
-    this.nodeStatus = nodeStatus;
+  private final EventScannerMetrics metrics;
+
+  private final ScannerPartitions partitions;
+
+  private long partitionGeneration;
+
+  private final TxTimeoutTracker timeoutTracker;
+
+  private final CompensationDispatcher compensationDispatcher;
+
+  private EventScanner(Builder builder) {
+    this.scheduler = builder.scheduler;
+    this.eventRepository = builder.eventRepository;
+    this.commandRepository = builder.commandRepository;
+    this.timeoutRepository = builder.timeoutRepository;
+    this.omegaCallback = builder.omegaCallback;
+    this.eventPollingInterval = builder.eventPollingInterval;
+    this.nodeStatus = builder.nodeStatus;
+    this.metrics = builder.metrics;
+    this.partitions = builder.partitions;
+    this.timeoutTracker = builder.timeoutTracker;
+    this.compensationDispatcher = builder.compensationDispatcher;
+  }
+
+  public static Builder builder() {
+    return new Builder();
   }
 
   @Override
@@ -81,15 +97,25 @@ public class EventScanner implements Runnable {
   private void pollEvents() {
     scheduler.scheduleWithFixedDelay(
         () -> {
+          // the tracked timeouts belong to the events saved on this node, no matter which mode it works in
+          if (timeoutTracker != null) {
+            abortExpiredTimeouts();
+          }
           // only pull the events when working in the master mode
           if(nodeStatus.isMaster()){
-            updateTimeoutStatus();
-            findTimeoutEvents();
-            abortTimeoutEvents();
+            resetCursorsOnRebalance();
+            if (timeoutTracker == null) {
+              updateTimeoutStatus();
+              findTimeoutEvents();
+              abortTimeoutEvents();
+            }
             saveUncompensatedEventsToCommands();
-            compensate();
+            if (compensationDispatcher == null) {
+              compensate();
+            } else {
+              compensationDispatcher.dispatchQueued();
+            }
             updateCompensatedCommands();
-            deleteDuplicateSagaEndedEvents();
             updateTransactionStatus();
           }
         },
@@ -98,12 +124,26 @@ public class EventScanner implements Runnable {
         MILLISECONDS);
   }
 
+  private void resetCursorsOnRebalance() {
+    if (partitions != null && partitions.generation() != partitionGeneration) {
+      // the partitions taken over may have events behind the cursors which the previous owner didn't handle
+      partitionGeneration = partitions.generation();
+      nextEndedEventId = 0;
+      nextCompensatedEventId = 0;
+      LOG.info("Scanning the partitions {}", partitions.ownedPartitions());
+    }
+  }
+
   private void findTimeoutEvents() {
-    eventRepository.findTimeoutEvents()
-        .forEach(event -> {
-          LOG.info("Found timeout event {}", event);
-          timeoutRepository.save(txTimeoutOf(event));
-        });
+    long beginTime = System.currentTimeMillis();
+    List<TxEvent> events = eventRepository.findTimeoutEvents();
+    events.forEach(event -> {
+      LOG.info("Found timeout event {}", event);
+      timeoutRepository.save(txTimeoutOf(event));
+    });
+    if (!events.isEmpty()) {
+      metrics.doTimeoutFound(events.size(), System.currentTimeMillis() - beginTime);
+    }
   }
 
   private void updateTimeoutStatus() {
@@ -111,28 +151,32 @@ public class EventScanner implements Runnable {
   }
 
   private void saveUncompensatedEventsToCommands() {
-    eventRepository.findFirstUncompensatedEventByIdGreaterThan(nextEndedEventId, TxEndedEvent.name())
-        .forEach(event -> {
-          LOG.info("Found uncompensated event {}", event);
-          nextEndedEventId = event.id();
-          commandRepository.saveCompensationCommands(event.globalTxId());
-        });
+    long beginTime = System.currentTimeMillis();
+    List<TxEvent> events = eventRepository
+        .findFirstUncompensatedEventByIdGreaterThan(nextEndedEventId, TxEndedEvent.name());
+    events.forEach(event -> {
+      LOG.info("Found uncompensated event {}", event);
+      nextEndedEventId = event.id();
+      commandRepository.saveCompensationCommands(event.globalTxId());
+      if (compensationDispatcher != null) {
+        compensationDispatcher.enqueue(event.globalTxId());
+      }
+    });
+    if (!events.isEmpty()) {
+      metrics.doCommandSaved(events.size(), System.currentTimeMillis() - beginTime);
+    }
   }
 
   private void updateCompensatedCommands() {
-    eventRepository.findFirstCompensatedEventByIdGreaterThan(nextCompensatedEventId)
-        .ifPresent(event -> {
-          LOG.info("Found compensated event {}", event);
-          nextCompensatedEventId = event.id();
-          updateCompensationStatus(event);
-        });
-  }
-
-  private void deleteDuplicateSagaEndedEvents() {
-    try {
-      eventRepository.deleteDuplicateEvents(SagaEndedEvent.name());
-    } catch (Exception e) {
-      LOG.warn("Failed to delete duplicate event", e);
+    long beginTime = System.currentTimeMillis();
+    List<TxEvent> events = eventRepository.findFirstCompensatedEventByIdGreaterThan(nextCompensatedEventId);
+    events.forEach(event -> {
+      LOG.info("Found compensated event {}", event);
+      nextCompensatedEventId = event.id();
+      updateCompensationStatus(event);
+    });
+    if (!events.isEmpty()) {
+      metrics.doCompensationDone(events.size(), System.currentTimeMillis() - beginTime);
     }
   }
 
@@ -143,19 +187,37 @@ public class EventScanner implements Runnable {
         event.localTxId());
 
     markSagaEnded(event);
+    if (compensationDispatcher != null) {
+      compensationDispatcher.onCompensated(event.globalTxId(), event.localTxId());
+    }
   }
 
   private void abortTimeoutEvents() {
-    timeoutRepository.findFirstTimeout().forEach(timeout -> {
+    long beginTime = System.currentTimeMillis();
+    abortTimeouts(timeoutRepository.findFirstTimeout(), beginTime);
+  }
+
+  private void abortExpiredTimeouts() {
+    long beginTime = System.currentTimeMillis();
+    abortTimeouts(timeoutTracker.expire(beginTime), beginTime);
+  }
+
+  private void abortTimeouts(List<TxTimeout> timeouts, long beginTime) {
+    List<TxEvent> compensations = new ArrayList<>(timeouts.size());
+    timeouts.forEach(timeout -> {
       LOG.info("Found timeout event {} to abort", timeout);
 
       eventRepository.save(toTxAbortedEvent(timeout));
 
       if (timeout.type().equals(TxStartedEvent.name())) {
         eventRepository.findTxStartedEvent(timeout.globalTxId(), timeout.localTxId())
-            .ifPresent(omegaCallback::compensate);
+            .ifPresent(compensations::add);
       }
     });
+    dispatchCompensations(compensations);
+    if (!timeouts.isEmpty()) {
+      metrics.doTimeoutAborted(timeouts.size(), System.currentTimeMillis() - beginTime);
+    }
   }
 
   private void updateTransactionStatus() {
@@ -163,7 +225,11 @@ public class EventScanner implements Runnable {
   }
 
   private void markSagaEnded(TxEvent event) {
-    if (commandRepository.findUncompletedCommands(event.globalTxId()).isEmpty()) {
+    // the compensation queues also keep the PENDING commands of the compensations in flight
+    boolean completed = compensationDispatcher == null
+        ? commandRepository.findUncompletedCommands(event.globalTxId()).isEmpty()
+        : !commandRepository.hasUncompletedCommands(event.globalTxId());
+    if (completed) {
       markGlobalTxEndWithEvent(event);
     }
   }
@@ -202,14 +268,38 @@ public class EventScanner implements Runnable {
   }
   
   private void compensate() {
-    commandRepository.findFirstCommandToCompensate()
-        .forEach(command -> {
-          LOG.info("Compensating transaction with globalTxId {} and localTxId {}",
-              command.globalTxId(),
-              command.localTxId());
+    long beginTime = System.currentTimeMillis();
+    List<Command> commands = commandRepository.findFirstCommandToCompensate();
+    List<TxEvent> compensations = new ArrayList<>(commands.size());
+    commands.forEach(command -> {
+      LOG.info("Compensating transaction with globalTxId {} and localTxId {}",
+          command.globalTxId(),
+          command.localTxId());
+
+      compensations.add(txStartedEventOf(command));
+    });
+    dispatchCompensations(compensations);
+    if (!commands.isEmpty()) {
+      metrics.doCompensationSent(commands.size(), System.currentTimeMillis() - beginTime);
+    }
+  }
 
-          omegaCallback.compensate(txStartedEventOf(command));
-        });
+  // the compensations bound for the same omega instance are gang sent, the commands picked in one batch belong to
+  // different global transactions and the compensations of timeout events have no ordering constraint
+  private void dispatchCompensations(List<TxEvent> compensations) {
+    if (compensations.isEmpty()) {
+      return;
+    }
+    List<CompletableFuture<Void>> sent = omegaCallback.compensateAllAsync(compensations);
+    for (int i = 0; i < sent.size(); i++) {
+      TxEvent event = compensations.get(i);
+      sent.get(i).whenComplete((result, e) -> {
+        if (e != null) {
+          LOG.warn("Failed to compensate transaction with globalTxId {} and localTxId {}", event.globalTxId(),
+              event.localTxId(), e);
+        }
+      });
+    }
   }
 
   private TxEvent txStartedEventOf(Command command) {
@@ -236,4 +326,93 @@ public class EventScanner implements Runnable {
         event.expiryTime(),
         TaskStatus.NEW.name());
   }
+
+  public static final class Builder {
+
+    private ScheduledExecutorService scheduler;
+    private TxEventRepository eventRepository;
+    private CommandRepository commandRepository;
+    private TxTimeoutRepository timeoutRepository;
+    private OmegaCallback omegaCallback;
+    private int eventPollingInterval;
+    private NodeStatus nodeStatus;
+    private EventScannerMetrics metrics = new EventScannerMetrics();
+    private ScannerPartitions partitions;
+    private TxTimeoutTracker timeoutTracker;
+    private CompensationDispatcher compensationDispatcher;
+
+    private Builder() {
+    }
+
+    public Builder scheduler(ScheduledExecutorService scheduler) {
+      this.scheduler = scheduler;
+      return this;
+    }
+
+    public Builder eventRepository(TxEventRepository eventRepository) {
+      this.eventRepository = eventRepository;
+      return this;
+    }
+
+    public Builder commandRepository(CommandRepository commandRepository) {
+      this.commandRepository = commandRepository;
+      return this;
+    }
+
+    public Builder timeoutRepository(TxTimeoutRepository timeoutRepository) {
+      this.timeoutRepository = timeoutRepository;
+      return this;
+    }
+
+    public Builder omegaCallback(OmegaCallback omegaCallback) {
+      this.omegaCallback = omegaCallback;
+      return this;
+    }
+
+    public Builder eventPollingInterval(int eventPollingInterval) {
+      this.eventPollingInterval = eventPollingInterval;
+      return this;
+    }
+
+    public Builder nodeStatus(NodeStatus nodeStatus) {
+      this.nodeStatus = nodeStatus;
+      return this;
+    }
+
+    public Builder metrics(EventScannerMetrics metrics) {
+      this.metrics = metrics;
+      return this;
+    }
+
+    /**
+     * @param partitions the partitions owned by this node when the work is partitioned across the alpha cluster,
+     * the repositories only return the rows of these partitions
+     */
+    public Builder partitions(ScannerPartitions partitions) {
+      this.partitions = partitions;
+      return this;
+    }
+
+    /**
+     * @param timeoutTracker the in-memory tracker of the timeouts of the events saved on this node, the timeout
+     * events are polled from the database if it is null
+     */
+    public Builder timeoutTracker(TxTimeoutTracker timeoutTracker) {
+      this.timeoutTracker = timeoutTracker;
+      return this;
+    }
+
+    /**
+     * @param compensationDispatcher the per global transaction queues sending the compensations, the commands to
+     * compensate are picked from the Command table on every polling if it is null
+     */
+    public Builder compensationDispatcher(CompensationDispatcher compensationDispatcher) {
+      this.compensationDispatcher = compensationDispatcher;
+      return this;
+    }
+
+    public EventScanner build() {
+      return new EventScanner(this);
+    }
+  }
 }
@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.servicecomb.pack.alpha.core;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * {@link TxEventRepository} which keeps an in-memory index such as the {@link AbortedTxIndex} up to date
+ * with every saved event, including the events written by the alpha itself such as the aborts of timeout
+ * transactions.
+ */
+public class IndexedTxEventRepository implements TxEventRepository {
+
+  private final TxEventRepository eventRepository;
+
+  private final TxEventListener listener;
+
+  public IndexedTxEventRepository(TxEventRepository eventRepository, TxEventListener listener) {
+    this.eventRepository = eventRepository;
+    this.listener = listener;
+  }
+
+  @Override
+  public void save(TxEvent event) {
+    eventRepository.save(event);
+    listener.onEventSaved(event);
+  }
+
+  @Override
+  public Optional<List<TxEvent>> findFirstAbortedGlobalTransaction() {
+    return eventRepository.findFirstAbortedGlobalTransaction();
+  }
+
+  @Override
+  public List<TxEvent> findTimeoutEvents() {
+    return eventRepository.findTimeoutEvents();
+  }
+
+  @Override
+  public List<TxEvent> findPendingTimeoutEvents(long id, int limit) {
+    return eventRepository.findPendingTimeoutEvents(id, limit);
+  }
+
+  @Override
+  public Optional<TxEvent> findTxStartedEvent(String globalTxId, String localTxId) {
+    return eventRepository.findTxStartedEvent(globalTxId, localTxId);
+  }
+
+  @Override
+  public List<TxEvent> findTransactions(String globalTxId, String type) {
+    return eventRepository.findTransactions(globalTxId, type);
+  }
+
+  @Override
+  public List<String> findAbortedGlobalTxIds(Date since, int limit) {
+    return eventRepository.findAbortedGlobalTxIds(since, limit);
+  }
+
+  @Override
+  public List<TxEvent> findByGlobalTxId(String globalTxId) {
+    return eventRepository.findByGlobalTxId(globalTxId);
+  }
+
+  @Override
+  public List<TxEvent> findFirstUncompensatedEventByIdGreaterThan(long id, String type) {
+    return eventRepository.findFirstUncompensatedEventByIdGreaterThan(id, type);
+  }
+
+  @Override
+  public List<TxEvent> findFirstCompensatedEventByIdGreaterThan(long id) {
+    return eventRepository.findFirstCompensatedEventByIdGreaterThan(id);
+  }
+}
@@ -0,0 +1,49 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.servicecomb.pack.alpha.core;
+
+import static org.apache.servicecomb.pack.alpha.core.ConsistentHashOmegaCallbackPicker.weight;
+
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.function.ToIntFunction;
+
+/**
+ * Picks the instance with the fewest compensations in flight, the ties are broken by the
+ * consistent hash of the global transaction id.
+ */
+public class LeastInFlightOmegaCallbackPicker implements OmegaCallbackPicker {
+
+  @Override
+  public <T> T pick(String globalTxId, Map<String, T> callbacks, ToIntFunction<T> inFlight) {
+    T picked = null;
+    int pickedInFlight = 0;
+    int pickedWeight = 0;
+    for (Entry<String, T> entry : callbacks.entrySet()) {
+      int count = inFlight.applyAsInt(entry.getValue());
+      int weight = weight(globalTxId, entry.getKey());
+      if (picked == null || count < pickedInFlight || (count == pickedInFlight && weight > pickedWeight)) {
+        picked = entry.getValue();
+        pickedInFlight = count;
+        pickedWeight = weight;
+      }
+    }
+    return picked;
+  }
+}
@@ -17,18 +17,59 @@
 
 package org.apache.servicecomb.pack.alpha.core;
 
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
 import org.apache.servicecomb.pack.alpha.core.fsm.CompensateAckType;
 
 public interface OmegaCallback {
   void compensate(TxEvent event);
 
+  /**
+   * Send the compensation without waiting for its ack.
+   *
+   * @return the future completed when the compensation is acknowledged by omega
+   */
+  default CompletableFuture<Void> compensateAsync(TxEvent event) {
+    CompletableFuture<Void> future = new CompletableFuture<>();
+    try {
+      compensate(event);
+      future.complete(null);
+    } catch (Exception e) {
+      future.completeExceptionally(e);
+    }
+    return future;
+  }
+
+  /**
+   * Send the compensations in the listed order, the ones bound for the same omega instance may be
+   * delivered in one message.
+   *
+   * @return the futures of the compensations in the same order as the events
+   */
+  default List<CompletableFuture<Void>> compensateAllAsync(List<TxEvent> events) {
+    return events.stream().map(this::compensateAsync).collect(Collectors.toList());
+  }
+
   default void disconnect() {
   }
 
   default void getAck(CompensateAckType type) {
   }
 
+  default void getAck(String globalTxId, String localTxId, CompensateAckType type) {
+    getAck(type);
+  }
+
   default boolean isWaiting() {
     return false;
   }
+
+  /**
+   * @return the number of the compensations sent to the omega which are not acknowledged yet
+   */
+  default int inFlight() {
+    return isWaiting() ? 1 : 0;
+  }
 }
@@ -0,0 +1,37 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.servicecomb.pack.alpha.core;
+
+import java.util.Map;
+import java.util.function.ToIntFunction;
+
+/**
+ * Picks another omega instance of the service when the instance which started the transaction is
+ * gone, so that the orphaned compensations are spread over the remaining instances.
+ */
+public interface OmegaCallbackPicker {
+
+  /**
+   * @param globalTxId global transaction id of the compensation
+   * @param callbacks callbacks of the service keyed by instance id, they are iterated in place
+   * @param inFlight number of the compensations in flight of a callback
+   * @return the picked callback or null if there is none
+   */
+  <T> T pick(String globalTxId, Map<String, T> callbacks, ToIntFunction<T> inFlight);
+}
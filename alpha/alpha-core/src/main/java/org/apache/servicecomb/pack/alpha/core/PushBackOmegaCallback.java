@@ -20,7 +20,10 @@ package org.apache.servicecomb.pack.alpha.core;
 import static org.apache.servicecomb.pack.common.EventType.TxCompensateEvent;
 
 import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -51,6 +54,37 @@ public class PushBackOmegaCallback implements OmegaCallback {
     }
   }
 
+  @Override
+  public CompletableFuture<Void> compensateAsync(TxEvent event) {
+    if (event.type().equals(TxCompensateEvent.name())) {
+      // actor call compensate, the actor retries by itself
+      return underlying.compensateAsync(event);
+    }
+    return OmegaCallback.super.compensateAsync(event);
+  }
+
+  @Override
+  public List<CompletableFuture<Void>> compensateAllAsync(List<TxEvent> events) {
+    List<CompletableFuture<Void>> sent = underlying.compensateAllAsync(events);
+    List<CompletableFuture<Void>> futures = new ArrayList<>(sent.size());
+    for (int i = 0; i < sent.size(); i++) {
+      TxEvent event = events.get(i);
+      if (event.type().equals(TxCompensateEvent.name())) {
+        futures.add(sent.get(i));
+      } else {
+        // same as compensate, the failed ones are pushed back and retried later
+        futures.add(sent.get(i).handle((result, e) -> {
+          if (e != null) {
+            logError(event, e instanceof Exception ? (Exception) e : new RuntimeException(e));
+            pendingCompensations.offer(() -> compensate(event));
+          }
+          return null;
+        }));
+      }
+    }
+    return futures;
+  }
+
   private void logError(TxEvent event, Exception e) {
     LOG.error(
         "Failed to {} service [{}] instance [{}] with method [{}], global tx id [{}] and local tx id [{}]",
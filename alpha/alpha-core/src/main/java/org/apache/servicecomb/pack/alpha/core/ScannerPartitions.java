@@ -0,0 +1,134 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.servicecomb.pack.alpha.core;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The partitions of the {@link EventScanner} work owned by this alpha node. A global transaction belongs to the
+ * partition of its partition key modulo the partition count, the key is a hash of the whole globalTxId stored with
+ * the events, commands and timeouts when they are created. The partitions are spread over the live alpha members
+ * in round robin, so the member at position <code>index</code> among <code>members</code> owns the global
+ * transactions matching <code>MOD(MOD(COALESCE(partitionKey, 0), count), members) = index</code>, which the
+ * repositories evaluate in SQL. Rows stored before the key was introduced belong to the partition 0.
+ */
+public class ScannerPartitions {
+
+  private final int partitionCount;
+
+  private volatile Assignment assignment = new Assignment(-1, 0, 0);
+
+  public ScannerPartitions(int partitionCount) {
+    this.partitionCount = partitionCount;
+  }
+
+  public int partitionCount() {
+    return partitionCount;
+  }
+
+  /**
+   * @return the position of this node among the live members, -1 if it owns no partition
+   */
+  public int memberIndex() {
+    return assignment.memberIndex;
+  }
+
+  public int memberCount() {
+    return assignment.memberCount;
+  }
+
+  /**
+   * @return a number increased on every change of the owned partitions
+   */
+  public long generation() {
+    return assignment.generation;
+  }
+
+  public boolean isAssigned() {
+    return assignment.memberIndex >= 0;
+  }
+
+  public List<Integer> ownedPartitions() {
+    Assignment current = assignment;
+    List<Integer> partitions = new ArrayList<>();
+    if (current.memberIndex >= 0) {
+      for (int partition = current.memberIndex; partition < partitionCount; partition += current.memberCount) {
+        partitions.add(partition);
+      }
+    }
+    return partitions;
+  }
+
+  public boolean owns(String globalTxId) {
+    Assignment current = assignment;
+    return current.memberIndex >= 0
+        && partitionOf(globalTxId, partitionCount) % current.memberCount == current.memberIndex;
+  }
+
+  /**
+   * Take over the partitions of the member at <code>memberIndex</code> among <code>memberCount</code> live members,
+   * a negative index releases all the partitions.
+   *
+   * @return true if the owned partitions changed
+   */
+  public synchronized boolean rebalance(int memberIndex, int memberCount) {
+    Assignment current = assignment;
+    int index = memberIndex < 0 || memberCount <= 0 ? -1 : memberIndex;
+    int count = index < 0 ? 0 : memberCount;
+    if (current.memberIndex == index && current.memberCount == count) {
+      return false;
+    }
+    assignment = new Assignment(index, count, current.generation + 1);
+    return true;
+  }
+
+  static int partitionOf(String globalTxId, int partitionCount) {
+    return partitionKeyOf(globalTxId) % partitionCount;
+  }
+
+  /**
+   * @return the non negative partition key of the global transaction, null if it has no id
+   */
+  public static Integer partitionKeyOf(String globalTxId) {
+    if (globalTxId == null) {
+      return null;
+    }
+    // the finalizer of murmur3 spreads every character of the id over the key
+    int hash = globalTxId.hashCode();
+    hash ^= hash >>> 16;
+    hash *= 0x85ebca6b;
+    hash ^= hash >>> 13;
+    hash *= 0xc2b2ae35;
+    hash ^= hash >>> 16;
+    return hash & Integer.MAX_VALUE;
+  }
+
+  private static class Assignment {
+    private final int memberIndex;
+    private final int memberCount;
+    private final long generation;
+
+    Assignment(int memberIndex, int memberCount, long generation) {
+      this.memberIndex = memberIndex;
+      this.memberCount = memberCount;
+      this.generation = generation;
+    }
+  }
+}
@@ -0,0 +1,171 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.servicecomb.pack.alpha.core;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Hierarchical timing wheel. The lowest wheel holds the timeouts expiring within
+ * <code>tickMillis * wheelSize</code>, the later ones go to the overflow wheels whose tick is the whole
+ * interval of the wheel below, and they are cascaded down as the clock advances. Scheduling and
+ * cancelling are O(1), the clock is advanced by the caller.
+ */
+class TimingWheel<T> {
+
+  private final Wheel<T> wheel;
+
+  private final List<Timeout<T>> expired = new ArrayList<>();
+
+  private int size;
+
+  TimingWheel(long tickMillis, int wheelSize, long startMillis) {
+    this.wheel = new Wheel<>(tickMillis, wheelSize, startMillis);
+  }
+
+  synchronized Timeout<T> schedule(T value, long expiration) {
+    Timeout<T> timeout = new Timeout<>(value, expiration);
+    if (!wheel.place(timeout)) {
+      expired.add(timeout);
+    }
+    size++;
+    return timeout;
+  }
+
+  synchronized void cancel(Timeout<T> timeout) {
+    if (timeout.cancelled) {
+      return;
+    }
+    timeout.cancelled = true;
+    if (timeout.bucket == null || !timeout.bucket.remove(timeout)) {
+      expired.remove(timeout);
+    }
+    timeout.bucket = null;
+    size--;
+  }
+
+  /**
+   * Advance the clock to param <code>now</code>.
+   *
+   * @return the values of the timeouts expired up to now
+   */
+  synchronized List<T> advance(long now) {
+    while (wheel.currentTime + wheel.tickMillis <= now) {
+      expired.addAll(wheel.drainCurrentBucket());
+      wheel.currentTime += wheel.tickMillis;
+      if (wheel.currentTime % wheel.interval == 0 && wheel.overflow != null) {
+        for (Timeout<T> timeout : wheel.overflow.advance(wheel.currentTime)) {
+          if (!wheel.place(timeout)) {
+            expired.add(timeout);
+          }
+        }
+      }
+    }
+    List<T> values = new ArrayList<>(expired.size());
+    for (Timeout<T> timeout : expired) {
+      timeout.cancelled = true;
+      values.add(timeout.value);
+    }
+    size -= expired.size();
+    expired.clear();
+    return values;
+  }
+
+  synchronized int size() {
+    return size;
+  }
+
+  static final class Timeout<T> {
+    private final T value;
+    private final long expiration;
+    private Set<Timeout<T>> bucket;
+    private boolean cancelled;
+
+    private Timeout(T value, long expiration) {
+      this.value = value;
+      this.expiration = expiration;
+    }
+
+    T value() {
+      return value;
+    }
+
+    long expiration() {
+      return expiration;
+    }
+  }
+
+  private static final class Wheel<T> {
+    private final long tickMillis;
+    private final int wheelSize;
+    private final long interval;
+    private final List<Set<Timeout<T>>> buckets;
+    private long currentTime;
+    private Wheel<T> overflow;
+
+    Wheel(long tickMillis, int wheelSize, long startMillis) {
+      this.tickMillis = tickMillis;
+      this.wheelSize = wheelSize;
+      this.interval = tickMillis * wheelSize;
+      this.currentTime = startMillis - startMillis % tickMillis;
+      this.buckets = new ArrayList<>(wheelSize);
+      for (int i = 0; i < wheelSize; i++) {
+        buckets.add(new LinkedHashSet<>());
+      }
+    }
+
+    // false if the timeout is already expired
+    boolean place(Timeout<T> timeout) {
+      if (timeout.expiration < currentTime) {
+        return false;
+      }
+      if (timeout.expiration < currentTime + interval) {
+        Set<Timeout<T>> bucket = buckets.get((int) ((timeout.expiration / tickMillis) % wheelSize));
+        bucket.add(timeout);
+        timeout.bucket = bucket;
+        return true;
+      }
+      if (overflow == null) {
+        overflow = new Wheel<>(interval, wheelSize, currentTime);
+      }
+      return overflow.place(timeout);
+    }
+
+    // move to the tick starting at param time and hand over its timeouts to the wheel below
+    List<Timeout<T>> advance(long time) {
+      currentTime = time;
+      if (currentTime % interval == 0 && overflow != null) {
+        for (Timeout<T> timeout : overflow.advance(currentTime)) {
+          place(timeout);
+        }
+      }
+      return drainCurrentBucket();
+    }
+
+    List<Timeout<T>> drainCurrentBucket() {
+      Set<Timeout<T>> bucket = buckets.get((int) ((currentTime / tickMillis) % wheelSize));
+      List<Timeout<T>> timeouts = new ArrayList<>(bucket);
+      bucket.clear();
+      timeouts.forEach(timeout -> timeout.bucket = null);
+      return timeouts;
+    }
+  }
+}
@@ -25,6 +25,7 @@ import java.lang.invoke.MethodHandles;
 import java.util.Arrays;
 import java.util.List;
 
+import org.apache.servicecomb.pack.alpha.core.state.SagaStateEngine;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -34,11 +35,27 @@ public class TxConsistentService {
 
   private final TxEventRepository eventRepository;
 
+  private final SagaStateEngine stateEngine;
+
+  private final AbortedTxIndex abortedTxIndex;
+
   private final List<String> types = Arrays.asList(TxStartedEvent.name(), SagaEndedEvent.name());
 
   public TxConsistentService(TxEventRepository eventRepository) {
+    this(eventRepository, null);
+  }
+
+  public TxConsistentService(TxEventRepository eventRepository, SagaStateEngine stateEngine) {
+    this(eventRepository, stateEngine, null);
+  }
+
+  public TxConsistentService(TxEventRepository eventRepository, SagaStateEngine stateEngine,
+      AbortedTxIndex abortedTxIndex) {
     this.eventRepository = eventRepository;
+    this.stateEngine = stateEngine;
+    this.abortedTxIndex = abortedTxIndex;
   }
+
   public boolean handle(TxEvent event) {
     if (types.contains(event.type()) && isGlobalTxAborted(event)) {
       LOG.info("Transaction event {} rejected, because its parent with globalTxId {} was already aborted",
@@ -48,10 +65,17 @@ public class TxConsistentService {
 
     eventRepository.save(event);
 
+    if (stateEngine != null) {
+      stateEngine.onEvent(event);
+    }
+
     return true;
   }
 
   private boolean isGlobalTxAborted(TxEvent event) {
+    if (abortedTxIndex != null) {
+      return abortedTxIndex.isAborted(event.globalTxId());
+    }
     return !eventRepository.findTransactions(event.globalTxId(), TxAbortedEvent.name()).isEmpty();
   }
 }
@@ -42,6 +42,7 @@ public class TxEvent {
   private String instanceId;
   private Date creationTime;
   private String globalTxId;
+  private Integer partitionKey;
   private String localTxId;
   private String parentTxId;
   private String type;
@@ -155,6 +156,7 @@ public class TxEvent {
     this.instanceId = instanceId;
     this.creationTime = creationTime;
     this.globalTxId = globalTxId;
+    this.partitionKey = ScannerPartitions.partitionKeyOf(globalTxId);
     this.localTxId = localTxId;
     this.parentTxId = parentTxId;
     this.type = type;
@@ -181,6 +183,10 @@ public class TxEvent {
     return globalTxId;
   }
 
+  public Integer partitionKey() {
+    return partitionKey;
+  }
+
   public String localTxId() {
     return localTxId;
   }
@@ -17,6 +17,7 @@
 
 package org.apache.servicecomb.pack.alpha.core;
 
+import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 import org.apache.servicecomb.pack.common.EventType;
@@ -27,7 +28,8 @@ import org.apache.servicecomb.pack.common.EventType;
 public interface TxEventRepository {
 
   /**
-   * Save a {@link TxEvent}.
+   * Save a {@link TxEvent}. A global transaction keeps a single {@link EventType#SagaEndedEvent}, a later one
+   * replaces the earlier.
    *
    * @param event
    */
@@ -57,6 +59,22 @@ public interface TxEventRepository {
    */
   List<TxEvent> findTimeoutEvents();
 
+  /**
+   * Find {@link TxEvent}s which will time out or have timed out, ordered by {@link TxEvent#surrogateId}:
+   *
+   * <ol>
+   *  <li>{@link TxEvent#type} is {@link EventType#TxStartedEvent} or {@link EventType#SagaStartedEvent}</li>
+   *  <li>{@link TxEvent#expiryTime} is set</li>
+   *  <li>{@link TxEvent#surrogateId} greater than param <code>id</code></li>
+   *  <li>There are no corresponding {@link TxEvent} which type is <code>TxEndedEvent</code> or <code>SagaEndedEvent</code></li>
+   * </ol>
+   *
+   * @param id
+   * @param limit max number of events to return
+   * @return
+   */
+  List<TxEvent> findPendingTimeoutEvents(long id, int limit);
+
   /**
    * Find a {@link TxEvent} which satisfies below requirements:
    * <ol>
@@ -84,6 +102,24 @@ public interface TxEventRepository {
    */
   List<TxEvent> findTransactions(String globalTxId, String type);
 
+  /**
+   * Find the globalTxIds of the global transactions which got an unretryable {@link EventType#TxAbortedEvent}
+   * created after param <code>since</code>.
+   *
+   * @param since earliest creation time of the aborted events
+   * @param limit max number of globalTxIds to return
+   * @return
+   */
+  List<String> findAbortedGlobalTxIds(Date since, int limit);
+
+  /**
+   * Find all the {@link TxEvent}s of a global transaction in the order of persistence.
+   *
+   * @param globalTxId globalTxId to search for
+   * @return
+   */
+  List<TxEvent> findByGlobalTxId(String globalTxId);
+
   /**
    * Find a {@link TxEvent} which satisfies below requirements:
    * <ol>
@@ -100,7 +136,8 @@ public interface TxEventRepository {
   List<TxEvent> findFirstUncompensatedEventByIdGreaterThan(long id, String type);
 
   /**
-   * Find a {@link TxEvent} which satisfies below requirements:
+   * Find {@link TxEvent}s which satisfy below requirements, up to the configured batch size and ordered by
+   * {@link TxEvent#surrogateId}:
    *
    * <ol>
    *   <li>{@link TxEvent#type} equals to {@link EventType#TxCompensatedEvent}</li>
@@ -110,12 +147,5 @@ public interface TxEventRepository {
    * @param id
    * @return
    */
-  Optional<TxEvent> findFirstCompensatedEventByIdGreaterThan(long id);
-
-  /**
-   * Delete duplicated {@link TxEvent}s which {@link TxEvent#type} equals param <code>type</code>.
-   *
-   * @param type event type
-   */
-  void deleteDuplicateEvents(String type);
+  List<TxEvent> findFirstCompensatedEventByIdGreaterThan(long id);
 }
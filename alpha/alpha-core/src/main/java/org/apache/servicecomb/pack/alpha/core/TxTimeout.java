@@ -37,6 +37,7 @@ public class TxTimeout {
   private String serviceName;
   private String instanceId;
   private String globalTxId;
+  private Integer partitionKey;
   private String localTxId;
   private String parentTxId;
   private String type;
@@ -55,6 +56,7 @@ public class TxTimeout {
     this.serviceName = serviceName;
     this.instanceId = instanceId;
     this.globalTxId = globalTxId;
+    this.partitionKey = ScannerPartitions.partitionKeyOf(globalTxId);
     this.localTxId = localTxId;
     this.parentTxId = parentTxId;
     this.type = type;
@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.servicecomb.pack.alpha.core;
+
+import static org.apache.servicecomb.pack.common.EventType.SagaStartedEvent;
+import static org.apache.servicecomb.pack.common.EventType.TxStartedEvent;
+
+import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.servicecomb.pack.alpha.core.TimingWheel.Timeout;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * In-memory tracker of the saga and sub transaction timeouts, it replaces the polling of the TxEvent and
+ * TxTimeout tables by the {@link EventScanner}. The timeout of a started event is scheduled on a
+ * {@link TimingWheel} when the event is saved, and cancelled when any other event of the same
+ * globalTxId and localTxId is saved. The pending timeouts are only reloaded from the
+ * {@link TxEventRepository} when alpha starts.
+ *
+ * All the events of a global transaction need to reach the same alpha instance.
+ */
+public class TxTimeoutTracker implements TxEventListener {
+  private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  private static final int RECOVERY_PAGE_SIZE = 1000;
+
+  private final Map<String, Timeout<TxTimeout>> timeouts = new ConcurrentHashMap<>();
+
+  private final TimingWheel<TxTimeout> wheel;
+
+  public TxTimeoutTracker(long tickMillis, int wheelSize) {
+    this.wheel = new TimingWheel<>(tickMillis, wheelSize, System.currentTimeMillis());
+  }
+
+  /**
+   * Schedule the timeouts of the started events which are not finished yet.
+   */
+  public void recover(TxEventRepository eventRepository) {
+    long id = 0;
+    List<TxEvent> events;
+    do {
+      events = eventRepository.findPendingTimeoutEvents(id, RECOVERY_PAGE_SIZE);
+      for (TxEvent event : events) {
+        id = event.id();
+        onEventSaved(event);
+      }
+    } while (events.size() == RECOVERY_PAGE_SIZE);
+    LOG.info("Recovered {} pending transaction timeouts", timeouts.size());
+  }
+
+  @Override
+  public void onEventSaved(TxEvent event) {
+    String key = keyOf(event.globalTxId(), event.localTxId());
+    if (isStartedEvent(event.type())) {
+      if (event.expiryTime().getTime() < TxEvent.MAX_TIMESTAMP) {
+        // a retried sub transaction replaces the timeout of the previous attempt
+        timeouts.compute(key, (k, previous) -> {
+          if (previous != null) {
+            wheel.cancel(previous);
+          }
+          return wheel.schedule(txTimeoutOf(event), event.expiryTime().getTime());
+        });
+      }
+    } else {
+      Timeout<TxTimeout> timeout = timeouts.remove(key);
+      if (timeout != null) {
+        wheel.cancel(timeout);
+      }
+    }
+  }
+
+  /**
+   * @return the timeouts expired up to param <code>now</code>, each of them is returned only once
+   */
+  public List<TxTimeout> expire(long now) {
+    List<TxTimeout> expired = wheel.advance(now);
+    List<TxTimeout> results = new ArrayList<>(expired.size());
+    for (TxTimeout timeout : expired) {
+      String key = keyOf(timeout.globalTxId(), timeout.localTxId());
+      // skip the timeouts which are replaced or finished meanwhile
+      Timeout<TxTimeout> current = timeouts.get(key);
+      if (current != null && current.value() == timeout && timeouts.remove(key, current)) {
+        results.add(timeout);
+      }
+    }
+    return results;
+  }
+
+  public int size() {
+    return timeouts.size();
+  }
+
+  private static boolean isStartedEvent(String type) {
+    return TxStartedEvent.name().equals(type) || SagaStartedEvent.name().equals(type);
+  }
+
+  private static String keyOf(String globalTxId, String localTxId) {
+    return globalTxId + '/' + localTxId;
+  }
+
+  // the tracked timeouts are never persisted, the id of the event is not needed
+  private static TxTimeout txTimeoutOf(TxEvent event) {
+    return new TxTimeout(
+        0L,
+        event.serviceName(),
+        event.instanceId(),
+        event.globalTxId(),
+        event.localTxId(),
+        event.parentTxId(),
+        event.type(),
+        event.expiryTime(),
+        TaskStatus.NEW.name());
+  }
+}
@@ -0,0 +1,71 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.servicecomb.pack.alpha.core.fsm.event.internal;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.base.TxEvent;
+
+/**
+ * Sent by the saga actor to itself when an asynchronous compensation call fails.
+ */
+public class CompensateFailedEvent extends TxEvent {
+
+  private Throwable cause;
+
+  @JsonIgnore
+  public Throwable getCause() {
+    return cause;
+  }
+
+  public void setCause(Throwable cause) {
+    this.cause = cause;
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  public static final class Builder {
+
+    private CompensateFailedEvent compensateFailedEvent;
+
+    private Builder() {
+      compensateFailedEvent = new CompensateFailedEvent();
+    }
+
+    public Builder globalTxId(String globalTxId) {
+      compensateFailedEvent.setGlobalTxId(globalTxId);
+      return this;
+    }
+
+    public Builder localTxId(String localTxId) {
+      compensateFailedEvent.setLocalTxId(localTxId);
+      return this;
+    }
+
+    public Builder cause(Throwable cause) {
+      compensateFailedEvent.setCause(cause);
+      return this;
+    }
+
+    public CompensateFailedEvent build() {
+      return compensateFailedEvent;
+    }
+  }
+}
@@ -0,0 +1,70 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.servicecomb.pack.alpha.core.fsm.event.internal;
+
+import org.apache.servicecomb.pack.alpha.core.fsm.event.base.TxEvent;
+
+/**
+ * Scheduled by the saga actor to itself to retry a failed compensation after the retry delay.
+ */
+public class CompensateRetryEvent extends TxEvent {
+
+  // the retry attempt of the compensation, starting from 1
+  private int attempt;
+
+  public int getAttempt() {
+    return attempt;
+  }
+
+  public void setAttempt(int attempt) {
+    this.attempt = attempt;
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  public static final class Builder {
+
+    private CompensateRetryEvent compensateRetryEvent;
+
+    private Builder() {
+      compensateRetryEvent = new CompensateRetryEvent();
+    }
+
+    public Builder globalTxId(String globalTxId) {
+      compensateRetryEvent.setGlobalTxId(globalTxId);
+      return this;
+    }
+
+    public Builder localTxId(String localTxId) {
+      compensateRetryEvent.setLocalTxId(localTxId);
+      return this;
+    }
+
+    public Builder attempt(int attempt) {
+      compensateRetryEvent.setAttempt(attempt);
+      return this;
+    }
+
+    public CompensateRetryEvent build() {
+      return compensateRetryEvent;
+    }
+  }
+}
@@ -21,6 +21,9 @@ import org.apache.servicecomb.pack.alpha.core.NodeStatus.TypeEnum;
 
 public class AlphaMetrics {
   private MetricsBean metrics;
+  private EventScannerMetrics eventScannerMetrics;
+  private GroupCommitMetrics groupCommitMetrics;
+  private ShardMetrics shardMetrics;
   private TypeEnum nodeType;
 
   public MetricsBean getMetrics() {
@@ -31,6 +34,30 @@ public class AlphaMetrics {
     this.metrics = metrics;
   }
 
+  public EventScannerMetrics getEventScannerMetrics() {
+    return eventScannerMetrics;
+  }
+
+  public void setEventScannerMetrics(EventScannerMetrics eventScannerMetrics) {
+    this.eventScannerMetrics = eventScannerMetrics;
+  }
+
+  public GroupCommitMetrics getGroupCommitMetrics() {
+    return groupCommitMetrics;
+  }
+
+  public void setGroupCommitMetrics(GroupCommitMetrics groupCommitMetrics) {
+    this.groupCommitMetrics = groupCommitMetrics;
+  }
+
+  public ShardMetrics getShardMetrics() {
+    return shardMetrics;
+  }
+
+  public void setShardMetrics(ShardMetrics shardMetrics) {
+    this.shardMetrics = shardMetrics;
+  }
+
   public TypeEnum getNodeType() {
     return nodeType;
   }
@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.servicecomb.pack.alpha.core.metrics;
+
+import com.google.common.util.concurrent.AtomicDouble;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Throughput of each stage of the {@link org.apache.servicecomb.pack.alpha.core.EventScanner}, the counters are
+ * the number of rows handled by the stage and the average time is the moving average of one stage run.
+ */
+public class EventScannerMetrics {
+
+  private AtomicLong timeoutFound = new AtomicLong();
+  private AtomicDouble timeoutFoundAvgTime = new AtomicDouble();//milliseconds moving average
+  private AtomicLong timeoutAborted = new AtomicLong();
+  private AtomicDouble timeoutAbortedAvgTime = new AtomicDouble();//milliseconds moving average
+  private AtomicLong commandSaved = new AtomicLong();
+  private AtomicDouble commandSavedAvgTime = new AtomicDouble();//milliseconds moving average
+  private AtomicLong compensationSent = new AtomicLong();
+  private AtomicDouble compensationSentAvgTime = new AtomicDouble();//milliseconds moving average
+  private AtomicLong compensationDone = new AtomicLong();
+  private AtomicDouble compensationDoneAvgTime = new AtomicDouble();//milliseconds moving average
+
+  public void doTimeoutFound(int size, long time) {
+    timeoutFound.getAndAdd(size);
+    movingAverage(timeoutFoundAvgTime, time);
+  }
+
+  public void doTimeoutAborted(int size, long time) {
+    timeoutAborted.getAndAdd(size);
+    movingAverage(timeoutAbortedAvgTime, time);
+  }
+
+  public void doCommandSaved(int size, long time) {
+    commandSaved.getAndAdd(size);
+    movingAverage(commandSavedAvgTime, time);
+  }
+
+  public void doCompensationSent(int size, long time) {
+    compensationSent.getAndAdd(size);
+    movingAverage(compensationSentAvgTime, time);
+  }
+
+  public void doCompensationDone(int size, long time) {
+    compensationDone.getAndAdd(size);
+    movingAverage(compensationDoneAvgTime, time);
+  }
+
+  private void movingAverage(AtomicDouble avgTime, long time) {
+    if (avgTime.get() == 0) {
+      avgTime.set(time);
+    } else {
+      avgTime.set((avgTime.get() + time) / 2);
+    }
+  }
+
+  public long getTimeoutFound() {
+    return timeoutFound.get();
+  }
+
+  public double getTimeoutFoundAvgTime() {
+    return round(timeoutFoundAvgTime);
+  }
+
+  public long getTimeoutAborted() {
+    return timeoutAborted.get();
+  }
+
+  public double getTimeoutAbortedAvgTime() {
+    return round(timeoutAbortedAvgTime);
+  }
+
+  public long getCommandSaved() {
+    return commandSaved.get();
+  }
+
+  public double getCommandSavedAvgTime() {
+    return round(commandSavedAvgTime);
+  }
+
+  public long getCompensationSent() {
+    return compensationSent.get();
+  }
+
+  public double getCompensationSentAvgTime() {
+    return round(compensationSentAvgTime);
+  }
+
+  public long getCompensationDone() {
+    return compensationDone.get();
+  }
+
+  public double getCompensationDoneAvgTime() {
+    return round(compensationDoneAvgTime);
+  }
+
+  private double round(AtomicDouble value) {
+    return (double) Math.round(value.get() * 100) / 100;
+  }
+}
@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.servicecomb.pack.alpha.core.metrics;
+
+import com.google.common.util.concurrent.AtomicDouble;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Metrics of the group commit of TxEvents, the batch size distribution counts the committed batches per
+ * size bucket and the average time is the moving average of one batch insert and commit.
+ */
+public class GroupCommitMetrics {
+
+  private static final int[] BUCKET_UPPER_BOUNDS = {1, 4, 16, 64, Integer.MAX_VALUE};
+  private static final String[] BUCKET_NAMES = {"1", "2-4", "5-16", "17-64", "65+"};
+
+  private AtomicLong batchCommitted = new AtomicLong();
+  private AtomicLong eventCommitted = new AtomicLong();
+  private AtomicLong batchFailed = new AtomicLong();
+  private AtomicDouble commitAvgTime = new AtomicDouble();//milliseconds moving average
+  private AtomicLongArray batchSizes = new AtomicLongArray(BUCKET_UPPER_BOUNDS.length);
+
+  public void doBatchCommitted(int size, long time) {
+    batchCommitted.incrementAndGet();
+    eventCommitted.getAndAdd(size);
+    batchSizes.incrementAndGet(bucketOf(size));
+    if (commitAvgTime.get() == 0) {
+      commitAvgTime.set(time);
+    } else {
+      commitAvgTime.set((commitAvgTime.get() + time) / 2);
+    }
+  }
+
+  public void doBatchFailed() {
+    batchFailed.incrementAndGet();
+  }
+
+  private int bucketOf(int size) {
+    int bucket = 0;
+    while (size > BUCKET_UPPER_BOUNDS[bucket]) {
+      bucket++;
+    }
+    return bucket;
+  }
+
+  public long getBatchCommitted() {
+    return batchCommitted.get();
+  }
+
+  public long getEventCommitted() {
+    return eventCommitted.get();
+  }
+
+  public long getBatchFailed() {
+    return batchFailed.get();
+  }
+
+  public double getCommitAvgTime() {
+    return (double) Math.round(commitAvgTime.get() * 100) / 100;
+  }
+
+  public Map<String, Long> getBatchSizeDistribution() {
+    Map<String, Long> distribution = new LinkedHashMap<>();
+    for (int i = 0; i < BUCKET_NAMES.length; i++) {
+      distribution.put(BUCKET_NAMES[i], batchSizes.get(i));
+    }
+    return distribution;
+  }
+}
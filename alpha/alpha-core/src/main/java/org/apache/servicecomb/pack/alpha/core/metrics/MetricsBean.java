@@ -33,6 +33,8 @@ public class MetricsBean {
   private AtomicLong sagaBeginCounter = new AtomicLong();
   private AtomicLong sagaEndCounter = new AtomicLong();
   private AtomicDouble sagaAvgTime = new AtomicDouble();//milliseconds moving average
+  private AtomicLong sagaRecoveryCounter = new AtomicLong();
+  private AtomicDouble sagaRecoveryAvgTime = new AtomicDouble();//milliseconds moving average
   private AtomicLong committed = new AtomicLong();
   private AtomicLong compensated = new AtomicLong();
   private AtomicLong suspended = new AtomicLong();
@@ -97,6 +99,18 @@ public class MetricsBean {
     }
   }
 
+  public void doSagaRecoveryCounter() {
+    sagaRecoveryCounter.incrementAndGet();
+  }
+
+  public void doSagaRecoveryAvgTime(long time) {
+    if (sagaRecoveryAvgTime.get() == 0) {
+      sagaRecoveryAvgTime.set(time);
+    } else {
+      sagaRecoveryAvgTime.set((sagaRecoveryAvgTime.get() + time) / 2);
+    }
+  }
+
   public void doCommitted() {
     committed.incrementAndGet();
   }
@@ -177,6 +191,14 @@ public class MetricsBean {
     return (double) Math.round(sagaAvgTime.get() * 100) / 100;
   }
 
+  public long getSagaRecoveryCounter() {
+    return sagaRecoveryCounter.get();
+  }
+
+  public double getSagaRecoveryAvgTime() {
+    return (double) Math.round(sagaRecoveryAvgTime.get() * 100) / 100;
+  }
+
   public long getRepositoryReceived() {
     return repositoryReceived.get();
   }
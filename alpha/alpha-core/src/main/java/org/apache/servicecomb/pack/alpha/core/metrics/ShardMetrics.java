@@ -0,0 +1,83 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.servicecomb.pack.alpha.core.metrics;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Metrics of the saga shards, the messages are the saga events routed by this node per shard, the
+ * message rate is the messages per second between the last two samples and the entities are the
+ * saga actors hosted by this node per shard.
+ */
+public class ShardMetrics {
+
+  private final Map<String, AtomicLong> messages = new ConcurrentHashMap<>();
+  private Map<String, Long> sampledMessages = new HashMap<>();
+  private long sampleTime;
+  private volatile Map<String, Double> messageRates = Collections.emptyMap();
+  private volatile Map<String, Integer> entities = Collections.emptyMap();
+
+  public void doMessageRouted(String shardId) {
+    messages.computeIfAbsent(shardId, k -> new AtomicLong()).incrementAndGet();
+  }
+
+  public synchronized void sample(long now) {
+    long elapsed = now - sampleTime;
+    if (elapsed <= 0) {
+      return;
+    }
+    Map<String, Long> current = new HashMap<>();
+    Map<String, Double> rates = new TreeMap<>();
+    messages.forEach((shardId, counter) -> {
+      long count = counter.get();
+      long previous = sampledMessages.getOrDefault(shardId, 0L);
+      current.put(shardId, count);
+      rates.put(shardId, (double) Math.round((count - previous) * 100000.0 / elapsed) / 100);
+    });
+    // the first sample is the baseline of the rates
+    if (sampleTime > 0) {
+      messageRates = Collections.unmodifiableMap(rates);
+    }
+    sampledMessages = current;
+    sampleTime = now;
+  }
+
+  public void setEntities(Map<String, Integer> entities) {
+    this.entities = Collections.unmodifiableMap(new TreeMap<>(entities));
+  }
+
+  public Map<String, Long> getMessages() {
+    Map<String, Long> snapshot = new TreeMap<>();
+    messages.forEach((shardId, counter) -> snapshot.put(shardId, counter.get()));
+    return snapshot;
+  }
+
+  public Map<String, Double> getMessageRates() {
+    return messageRates;
+  }
+
+  public Map<String, Integer> getEntities() {
+    return entities;
+  }
+}
@@ -0,0 +1,173 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.servicecomb.pack.alpha.core.state;
+
+import static org.apache.servicecomb.pack.common.EventType.SagaEndedEvent;
+import static org.apache.servicecomb.pack.common.EventType.SagaStartedEvent;
+import static org.apache.servicecomb.pack.common.EventType.TxAbortedEvent;
+import static org.apache.servicecomb.pack.common.EventType.TxCompensatedEvent;
+import static org.apache.servicecomb.pack.common.EventType.TxEndedEvent;
+import static org.apache.servicecomb.pack.common.EventType.TxStartedEvent;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Map;
+
+import org.apache.servicecomb.pack.alpha.core.TxEvent;
+
+/**
+ * In-memory state of one global transaction. It is built incrementally from the events of the
+ * global transaction, callers must synchronize on the instance.
+ */
+class GlobalTxState {
+
+  private final String globalTxId;
+
+  private final Map<String, SubTxState> subTransactions = new LinkedHashMap<>();
+
+  private TxEvent sagaStartedEvent;
+
+  private boolean aborted;
+
+  private boolean ended;
+
+  private String compensatingLocalTxId;
+
+  GlobalTxState(String globalTxId) {
+    this.globalTxId = globalTxId;
+  }
+
+  void apply(TxEvent event) {
+    if (SagaStartedEvent.name().equals(event.type())) {
+      sagaStartedEvent = event;
+    } else if (SagaEndedEvent.name().equals(event.type())) {
+      ended = true;
+    } else if (TxStartedEvent.name().equals(event.type())) {
+      subTransactions.computeIfAbsent(event.localTxId(), SubTxState::new).started(event);
+    } else if (TxEndedEvent.name().equals(event.type())) {
+      subTxOf(event).ended = true;
+    } else if (TxAbortedEvent.name().equals(event.type())) {
+      applyAborted(event);
+    } else if (TxCompensatedEvent.name().equals(event.type())) {
+      subTxOf(event).compensated = true;
+      if (event.localTxId().equals(compensatingLocalTxId)) {
+        compensatingLocalTxId = null;
+      }
+    }
+  }
+
+  // an aborted sub transaction only aborts the global transaction if it cannot be retried any more
+  private void applyAborted(TxEvent event) {
+    if (globalTxId.equals(event.localTxId())) {
+      aborted = true;
+      return;
+    }
+    SubTxState subTx = subTxOf(event);
+    subTx.aborted = true;
+    if (subTx.minRetries == 0) {
+      aborted = true;
+    }
+  }
+
+  private SubTxState subTxOf(TxEvent event) {
+    return subTransactions.computeIfAbsent(event.localTxId(), SubTxState::new);
+  }
+
+  /**
+   * @return the started event of the next sub transaction to compensate in reverse order, or null
+   * if there is a compensation in flight or nothing is left to compensate.
+   */
+  TxEvent nextCompensation() {
+    if (!aborted || compensatingLocalTxId != null) {
+      return null;
+    }
+    List<SubTxState> candidates = new ArrayList<>(subTransactions.values());
+    ListIterator<SubTxState> iterator = candidates.listIterator(candidates.size());
+    while (iterator.hasPrevious()) {
+      SubTxState subTx = iterator.previous();
+      if (subTx.ended && !subTx.compensated && subTx.startedEvent != null) {
+        compensatingLocalTxId = subTx.localTxId;
+        return subTx.startedEvent;
+      }
+    }
+    return null;
+  }
+
+  boolean isCompensationDone() {
+    return aborted && compensatingLocalTxId == null && subTransactions.values().stream()
+        .noneMatch(subTx -> subTx.ended && !subTx.compensated && subTx.startedEvent != null);
+  }
+
+  /**
+   * Collect the saga or sub transactions which are expired without any terminal event.
+   */
+  List<TxEvent> timeoutEvents(Date now) {
+    List<TxEvent> timeouts = new ArrayList<>();
+    if (ended) {
+      return timeouts;
+    }
+    if (!aborted && sagaStartedEvent != null && sagaStartedEvent.expiryTime().before(now)) {
+      timeouts.add(sagaStartedEvent);
+    }
+    for (SubTxState subTx : subTransactions.values()) {
+      if (subTx.startedEvent != null && !subTx.ended && !subTx.aborted && !subTx.compensated
+          && subTx.startedEvent.expiryTime().before(now)) {
+        timeouts.add(subTx.startedEvent);
+      }
+    }
+    return timeouts;
+  }
+
+  String globalTxId() {
+    return globalTxId;
+  }
+
+  TxEvent sagaStartedEvent() {
+    return sagaStartedEvent;
+  }
+
+  boolean isAborted() {
+    return aborted;
+  }
+
+  boolean isEnded() {
+    return ended;
+  }
+
+  private static class SubTxState {
+    private final String localTxId;
+    private TxEvent startedEvent;
+    private int minRetries = Integer.MAX_VALUE;
+    private boolean ended;
+    private boolean aborted;
+    private boolean compensated;
+
+    SubTxState(String localTxId) {
+      this.localTxId = localTxId;
+    }
+
+    void started(TxEvent event) {
+      startedEvent = event;
+      minRetries = Math.min(minRetries, event.retries());
+      aborted = false;
+    }
+  }
+}
@@ -0,0 +1,83 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.servicecomb.pack.alpha.core.state;
+
+import java.util.Date;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+/**
+ * Compact persisted record of a global transaction which is still tracked by the
+ * {@link SagaStateEngine}. Only unfinished sagas have a row, the row is removed once the
+ * SagaEndedEvent is written.
+ */
+@Entity
+@Table(name = "SagaState")
+public class SagaState {
+  @Id
+  private String globalTxId;
+
+  private String serviceName;
+  private String instanceId;
+  private String status;
+  private Date lastModified;
+
+  SagaState() {
+  }
+
+  SagaState(String globalTxId, String serviceName, String instanceId, String status) {
+    this.globalTxId = globalTxId;
+    this.serviceName = serviceName;
+    this.instanceId = instanceId;
+    this.status = status;
+    this.lastModified = new Date();
+  }
+
+  public String globalTxId() {
+    return globalTxId;
+  }
+
+  public String serviceName() {
+    return serviceName;
+  }
+
+  public String instanceId() {
+    return instanceId;
+  }
+
+  public String status() {
+    return status;
+  }
+
+  public Date lastModified() {
+    return lastModified;
+  }
+
+  @Override
+  public String toString() {
+    return "SagaState{" +
+        "globalTxId='" + globalTxId + '\'' +
+        ", serviceName='" + serviceName + '\'' +
+        ", instanceId='" + instanceId + '\'' +
+        ", status='" + status + '\'' +
+        ", lastModified=" + lastModified +
+        '}';
+  }
+}
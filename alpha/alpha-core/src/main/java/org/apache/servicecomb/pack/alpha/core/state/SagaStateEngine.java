@@ -0,0 +1,265 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.servicecomb.pack.alpha.core.state;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.apache.servicecomb.pack.common.EventType.SagaEndedEvent;
+import static org.apache.servicecomb.pack.common.EventType.SagaStartedEvent;
+import static org.apache.servicecomb.pack.common.EventType.TxAbortedEvent;
+import static org.apache.servicecomb.pack.common.EventType.TxStartedEvent;
+
+import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+
+import org.apache.servicecomb.pack.alpha.core.OmegaCallback;
+import org.apache.servicecomb.pack.alpha.core.TxEvent;
+import org.apache.servicecomb.pack.alpha.core.TxEventRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Event driven replacement of the {@link org.apache.servicecomb.pack.alpha.core.EventScanner}.
+ * Every saved event is applied to the in-memory state of its global transaction, compensation
+ * and saga end decisions are taken on the state transitions instead of scanning the TxEvent table.
+ * Only the unfinished global transactions are kept in the {@link SagaStateRepository}, their events
+ * are reloaded from the {@link TxEventRepository} when alpha restarts.
+ *
+ * All the events of a global transaction need to reach the same alpha instance, so it is limited to a
+ * single alpha.
+ */
+public class SagaStateEngine {
+  private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  private static final byte[] EMPTY_PAYLOAD = new byte[0];
+
+  private final Map<String, GlobalTxState> states = new ConcurrentHashMap<>();
+
+  private final TxEventRepository eventRepository;
+
+  private final SagaStateRepository stateRepository;
+
+  private final OmegaCallback omegaCallback;
+
+  private final ScheduledExecutorService scheduler;
+
+  private final int timeoutCheckInterval;
+
+  public SagaStateEngine(TxEventRepository eventRepository,
+      SagaStateRepository stateRepository,
+      OmegaCallback omegaCallback,
+      ScheduledExecutorService scheduler,
+      int timeoutCheckInterval) {
+    this.eventRepository = eventRepository;
+    this.stateRepository = stateRepository;
+    this.omegaCallback = omegaCallback;
+    this.scheduler = scheduler;
+    this.timeoutCheckInterval = timeoutCheckInterval;
+  }
+
+  public void start() {
+    recover();
+    scheduler.scheduleWithFixedDelay(() -> {
+      try {
+        // Need to catch the exception to keep the timeout checking running.
+        abortTimeoutEvents();
+      } catch (Exception ex) {
+        LOG.warn("Got the exception {} when checking timeout events.", ex.getMessage(), ex);
+      }
+    }, timeoutCheckInterval, timeoutCheckInterval, MILLISECONDS);
+  }
+
+  /**
+   * Apply a persisted event to the state of its global transaction.
+   */
+  public void onEvent(TxEvent event) {
+    GlobalTxState state = stateOf(event);
+    List<TxEvent> compensations;
+    synchronized (state) {
+      boolean wasAborted = state.isAborted();
+      state.apply(event);
+      if (state.isEnded()) {
+        finish(state);
+        return;
+      }
+      if (!wasAborted && state.isAborted()) {
+        stateRepository.save(sagaStateOf(state, SagaStateStatus.ABORTED));
+      }
+      compensations = drive(state);
+    }
+    compensations.forEach(this::compensate);
+  }
+
+  public int activeGlobalTransactions() {
+    return states.size();
+  }
+
+  void abortTimeoutEvents() {
+    Date now = new Date();
+    for (GlobalTxState state : states.values()) {
+      List<TxEvent> compensations = new ArrayList<>();
+      synchronized (state) {
+        for (TxEvent timeout : state.timeoutEvents(now)) {
+          LOG.info("Found timeout event {} to abort", timeout);
+          TxEvent abortedEvent = toTxAbortedEvent(timeout);
+          eventRepository.save(abortedEvent);
+          boolean wasAborted = state.isAborted();
+          state.apply(abortedEvent);
+          if (!wasAborted && state.isAborted()) {
+            stateRepository.save(sagaStateOf(state, SagaStateStatus.ABORTED));
+          }
+          if (TxStartedEvent.name().equals(timeout.type())) {
+            compensations.add(timeout);
+          }
+        }
+        if (!compensations.isEmpty() || state.isAborted()) {
+          compensations.addAll(drive(state));
+        }
+      }
+      compensations.forEach(this::compensate);
+    }
+  }
+
+  private void recover() {
+    for (SagaState sagaState : stateRepository.findUnfinished()) {
+      GlobalTxState state = load(sagaState.globalTxId());
+      List<TxEvent> compensations;
+      synchronized (state) {
+        if (state.isEnded()) {
+          finish(state);
+          continue;
+        }
+        states.put(state.globalTxId(), state);
+        compensations = drive(state);
+      }
+      compensations.forEach(this::compensate);
+    }
+    LOG.info("Recovered {} unfinished global transactions", states.size());
+  }
+
+  private GlobalTxState stateOf(TxEvent event) {
+    String globalTxId = event.globalTxId();
+    GlobalTxState state = states.get(globalTxId);
+    if (state != null) {
+      return state;
+    }
+    // the repositories are not called within computeIfAbsent, which would block the other global
+    // transactions of the same map bin, a concurrent load of the same one is simply dropped
+    GlobalTxState created;
+    if (SagaStartedEvent.name().equals(event.type())) {
+      created = new GlobalTxState(globalTxId);
+    } else {
+      // the global transaction is unknown to this instance, the history is the source of truth
+      created = load(globalTxId);
+    }
+    state = states.putIfAbsent(globalTxId, created);
+    if (state != null) {
+      return state;
+    }
+    synchronized (created) {
+      // a state finished in the meantime must not be saved again
+      if (!created.isEnded() && states.get(globalTxId) == created) {
+        stateRepository.save(sagaStateOf(created, SagaStateStatus.ACTIVE, event));
+      }
+    }
+    return created;
+  }
+
+  private GlobalTxState load(String globalTxId) {
+    GlobalTxState state = new GlobalTxState(globalTxId);
+    eventRepository.findByGlobalTxId(globalTxId).forEach(state::apply);
+    return state;
+  }
+
+  // must be called with the lock of the state held
+  private List<TxEvent> drive(GlobalTxState state) {
+    if (!state.isAborted()) {
+      return Collections.emptyList();
+    }
+    TxEvent next = state.nextCompensation();
+    if (next != null) {
+      return Collections.singletonList(next);
+    }
+    if (state.isCompensationDone()) {
+      markGlobalTxEnd(state);
+    }
+    return Collections.emptyList();
+  }
+
+  private void compensate(TxEvent event) {
+    LOG.info("Compensating transaction with globalTxId {} and localTxId {}",
+        event.globalTxId(),
+        event.localTxId());
+    omegaCallback.compensate(event);
+  }
+
+  private void markGlobalTxEnd(GlobalTxState state) {
+    TxEvent event = toSagaEndedEvent(state);
+    eventRepository.save(event);
+    state.apply(event);
+    finish(state);
+    LOG.info("Marked end of transaction with globalTxId {}", state.globalTxId());
+  }
+
+  private void finish(GlobalTxState state) {
+    states.remove(state.globalTxId());
+    stateRepository.delete(state.globalTxId());
+  }
+
+  private SagaState sagaStateOf(GlobalTxState state, SagaStateStatus status) {
+    return sagaStateOf(state, status, state.sagaStartedEvent());
+  }
+
+  private SagaState sagaStateOf(GlobalTxState state, SagaStateStatus status, TxEvent event) {
+    TxEvent source = state.sagaStartedEvent() != null ? state.sagaStartedEvent() : event;
+    return new SagaState(state.globalTxId(),
+        source == null ? "" : source.serviceName(),
+        source == null ? "" : source.instanceId(),
+        status.name());
+  }
+
+  private TxEvent toTxAbortedEvent(TxEvent event) {
+    return new TxEvent(
+        event.serviceName(),
+        event.instanceId(),
+        event.globalTxId(),
+        event.localTxId(),
+        event.parentTxId(),
+        TxAbortedEvent.name(),
+        "",
+        ("Transaction timeout").getBytes());
+  }
+
+  private TxEvent toSagaEndedEvent(GlobalTxState state) {
+    TxEvent source = state.sagaStartedEvent();
+    return new TxEvent(
+        source == null ? "" : source.serviceName(),
+        source == null ? "" : source.instanceId(),
+        state.globalTxId(),
+        state.globalTxId(),
+        null,
+        SagaEndedEvent.name(),
+        "",
+        EMPTY_PAYLOAD);
+  }
+}
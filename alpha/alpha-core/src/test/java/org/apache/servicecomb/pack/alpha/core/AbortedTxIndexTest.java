@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.servicecomb.pack.alpha.core;
+
+import static com.seanyinx.github.unit.scaffolding.Randomness.uniquify;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static org.apache.servicecomb.pack.common.EventType.SagaStartedEvent;
+import static org.apache.servicecomb.pack.common.EventType.TxAbortedEvent;
+import static org.apache.servicecomb.pack.common.EventType.TxStartedEvent;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Date;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+public class AbortedTxIndexTest {
+  private final TxEventRepository eventRepository = Mockito.mock(TxEventRepository.class);
+  private final String globalTxId = uniquify("globalTxId");
+  private final String localTxId = uniquify("localTxId");
+
+  private AbortedTxIndex index;
+
+  @Before
+  public void setUp() {
+    when(eventRepository.findTransactions(any(), any())).thenReturn(emptyList());
+    index = new AbortedTxIndex(eventRepository, 16);
+  }
+
+  @Test
+  public void answersTrackedGlobalTxWithoutRepository() {
+    index.onEventSaved(eventOf(SagaStartedEvent.name(), globalTxId));
+
+    assertThat(index.isAborted(globalTxId), is(false));
+    verify(eventRepository, never()).findTransactions(any(), any());
+  }
+
+  @Test
+  public void asksRepositoryForTrackedGlobalTxInCluster() {
+    TxEvent abortedEvent = eventOf(TxAbortedEvent.name(), localTxId);
+    index = new AbortedTxIndex(eventRepository, 16, false);
+    index.onEventSaved(eventOf(SagaStartedEvent.name(), globalTxId));
+
+    assertThat(index.isAborted(globalTxId), is(false));
+
+    // aborted by another alpha instance
+    when(eventRepository.findTransactions(globalTxId, TxAbortedEvent.name())).thenReturn(singletonList(abortedEvent));
+    assertThat(index.isAborted(globalTxId), is(true));
+    assertThat(index.isAborted(globalTxId), is(true));
+    verify(eventRepository, times(2)).findTransactions(globalTxId, TxAbortedEvent.name());
+  }
+
+  @Test
+  public void fallsBackToRepositoryForUnknownGlobalTx() {
+    assertThat(index.isAborted(globalTxId), is(false));
+    verify(eventRepository).findTransactions(globalTxId, TxAbortedEvent.name());
+  }
+
+  @Test
+  public void cachesAbortConfirmedByRepository() {
+    TxEvent abortedEvent = eventOf(TxAbortedEvent.name(), localTxId);
+    when(eventRepository.findTransactions(globalTxId, TxAbortedEvent.name())).thenReturn(singletonList(abortedEvent));
+    index.onEventSaved(eventOf(SagaStartedEvent.name(), globalTxId));
+    index.onEventSaved(abortedEvent);
+
+    assertThat(index.isAborted(globalTxId), is(true));
+    assertThat(index.isAborted(globalTxId), is(true));
+    verify(eventRepository, times(1)).findTransactions(globalTxId, TxAbortedEvent.name());
+  }
+
+  @Test
+  public void asksRepositoryWhenSubTxMayBeRetried() {
+    index.onEventSaved(eventOf(SagaStartedEvent.name(), globalTxId));
+    index.onEventSaved(eventOf(TxStartedEvent.name(), localTxId));
+    index.onEventSaved(eventOf(TxAbortedEvent.name(), localTxId));
+
+    assertThat(index.isAborted(globalTxId), is(false));
+    assertThat(index.isAborted(globalTxId), is(false));
+    verify(eventRepository, times(2)).findTransactions(globalTxId, TxAbortedEvent.name());
+  }
+
+  @Test
+  public void warmsUpWithRecentAborts() {
+    when(eventRepository.findAbortedGlobalTxIds(any(), anyInt())).thenReturn(singletonList(globalTxId));
+
+    index.warmUp(new Date());
+
+    assertThat(index.isAborted(globalTxId), is(true));
+    verify(eventRepository, never()).findTransactions(any(), any());
+  }
+
+  @Test
+  public void forgetsTrackedGlobalTxsWhenFilterIsFull() {
+    index.onEventSaved(eventOf(SagaStartedEvent.name(), globalTxId));
+    for (int i = 0; i < 17; i++) {
+      String otherGlobalTxId = uniquify("globalTxId");
+      index.onEventSaved(new TxEvent("service", "instance", otherGlobalTxId, otherGlobalTxId, null,
+          TxAbortedEvent.name(), "", new byte[0]));
+    }
+
+    assertThat(index.isAborted(globalTxId), is(false));
+    verify(eventRepository).findTransactions(globalTxId, TxAbortedEvent.name());
+  }
+
+  private TxEvent eventOf(String type, String localTxId) {
+    return new TxEvent("service", "instance", globalTxId, localTxId, null, type, "", new byte[0]);
+  }
+}
@@ -0,0 +1,145 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.servicecomb.pack.alpha.core;
+
+import static com.seanyinx.github.unit.scaffolding.Randomness.uniquify;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.awaitility.Awaitility.await;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.servicecomb.pack.alpha.core.metrics.EventScannerMetrics;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+public class CompensationDispatcherTest {
+  private final CommandRepository commandRepository = Mockito.mock(CommandRepository.class);
+  private final Queue<String> compensated = new ConcurrentLinkedQueue<>();
+  private final OmegaCallback omegaCallback = event -> compensated.add(event.localTxId());
+  private final ExecutorService executor = Executors.newFixedThreadPool(2);
+  private final EventScannerMetrics metrics = new EventScannerMetrics();
+
+  private final CompensationDispatcher dispatcher = new CompensationDispatcher(commandRepository, omegaCallback,
+      executor, metrics);
+
+  private final String globalTxId = uniquify("globalTxId");
+  private final String anotherGlobalTxId = uniquify("globalTxId");
+
+  @Before
+  public void setUp() {
+    when(commandRepository.markCommandAsPending(anyString(), anyString())).thenReturn(true);
+  }
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void compensatesGlobalTransactionInReverseOrderOneAtATime() {
+    when(commandRepository.findUncompletedCommands(globalTxId)).thenReturn(Arrays.asList(
+        commandOf(globalTxId, "first", 1L), commandOf(globalTxId, "second", 2L), commandOf(globalTxId, "third", 3L)));
+
+    dispatcher.enqueue(globalTxId);
+    await().atMost(1, SECONDS).until(() -> compensated.size() == 1);
+    // the NEW commands found again are not queued twice
+    dispatcher.enqueue(globalTxId);
+
+    dispatcher.onCompensated(globalTxId, "third");
+    await().atMost(1, SECONDS).until(() -> compensated.size() == 2);
+
+    dispatcher.onCompensated(globalTxId, "second");
+    await().atMost(1, SECONDS).until(() -> compensated.size() == 3);
+
+    dispatcher.onCompensated(globalTxId, "first");
+    await().atMost(1, SECONDS).until(() -> metrics.getCompensationSent() == 3);
+    assertThat(compensated, contains("third", "second", "first"));
+    assertThat(dispatcher.queuedGlobalTransactions(), is(0));
+  }
+
+  @Test
+  public void compensatesDifferentGlobalTransactionsInParallel() {
+    when(commandRepository.findUncompletedCommands(globalTxId)).thenReturn(Arrays.asList(
+        commandOf(globalTxId, "first", 1L), commandOf(globalTxId, "second", 2L)));
+    when(commandRepository.findUncompletedCommands(anotherGlobalTxId)).thenReturn(Arrays.asList(
+        commandOf(anotherGlobalTxId, "another", 3L)));
+
+    dispatcher.enqueue(globalTxId);
+    dispatcher.enqueue(anotherGlobalTxId);
+
+    await().atMost(1, SECONDS).until(() -> compensated.size() == 2);
+    assertThat(compensated, containsInAnyOrder("second", "another"));
+  }
+
+  @Test
+  public void skipsCommandsClaimedByOthers() {
+    when(commandRepository.findUncompletedCommands(globalTxId)).thenReturn(Arrays.asList(
+        commandOf(globalTxId, "first", 1L), commandOf(globalTxId, "second", 2L)));
+    when(commandRepository.markCommandAsPending(globalTxId, "second")).thenReturn(false);
+
+    dispatcher.enqueue(globalTxId);
+
+    await().atMost(1, SECONDS).until(() -> compensated.size() == 1);
+    assertThat(compensated, contains("first"));
+  }
+
+  @Test
+  public void retriesCompensationFailedToBeSent() {
+    Queue<String> failed = new ConcurrentLinkedQueue<>();
+    OmegaCallback failingOnce = event -> {
+      if (failed.isEmpty()) {
+        failed.add(event.localTxId());
+        throw new IllegalStateException("omega is gone");
+      }
+      compensated.add(event.localTxId());
+    };
+    CompensationDispatcher dispatcher = new CompensationDispatcher(commandRepository, failingOnce, executor, metrics);
+    when(commandRepository.findUncompletedCommands(globalTxId)).thenReturn(Arrays.asList(
+        commandOf(globalTxId, "first", 1L), commandOf(globalTxId, "second", 2L)));
+
+    dispatcher.enqueue(globalTxId);
+    await().atMost(1, SECONDS).until(() -> failed.size() == 1);
+    assertThat(compensated.isEmpty(), is(true));
+
+    dispatcher.dispatchQueued();
+    await().atMost(1, SECONDS).until(() -> compensated.size() == 1);
+    assertThat(compensated, contains("second"));
+    // claimed once only
+    verify(commandRepository, times(1)).markCommandAsPending(globalTxId, "second");
+  }
+
+  private Command commandOf(String globalTxId, String localTxId, long eventId) {
+    return new Command(eventId, "serviceName", "instanceId", globalTxId, localTxId, null, "compensationMethod",
+        "payloads".getBytes());
+  }
+}
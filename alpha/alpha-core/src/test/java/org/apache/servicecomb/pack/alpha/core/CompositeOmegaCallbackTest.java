@@ -20,6 +20,7 @@ package org.apache.servicecomb.pack.alpha.core;
 import static com.seanyinx.github.unit.scaffolding.AssertUtils.expectFailing;
 import static com.seanyinx.github.unit.scaffolding.Randomness.uniquify;
 import static org.apache.servicecomb.pack.common.EventType.TxStartedEvent;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.core.Is.is;
 import static org.junit.Assert.assertThat;
@@ -27,11 +28,17 @@ import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 
+import org.apache.servicecomb.pack.alpha.core.exception.CompensateConnectException;
 import org.apache.servicecomb.pack.common.EventType;
 import org.hamcrest.Matchers;
 import org.junit.Before;
@@ -99,6 +106,19 @@ public class CompositeOmegaCallbackTest {
     assertThat(callbacks.get(serviceName2).values(), containsInAnyOrder(callback2Two));
   }
 
+  @Test
+  public void compensateOtherOmegaInstanceWithFewestCompensationsInFlight() throws Exception {
+    callbacks.get(serviceName1).remove(instanceId1One);
+    callbacks.get(serviceName1).put(uniquify("instanceId1Three"), callback1One);
+    when(callback1Two.inFlight()).thenReturn(1);
+    TxEvent event = eventOf(serviceName1, instanceId1One, TxStartedEvent);
+
+    compositeOmegaCallback.compensate(event);
+
+    verify(callback1One).compensate(event);
+    verify(callback1Two, never()).compensate(event);
+  }
+
   @Test
   public void blowsUpIfNoSuchServiceIsReachable() throws Exception {
     callbacks.get(serviceName2).clear();
@@ -156,6 +176,28 @@ public class CompositeOmegaCallbackTest {
     assertThat(callbacks.get(serviceName2).values(), Matchers.containsInAnyOrder(callback2One, callback2Two));
   }
 
+  @Test
+  public void gangSendCompensationsOfTheSameOmegaInstance() throws Exception {
+    TxEvent first = eventOf(serviceName1, instanceId1One, TxStartedEvent);
+    TxEvent second = eventOf(serviceName2, instanceId2One, TxStartedEvent);
+    TxEvent third = eventOf(serviceName1, instanceId1One, TxStartedEvent);
+    CompletableFuture<Void> future1 = new CompletableFuture<>();
+    CompletableFuture<Void> future2 = new CompletableFuture<>();
+    CompletableFuture<Void> future3 = new CompletableFuture<>();
+    when(callback1One.compensateAllAsync(Arrays.asList(first, third))).thenReturn(Arrays.asList(future1, future3));
+    when(callback2One.compensateAllAsync(Collections.singletonList(second)))
+        .thenReturn(Collections.singletonList(future2));
+
+    List<CompletableFuture<Void>> futures = compositeOmegaCallback
+        .compensateAllAsync(Arrays.asList(first, second, third));
+
+    assertThat(futures, contains(future1, future2, future3));
+
+    future2.completeExceptionally(new CompensateConnectException("Omega connect exception"));
+    assertThat(callbacks.get(serviceName2).values(), containsInAnyOrder(callback2Two));
+    assertThat(callbacks.get(serviceName1).values(), Matchers.containsInAnyOrder(callback1One, callback1Two));
+  }
+
   private TxEvent eventOf(String serviceName, String instanceId, EventType eventType) {
     return new TxEvent(
         serviceName,
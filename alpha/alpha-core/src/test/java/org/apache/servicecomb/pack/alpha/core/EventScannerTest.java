@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.servicecomb.pack.alpha.core;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.apache.servicecomb.pack.alpha.core.TxEventMaker.someEvent;
+import static org.awaitility.Awaitility.await;
+import static org.hamcrest.Matchers.contains;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.stream.Collectors;
+
+import org.apache.servicecomb.pack.alpha.core.metrics.EventScannerMetrics;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+public class EventScannerTest {
+  private final TxEventRepository eventRepository = Mockito.mock(TxEventRepository.class);
+  private final CommandRepository commandRepository = Mockito.mock(CommandRepository.class);
+  private final TxTimeoutRepository timeoutRepository = Mockito.mock(TxTimeoutRepository.class);
+  private final Queue<List<String>> compensated = new ConcurrentLinkedQueue<>();
+  private final OmegaCallback omegaCallback = new OmegaCallback() {
+    @Override
+    public void compensate(TxEvent event) {
+      compensated.add(Collections.singletonList(event.localTxId()));
+    }
+
+    @Override
+    public List<CompletableFuture<Void>> compensateAllAsync(List<TxEvent> events) {
+      compensated.add(events.stream().map(TxEvent::localTxId).collect(Collectors.toList()));
+      return Collections.nCopies(events.size(), CompletableFuture.completedFuture(null));
+    }
+  };
+
+  private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+  private final EventScannerMetrics metrics = new EventScannerMetrics();
+
+  @Before
+  public void setUp() {
+    when(eventRepository.findTimeoutEvents()).thenReturn(Collections.emptyList());
+    when(eventRepository.findFirstAbortedGlobalTransaction()).thenReturn(Optional.empty());
+    when(eventRepository.findFirstUncompensatedEventByIdGreaterThan(anyLong(), anyString()))
+        .thenReturn(Collections.emptyList());
+    when(eventRepository.findFirstCompensatedEventByIdGreaterThan(anyLong())).thenReturn(Collections.emptyList());
+    when(timeoutRepository.findFirstTimeout()).thenReturn(Collections.emptyList());
+  }
+
+  @After
+  public void tearDown() {
+    scheduler.shutdownNow();
+  }
+
+  @Test
+  public void compensateBatchOfCommandsTogether() {
+    List<Command> commands = Arrays.asList(commandOf(1L), commandOf(2L), commandOf(3L));
+    when(commandRepository.findFirstCommandToCompensate())
+        .thenReturn(commands)
+        .thenReturn(Collections.emptyList());
+
+    EventScanner.builder()
+        .scheduler(scheduler)
+        .eventRepository(eventRepository)
+        .commandRepository(commandRepository)
+        .timeoutRepository(timeoutRepository)
+        .omegaCallback(omegaCallback)
+        .eventPollingInterval(10)
+        .nodeStatus(new NodeStatus(NodeStatus.TypeEnum.MASTER))
+        .metrics(metrics)
+        .build()
+        .run();
+
+    await().atMost(2, SECONDS).until(() -> metrics.getCompensationSent() == 3);
+    assertThat(compensated, contains(commands.stream().map(Command::localTxId).collect(Collectors.toList())));
+  }
+
+  private Command commandOf(long eventId) {
+    TxEvent event = someEvent();
+    return new Command(eventId, event.serviceName(), event.instanceId(), event.globalTxId(), event.localTxId(),
+        event.parentTxId(), event.compensationMethod(), event.payloads());
+  }
+}
@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.servicecomb.pack.alpha.core;
+
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class OmegaCallbackPickerTest {
+
+  private final Map<String, String> instances = new LinkedHashMap<>();
+
+  private final Map<String, Integer> inFlight = new HashMap<>();
+
+  private final OmegaCallbackPicker leastInFlight = new LeastInFlightOmegaCallbackPicker();
+
+  private final OmegaCallbackPicker consistentHash = new ConsistentHashOmegaCallbackPicker();
+
+  {
+    for (int i = 0; i < 4; i++) {
+      instances.put("instance" + i, "callback" + i);
+      inFlight.put("callback" + i, 0);
+    }
+  }
+
+  @Test
+  public void picksNothingWithoutInstances() {
+    assertThat(leastInFlight.pick("globalTxId", new HashMap<String, String>(), this::inFlightOf), is(nullValue()));
+    assertThat(consistentHash.pick("globalTxId", new HashMap<String, String>(), this::inFlightOf), is(nullValue()));
+  }
+
+  @Test
+  public void picksInstanceWithFewestCompensationsInFlight() {
+    inFlight.put("callback0", 3);
+    inFlight.put("callback1", 1);
+    inFlight.put("callback2", 2);
+    inFlight.put("callback3", 5);
+
+    assertThat(leastInFlight.pick("globalTxId", instances, this::inFlightOf), is("callback1"));
+  }
+
+  @Test
+  public void spreadsCompensationsOverInstances() {
+    for (int i = 0; i < 100; i++) {
+      String callback = leastInFlight.pick("globalTxId" + i, instances, this::inFlightOf);
+      inFlight.put(callback, inFlightOf(callback) + 1);
+    }
+
+    for (int count : inFlight.values()) {
+      assertThat(count, is(25));
+    }
+  }
+
+  @Test
+  public void picksSameInstanceForGlobalTransaction() {
+    String picked = consistentHash.pick("globalTxId", instances, this::inFlightOf);
+
+    assertThat(consistentHash.pick("globalTxId", new LinkedHashMap<>(instances), this::inFlightOf), is(picked));
+  }
+
+  @Test
+  public void hashesGlobalTransactionsOverInstances() {
+    for (int i = 0; i < 400; i++) {
+      String callback = consistentHash.pick("globalTxId" + i, instances, this::inFlightOf);
+      inFlight.put(callback, inFlightOf(callback) + 1);
+    }
+
+    for (int count : inFlight.values()) {
+      assertThat(count, greaterThan(50));
+    }
+  }
+
+  @Test
+  public void onlyMovesGlobalTransactionsOfRemovedInstance() {
+    Map<String, String> picked = new HashMap<>();
+    for (int i = 0; i < 100; i++) {
+      picked.put("globalTxId" + i, consistentHash.pick("globalTxId" + i, instances, this::inFlightOf));
+    }
+
+    instances.remove("instance0");
+
+    for (Map.Entry<String, String> entry : picked.entrySet()) {
+      if (!entry.getValue().equals("callback0")) {
+        assertThat(consistentHash.pick(entry.getKey(), instances, this::inFlightOf), is(entry.getValue()));
+      }
+    }
+  }
+
+  private int inFlightOf(String callback) {
+    return inFlight.get(callback);
+  }
+}
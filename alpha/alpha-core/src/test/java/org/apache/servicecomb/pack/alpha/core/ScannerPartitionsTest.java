@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.servicecomb.pack.alpha.core;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.UUID;
+
+import org.junit.Test;
+
+public class ScannerPartitionsTest {
+  private final ScannerPartitions partitions = new ScannerPartitions(8);
+
+  @Test
+  public void ownsNothingBeforeRebalance() {
+    assertThat(partitions.isAssigned(), is(false));
+    assertThat(partitions.ownedPartitions(), is(empty()));
+    assertThat(partitions.owns(UUID.randomUUID().toString()), is(false));
+  }
+
+  @Test
+  public void spreadsPartitionsInRoundRobin() {
+    assertThat(partitions.rebalance(1, 3), is(true));
+
+    assertThat(partitions.ownedPartitions(), contains(1, 4, 7));
+    for (int i = 0; i < 100; i++) {
+      String globalTxId = UUID.randomUUID().toString();
+      int partition = ScannerPartitions.partitionOf(globalTxId, 8);
+      assertThat(partitions.owns(globalTxId), is(partition % 3 == 1));
+    }
+  }
+
+  @Test
+  public void spreadsGlobalTransactionsEvenly() {
+    int[] counts = new int[8];
+    for (int i = 0; i < 8000; i++) {
+      counts[ScannerPartitions.partitionOf(UUID.randomUUID().toString(), 8)]++;
+    }
+    for (int count : counts) {
+      assertThat(count > 800 && count < 1200, is(true));
+    }
+    assertThat(ScannerPartitions.partitionKeyOf(null), is(nullValue()));
+    assertThat(ScannerPartitions.partitionKeyOf("globalTx") >= 0, is(true));
+  }
+
+  @Test
+  public void bumpsGenerationOnlyWhenPartitionsChange() {
+    partitions.rebalance(0, 2);
+    long generation = partitions.generation();
+
+    assertThat(partitions.rebalance(0, 2), is(false));
+    assertThat(partitions.generation(), is(generation));
+
+    assertThat(partitions.rebalance(0, 1), is(true));
+    assertThat(partitions.generation(), is(generation + 1));
+    assertThat(partitions.ownedPartitions(), contains(0, 1, 2, 3, 4, 5, 6, 7));
+  }
+
+  @Test
+  public void releasesPartitions() {
+    partitions.rebalance(0, 1);
+
+    assertThat(partitions.rebalance(-1, 0), is(true));
+    assertThat(partitions.isAssigned(), is(false));
+    assertThat(partitions.ownedPartitions(), is(empty()));
+  }
+}
@@ -0,0 +1,76 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.servicecomb.pack.alpha.core;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+import org.apache.servicecomb.pack.alpha.core.TimingWheel.Timeout;
+import org.junit.Test;
+
+public class TimingWheelTest {
+
+  private final TimingWheel<String> wheel = new TimingWheel<>(10, 8, 1000);
+
+  @Test
+  public void expiresTimeoutsWithinTheFirstWheel() {
+    wheel.schedule("a", 1025);
+    wheel.schedule("b", 1055);
+
+    assertThat(wheel.advance(1020), is(empty()));
+    assertThat(wheel.advance(1030), contains("a"));
+    assertThat(wheel.advance(1060), contains("b"));
+    assertThat(wheel.size(), is(0));
+  }
+
+  @Test
+  public void cascadesTimeoutsFromOverflowWheels() {
+    // beyond the 80ms interval of the first wheel and the 640ms interval of the second one
+    wheel.schedule("a", 1200);
+    wheel.schedule("b", 2000);
+
+    assertThat(wheel.advance(1190), is(empty()));
+    assertThat(wheel.advance(1210), contains("a"));
+    assertThat(wheel.advance(1990), is(empty()));
+    assertThat(wheel.advance(2010), contains("b"));
+  }
+
+  @Test
+  public void expiresPastTimeoutsOnNextAdvance() {
+    wheel.schedule("a", 500);
+
+    assertThat(wheel.size(), is(1));
+    assertThat(wheel.advance(1000), contains("a"));
+    assertThat(wheel.size(), is(0));
+  }
+
+  @Test
+  public void skipsCancelledTimeouts() {
+    Timeout<String> timeout = wheel.schedule("a", 1200);
+    wheel.schedule("b", 1200);
+
+    wheel.cancel(timeout);
+    wheel.cancel(timeout);
+
+    assertThat(wheel.size(), is(1));
+    assertThat(wheel.advance(1300), contains("b"));
+  }
+}
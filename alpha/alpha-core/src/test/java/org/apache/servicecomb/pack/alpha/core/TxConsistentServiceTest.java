@@ -29,6 +29,7 @@ import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.core.Is.is;
 import static org.junit.Assert.assertThat;
 
+import java.util.Date;
 import java.util.Deque;
 import java.util.List;
 import java.util.Optional;
@@ -58,6 +59,11 @@ public class TxConsistentServiceTest {
       return emptyList();
     }
 
+    @Override
+    public List<TxEvent> findPendingTimeoutEvents(long id, int limit) {
+      return emptyList();
+    }
+
     @Override
     public Optional<TxEvent> findTxStartedEvent(String globalTxId, String localTxId) {
       return events.stream()
@@ -73,17 +79,25 @@ public class TxConsistentServiceTest {
     }
 
     @Override
-    public List<TxEvent> findFirstUncompensatedEventByIdGreaterThan(long id, String type) {
+    public List<String> findAbortedGlobalTxIds(Date since, int limit) {
       return emptyList();
     }
 
     @Override
-    public Optional<TxEvent> findFirstCompensatedEventByIdGreaterThan(long id) {
-      return Optional.empty();
+    public List<TxEvent> findByGlobalTxId(String globalTxId) {
+      return events.stream()
+          .filter(event -> globalTxId.equals(event.globalTxId()))
+          .collect(Collectors.toList());
     }
 
     @Override
-    public void deleteDuplicateEvents(String type) {
+    public List<TxEvent> findFirstUncompensatedEventByIdGreaterThan(long id, String type) {
+      return emptyList();
+    }
+
+    @Override
+    public List<TxEvent> findFirstCompensatedEventByIdGreaterThan(long id) {
+      return emptyList();
     }
   };
 
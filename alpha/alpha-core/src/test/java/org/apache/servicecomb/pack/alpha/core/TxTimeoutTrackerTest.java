@@ -0,0 +1,116 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.servicecomb.pack.alpha.core;
+
+import static com.seanyinx.github.unit.scaffolding.Randomness.uniquify;
+import static org.apache.servicecomb.pack.common.EventType.SagaEndedEvent;
+import static org.apache.servicecomb.pack.common.EventType.SagaStartedEvent;
+import static org.apache.servicecomb.pack.common.EventType.TxEndedEvent;
+import static org.apache.servicecomb.pack.common.EventType.TxStartedEvent;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.Test;
+import org.mockito.Mockito;
+
+public class TxTimeoutTrackerTest {
+  private final TxTimeoutTracker tracker = new TxTimeoutTracker(10, 64);
+
+  private final String globalTxId = uniquify("globalTxId");
+
+  private final String localTxId = uniquify("localTxId");
+
+  private final long now = System.currentTimeMillis();
+
+  @Test
+  public void expiresStartedEventsWithoutEndedEvent() {
+    tracker.onEventSaved(eventOf(globalTxId, SagaStartedEvent.name(), now + 5000));
+    tracker.onEventSaved(eventOf(localTxId, TxStartedEvent.name(), now + 100));
+
+    assertThat(tracker.size(), is(2));
+    assertThat(tracker.expire(now), is(empty()));
+
+    List<TxTimeout> timeouts = tracker.expire(now + 200);
+    assertThat(timeouts.size(), is(1));
+    assertThat(timeouts.get(0).localTxId(), is(localTxId));
+    assertThat(timeouts.get(0).type(), is(TxStartedEvent.name()));
+    assertThat(tracker.expire(now + 300), is(empty()));
+    assertThat(tracker.size(), is(1));
+  }
+
+  @Test
+  public void cancelsTimeoutsOfFinishedTransactions() {
+    tracker.onEventSaved(eventOf(globalTxId, SagaStartedEvent.name(), now + 100));
+    tracker.onEventSaved(eventOf(localTxId, TxStartedEvent.name(), now + 100));
+    tracker.onEventSaved(eventOf(localTxId, TxEndedEvent.name(), TxEvent.MAX_TIMESTAMP));
+    tracker.onEventSaved(eventOf(globalTxId, SagaEndedEvent.name(), TxEvent.MAX_TIMESTAMP));
+
+    assertThat(tracker.size(), is(0));
+    assertThat(tracker.expire(now + 200), is(empty()));
+  }
+
+  @Test
+  public void ignoresEventsWithoutTimeout() {
+    tracker.onEventSaved(eventOf(localTxId, TxStartedEvent.name(), TxEvent.MAX_TIMESTAMP));
+
+    assertThat(tracker.size(), is(0));
+  }
+
+  @Test
+  public void retriedEventReplacesPreviousTimeout() {
+    tracker.onEventSaved(eventOf(localTxId, TxStartedEvent.name(), now + 100));
+    tracker.onEventSaved(eventOf(localTxId, TxStartedEvent.name(), now + 1000));
+
+    assertThat(tracker.expire(now + 200), is(empty()));
+    assertThat(tracker.expire(now + 1100).size(), is(1));
+  }
+
+  @Test
+  public void recoversPendingTimeoutsFromRepository() {
+    TxEventRepository eventRepository = Mockito.mock(TxEventRepository.class);
+    when(eventRepository.findPendingTimeoutEvents(eq(0L), anyInt())).thenReturn(Arrays.asList(
+        eventOf(1L, globalTxId, SagaStartedEvent.name(), now - 100),
+        eventOf(2L, localTxId, TxStartedEvent.name(), now + 100)));
+    when(eventRepository.findPendingTimeoutEvents(eq(2L), anyInt())).thenReturn(Collections.emptyList());
+
+    tracker.recover(eventRepository);
+
+    assertThat(tracker.size(), is(2));
+    assertThat(tracker.expire(now).size(), is(1));
+    assertThat(tracker.expire(now + 200).size(), is(1));
+  }
+
+  private TxEvent eventOf(String localTxId, String type, long expiryTime) {
+    return eventOf(null, localTxId, type, expiryTime);
+  }
+
+  private TxEvent eventOf(Long id, String localTxId, String type, long expiryTime) {
+    return new TxEvent(id, "serviceName", "instanceId", new Date(), globalTxId, localTxId,
+        globalTxId.equals(localTxId) ? null : globalTxId, type, "", new Date(expiryTime), "", 0, new byte[0]);
+  }
+}
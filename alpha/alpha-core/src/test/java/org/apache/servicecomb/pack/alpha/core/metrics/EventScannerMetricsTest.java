@@ -0,0 +1,39 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.servicecomb.pack.alpha.core.metrics;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class EventScannerMetricsTest {
+
+  @Test
+  public void testStageCounters() {
+    EventScannerMetrics metrics = new EventScannerMetrics();
+    metrics.doTimeoutFound(2, 10);
+    metrics.doTimeoutFound(3, 20);
+    metrics.doCompensationSent(5, 4);
+    assertEquals(metrics.getTimeoutFound(), 5L);
+    assertEquals(metrics.getTimeoutFoundAvgTime(), 15.0, 0);
+    assertEquals(metrics.getCompensationSent(), 5L);
+    assertEquals(metrics.getCompensationSentAvgTime(), 4.0, 0);
+    assertEquals(metrics.getCommandSaved(), 0L);
+  }
+}
@@ -0,0 +1,45 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.servicecomb.pack.alpha.core.metrics;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Map;
+import org.junit.Test;
+
+public class GroupCommitMetricsTest {
+
+  @Test
+  public void testBatchSizeDistribution() {
+    GroupCommitMetrics metrics = new GroupCommitMetrics();
+    metrics.doBatchCommitted(1, 2);
+    metrics.doBatchCommitted(4, 4);
+    metrics.doBatchCommitted(100, 6);
+    metrics.doBatchFailed();
+    Map<String, Long> distribution = metrics.getBatchSizeDistribution();
+    assertEquals(distribution.get("1").longValue(), 1L);
+    assertEquals(distribution.get("2-4").longValue(), 1L);
+    assertEquals(distribution.get("5-16").longValue(), 0L);
+    assertEquals(distribution.get("65+").longValue(), 1L);
+    assertEquals(metrics.getBatchCommitted(), 3L);
+    assertEquals(metrics.getEventCommitted(), 105L);
+    assertEquals(metrics.getBatchFailed(), 1L);
+    assertEquals(metrics.getCommitAvgTime(), 4.5, 0);
+  }
+}
@@ -0,0 +1,52 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.servicecomb.pack.alpha.core.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.Test;
+
+public class ShardMetricsTest {
+
+  @Test
+  public void testMessageRatesAndEntities() {
+    ShardMetrics metrics = new ShardMetrics();
+    metrics.doMessageRouted("1");
+    metrics.sample(10000);
+    assertTrue(metrics.getMessageRates().isEmpty());
+
+    for (int i = 0; i < 20; i++) {
+      metrics.doMessageRouted("1");
+    }
+    metrics.doMessageRouted("2");
+    metrics.sample(12000);
+    assertEquals(metrics.getMessages().get("1").longValue(), 21L);
+    assertEquals(metrics.getMessages().get("2").longValue(), 1L);
+    assertEquals(metrics.getMessageRates().get("1"), 10.0, 0);
+    assertEquals(metrics.getMessageRates().get("2"), 0.5, 0);
+
+    Map<String, Integer> entities = new HashMap<>();
+    entities.put("1", 3);
+    metrics.setEntities(entities);
+    assertEquals(metrics.getEntities().get("1").intValue(), 3);
+  }
+}
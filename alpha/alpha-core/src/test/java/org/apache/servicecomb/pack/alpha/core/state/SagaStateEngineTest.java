@@ -0,0 +1,288 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.servicecomb.pack.alpha.core.state;
+
+import static com.seanyinx.github.unit.scaffolding.Randomness.uniquify;
+import static org.apache.servicecomb.pack.common.EventType.SagaEndedEvent;
+import static org.apache.servicecomb.pack.common.EventType.SagaStartedEvent;
+import static org.apache.servicecomb.pack.common.EventType.TxAbortedEvent;
+import static org.apache.servicecomb.pack.common.EventType.TxCompensatedEvent;
+import static org.apache.servicecomb.pack.common.EventType.TxEndedEvent;
+import static org.apache.servicecomb.pack.common.EventType.TxStartedEvent;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.apache.servicecomb.pack.alpha.core.OmegaCallback;
+import org.apache.servicecomb.pack.alpha.core.TxEvent;
+import org.apache.servicecomb.pack.alpha.core.TxEventRepository;
+import org.apache.servicecomb.pack.common.EventType;
+import org.junit.After;
+import org.junit.Test;
+
+public class SagaStateEngineTest {
+  private final List<TxEvent> events = new CopyOnWriteArrayList<>();
+  private final Map<String, SagaState> sagaStates = new ConcurrentHashMap<>();
+  private final List<String> compensated = new CopyOnWriteArrayList<>();
+  private final CountDownLatch loadStarted = new CountDownLatch(1);
+  private final CountDownLatch loadReleased = new CountDownLatch(1);
+  private volatile String blockedLoad;
+
+  private final TxEventRepository eventRepository = new TxEventRepository() {
+    @Override
+    public void save(TxEvent event) {
+      events.add(event);
+    }
+
+    @Override
+    public Optional<List<TxEvent>> findFirstAbortedGlobalTransaction() {
+      return Optional.empty();
+    }
+
+    @Override
+    public List<TxEvent> findTimeoutEvents() {
+      return new ArrayList<>();
+    }
+
+    @Override
+    public List<TxEvent> findPendingTimeoutEvents(long id, int limit) {
+      return new ArrayList<>();
+    }
+
+    @Override
+    public Optional<TxEvent> findTxStartedEvent(String globalTxId, String localTxId) {
+      return Optional.empty();
+    }
+
+    @Override
+    public List<TxEvent> findTransactions(String globalTxId, String type) {
+      return new ArrayList<>();
+    }
+
+    @Override
+    public List<String> findAbortedGlobalTxIds(Date since, int limit) {
+      return new ArrayList<>();
+    }
+
+    @Override
+    public List<TxEvent> findByGlobalTxId(String globalTxId) {
+      if (globalTxId.equals(blockedLoad)) {
+        loadStarted.countDown();
+        try {
+          loadReleased.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+      return events.stream()
+          .filter(event -> globalTxId.equals(event.globalTxId()))
+          .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<TxEvent> findFirstUncompensatedEventByIdGreaterThan(long id, String type) {
+      return new ArrayList<>();
+    }
+
+    @Override
+    public List<TxEvent> findFirstCompensatedEventByIdGreaterThan(long id) {
+      return new ArrayList<>();
+    }
+  };
+
+  private final SagaStateRepository stateRepository = new SagaStateRepository() {
+    @Override
+    public void save(SagaState state) {
+      sagaStates.put(state.globalTxId(), state);
+    }
+
+    @Override
+    public void delete(String globalTxId) {
+      sagaStates.remove(globalTxId);
+    }
+
+    @Override
+    public List<SagaState> findUnfinished() {
+      return new ArrayList<>(sagaStates.values());
+    }
+  };
+
+  private final OmegaCallback omegaCallback = event -> compensated.add(event.localTxId());
+
+  private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+  private final SagaStateEngine engine = new SagaStateEngine(eventRepository, stateRepository, omegaCallback,
+      scheduler, 60000);
+
+  private final String globalTxId = UUID.randomUUID().toString();
+  private final String serviceName = uniquify("serviceName");
+  private final String instanceId = uniquify("instanceId");
+  private final String localTxId1 = UUID.randomUUID().toString();
+  private final String localTxId2 = UUID.randomUUID().toString();
+  private final String localTxId3 = UUID.randomUUID().toString();
+
+  @After
+  public void tearDown() {
+    scheduler.shutdownNow();
+  }
+
+  @Test
+  public void removeStateOnceSagaEnded() {
+    handle(eventOf(SagaStartedEvent, globalTxId));
+    assertThat(sagaStates.containsKey(globalTxId), is(true));
+
+    handle(eventOf(TxStartedEvent, localTxId1));
+    handle(eventOf(TxEndedEvent, localTxId1));
+    handle(eventOf(SagaEndedEvent, globalTxId));
+
+    assertThat(sagaStates.isEmpty(), is(true));
+    assertThat(engine.activeGlobalTransactions(), is(0));
+    assertThat(compensated.isEmpty(), is(true));
+  }
+
+  @Test
+  public void compensateEndedSubTransactionsInReverseOrder() {
+    handle(eventOf(SagaStartedEvent, globalTxId));
+    handle(eventOf(TxStartedEvent, localTxId1));
+    handle(eventOf(TxEndedEvent, localTxId1));
+    handle(eventOf(TxStartedEvent, localTxId2));
+    handle(eventOf(TxEndedEvent, localTxId2));
+    handle(eventOf(TxStartedEvent, localTxId3));
+    handle(eventOf(TxAbortedEvent, localTxId3));
+
+    assertThat(compensated, contains(localTxId2));
+    assertThat(sagaStates.get(globalTxId).status(), is(SagaStateStatus.ABORTED.name()));
+
+    handle(eventOf(TxCompensatedEvent, localTxId2));
+    assertThat(compensated, contains(localTxId2, localTxId1));
+
+    handle(eventOf(TxCompensatedEvent, localTxId1));
+    assertThat(lastEvent().type(), is(SagaEndedEvent.name()));
+    assertThat(sagaStates.isEmpty(), is(true));
+    assertThat(engine.activeGlobalTransactions(), is(0));
+  }
+
+  @Test
+  public void ignoreAbortedSubTransactionWhichCanBeRetried() {
+    handle(eventOf(SagaStartedEvent, globalTxId));
+    handle(eventOf(TxStartedEvent, localTxId1));
+    handle(eventOf(TxEndedEvent, localTxId1));
+    handle(new TxEvent(serviceName, instanceId, globalTxId, localTxId2, globalTxId, TxStartedEvent.name(),
+        "method", 0, "retry", 2, new byte[0]));
+    handle(eventOf(TxAbortedEvent, localTxId2));
+
+    assertThat(compensated.isEmpty(), is(true));
+    assertThat(sagaStates.get(globalTxId).status(), is(SagaStateStatus.ACTIVE.name()));
+  }
+
+  @Test
+  public void abortTimeoutSubTransaction() {
+    handle(eventOf(SagaStartedEvent, globalTxId));
+    handle(new TxEvent(serviceName, instanceId, new Date(System.currentTimeMillis() - 2000), globalTxId, localTxId1,
+        globalTxId, TxStartedEvent.name(), "method", 1, "", 0, new byte[0]));
+
+    engine.abortTimeoutEvents();
+
+    TxEvent aborted = events.get(2);
+    assertThat(aborted.type(), is(TxAbortedEvent.name()));
+    assertThat(aborted.localTxId(), is(localTxId1));
+    assertThat(compensated, contains(localTxId1));
+    assertThat(lastEvent().type(), is(SagaEndedEvent.name()));
+  }
+
+  @Test
+  public void resumeCompensationAfterRestart() {
+    handle(eventOf(SagaStartedEvent, globalTxId));
+    handle(eventOf(TxStartedEvent, localTxId1));
+    handle(eventOf(TxEndedEvent, localTxId1));
+    handle(eventOf(TxStartedEvent, localTxId2));
+    handle(eventOf(TxEndedEvent, localTxId2));
+    handle(eventOf(TxAbortedEvent, globalTxId));
+    handle(eventOf(TxCompensatedEvent, localTxId2));
+    compensated.clear();
+
+    SagaStateEngine restarted = new SagaStateEngine(eventRepository, stateRepository, omegaCallback,
+        scheduler, 60000);
+    restarted.start();
+
+    assertThat(restarted.activeGlobalTransactions(), is(1));
+    assertThat(compensated, contains(localTxId1));
+  }
+
+  @Test
+  public void loadsUnknownGlobalTxWithoutBlockingOthers() throws Exception {
+    String unknownGlobalTxId = UUID.randomUUID().toString();
+    String otherGlobalTxId = UUID.randomUUID().toString();
+    blockedLoad = unknownGlobalTxId;
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      Future<?> loading = executor.submit(() -> engine.onEvent(new TxEvent(serviceName, instanceId,
+          unknownGlobalTxId, localTxId1, unknownGlobalTxId, TxStartedEvent.name(), "method", new byte[0])));
+      assertThat(loadStarted.await(1, TimeUnit.SECONDS), is(true));
+
+      executor.submit(() -> engine.onEvent(new TxEvent(serviceName, instanceId,
+          otherGlobalTxId, otherGlobalTxId, null, SagaStartedEvent.name(), "method", new byte[0])))
+          .get(1, TimeUnit.SECONDS);
+      assertThat(sagaStates.containsKey(otherGlobalTxId), is(true));
+
+      loadReleased.countDown();
+      loading.get(1, TimeUnit.SECONDS);
+      assertThat(engine.activeGlobalTransactions(), is(2));
+      assertThat(sagaStates.containsKey(unknownGlobalTxId), is(true));
+    } finally {
+      loadReleased.countDown();
+      executor.shutdownNow();
+    }
+  }
+
+  private void handle(TxEvent event) {
+    eventRepository.save(event);
+    engine.onEvent(event);
+  }
+
+  private TxEvent lastEvent() {
+    return events.get(events.size() - 1);
+  }
+
+  private TxEvent eventOf(EventType eventType, String localTxId) {
+    return new TxEvent(serviceName,
+        instanceId,
+        globalTxId,
+        localTxId,
+        globalTxId.equals(localTxId) ? null : globalTxId,
+        eventType.name(),
+        "method",
+        new byte[0]);
+  }
+}
@@ -22,15 +22,18 @@ import static org.apache.servicecomb.pack.alpha.fsm.spring.integration.akka.Spri
 
 import akka.actor.ActorRef;
 import akka.actor.ActorSystem;
-import akka.actor.Props;
 import com.typesafe.config.Config;
 import com.typesafe.config.ConfigFactory;
+import java.util.Arrays;
 import java.util.Map;
+import java.util.stream.Collectors;
 import javax.annotation.PostConstruct;
+import org.apache.servicecomb.pack.alpha.core.metrics.ShardMetrics;
 import org.apache.servicecomb.pack.alpha.fsm.channel.kafka.KafkaChannelAutoConfiguration;
 import org.apache.servicecomb.pack.alpha.fsm.channel.memory.MemoryChannelAutoConfiguration;
 import org.apache.servicecomb.pack.alpha.fsm.channel.redis.RedisChannelAutoConfiguration;
 import org.apache.servicecomb.pack.alpha.fsm.metrics.MetricsService;
+import org.apache.servicecomb.pack.alpha.fsm.model.SagaEventLog;
 import org.apache.servicecomb.pack.alpha.fsm.repository.NoneTransactionRepository;
 import org.apache.servicecomb.pack.alpha.fsm.repository.channel.DefaultTransactionRepositoryChannel;
 import org.apache.servicecomb.pack.alpha.fsm.repository.elasticsearch.ElasticsearchTransactionRepository;
@@ -64,6 +67,35 @@ public class FsmAutoConfiguration {
   @Value("${alpha.feature.akka.transaction.repository.elasticsearch.refreshTime:5000}")
   int repositoryElasticsearchRefreshTime;
 
+  // a saga snapshot is saved after this number of domain events, 0 disables it
+  @Value("${alpha.feature.akka.snapshot.interval:0}")
+  int snapshotInterval;
+
+  // a saga snapshot is saved when the saga moves into one of these states, e.g. FAILED
+  @Value("${alpha.feature.akka.snapshot.states:}")
+  String[] snapshotStates;
+
+  // the upper bound in milliseconds of the exponential backoff between compensation retries
+  @Value("${alpha.feature.akka.compensation.retry.max-delay:60000}")
+  long compensationRetryMaxDelay;
+
+  // the number of the latest events kept by a saga and stored with its global transaction
+  @Value("${alpha.feature.akka.event-log.capacity:" + SagaEventLog.DEFAULT_CAPACITY + "}")
+  int eventLogCapacity;
+
+  // the number of saga shards, the same on all alpha nodes and well above the number of them
+  @Value("${alpha.feature.akka.shard.count:100}")
+  int numberOfShards;
+
+  // least-loaded allocates shards by the saga actors of the nodes, least-shard by their shards
+  @Value("${alpha.feature.akka.shard.allocation:" + SagaShardRegionActor.LEAST_LOADED_ALLOCATION + "}")
+  String shardAllocation;
+
+  // the difference of saga actors between two nodes that moves a shard of the least-loaded allocation
+  @Value("${alpha.feature.akka.shard.rebalance-threshold:"
+      + LeastLoadedShardAllocationStrategy.DEFAULT_REBALANCE_THRESHOLD + "}")
+  int shardRebalanceThreshold;
+
   @PostConstruct
   void init() {
     System.setProperty("es.set.netty.runtime.available.processors", "false");
@@ -79,6 +111,12 @@ public class FsmAutoConfiguration {
     SPRING_EXTENSION_PROVIDER.get(system).initialize(applicationContext);
     SAGA_DATA_EXTENSION_PROVIDER.get(system).setRepositoryChannel(repositoryChannel);
     SAGA_DATA_EXTENSION_PROVIDER.get(system).setMetricsService(metricsService);
+    SAGA_DATA_EXTENSION_PROVIDER.get(system).setSnapshotInterval(snapshotInterval);
+    SAGA_DATA_EXTENSION_PROVIDER.get(system).setSnapshotStates(Arrays.stream(snapshotStates)
+        .map(state -> SagaActorState.valueOf(state.trim()))
+        .collect(Collectors.toSet()));
+    SAGA_DATA_EXTENSION_PROVIDER.get(system).setCompensationRetryMaxDelay(compensationRetryMaxDelay);
+    SAGA_DATA_EXTENSION_PROVIDER.get(system).setEventLogCapacity(eventLogCapacity);
     return system;
   }
 
@@ -95,9 +133,16 @@ public class FsmAutoConfiguration {
     return new MetricsService();
   }
 
+  @Bean
+  public ShardMetrics shardMetrics() {
+    return new ShardMetrics();
+  }
+
   @Bean(name = "sagaShardRegionActor")
-  public ActorRef sagaShardRegionActor(ActorSystem actorSystem) {
-    return actorSystem.actorOf(Props.create(SagaShardRegionActor.class));
+  public ActorRef sagaShardRegionActor(ActorSystem actorSystem, ShardMetrics shardMetrics) {
+    return actorSystem.actorOf(
+        SagaShardRegionActor.props(numberOfShards, shardAllocation, shardRebalanceThreshold,
+            shardMetrics));
   }
 
   @Bean
@@ -0,0 +1,120 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.servicecomb.pack.alpha.fsm;
+
+import akka.actor.ActorRef;
+import akka.cluster.sharding.ShardCoordinator;
+import akka.dispatch.Futures;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import scala.collection.JavaConverters;
+import scala.collection.immutable.IndexedSeq;
+import scala.concurrent.Future;
+
+/**
+ * Allocates a new shard to the region hosting the least saga actors and moves a shard from the most
+ * loaded region to the least loaded one once their difference reaches the rebalance threshold, which
+ * counts saga actors rather than shards as the threshold of the least-shard allocation does. The
+ * load of a shard is its entity count plus one, so that empty shards are spread as well, the entity
+ * counts are refreshed by {@link SagaShardRegionActor} from the cluster sharding stats.
+ */
+public class LeastLoadedShardAllocationStrategy extends
+    ShardCoordinator.AbstractShardAllocationStrategy {
+
+  // a few dozen sagas more on one node are not worth the handoff of a shard
+  public static final int DEFAULT_REBALANCE_THRESHOLD = 100;
+
+  private final int rebalanceThreshold;
+  private final int maxSimultaneousRebalance;
+  private volatile Map<String, Integer> shardEntities = Collections.emptyMap();
+
+  public LeastLoadedShardAllocationStrategy(int rebalanceThreshold, int maxSimultaneousRebalance) {
+    this.rebalanceThreshold = rebalanceThreshold;
+    this.maxSimultaneousRebalance = maxSimultaneousRebalance;
+  }
+
+  public void updateShardEntities(Map<String, Integer> shardEntities) {
+    this.shardEntities = Collections.unmodifiableMap(new HashMap<>(shardEntities));
+  }
+
+  @Override
+  public Future<ActorRef> allocateShard(ActorRef requester, String shardId,
+      Map<ActorRef, IndexedSeq<String>> currentShardAllocations) {
+    ActorRef leastLoaded = null;
+    long leastLoad = Long.MAX_VALUE;
+    for (Map.Entry<ActorRef, IndexedSeq<String>> allocation : currentShardAllocations.entrySet()) {
+      long load = loadOf(allocation.getValue());
+      if (load < leastLoad) {
+        leastLoad = load;
+        leastLoaded = allocation.getKey();
+      }
+    }
+    return Futures.successful(leastLoaded);
+  }
+
+  @Override
+  public Future<Set<String>> rebalance(Map<ActorRef, IndexedSeq<String>> currentShardAllocations,
+      Set<String> rebalanceInProgress) {
+    if (rebalanceInProgress.size() >= maxSimultaneousRebalance) {
+      return Futures.successful(Collections.emptySet());
+    }
+    IndexedSeq<String> mostLoaded = null;
+    long mostLoad = Long.MIN_VALUE;
+    long leastLoad = Long.MAX_VALUE;
+    for (IndexedSeq<String> shards : currentShardAllocations.values()) {
+      long load = loadOf(shards);
+      if (load > mostLoad) {
+        mostLoad = load;
+        mostLoaded = shards;
+      }
+      leastLoad = Math.min(leastLoad, load);
+    }
+    long difference = mostLoad - leastLoad;
+    if (mostLoaded == null || difference < rebalanceThreshold) {
+      return Futures.successful(Collections.emptySet());
+    }
+    // the heaviest shard that narrows the difference without turning it around
+    String candidate = null;
+    long candidateLoad = 0;
+    for (String shardId : JavaConverters.seqAsJavaList(mostLoaded)) {
+      long load = loadOf(shardId);
+      if (!rebalanceInProgress.contains(shardId) && load * 2 <= difference
+          && load > candidateLoad) {
+        candidate = shardId;
+        candidateLoad = load;
+      }
+    }
+    return Futures.successful(
+        candidate == null ? Collections.emptySet() : Collections.singleton(candidate));
+  }
+
+  private long loadOf(IndexedSeq<String> shards) {
+    long load = 0;
+    for (String shardId : JavaConverters.seqAsJavaList(shards)) {
+      load += loadOf(shardId);
+    }
+    return load;
+  }
+
+  private long loadOf(String shardId) {
+    return shardEntities.getOrDefault(shardId, 0) + 1;
+  }
+}
@@ -17,25 +17,37 @@
 
 package org.apache.servicecomb.pack.alpha.fsm;
 
+import akka.actor.ActorRef;
 import akka.actor.PoisonPill;
 import akka.actor.Props;
 import akka.cluster.sharding.ShardRegion;
+import akka.persistence.SaveSnapshotFailure;
+import akka.persistence.SaveSnapshotSuccess;
+import akka.persistence.SnapshotSelectionCriteria;
 import akka.persistence.fsm.AbstractPersistentFSM;
+import akka.persistence.fsm.PersistentFSM.PersistentFSMSnapshot;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
 import org.apache.servicecomb.pack.alpha.core.AlphaException;
+import org.apache.servicecomb.pack.alpha.core.exception.CompensateAckFailedException;
 import org.apache.servicecomb.pack.alpha.core.fsm.SuspendedType;
 import org.apache.servicecomb.pack.alpha.core.fsm.TxState;
 import org.apache.servicecomb.pack.alpha.core.fsm.event.TxCompensateAckFailedEvent;
 import org.apache.servicecomb.pack.alpha.core.fsm.event.TxCompensateAckSucceedEvent;
 import org.apache.servicecomb.pack.alpha.core.fsm.event.base.BaseEvent;
 import org.apache.servicecomb.pack.alpha.core.fsm.event.internal.CompensateAckTimeoutEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.internal.CompensateFailedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.internal.CompensateRetryEvent;
 import org.apache.servicecomb.pack.alpha.fsm.domain.AddTxEventDomain;
 import org.apache.servicecomb.pack.alpha.fsm.domain.DomainEvent;
 import org.apache.servicecomb.pack.alpha.fsm.domain.SagaEndedDomain;
@@ -50,20 +62,36 @@ import org.apache.servicecomb.pack.alpha.core.fsm.event.internal.ComponsitedChec
 import org.apache.servicecomb.pack.alpha.core.fsm.event.TxEndedEvent;
 import org.apache.servicecomb.pack.alpha.core.fsm.event.TxStartedEvent;
 import org.apache.servicecomb.pack.alpha.fsm.model.SagaData;
+import org.apache.servicecomb.pack.alpha.fsm.model.SagaEventLog;
 import org.apache.servicecomb.pack.alpha.fsm.model.TxEntity;
 import org.apache.servicecomb.pack.alpha.fsm.spring.integration.akka.SagaDataExtension;
+import org.apache.servicecomb.pack.alpha.fsm.spring.integration.akka.SagaDataExtension.SagaDataExt;
 import org.apache.servicecomb.pack.alpha.fsm.spring.integration.akka.SpringAkkaExtension;
 import org.apache.servicecomb.pack.common.Environment;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import scala.Option;
 import scala.concurrent.duration.Duration;
+import scala.concurrent.duration.FiniteDuration;
 
 public class SagaActor extends
     AbstractPersistentFSM<SagaActorState, SagaData, DomainEvent> {
   private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+  private static final String COMPENSATION_RETRY_TIMER = "compensation-retry-";
   private String persistenceId;
   private long sagaBeginTime;
   private long sagaEndTime;
+  private final long recoveryBeginTime = System.currentTimeMillis();
+  // domain events applied since the last snapshot was requested
+  private int eventsSinceSnapshot;
+  // the sub transaction whose compensation is in flight, the others wait for it in reverse order
+  private String compensatingTxId;
+  // the attempt of the compensation retry scheduled for a sub transaction
+  private final Map<String, Integer> compensationAttempts = new HashMap<>();
+
+  private enum SagaSnapshot {
+    SAVE
+  }
 
   public static Props props(String persistenceId) {
     return Props.create(SagaActor.class, persistenceId);
@@ -76,7 +104,9 @@ public class SagaActor extends
       this.persistenceId = getSelf().path().name();
     }
 
-    startWith(SagaActorState.IDLE, SagaData.builder().build());
+    startWith(SagaActorState.IDLE, SagaData.builder()
+        .eventLog(new SagaEventLog(sagaDataExt().getEventLogCapacity()))
+        .build());
 
     when(SagaActorState.IDLE,
         matchEvent(SagaStartedEvent.class,
@@ -237,6 +267,7 @@ public class SagaActor extends
             }
         ).event(TxCompensateAckSucceedEvent.class, SagaData.class,
             (event, data) -> {
+              cancelCompensationRetry(event.getLocalTxId());
               UpdateTxEventDomain domainEvent = new UpdateTxEventDomain(event);
               return stay().applying(domainEvent).andThen(exec(_data -> {
                 self().tell(ComponsitedCheckEvent.builder().build(), self());
@@ -244,18 +275,45 @@ public class SagaActor extends
             }
         ).event(TxCompensateAckFailedEvent.class, SagaData.class,
             (event, data) -> {
-              UpdateTxEventDomain domainEvent = new UpdateTxEventDomain(event);
+              boolean retried = retryCompensation(event.getLocalTxId(), data);
+              UpdateTxEventDomain domainEvent = new UpdateTxEventDomain(event, retried);
+              if (retried) {
+                // the sub transaction is still compensating, nothing to check until its retry ends
+                return stay().applying(domainEvent);
+              }
               return stay().applying(domainEvent).andThen(exec(_data -> {
                 self().tell(ComponsitedCheckEvent.builder().build(), self());
               }));
             }
         ).event(CompensateAckTimeoutEvent.class, SagaData.class,
             (event, data) -> {
-              UpdateTxEventDomain domainEvent = new UpdateTxEventDomain(event);
+              boolean retried = retryCompensation(event.getLocalTxId(), data);
+              UpdateTxEventDomain domainEvent = new UpdateTxEventDomain(event, retried);
+              if (retried) {
+                // the sub transaction is still compensating, nothing to check until its retry ends
+                return stay().applying(domainEvent);
+              }
               return stay().applying(domainEvent).andThen(exec(_data -> {
                 self().tell(ComponsitedCheckEvent.builder().build(), self());
               }));
             }
+        ).event(CompensateFailedEvent.class, SagaData.class,
+            (event, data) -> {
+              onCompensateFailed(event, data);
+              return stay();
+            }
+        ).event(CompensateRetryEvent.class, SagaData.class,
+            (event, data) -> {
+              TxEntity txEntity = data.getTxEntities().get(event.getLocalTxId());
+              // a retry replaced by a newer one or ended by an ack is dropped
+              Integer attempt = compensationAttempts.get(event.getLocalTxId());
+              if (attempt != null && attempt == event.getAttempt()
+                  && txEntity.getState() == TxState.COMPENSATION_SENT) {
+                // still counted as running, the failure that scheduled the retry didn't end it
+                sendCompensation(txEntity);
+              }
+              return stay();
+            }
         ).event(ComponsitedCheckEvent.class, SagaData.class,
             (event, data) -> {
               if (data.getTxEntities().hasCompensationSentTx() || !data.isTerminated()) {
@@ -338,7 +396,25 @@ public class SagaActor extends
     );
 
     whenUnhandled(
-        matchAnyEvent((event, data) -> {
+        matchEvent(SagaSnapshot.class,
+            (event, data) -> {
+              saveSagaSnapshot(data);
+              return stay();
+            }
+        ).event(SaveSnapshotSuccess.class,
+            (event, data) -> {
+              // the snapshot replaces the journal entries and the snapshots before it
+              long sequenceNr = event.metadata().sequenceNr();
+              deleteMessages(sequenceNr);
+              deleteSnapshots(SnapshotSelectionCriteria.create(sequenceNr - 1, Long.MAX_VALUE));
+              return stay();
+            }
+        ).event(SaveSnapshotFailure.class,
+            (event, data) -> {
+              LOG.warn("save snapshot [{}] fail", data.getGlobalTxId(), event.cause());
+              return stay();
+            }
+        ).anyEvent((event, data) -> {
           if (event instanceof BaseEvent){
             LOG.error("Unhandled event {}", event);
           }
@@ -360,6 +436,8 @@ public class SagaActor extends
               to == SagaActorState.SUSPENDED ||
               to == SagaActorState.COMPENSATED) {
             self().tell(org.apache.servicecomb.pack.alpha.core.fsm.event.internal.StopEvent.builder().build(), self());
+          } else if (!recoveryRunning() && sagaDataExt().getSnapshotStates().contains(to)) {
+            self().tell(SagaSnapshot.SAVE, self());
           }
         })
     );
@@ -434,7 +512,7 @@ public class SagaActor extends
       //  end
       //  return delkeys;
       deleteMessages(lastSequenceNr());
-      deleteSnapshot(snapshotSequenceNr());
+      deleteSnapshots(SnapshotSelectionCriteria.create(lastSequenceNr(), Long.MAX_VALUE));
     }catch(Exception e){
       LOG.error("stop [{}] fail",data.getGlobalTxId());
       throw e;
@@ -449,6 +527,13 @@ public class SagaActor extends
       }else if (LOG.isDebugEnabled()) {
         LOG.debug("persistence {}", event.getEvent());
       }
+      eventsSinceSnapshot++;
+      int snapshotInterval = sagaDataExt().getSnapshotInterval();
+      if (!this.recoveryRunning() && snapshotInterval > 0 && eventsSinceSnapshot >= snapshotInterval) {
+        // the snapshot is taken once the new state is applied
+        eventsSinceSnapshot = 0;
+        self().tell(SagaSnapshot.SAVE, self());
+      }
       if (event.getEvent() != null && !(event
           .getEvent() instanceof ComponsitedCheckEvent)) {
         data.logEvent(event.getEvent());
@@ -475,6 +560,9 @@ public class SagaActor extends
               .reverseRetries(domainEvent.getReverseRetries())
               .reverseTimeout(domainEvent.getReverseTimeout())
               .retryDelayInMilliseconds(domainEvent.getRetryDelayInMilliseconds())
+              .retryMethod(domainEvent.getRetryMethod())
+              .forwardRetries(domainEvent.getForwardRetries())
+              .forwardTimeout(domainEvent.getForwardTimeout())
               .beginTime(domainEvent.getEvent().getCreateTime())
               .build();
           data.getTxEntities().put(txEntity.getLocalTxId(), txEntity);
@@ -490,33 +578,29 @@ public class SagaActor extends
         } else if (domainEvent.getState() == TxState.FAILED) {
           txEntity.setState(domainEvent.getState());
           txEntity.setThrowablePayLoads(domainEvent.getThrowablePayLoads());
-          data.getTxEntities().forEachReverse((k, v) -> {
-            if (v.getState() == TxState.COMMITTED) {
-              // call compensate
-              compensation(v, data);
-            }
-          });
+          compensation(committedInReverse(data), data);
         } else if (domainEvent.getState() == TxState.COMPENSATED_SUCCEED) {
           // decrement the compensation running counter by one
           data.getCompensationRunningCounter().decrementAndGet();
           txEntity.setState(domainEvent.getState());
           LOG.info("compensation is succeed {}", txEntity.getLocalTxId());
+          compensationEnded(txEntity, data);
+        } else if (domainEvent.getState() == TxState.COMPENSATION_SENT) {
+          // the failed compensation is retried, it keeps running
+          txEntity.setThrowablePayLoads(domainEvent.getThrowablePayLoads());
+          LOG.info("compensation is failed and retried {}", txEntity.getLocalTxId());
         } else if (domainEvent.getState() == TxState.COMPENSATED_FAILED) {
           data.getCompensationRunningCounter().decrementAndGet();
           txEntity.setState(domainEvent.getState());
           txEntity.setThrowablePayLoads(domainEvent.getThrowablePayLoads());
           LOG.info("compensation is failed {}", txEntity.getLocalTxId());
+          compensationEnded(txEntity, data);
         }
       } else if (event instanceof SagaEndedDomain) {
         SagaEndedDomain domainEvent = (SagaEndedDomain) event;
         if (domainEvent.getState() == SagaActorState.FAILED) {
           data.setTerminated(true);
-          data.getTxEntities().forEachReverse((k, v) -> {
-            if (v.getState() == TxState.COMMITTED) {
-              // call compensate
-              compensation(v, data);
-            }
-          });
+          compensation(committedInReverse(data), data);
         } else if (domainEvent.getState() == SagaActorState.SUSPENDED) {
           data.setEndTime(event.getEvent() != null ? event.getEvent().getCreateTime() : new Date());
           data.setTerminated(true);
@@ -542,7 +626,13 @@ public class SagaActor extends
   @Override
   public void onRecoveryCompleted() {
     if(stateName() != SagaActorState.IDLE){
-      LOG.info("recovery completed [{}] state={}", stateData().getGlobalTxId(), stateName());
+      long recoveryTime = System.currentTimeMillis() - recoveryBeginTime;
+      sagaDataExt().doSagaRecovery(recoveryTime);
+      LOG.info("recovery completed [{}] state={} in {} ms", stateData().getGlobalTxId(), stateName(), recoveryTime);
+      if (stateName() == SagaActorState.FAILED) {
+        // nothing is sent while the journal is replayed, the pending compensations go on from here
+        sendNextCompensation(stateData());
+      }
     }
   }
 
@@ -557,59 +647,180 @@ public class SagaActor extends
     return persistenceId;
   }
 
-  //call omega compensate method
+  //call omega compensate method, the actor is resumed by a message if the call fails
   private void compensation(TxEntity txEntity, SagaData data) {
-    // increments the compensation running counter by one
-    data.getCompensationRunningCounter().incrementAndGet();
-    txEntity.setState(TxState.COMPENSATION_SENT);
-    try {
-      SpringAkkaExtension.SPRING_EXTENSION_PROVIDER.get(context().system()).compensate(txEntity);
-      LOG.info("compensate {} {} {}", txEntity.getServiceName(), txEntity.getInstanceId(), txEntity.getLocalTxId());
-    } catch (AlphaException ex) {
-      LOG.error(ex.getMessage(), ex);
-      try {
-        Thread.sleep(txEntity.getRetryDelayInMilliseconds());
-      } catch (InterruptedException e) {
-        LOG.error(e.getMessage(), e);
+    compensation(Collections.singletonList(txEntity), data);
+  }
+
+  //the listed compensations become pending, they are sent one after another in reverse order
+  private void compensation(List<TxEntity> txEntities, SagaData data) {
+    for (TxEntity txEntity : txEntities) {
+      // increments the compensation running counter by one
+      data.getCompensationRunningCounter().incrementAndGet();
+      txEntity.setState(TxState.COMPENSATION_SENT);
+    }
+    sendNextCompensation(data);
+  }
+
+  //a compensation is only sent once the previous one is acknowledged or finally failed,
+  //as a sub transaction may depend on the ones started after it
+  private void sendNextCompensation(SagaData data) {
+    if (compensatingTxId != null || recoveryRunning()) {
+      return;
+    }
+    List<TxEntity> pending = pendingInReverse(data);
+    if (!pending.isEmpty()) {
+      sendCompensation(pending.get(0));
+    }
+  }
+
+  private void compensationEnded(TxEntity txEntity, SagaData data) {
+    if (txEntity.getLocalTxId().equals(compensatingTxId)) {
+      compensatingTxId = null;
+      sendNextCompensation(data);
+    }
+  }
+
+  private void sendCompensation(TxEntity txEntity) {
+    compensatingTxId = txEntity.getLocalTxId();
+    ActorRef self = self();
+    SpringAkkaExtension.SPRING_EXTENSION_PROVIDER.get(context().system()).compensate(txEntity)
+        .whenComplete((result, ex) -> {
+          if (ex != null) {
+            self.tell(CompensateFailedEvent.builder()
+                .globalTxId(txEntity.getGlobalTxId())
+                .localTxId(txEntity.getLocalTxId())
+                .cause(ex)
+                .build(), self);
+          }
+        });
+    LOG.info("compensate {} {} {}", txEntity.getServiceName(), txEntity.getInstanceId(), txEntity.getLocalTxId());
+  }
+
+  private void saveSagaSnapshot(SagaData data) {
+    SagaActorState state = stateName();
+    if (state == SagaActorState.IDLE ||
+        state == SagaActorState.COMMITTED ||
+        state == SagaActorState.SUSPENDED ||
+        state == SagaActorState.COMPENSATED) {
+      // nothing to recover, or the actor is being stopped and cleaned up
+      return;
+    }
+    eventsSinceSnapshot = 0;
+    Option<FiniteDuration> timeout = Option.empty();
+    if (data.getExpirationTime() != null && state != SagaActorState.FAILED) {
+      timeout = Option.apply(Duration.create(data.getTimeout(), TimeUnit.MILLISECONDS));
+    }
+    saveSnapshot(new PersistentFSMSnapshot<>(state.identifier(), data.copy(), timeout));
+  }
+
+  private SagaDataExt sagaDataExt() {
+    return SagaDataExtension.SAGA_DATA_EXTENSION_PROVIDER.get(context().system());
+  }
+
+  private List<TxEntity> committedInReverse(SagaData data) {
+    List<TxEntity> committed = new ArrayList<>();
+    data.getTxEntities().forEachReverse((k, v) -> {
+      if (v.getState() == TxState.COMMITTED) {
+        committed.add(v);
       }
-      compensation(txEntity, data);
-    } catch (Exception ex) {
-      if (ex instanceof TimeoutException) {
-        StringWriter writer = new StringWriter();
-        ex.printStackTrace(new PrintWriter(writer));
-        String stackTrace = writer.toString();
-        if (stackTrace.length() > Environment.getInstance().getPayloadsMaxLength()) {
-          stackTrace = stackTrace.substring(0, Environment.getInstance().getPayloadsMaxLength());
-        }
-        CompensateAckTimeoutEvent event = CompensateAckTimeoutEvent.builder()
-            .createTime(new Date(System.currentTimeMillis()))
+    });
+    return committed;
+  }
+
+  private List<TxEntity> pendingInReverse(SagaData data) {
+    List<TxEntity> pending = new ArrayList<>();
+    data.getTxEntities().forEachReverse((k, v) -> {
+      if (v.getState() == TxState.COMPENSATION_SENT) {
+        pending.add(v);
+      }
+    });
+    return pending;
+  }
+
+  private void onCompensateFailed(CompensateFailedEvent event, SagaData data) {
+    TxEntity txEntity = data.getTxEntities().get(event.getLocalTxId());
+    Throwable ex = event.getCause();
+    if (ex instanceof CompensateAckFailedException) {
+      // omega reports the failure with a TxCompensateAckFailedEvent, which decides about the retry
+      return;
+    }
+    if (ex instanceof AlphaException) {
+      // alpha itself couldn't send the compensation, e.g. no omega instance is connected, so it is
+      // retried without counting against the reverse retries, only the backoff grows
+      LOG.error(ex.getMessage(), ex);
+      retryCompensation(txEntity);
+      return;
+    }
+    LOG.error("compensation failed " + txEntity.getLocalTxId(), ex);
+    StringWriter writer = new StringWriter();
+    ex.printStackTrace(new PrintWriter(writer));
+    String stackTrace = writer.toString();
+    if (stackTrace.length() > Environment.getInstance().getPayloadsMaxLength()) {
+      stackTrace = stackTrace.substring(0, Environment.getInstance().getPayloadsMaxLength());
+    }
+    CompensateAckTimeoutEvent timeoutEvent = CompensateAckTimeoutEvent.builder()
+        .createTime(new Date(System.currentTimeMillis()))
+        .globalTxId(txEntity.getGlobalTxId())
+        .parentTxId(txEntity.getParentTxId())
+        .localTxId(txEntity.getLocalTxId())
+        .serviceName(txEntity.getServiceName())
+        .instanceId(txEntity.getInstanceId())
+        .payloads(stackTrace.getBytes())
+        .build();
+    self().tell(timeoutEvent, self());
+  }
+
+  // schedules the retry of a failed compensation while the reverse retries last,
+  // otherwise the saga is suspended once the other compensations end
+  private boolean retryCompensation(String localTxId, SagaData data) {
+    TxEntity txEntity = data.getTxEntities().get(localTxId);
+    // which means the retry number
+    if (txEntity.getReverseRetries() > 0
+        && txEntity.getRetriesCounter().incrementAndGet() < txEntity.getReverseRetries()) {
+      retryCompensation(txEntity);
+      return true;
+    }
+    cancelCompensationRetry(localTxId);
+    data.setSuspendedType(SuspendedType.COMPENSATE_FAILED);
+    return false;
+  }
+
+  // the retry is a named FSM timer instead of sleeping on the dispatcher thread,
+  // so it is replaced by a newer retry of the same sub transaction and cancelled when the actor stops
+  private void retryCompensation(TxEntity txEntity) {
+    int attempt = compensationAttempts.getOrDefault(txEntity.getLocalTxId(), 0) + 1;
+    compensationAttempts.put(txEntity.getLocalTxId(), attempt);
+    long delay = retryDelay(txEntity.getRetryDelayInMilliseconds(), attempt,
+        sagaDataExt().getCompensationRetryMaxDelay(), ThreadLocalRandom.current().nextDouble());
+    LOG.info("Retry compensate {} attempt {} after {} ms", txEntity.getLocalTxId(), attempt, delay);
+    setTimer(COMPENSATION_RETRY_TIMER + txEntity.getLocalTxId(),
+        CompensateRetryEvent.builder()
             .globalTxId(txEntity.getGlobalTxId())
-            .parentTxId(txEntity.getParentTxId())
             .localTxId(txEntity.getLocalTxId())
-            .serviceName(txEntity.getServiceName())
-            .instanceId(txEntity.getInstanceId())
-            .payloads(stackTrace.getBytes())
-            .build();
-        self().tell(event, self());
-      }
-      LOG.error("compensation failed " + txEntity.getLocalTxId(), ex);
-      if (txEntity.getReverseRetries() > 0) {
-        // which means the retry number
-        if (txEntity.getRetriesCounter().incrementAndGet() < txEntity.getReverseRetries()) {
-          LOG.info("Retry compensate {}/{} after {} ms", txEntity.getRetriesCounter().get() + 1, txEntity.getReverseRetries(),
-              txEntity.getRetryDelayInMilliseconds());
-          try {
-            Thread.sleep(txEntity.getRetryDelayInMilliseconds());
-          } catch (InterruptedException e) {
-            LOG.error(e.getMessage(), e);
-          }
-          compensation(txEntity, data);
-        } else {
-          data.setSuspendedType(SuspendedType.COMPENSATE_FAILED);
-        }
-      } else {
-        data.setSuspendedType(SuspendedType.COMPENSATE_FAILED);
-      }
+            .attempt(attempt)
+            .build(),
+        Duration.create(delay, TimeUnit.MILLISECONDS),
+        false);
+  }
+
+  private void cancelCompensationRetry(String localTxId) {
+    if (compensationAttempts.remove(localTxId) != null) {
+      cancelTimer(COMPENSATION_RETRY_TIMER + localTxId);
     }
   }
-}
\ No newline at end of file
+
+  /**
+   * Exponential backoff of a compensation retry, the retry delay doubles with every attempt up to
+   * the max delay (but never below the retry delay itself) and up to a fifth of it is added as
+   * jitter, so the retries of the sagas failed by the same outage do not hit the service at once.
+   *
+   * @param random a random number in [0, 1)
+   */
+  static long retryDelay(long retryDelay, int attempt, long maxDelay, double random) {
+    long cap = Math.max(retryDelay, maxDelay);
+    int shift = Math.min(Math.max(attempt - 1, 0), 30);
+    long backoff = retryDelay > cap >> shift ? cap : retryDelay << shift;
+    return backoff + (long) (backoff / 5 * random);
+  }
+}
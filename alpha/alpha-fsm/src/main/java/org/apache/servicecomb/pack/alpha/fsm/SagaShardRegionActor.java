@@ -20,64 +20,129 @@ package org.apache.servicecomb.pack.alpha.fsm;
 import akka.actor.AbstractActor;
 import akka.actor.ActorRef;
 import akka.actor.ActorSystem;
+import akka.actor.Address;
+import akka.actor.Cancellable;
+import akka.actor.PoisonPill;
 import akka.actor.Props;
+import akka.cluster.Cluster;
 import akka.cluster.sharding.ClusterSharding;
 import akka.cluster.sharding.ClusterShardingSettings;
+import akka.cluster.sharding.ShardCoordinator;
 import akka.cluster.sharding.ShardRegion;
+import com.google.common.hash.Hashing;
 import java.lang.invoke.MethodHandles;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import org.apache.servicecomb.pack.alpha.core.fsm.event.base.BaseEvent;
+import org.apache.servicecomb.pack.alpha.core.metrics.ShardMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import scala.concurrent.duration.Duration;
+import scala.concurrent.duration.FiniteDuration;
 
 public class SagaShardRegionActor extends AbstractActor {
 
   private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+  public static final String LEAST_LOADED_ALLOCATION = "least-loaded";
+  public static final String LEAST_SHARD_ALLOCATION = "least-shard";
+  private static final FiniteDuration STATS_TIMEOUT = Duration.create(5, TimeUnit.SECONDS);
   private final ActorRef sagaActorRegion;
+  private final int numberOfShards;
+  private final ShardMetrics shardMetrics;
+  private final LeastLoadedShardAllocationStrategy leastLoadedStrategy;
+  private final Cancellable statsTick;
 
-  static ShardRegion.MessageExtractor messageExtractor = new ShardRegion.MessageExtractor() {
-    @Override
-    public String entityId(Object message) {
-      if (message instanceof BaseEvent) {
-        return ((BaseEvent) message).getGlobalTxId();
-      } else {
-        return null;
+  private enum StatsTick {
+    INSTANCE
+  }
+
+  public static Props props(int numberOfShards, String allocation, int rebalanceThreshold,
+      ShardMetrics shardMetrics) {
+    return Props.create(SagaShardRegionActor.class, numberOfShards, allocation, rebalanceThreshold,
+        shardMetrics);
+  }
+
+  // NOTE: the number of shards is the same on all alpha nodes and greater than the number of them
+  static ShardRegion.MessageExtractor messageExtractor(int numberOfShards) {
+    return new ShardRegion.MessageExtractor() {
+      @Override
+      public String entityId(Object message) {
+        if (message instanceof BaseEvent) {
+          return ((BaseEvent) message).getGlobalTxId();
+        } else {
+          return null;
+        }
       }
-    }
 
-    @Override
-    public Object entityMessage(Object message) {
-      return message;
-    }
+      @Override
+      public Object entityMessage(Object message) {
+        return message;
+      }
 
-    @Override
-    public String shardId(Object message) {
-      int numberOfShards = 10; // NOTE: Greater than the number of alpha nodes
-      if (message instanceof BaseEvent) {
-        String actorId = ((BaseEvent) message).getGlobalTxId();
-        return String.valueOf(actorId.hashCode() % numberOfShards);
-      } else if (message instanceof ShardRegion.StartEntity) {
-        String actorId = ((ShardRegion.StartEntity) message).entityId();
-        return String.valueOf(actorId.hashCode() % numberOfShards);
-      } else {
-        return null;
+      @Override
+      public String shardId(Object message) {
+        if (message instanceof BaseEvent) {
+          return shardOf(((BaseEvent) message).getGlobalTxId(), numberOfShards);
+        } else if (message instanceof ShardRegion.StartEntity) {
+          return shardOf(((ShardRegion.StartEntity) message).entityId(), numberOfShards);
+        } else {
+          return null;
+        }
       }
-    }
-  };
+    };
+  }
+
+  // murmur3 spreads the similar global transaction ids evenly and never gives a negative shard
+  static String shardOf(String entityId, int numberOfShards) {
+    return String.valueOf(Hashing.consistentHash(
+        Hashing.murmur3_128().hashString(entityId, StandardCharsets.UTF_8), numberOfShards));
+  }
 
-  public SagaShardRegionActor() {
+  public SagaShardRegionActor(int numberOfShards, String allocation, int rebalanceThreshold,
+      ShardMetrics shardMetrics) {
+    this.numberOfShards = numberOfShards;
+    this.shardMetrics = shardMetrics;
     ActorSystem system = getContext().getSystem();
     ClusterShardingSettings settings = ClusterShardingSettings.create(system);
+    ShardCoordinator.ShardAllocationStrategy allocationStrategy;
+    if (LEAST_SHARD_ALLOCATION.equals(allocation)) {
+      leastLoadedStrategy = null;
+      allocationStrategy = new ShardCoordinator.LeastShardAllocationStrategy(
+          settings.tuningParameters().leastShardAllocationRebalanceThreshold(),
+          settings.tuningParameters().leastShardAllocationMaxSimultaneousRebalance());
+    } else {
+      leastLoadedStrategy = new LeastLoadedShardAllocationStrategy(rebalanceThreshold,
+          settings.tuningParameters().leastShardAllocationMaxSimultaneousRebalance());
+      allocationStrategy = leastLoadedStrategy;
+    }
     sagaActorRegion = ClusterSharding.get(system)
         .start(
             SagaActor.class.getSimpleName(),
             SagaActor.props(null),
             settings,
-            messageExtractor);
+            messageExtractor(numberOfShards),
+            allocationStrategy,
+            PoisonPill.getInstance());
+    // the stats are refreshed as often as the shards are rebalanced
+    FiniteDuration interval = settings.tuningParameters().rebalanceInterval();
+    statsTick = system.scheduler().schedule(interval, interval, getSelf(), StatsTick.INSTANCE,
+        getContext().dispatcher(), getSelf());
+  }
+
+  @Override
+  public void postStop() {
+    statsTick.cancel();
   }
 
   @Override
   public Receive createReceive() {
     return receiveBuilder()
+        .match(StatsTick.class, tick ->
+            sagaActorRegion.tell(new ShardRegion.GetClusterShardingStats(STATS_TIMEOUT), getSelf())
+        )
+        .match(ShardRegion.ClusterShardingStats.class, this::onClusterShardingStats)
         .matchAny(event -> {
           if(event instanceof BaseEvent){
             final BaseEvent evt = (BaseEvent) event;
@@ -86,6 +151,7 @@ public class SagaShardRegionActor extends AbstractActor {
             }
 
             sagaActorRegion.tell(event, getSelf());
+            shardMetrics.doMessageRouted(shardOf(evt.getGlobalTxId(), numberOfShards));
             if (LOG.isDebugEnabled()) {
               LOG.debug("<= [{}] {} {}", evt.getGlobalTxId(), evt.getType(), evt.getLocalTxId());
             }
@@ -94,4 +160,24 @@ public class SagaShardRegionActor extends AbstractActor {
         })
         .build();
   }
+
+  private void onClusterShardingStats(ShardRegion.ClusterShardingStats stats) {
+    Address selfAddress = Cluster.get(getContext().getSystem()).selfAddress();
+    Map<String, Integer> shardEntities = new HashMap<>();
+    stats.getRegions().forEach((address, regionStats) ->
+        regionStats.getStats().forEach((shardId, entities) -> {
+          shardEntities.put(shardId, (Integer) entities);
+        })
+    );
+    ShardRegion.ShardRegionStats localStats = stats.getRegions().get(selfAddress);
+    Map<String, Integer> localEntities = new HashMap<>();
+    if (localStats != null) {
+      localStats.getStats().forEach((shardId, entities) -> localEntities.put(shardId, (Integer) entities));
+    }
+    shardMetrics.setEntities(localEntities);
+    shardMetrics.sample(System.currentTimeMillis());
+    if (leastLoadedStrategy != null) {
+      leastLoadedStrategy.updateShardEntities(shardEntities);
+    }
+  }
 }
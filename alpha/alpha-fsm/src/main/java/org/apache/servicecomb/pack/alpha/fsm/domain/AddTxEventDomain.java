@@ -26,6 +26,9 @@ public class AddTxEventDomain implements DomainEvent {
   private int reverseRetries;
   private int reverseTimeout;
   private int retryDelayInMilliseconds;
+  private String retryMethod;
+  private int forwardRetries;
+  private int forwardTimeout;
   private String compensationMethod;
   private byte[] payloads;
   private BaseEvent event;
@@ -37,6 +40,9 @@ public class AddTxEventDomain implements DomainEvent {
     this.reverseRetries = event.getReverseRetries();
     this.reverseTimeout = event.getReverseTimeout();
     this.retryDelayInMilliseconds = event.getRetryDelayInMilliseconds();
+    this.retryMethod = event.getRetryMethod();
+    this.forwardRetries = event.getForwardRetries();
+    this.forwardTimeout = event.getForwardTimeout();
   }
 
   public TxState getState() {
@@ -75,6 +81,30 @@ public class AddTxEventDomain implements DomainEvent {
     this.retryDelayInMilliseconds = retryDelayInMilliseconds;
   }
 
+  public String getRetryMethod() {
+    return retryMethod;
+  }
+
+  public void setRetryMethod(String retryMethod) {
+    this.retryMethod = retryMethod;
+  }
+
+  public int getForwardRetries() {
+    return forwardRetries;
+  }
+
+  public void setForwardRetries(int forwardRetries) {
+    this.forwardRetries = forwardRetries;
+  }
+
+  public int getForwardTimeout() {
+    return forwardTimeout;
+  }
+
+  public void setForwardTimeout(int forwardTimeout) {
+    this.forwardTimeout = forwardTimeout;
+  }
+
   public byte[] getPayloads() {
     return payloads;
   }
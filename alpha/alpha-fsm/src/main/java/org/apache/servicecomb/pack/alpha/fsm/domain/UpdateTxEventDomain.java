@@ -51,16 +51,26 @@ public class UpdateTxEventDomain implements DomainEvent {
   }
 
   public UpdateTxEventDomain(TxCompensateAckFailedEvent event) {
+    this(event, false);
+  }
+
+  // a failed compensation that is retried stays COMPENSATION_SENT
+  public UpdateTxEventDomain(TxCompensateAckFailedEvent event, boolean retried) {
     this.event = event;
     this.localTxId = event.getLocalTxId();
-    this.state = TxState.COMPENSATED_FAILED;
+    this.throwablePayLoads = event.getPayloads();
+    this.state = retried ? TxState.COMPENSATION_SENT : TxState.COMPENSATED_FAILED;
   }
 
   public UpdateTxEventDomain(CompensateAckTimeoutEvent event) {
+    this(event, false);
+  }
+
+  public UpdateTxEventDomain(CompensateAckTimeoutEvent event, boolean retried) {
     this.event = event;
     this.localTxId = event.getLocalTxId();
     this.throwablePayLoads = event.getPayloads();
-    this.state = TxState.COMPENSATED_FAILED;
+    this.state = retried ? TxState.COMPENSATION_SENT : TxState.COMPENSATED_FAILED;
   }
 
   public String getLocalTxId() {
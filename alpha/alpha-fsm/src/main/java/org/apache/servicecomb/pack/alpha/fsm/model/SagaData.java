@@ -19,7 +19,6 @@ package org.apache.servicecomb.pack.alpha.fsm.model;
 
 import java.io.Serializable;
 import java.util.Date;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicLong;
 import org.apache.servicecomb.pack.alpha.core.fsm.SuspendedType;
@@ -39,7 +38,7 @@ public class SagaData implements Serializable {
   private SagaActorState lastState;
   private AtomicLong compensationRunningCounter = new AtomicLong();
   private TxEntities txEntities = new TxEntities();
-  private List<BaseEvent> events = new LinkedList<>();
+  private SagaEventLog eventLog = new SagaEventLog(SagaEventLog.DEFAULT_CAPACITY);
 
   public String getServiceName() {
     return serviceName;
@@ -139,11 +138,40 @@ public class SagaData implements Serializable {
   }
 
   public void logEvent(BaseEvent event){
-    this.events.add(event);
+    this.eventLog.add(event);
   }
 
+  public SagaEventLog getEventLog() {
+    return eventLog;
+  }
+
+  public void setEventLog(SagaEventLog eventLog) {
+    this.eventLog = eventLog;
+  }
+
+  // the events are materialized from the event log on every call, it is meant for the saga end
   public List<BaseEvent> getEvents() {
-    return events;
+    return eventLog.toEvents(this);
+  }
+
+  // the snapshot of a saga is serialized off the actor thread, so it takes a copy
+  public SagaData copy() {
+    SagaData copy = SagaData.builder()
+        .serviceName(serviceName)
+        .instanceId(instanceId)
+        .globalTxId(globalTxId)
+        .beginTime(beginTime)
+        .endTime(endTime)
+        .expirationTime(expirationTime)
+        .timeout(timeout)
+        .suspendedType(suspendedType)
+        .terminated(terminated)
+        .compensationRunningCounter(new AtomicLong(compensationRunningCounter.get()))
+        .txEntities(txEntities.copy())
+        .eventLog(eventLog.copy())
+        .build();
+    copy.setLastState(lastState);
+    return copy;
   }
 
   public static Builder builder() {
@@ -197,6 +225,12 @@ public class SagaData implements Serializable {
       sagaData.setTxEntities(txEntities);
       return this;
     }
+
+    public Builder eventLog(SagaEventLog eventLog) {
+      sagaData.setEventLog(eventLog);
+      return this;
+    }
+
     public Builder serviceName(String serviceName) {
       sagaData.setServiceName(serviceName);
       return this;
@@ -0,0 +1,285 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.servicecomb.pack.alpha.fsm.model;
+
+import java.io.Serializable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import org.apache.servicecomb.pack.alpha.core.fsm.TxState;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.SagaAbortedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.SagaEndedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.SagaStartedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.SagaTimeoutEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.TxAbortedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.TxCompensateAckFailedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.TxCompensateAckSucceedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.TxCompensatedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.TxEndedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.TxStartedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.base.BaseEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.internal.CompensateAckTimeoutEvent;
+
+/**
+ * Bounded log of the events of a saga. An event is kept as its type, the index of its local
+ * transaction id and its create time in primitive arrays used as a ring, so the oldest events are
+ * overwritten once the capacity is reached. The payloads and the other details of the events stay
+ * in the {@link TxEntity} and the {@link SagaData}, the events are only materialized from them
+ * when the saga ends, so an event repeated on a sub transaction shows its latest payloads. A local
+ * transaction id is only kept while one of the kept events refers to it, so the capacity bounds
+ * the ids as well.
+ */
+public class SagaEventLog implements Serializable {
+
+  public static final int DEFAULT_CAPACITY = 1000;
+
+  private static final int INITIAL_LENGTH = 16;
+  private static final int NO_TX = -1;
+  private static final long NO_TIME = Long.MIN_VALUE;
+
+  private static final List<Class<? extends BaseEvent>> TYPES = Arrays.asList(
+      SagaStartedEvent.class,
+      SagaEndedEvent.class,
+      SagaAbortedEvent.class,
+      SagaTimeoutEvent.class,
+      TxStartedEvent.class,
+      TxEndedEvent.class,
+      TxAbortedEvent.class,
+      TxCompensatedEvent.class,
+      TxCompensateAckSucceedEvent.class,
+      TxCompensateAckFailedEvent.class,
+      CompensateAckTimeoutEvent.class);
+
+  private static final List<Supplier<BaseEvent>> FACTORIES = Arrays.asList(
+      SagaStartedEvent::new,
+      SagaEndedEvent::new,
+      SagaAbortedEvent::new,
+      SagaTimeoutEvent::new,
+      TxStartedEvent::new,
+      TxEndedEvent::new,
+      TxAbortedEvent::new,
+      TxCompensatedEvent::new,
+      TxCompensateAckSucceedEvent::new,
+      TxCompensateAckFailedEvent::new,
+      CompensateAckTimeoutEvent::new);
+
+  private final int capacity;
+  // the arrays grow up to the capacity, they only wrap around once they are full
+  private byte[] types = new byte[0];
+  private int[] txIndexes = new int[0];
+  private long[] createTimes = new long[0];
+  private int first;
+  private int size;
+  // the number of the oldest events overwritten
+  private long dropped;
+  private final List<String> localTxIds = new ArrayList<>();
+  private final Map<String, Integer> localTxIndexes = new HashMap<>();
+  // the number of kept events of each local transaction id, its index is reused once none is left
+  private int[] localTxReferences = new int[0];
+  private final ArrayDeque<Integer> freeTxIndexes = new ArrayDeque<>();
+
+  public SagaEventLog(int capacity) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("The capacity of the saga event log must be positive");
+    }
+    this.capacity = capacity;
+  }
+
+  /**
+   * @return false if the event is not a saga event, which is not logged
+   */
+  public boolean add(BaseEvent event) {
+    int type = TYPES.indexOf(event.getClass());
+    if (type < 0) {
+      return false;
+    }
+    add(type, event.getLocalTxId(),
+        event.getCreateTime() == null ? NO_TIME : event.getCreateTime().getTime());
+    return true;
+  }
+
+  public void add(int type, String localTxId, long createTime) {
+    int index;
+    if (size == capacity) {
+      index = first;
+      first = (first + 1) % capacity;
+      dropped++;
+      release(txIndexes[index]);
+    } else {
+      if (size == types.length) {
+        int length = Math.min(capacity, Math.max(INITIAL_LENGTH, types.length * 2));
+        types = Arrays.copyOf(types, length);
+        txIndexes = Arrays.copyOf(txIndexes, length);
+        createTimes = Arrays.copyOf(createTimes, length);
+      }
+      index = size++;
+    }
+    types[index] = (byte) type;
+    txIndexes[index] = txIndexOf(localTxId);
+    createTimes[index] = createTime;
+  }
+
+  private int txIndexOf(String localTxId) {
+    if (localTxId == null) {
+      return NO_TX;
+    }
+    Integer txIndex = localTxIndexes.get(localTxId);
+    if (txIndex == null) {
+      txIndex = freeTxIndexes.poll();
+      if (txIndex == null) {
+        txIndex = localTxIds.size();
+        localTxIds.add(localTxId);
+        if (txIndex == localTxReferences.length) {
+          localTxReferences = Arrays.copyOf(localTxReferences, Math.max(INITIAL_LENGTH, txIndex * 2));
+        }
+      } else {
+        localTxIds.set(txIndex, localTxId);
+      }
+      localTxIndexes.put(localTxId, txIndex);
+    }
+    localTxReferences[txIndex]++;
+    return txIndex;
+  }
+
+  private void release(int txIndex) {
+    if (txIndex != NO_TX && --localTxReferences[txIndex] == 0) {
+      localTxIndexes.remove(localTxIds.get(txIndex));
+      localTxIds.set(txIndex, null);
+      freeTxIndexes.push(txIndex);
+    }
+  }
+
+  public int getCapacity() {
+    return capacity;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  /**
+   * @return the number of the local transaction ids referred to by the kept events
+   */
+  public int getLocalTxIdCount() {
+    return localTxIndexes.size();
+  }
+
+  public long getDropped() {
+    return dropped;
+  }
+
+  public void setDropped(long dropped) {
+    this.dropped = dropped;
+  }
+
+  // the i-th event from the oldest one kept
+  public int getType(int i) {
+    return types[(first + i) % capacity];
+  }
+
+  public String getLocalTxId(int i) {
+    int txIndex = txIndexes[(first + i) % capacity];
+    return txIndex == NO_TX ? null : localTxIds.get(txIndex);
+  }
+
+  public long getCreateTime(int i) {
+    return createTimes[(first + i) % capacity];
+  }
+
+  public List<BaseEvent> toEvents(SagaData data) {
+    List<BaseEvent> events = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      BaseEvent event = FACTORIES.get(getType(i)).get();
+      String localTxId = getLocalTxId(i);
+      TxEntity txEntity = localTxId == null ? null : data.getTxEntities().get(localTxId);
+      if (txEntity != null) {
+        event.setServiceName(txEntity.getServiceName());
+        event.setInstanceId(txEntity.getInstanceId());
+        event.setGlobalTxId(txEntity.getGlobalTxId());
+        event.setParentTxId(txEntity.getParentTxId());
+      } else {
+        // the saga events use the global transaction id as their local and parent ones
+        event.setServiceName(data.getServiceName());
+        event.setInstanceId(data.getInstanceId());
+        event.setGlobalTxId(data.getGlobalTxId());
+        event.setParentTxId(localTxId == null ? null : data.getGlobalTxId());
+      }
+      event.setLocalTxId(localTxId);
+      long createTime = getCreateTime(i);
+      event.setCreateTime(createTime == NO_TIME ? null : new Date(createTime));
+      materialize(event, txEntity, data);
+      events.add(event);
+    }
+    return events;
+  }
+
+  private static void materialize(BaseEvent event, TxEntity txEntity, SagaData data) {
+    if (event instanceof SagaStartedEvent) {
+      if (data.getExpirationTime() != null && data.getBeginTime() != null) {
+        ((SagaStartedEvent) event).setTimeout((int) ((data.getExpirationTime().getTime()
+            - data.getBeginTime().getTime()) / 1000));
+      }
+    } else if (event instanceof SagaAbortedEvent) {
+      // the saga is aborted by the failure of its sub transaction
+      data.getTxEntities().forEach((k, v) -> {
+        if (v.getState() == TxState.FAILED) {
+          ((SagaAbortedEvent) event).setPayloads(v.getThrowablePayLoads());
+        }
+      });
+    } else if (txEntity == null) {
+      return;
+    } else if (event instanceof TxStartedEvent) {
+      TxStartedEvent txStartedEvent = (TxStartedEvent) event;
+      txStartedEvent.setCompensationMethod(txEntity.getCompensationMethod());
+      txStartedEvent.setPayloads(txEntity.getPayloads());
+      txStartedEvent.setRetryMethod(txEntity.getRetryMethod());
+      txStartedEvent.setForwardRetries(txEntity.getForwardRetries());
+      txStartedEvent.setForwardTimeout(txEntity.getForwardTimeout());
+      txStartedEvent.setReverseRetries(txEntity.getReverseRetries());
+      txStartedEvent.setReverseTimeout(txEntity.getReverseTimeout());
+      txStartedEvent.setRetryDelayInMilliseconds(txEntity.getRetryDelayInMilliseconds());
+    } else if (event instanceof TxAbortedEvent) {
+      ((TxAbortedEvent) event).setPayloads(txEntity.getThrowablePayLoads());
+    } else if (event instanceof TxCompensateAckFailedEvent) {
+      ((TxCompensateAckFailedEvent) event).setPayloads(txEntity.getThrowablePayLoads());
+    } else if (event instanceof CompensateAckTimeoutEvent) {
+      ((CompensateAckTimeoutEvent) event).setPayloads(txEntity.getThrowablePayLoads());
+    }
+  }
+
+  public SagaEventLog copy() {
+    SagaEventLog copy = new SagaEventLog(capacity);
+    copy.types = Arrays.copyOf(types, types.length);
+    copy.txIndexes = Arrays.copyOf(txIndexes, txIndexes.length);
+    copy.createTimes = Arrays.copyOf(createTimes, createTimes.length);
+    copy.first = first;
+    copy.size = size;
+    copy.dropped = dropped;
+    copy.localTxIds.addAll(localTxIds);
+    copy.localTxIndexes.putAll(localTxIndexes);
+    copy.localTxReferences = Arrays.copyOf(localTxReferences, localTxReferences.length);
+    copy.freeTxIndexes.addAll(freeTxIndexes);
+    return copy;
+  }
+}
@@ -17,6 +17,7 @@
 
 package org.apache.servicecomb.pack.alpha.fsm.model;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.ListIterator;
@@ -24,7 +25,7 @@ import java.util.Map;
 import java.util.function.BiConsumer;
 import org.apache.servicecomb.pack.alpha.core.fsm.TxState;
 
-public class TxEntities {
+public class TxEntities implements Serializable {
 
   private LinkedHashMap<String, TxEntity> entities = new LinkedHashMap<>();
 
@@ -40,6 +41,12 @@ public class TxEntities {
     }
   }
 
+  public TxEntities copy() {
+    TxEntities copy = new TxEntities();
+    entities.forEach((k, v) -> copy.put(k, v.copy()));
+    return copy;
+  }
+
   public TxEntity get(String localTxId) {
     return entities.get(localTxId);
   }
@@ -34,6 +34,9 @@ public class TxEntity implements Serializable {
   private String compensationMethod;
   private byte[] payloads;
   private byte[] throwablePayLoads;
+  private String retryMethod;
+  private int forwardRetries;
+  private int forwardTimeout;
   private int reverseRetries;
   private int reverseTimeout;
   private int retryDelayInMilliseconds = 5;
@@ -127,6 +130,30 @@ public class TxEntity implements Serializable {
     this.throwablePayLoads = throwablePayLoads;
   }
 
+  public String getRetryMethod() {
+    return retryMethod;
+  }
+
+  public void setRetryMethod(String retryMethod) {
+    this.retryMethod = retryMethod;
+  }
+
+  public int getForwardRetries() {
+    return forwardRetries;
+  }
+
+  public void setForwardRetries(int forwardRetries) {
+    this.forwardRetries = forwardRetries;
+  }
+
+  public int getForwardTimeout() {
+    return forwardTimeout;
+  }
+
+  public void setForwardTimeout(int forwardTimeout) {
+    this.forwardTimeout = forwardTimeout;
+  }
+
   public int getReverseRetries() {
     return reverseRetries;
   }
@@ -155,6 +182,31 @@ public class TxEntity implements Serializable {
     return retriesCounter;
   }
 
+  // the snapshot of a saga is serialized off the actor thread, so it takes a copy
+  public TxEntity copy() {
+    TxEntity copy = TxEntity.builder()
+        .serviceName(serviceName)
+        .instanceId(instanceId)
+        .globalTxId(globalTxId)
+        .beginTime(beginTime)
+        .endTime(endTime)
+        .parentTxId(parentTxId)
+        .localTxId(localTxId)
+        .state(state)
+        .compensationMethod(compensationMethod)
+        .payloads(payloads)
+        .throwablePayLoads(throwablePayLoads)
+        .retryMethod(retryMethod)
+        .forwardRetries(forwardRetries)
+        .forwardTimeout(forwardTimeout)
+        .reverseRetries(reverseRetries)
+        .reverseTimeout(reverseTimeout)
+        .retryDelayInMilliseconds(retryDelayInMilliseconds)
+        .build();
+    copy.retriesCounter.set(retriesCounter.get());
+    return copy;
+  }
+
   public static Builder builder() {
     return new Builder();
   }
@@ -222,6 +274,21 @@ public class TxEntity implements Serializable {
       return this;
     }
 
+    public Builder retryMethod(String retryMethod) {
+      txEntity.setRetryMethod(retryMethod);
+      return this;
+    }
+
+    public Builder forwardRetries(int forwardRetries) {
+      txEntity.setForwardRetries(forwardRetries);
+      return this;
+    }
+
+    public Builder forwardTimeout(int forwardTimeout) {
+      txEntity.setForwardTimeout(forwardTimeout);
+      return this;
+    }
+
     public Builder reverseRetries(int reverseRetries) {
       txEntity.setReverseRetries(reverseRetries);
       return this;
@@ -0,0 +1,576 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.servicecomb.pack.alpha.fsm.serializer;
+
+import akka.serialization.SerializerWithStringManifest;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.servicecomb.pack.alpha.core.fsm.SuspendedType;
+import org.apache.servicecomb.pack.alpha.core.fsm.TxState;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.SagaAbortedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.SagaEndedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.SagaStartedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.SagaTimeoutEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.TxAbortedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.TxCompensateAckFailedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.TxCompensateAckSucceedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.TxCompensatedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.TxEndedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.TxStartedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.base.BaseEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.internal.CompensateAckTimeoutEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.internal.CompensateRetryEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.internal.ComponsitedCheckEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.internal.StopEvent;
+import org.apache.servicecomb.pack.alpha.fsm.SagaActorState;
+import org.apache.servicecomb.pack.alpha.fsm.domain.AddTxEventDomain;
+import org.apache.servicecomb.pack.alpha.fsm.domain.DomainEvent;
+import org.apache.servicecomb.pack.alpha.fsm.domain.SagaEndedDomain;
+import org.apache.servicecomb.pack.alpha.fsm.domain.SagaStartedDomain;
+import org.apache.servicecomb.pack.alpha.fsm.domain.UpdateTxEventDomain;
+import org.apache.servicecomb.pack.alpha.fsm.model.SagaData;
+import org.apache.servicecomb.pack.alpha.fsm.model.SagaEventLog;
+import org.apache.servicecomb.pack.alpha.fsm.model.TxEntity;
+
+/**
+ * Binary serializer of the saga domain events, saga events and saga data, which are written to the
+ * journal, the snapshot store and sent between the cluster nodes.
+ *
+ * <p>The manifest names the layout of a message, a changed layout gets a new manifest and the reader
+ * of the old one is kept, so that the entries written before can still be replayed. Strings and byte
+ * arrays repeated in one message, e.g. the global transaction id, are written once and referenced
+ * afterwards. The saga data keeps its event log as the type, local transaction id and create time of
+ * each event.
+ */
+public class SagaSerializer extends SerializerWithStringManifest {
+
+  public static final int IDENTIFIER = 7201;
+
+  static final String SAGA_STARTED_DOMAIN = "SSD1";
+  static final String ADD_TX_EVENT_DOMAIN = "ATD1";
+  static final String UPDATE_TX_EVENT_DOMAIN = "UTD1";
+  static final String SAGA_ENDED_DOMAIN = "SED1";
+  static final String SAGA_DATA = "SD1";
+
+  static final String SAGA_STARTED_EVENT = "SS1";
+  static final String SAGA_ENDED_EVENT = "SE1";
+  static final String SAGA_ABORTED_EVENT = "SA1";
+  static final String SAGA_TIMEOUT_EVENT = "ST1";
+  static final String TX_STARTED_EVENT = "TS1";
+  static final String TX_ENDED_EVENT = "TE1";
+  static final String TX_ABORTED_EVENT = "TA1";
+  static final String TX_COMPENSATED_EVENT = "TC1";
+  static final String TX_COMPENSATE_ACK_SUCCEED_EVENT = "TCS1";
+  static final String TX_COMPENSATE_ACK_FAILED_EVENT = "TCF1";
+  static final String COMPENSATE_ACK_TIMEOUT_EVENT = "CAT1";
+  static final String COMPENSATE_RETRY_EVENT = "CR1";
+  static final String COMPONSITED_CHECK_EVENT = "CC1";
+  static final String STOP_EVENT = "STOP1";
+
+  private static final int NULL = -1;
+  private static final int REFERENCE = -2;
+
+  @Override
+  public int identifier() {
+    return IDENTIFIER;
+  }
+
+  @Override
+  public String manifest(Object o) {
+    if (o instanceof SagaStartedDomain) {
+      return SAGA_STARTED_DOMAIN;
+    } else if (o instanceof AddTxEventDomain) {
+      return ADD_TX_EVENT_DOMAIN;
+    } else if (o instanceof UpdateTxEventDomain) {
+      return UPDATE_TX_EVENT_DOMAIN;
+    } else if (o instanceof SagaEndedDomain) {
+      return SAGA_ENDED_DOMAIN;
+    } else if (o instanceof SagaData) {
+      return SAGA_DATA;
+    } else if (o instanceof BaseEvent) {
+      return eventManifest((BaseEvent) o);
+    }
+    throw new IllegalArgumentException("Can't serialize object of type " + o.getClass());
+  }
+
+  @Override
+  public byte[] toBinary(Object o) {
+    String manifest = manifest(o);
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+    try {
+      Output out = new Output(bytes);
+      if (o instanceof SagaStartedDomain || o instanceof AddTxEventDomain) {
+        // the domain event derives everything else from its saga event
+        writeEvent(out, ((DomainEvent) o).getEvent());
+      } else if (o instanceof UpdateTxEventDomain) {
+        UpdateTxEventDomain domainEvent = (UpdateTxEventDomain) o;
+        writeEvent(out, domainEvent.getEvent());
+        out.writeEnum(domainEvent.getState());
+      } else if (o instanceof SagaEndedDomain) {
+        SagaEndedDomain domainEvent = (SagaEndedDomain) o;
+        writeEvent(out, domainEvent.getEvent());
+        out.writeEnum(domainEvent.getState());
+        out.writeEnum(domainEvent.getSuspendedType());
+      } else if (o instanceof SagaData) {
+        writeSagaData(out, (SagaData) o);
+      } else {
+        writeEventBody(out, manifest, (BaseEvent) o);
+      }
+      out.flush();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return bytes.toByteArray();
+  }
+
+  @Override
+  public Object fromBinary(byte[] bytes, String manifest) throws NotSerializableException {
+    try {
+      Input in = new Input(new ByteArrayInputStream(bytes));
+      switch (manifest) {
+        case SAGA_STARTED_DOMAIN:
+          return new SagaStartedDomain((SagaStartedEvent) readEvent(in));
+        case ADD_TX_EVENT_DOMAIN:
+          return new AddTxEventDomain((TxStartedEvent) readEvent(in));
+        case UPDATE_TX_EVENT_DOMAIN:
+          return updateTxEventDomain(readEvent(in), in.readEnum(TxState.class));
+        case SAGA_ENDED_DOMAIN:
+          return new SagaEndedDomain(readEvent(in), in.readEnum(SagaActorState.class),
+              in.readEnum(SuspendedType.class));
+        case SAGA_DATA:
+          return readSagaData(in);
+        default:
+          return readEventBody(in, manifest);
+      }
+    } catch (NotSerializableException e) {
+      throw e;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private static String eventManifest(BaseEvent event) {
+    if (event instanceof SagaStartedEvent) {
+      return SAGA_STARTED_EVENT;
+    } else if (event instanceof SagaEndedEvent) {
+      return SAGA_ENDED_EVENT;
+    } else if (event instanceof SagaAbortedEvent) {
+      return SAGA_ABORTED_EVENT;
+    } else if (event instanceof SagaTimeoutEvent) {
+      return SAGA_TIMEOUT_EVENT;
+    } else if (event instanceof TxStartedEvent) {
+      return TX_STARTED_EVENT;
+    } else if (event instanceof TxEndedEvent) {
+      return TX_ENDED_EVENT;
+    } else if (event instanceof TxAbortedEvent) {
+      return TX_ABORTED_EVENT;
+    } else if (event instanceof TxCompensatedEvent) {
+      return TX_COMPENSATED_EVENT;
+    } else if (event instanceof TxCompensateAckSucceedEvent) {
+      return TX_COMPENSATE_ACK_SUCCEED_EVENT;
+    } else if (event instanceof TxCompensateAckFailedEvent) {
+      return TX_COMPENSATE_ACK_FAILED_EVENT;
+    } else if (event instanceof CompensateAckTimeoutEvent) {
+      return COMPENSATE_ACK_TIMEOUT_EVENT;
+    } else if (event instanceof CompensateRetryEvent) {
+      return COMPENSATE_RETRY_EVENT;
+    } else if (event instanceof ComponsitedCheckEvent) {
+      return COMPONSITED_CHECK_EVENT;
+    } else if (event instanceof StopEvent) {
+      return STOP_EVENT;
+    }
+    throw new IllegalArgumentException("Can't serialize event of type " + event.getClass());
+  }
+
+  private static UpdateTxEventDomain updateTxEventDomain(BaseEvent event, TxState state)
+      throws NotSerializableException {
+    // a failed compensation kept COMPENSATION_SENT is retried
+    boolean retried = state == TxState.COMPENSATION_SENT;
+    if (event instanceof TxEndedEvent) {
+      return new UpdateTxEventDomain((TxEndedEvent) event);
+    } else if (event instanceof TxAbortedEvent) {
+      return new UpdateTxEventDomain((TxAbortedEvent) event);
+    } else if (event instanceof TxCompensateAckSucceedEvent) {
+      return new UpdateTxEventDomain((TxCompensateAckSucceedEvent) event);
+    } else if (event instanceof TxCompensateAckFailedEvent) {
+      return new UpdateTxEventDomain((TxCompensateAckFailedEvent) event, retried);
+    } else if (event instanceof CompensateAckTimeoutEvent) {
+      return new UpdateTxEventDomain((CompensateAckTimeoutEvent) event, retried);
+    }
+    throw new NotSerializableException("Unexpected event of UpdateTxEventDomain " + event);
+  }
+
+  private static void writeEvent(Output out, BaseEvent event) throws IOException {
+    if (event == null) {
+      out.writeString(null);
+    } else {
+      String manifest = eventManifest(event);
+      out.writeString(manifest);
+      writeEventBody(out, manifest, event);
+    }
+  }
+
+  private static BaseEvent readEvent(Input in) throws IOException {
+    String manifest = in.readString();
+    return manifest == null ? null : readEventBody(in, manifest);
+  }
+
+  private static void writeEventBody(Output out, String manifest, BaseEvent event)
+      throws IOException {
+    out.writeString(event.getServiceName());
+    out.writeString(event.getInstanceId());
+    out.writeString(event.getGlobalTxId());
+    out.writeString(event.getParentTxId());
+    out.writeString(event.getLocalTxId());
+    out.writeDate(event.getCreateTime());
+    switch (manifest) {
+      case SAGA_STARTED_EVENT:
+        out.writeInt(((SagaStartedEvent) event).getTimeout());
+        break;
+      case SAGA_ABORTED_EVENT:
+        out.writeBytes(((SagaAbortedEvent) event).getPayloads());
+        break;
+      case TX_ABORTED_EVENT:
+        out.writeBytes(((TxAbortedEvent) event).getPayloads());
+        break;
+      case TX_COMPENSATE_ACK_FAILED_EVENT:
+        out.writeBytes(((TxCompensateAckFailedEvent) event).getPayloads());
+        break;
+      case COMPENSATE_ACK_TIMEOUT_EVENT:
+        out.writeBytes(((CompensateAckTimeoutEvent) event).getPayloads());
+        break;
+      case TX_STARTED_EVENT:
+        TxStartedEvent txStartedEvent = (TxStartedEvent) event;
+        out.writeString(txStartedEvent.getCompensationMethod());
+        out.writeBytes(txStartedEvent.getPayloads());
+        out.writeString(txStartedEvent.getRetryMethod());
+        out.writeInt(txStartedEvent.getForwardRetries());
+        out.writeInt(txStartedEvent.getForwardTimeout());
+        out.writeInt(txStartedEvent.getReverseRetries());
+        out.writeInt(txStartedEvent.getReverseTimeout());
+        out.writeInt(txStartedEvent.getRetryDelayInMilliseconds());
+        break;
+      default:
+        break;
+    }
+  }
+
+  private static BaseEvent readEventBody(Input in, String manifest) throws IOException {
+    BaseEvent event;
+    switch (manifest) {
+      case SAGA_STARTED_EVENT:
+        event = new SagaStartedEvent();
+        break;
+      case SAGA_ENDED_EVENT:
+        event = new SagaEndedEvent();
+        break;
+      case SAGA_ABORTED_EVENT:
+        event = new SagaAbortedEvent();
+        break;
+      case SAGA_TIMEOUT_EVENT:
+        event = new SagaTimeoutEvent();
+        break;
+      case TX_STARTED_EVENT:
+        event = new TxStartedEvent();
+        break;
+      case TX_ENDED_EVENT:
+        event = new TxEndedEvent();
+        break;
+      case TX_ABORTED_EVENT:
+        event = new TxAbortedEvent();
+        break;
+      case TX_COMPENSATED_EVENT:
+        event = new TxCompensatedEvent();
+        break;
+      case TX_COMPENSATE_ACK_SUCCEED_EVENT:
+        event = new TxCompensateAckSucceedEvent();
+        break;
+      case TX_COMPENSATE_ACK_FAILED_EVENT:
+        event = new TxCompensateAckFailedEvent();
+        break;
+      case COMPENSATE_ACK_TIMEOUT_EVENT:
+        event = new CompensateAckTimeoutEvent();
+        break;
+      case COMPENSATE_RETRY_EVENT:
+        event = new CompensateRetryEvent();
+        break;
+      case COMPONSITED_CHECK_EVENT:
+        event = new ComponsitedCheckEvent();
+        break;
+      case STOP_EVENT:
+        event = new StopEvent();
+        break;
+      default:
+        throw new NotSerializableException("Unknown manifest " + manifest);
+    }
+    event.setServiceName(in.readString());
+    event.setInstanceId(in.readString());
+    event.setGlobalTxId(in.readString());
+    event.setParentTxId(in.readString());
+    event.setLocalTxId(in.readString());
+    event.setCreateTime(in.readDate());
+    switch (manifest) {
+      case SAGA_STARTED_EVENT:
+        ((SagaStartedEvent) event).setTimeout(in.readInt());
+        break;
+      case SAGA_ABORTED_EVENT:
+        ((SagaAbortedEvent) event).setPayloads(in.readBytes());
+        break;
+      case TX_ABORTED_EVENT:
+        ((TxAbortedEvent) event).setPayloads(in.readBytes());
+        break;
+      case TX_COMPENSATE_ACK_FAILED_EVENT:
+        ((TxCompensateAckFailedEvent) event).setPayloads(in.readBytes());
+        break;
+      case COMPENSATE_ACK_TIMEOUT_EVENT:
+        ((CompensateAckTimeoutEvent) event).setPayloads(in.readBytes());
+        break;
+      case TX_STARTED_EVENT:
+        TxStartedEvent txStartedEvent = (TxStartedEvent) event;
+        txStartedEvent.setCompensationMethod(in.readString());
+        txStartedEvent.setPayloads(in.readBytes());
+        txStartedEvent.setRetryMethod(in.readString());
+        txStartedEvent.setForwardRetries(in.readInt());
+        txStartedEvent.setForwardTimeout(in.readInt());
+        txStartedEvent.setReverseRetries(in.readInt());
+        txStartedEvent.setReverseTimeout(in.readInt());
+        txStartedEvent.setRetryDelayInMilliseconds(in.readInt());
+        break;
+      default:
+        break;
+    }
+    return event;
+  }
+
+  private static void writeSagaData(Output out, SagaData data) throws IOException {
+    writeSagaDataHeader(out, data);
+    List<TxEntity> txEntities = new ArrayList<>(data.getTxEntities().size());
+    data.getTxEntities().forEach((k, v) -> txEntities.add(v));
+    out.writeInt(txEntities.size());
+    for (TxEntity txEntity : txEntities) {
+      writeTxEntity(out, txEntity);
+    }
+    SagaEventLog eventLog = data.getEventLog();
+    out.writeInt(eventLog.getCapacity());
+    out.writeLong(eventLog.getDropped());
+    out.writeInt(eventLog.size());
+    for (int i = 0; i < eventLog.size(); i++) {
+      out.writeByte(eventLog.getType(i));
+      out.writeString(eventLog.getLocalTxId(i));
+      out.writeLong(eventLog.getCreateTime(i));
+    }
+  }
+
+  private static void writeSagaDataHeader(Output out, SagaData data) throws IOException {
+    out.writeString(data.getServiceName());
+    out.writeString(data.getInstanceId());
+    out.writeString(data.getGlobalTxId());
+    out.writeDate(data.getBeginTime());
+    out.writeDate(data.getEndTime());
+    out.writeDate(data.getExpirationTime());
+    out.writeEnum(data.getSuspendedType());
+    out.writeBoolean(data.isTerminated());
+    out.writeEnum(data.getLastState());
+    out.writeLong(data.getCompensationRunningCounter().get());
+  }
+
+  private static SagaData readSagaData(Input in) throws IOException {
+    SagaData data = readSagaDataHeader(in);
+    int txEntities = in.readInt();
+    for (int i = 0; i < txEntities; i++) {
+      TxEntity txEntity = readTxEntity(in);
+      data.getTxEntities().put(txEntity.getLocalTxId(), txEntity);
+    }
+    SagaEventLog eventLog = new SagaEventLog(in.readInt());
+    eventLog.setDropped(in.readLong());
+    int events = in.readInt();
+    for (int i = 0; i < events; i++) {
+      eventLog.add(in.readByte(), in.readString(), in.readLong());
+    }
+    data.setEventLog(eventLog);
+    return data;
+  }
+
+  private static SagaData readSagaDataHeader(Input in) throws IOException {
+    SagaData data = SagaData.builder()
+        .serviceName(in.readString())
+        .instanceId(in.readString())
+        .globalTxId(in.readString())
+        .beginTime(in.readDate())
+        .endTime(in.readDate())
+        .expirationTime(in.readDate())
+        .suspendedType(in.readEnum(SuspendedType.class))
+        .terminated(in.readBoolean())
+        .build();
+    data.setLastState(in.readEnum(SagaActorState.class));
+    data.getCompensationRunningCounter().set(in.readLong());
+    return data;
+  }
+
+  private static void writeTxEntity(Output out, TxEntity txEntity) throws IOException {
+    out.writeString(txEntity.getServiceName());
+    out.writeString(txEntity.getInstanceId());
+    out.writeString(txEntity.getGlobalTxId());
+    out.writeString(txEntity.getParentTxId());
+    out.writeString(txEntity.getLocalTxId());
+    out.writeDate(txEntity.getBeginTime());
+    out.writeDate(txEntity.getEndTime());
+    out.writeEnum(txEntity.getState());
+    out.writeString(txEntity.getCompensationMethod());
+    out.writeBytes(txEntity.getPayloads());
+    out.writeBytes(txEntity.getThrowablePayLoads());
+    out.writeString(txEntity.getRetryMethod());
+    out.writeInt(txEntity.getForwardRetries());
+    out.writeInt(txEntity.getForwardTimeout());
+    out.writeInt(txEntity.getReverseRetries());
+    out.writeInt(txEntity.getReverseTimeout());
+    out.writeInt(txEntity.getRetryDelayInMilliseconds());
+    out.writeInt(txEntity.getRetriesCounter().get());
+  }
+
+  private static TxEntity readTxEntity(Input in) throws IOException {
+    TxEntity txEntity = TxEntity.builder()
+        .serviceName(in.readString())
+        .instanceId(in.readString())
+        .globalTxId(in.readString())
+        .parentTxId(in.readString())
+        .localTxId(in.readString())
+        .beginTime(in.readDate())
+        .endTime(in.readDate())
+        .state(in.readEnum(TxState.class))
+        .compensationMethod(in.readString())
+        .payloads(in.readBytes())
+        .throwablePayLoads(in.readBytes())
+        .build();
+    txEntity.setRetryMethod(in.readString());
+    txEntity.setForwardRetries(in.readInt());
+    txEntity.setForwardTimeout(in.readInt());
+    txEntity.setReverseRetries(in.readInt());
+    txEntity.setReverseTimeout(in.readInt());
+    txEntity.setRetryDelayInMilliseconds(in.readInt());
+    txEntity.getRetriesCounter().set(in.readInt());
+    return txEntity;
+  }
+
+  private static final class Output extends DataOutputStream {
+
+    private final Map<String, Integer> strings = new HashMap<>();
+    private final Map<byte[], Integer> arrays = new IdentityHashMap<>();
+
+    Output(ByteArrayOutputStream out) {
+      super(out);
+    }
+
+    void writeString(String value) throws IOException {
+      if (value == null) {
+        writeInt(NULL);
+      } else if (strings.containsKey(value)) {
+        writeInt(REFERENCE);
+        writeInt(strings.get(value));
+      } else {
+        strings.put(value, strings.size());
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeInt(bytes.length);
+        write(bytes);
+      }
+    }
+
+    void writeBytes(byte[] value) throws IOException {
+      if (value == null) {
+        writeInt(NULL);
+      } else if (arrays.containsKey(value)) {
+        writeInt(REFERENCE);
+        writeInt(arrays.get(value));
+      } else {
+        arrays.put(value, arrays.size());
+        writeInt(value.length);
+        write(value);
+      }
+    }
+
+    void writeDate(Date value) throws IOException {
+      writeBoolean(value != null);
+      if (value != null) {
+        writeLong(value.getTime());
+      }
+    }
+
+    void writeEnum(Enum<?> value) throws IOException {
+      writeString(value == null ? null : value.name());
+    }
+  }
+
+  private static final class Input extends DataInputStream {
+
+    private final List<String> strings = new ArrayList<>();
+    private final List<byte[]> arrays = new ArrayList<>();
+
+    Input(ByteArrayInputStream in) {
+      super(in);
+    }
+
+    String readString() throws IOException {
+      int length = readInt();
+      if (length == NULL) {
+        return null;
+      } else if (length == REFERENCE) {
+        return strings.get(readInt());
+      }
+      byte[] bytes = new byte[length];
+      readFully(bytes);
+      String value = new String(bytes, StandardCharsets.UTF_8);
+      strings.add(value);
+      return value;
+    }
+
+    byte[] readBytes() throws IOException {
+      int length = readInt();
+      if (length == NULL) {
+        return null;
+      } else if (length == REFERENCE) {
+        return arrays.get(readInt());
+      }
+      byte[] bytes = new byte[length];
+      readFully(bytes);
+      arrays.add(bytes);
+      return bytes;
+    }
+
+    Date readDate() throws IOException {
+      return readBoolean() ? new Date(readLong()) : null;
+    }
+
+    <E extends Enum<E>> E readEnum(Class<E> type) throws IOException {
+      String name = readString();
+      return name == null ? null : Enum.valueOf(type, name);
+    }
+  }
+}
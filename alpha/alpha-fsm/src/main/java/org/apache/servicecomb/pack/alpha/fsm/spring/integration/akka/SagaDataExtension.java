@@ -22,12 +22,15 @@ import akka.actor.ExtendedActorSystem;
 import akka.actor.Extension;
 import java.lang.invoke.MethodHandles;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import org.apache.servicecomb.pack.alpha.fsm.SagaActorState;
 import org.apache.servicecomb.pack.alpha.core.fsm.TransactionType;
 import org.apache.servicecomb.pack.alpha.fsm.metrics.MetricsService;
 import org.apache.servicecomb.pack.alpha.fsm.model.SagaData;
+import org.apache.servicecomb.pack.alpha.fsm.model.SagaEventLog;
 import org.apache.servicecomb.pack.alpha.core.fsm.repository.model.GlobalTransaction;
 import org.apache.servicecomb.pack.alpha.core.fsm.repository.model.SagaSubTransaction;
 import org.apache.servicecomb.pack.alpha.fsm.repository.TransactionRepositoryChannel;
@@ -50,6 +53,14 @@ public class SagaDataExtension extends AbstractExtensionId<SagaDataExt> {
     private final ConcurrentHashMap<String, SagaData> sagaDataMap = new ConcurrentHashMap();
     private MetricsService metricsService;
     private TransactionRepositoryChannel repositoryChannel;
+    // a saga snapshot is saved after this number of domain events, 0 disables it
+    private int snapshotInterval;
+    // a saga snapshot is saved when the saga moves into one of these states
+    private Set<SagaActorState> snapshotStates = Collections.emptySet();
+    // the upper bound of the backoff between two compensation retries in milliseconds
+    private long compensationRetryMaxDelay = 60000;
+    // the number of the latest events kept in the event log of a saga
+    private int eventLogCapacity = SagaEventLog.DEFAULT_CAPACITY;
 
     public void putSagaData(String globalTxId, SagaData sagaData) {
       sagaDataMap.put(globalTxId, sagaData);
@@ -65,6 +76,10 @@ public class SagaDataExtension extends AbstractExtensionId<SagaDataExt> {
       } else if (sagaData.getLastState() == SagaActorState.SUSPENDED) {
         this.metricsService.metrics().doSuspended();
       }
+      if (sagaData.getEventLog().getDropped() > 0) {
+        LOG.warn("Saga {} dropped its {} oldest events over the event log capacity {}",
+            globalTxId, sagaData.getEventLog().getDropped(), sagaData.getEventLog().getCapacity());
+      }
       List<SagaSubTransaction> subTransactions = new ArrayList();
       sagaData.getTxEntities().forEach((k,v)->{
         subTransactions.add(SagaSubTransaction.builder()
@@ -114,6 +129,43 @@ public class SagaDataExtension extends AbstractExtensionId<SagaDataExt> {
       this.metricsService.metrics().doSagaAvgTime(time);
     }
 
+    public void doSagaRecovery(long time) {
+      this.metricsService.metrics().doSagaRecoveryCounter();
+      this.metricsService.metrics().doSagaRecoveryAvgTime(time);
+    }
+
+    public int getSnapshotInterval() {
+      return snapshotInterval;
+    }
+
+    public void setSnapshotInterval(int snapshotInterval) {
+      this.snapshotInterval = snapshotInterval;
+    }
+
+    public Set<SagaActorState> getSnapshotStates() {
+      return snapshotStates;
+    }
+
+    public void setSnapshotStates(Set<SagaActorState> snapshotStates) {
+      this.snapshotStates = snapshotStates;
+    }
+
+    public long getCompensationRetryMaxDelay() {
+      return compensationRetryMaxDelay;
+    }
+
+    public void setCompensationRetryMaxDelay(long compensationRetryMaxDelay) {
+      this.compensationRetryMaxDelay = compensationRetryMaxDelay;
+    }
+
+    public int getEventLogCapacity() {
+      return eventLogCapacity;
+    }
+
+    public void setEventLogCapacity(int eventLogCapacity) {
+      this.eventLogCapacity = eventLogCapacity;
+    }
+
     public void setMetricsService(
         MetricsService metricsService) {
       this.metricsService = metricsService;
@@ -23,8 +23,13 @@ import akka.actor.AbstractExtensionId;
 import akka.actor.ExtendedActorSystem;
 import akka.actor.Extension;
 import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import org.apache.servicecomb.pack.alpha.core.OmegaCallback;
@@ -48,39 +53,71 @@ public class SpringAkkaExtension extends AbstractExtensionId<SpringExt> {
   public static class SpringExt implements Extension {
 
     private static final String omegaCallbackBeanName = "omegaCallback";
+    private final ScheduledExecutorService timeoutScheduler = Executors
+        .newSingleThreadScheduledExecutor(runnable -> {
+          Thread thread = new Thread(runnable, "saga-compensation-timeout");
+          thread.setDaemon(true);
+          return thread;
+        });
     private volatile ApplicationContext applicationContext;
     private OmegaCallback omegaCallback;
 
-    public void compensate(TxEntity txEntity)
-        throws InterruptedException, ExecutionException, TimeoutException {
-      if (txEntity.getReverseTimeout() > 0) {
-        CompletableFuture.runAsync(() -> doCompensate(txEntity))
-            .get(txEntity.getReverseTimeout(), TimeUnit.SECONDS);
-      } else {
-        doCompensate(txEntity);
+    /**
+     * Send the compensation without blocking the caller.
+     *
+     * @return the future completed when omega acks the compensation, it fails with a {@link
+     * TimeoutException} when the reverse timeout of the transaction is exceeded
+     */
+    public CompletableFuture<Void> compensate(TxEntity txEntity) {
+      return compensate(Collections.singletonList(txEntity)).get(0);
+    }
+
+    /**
+     * Send the compensations in the listed order without blocking the caller, the ones bound for
+     * the same omega instance are gang sent.
+     *
+     * @return the futures of the compensations in the same order as the transactions
+     */
+    public List<CompletableFuture<Void>> compensate(List<TxEntity> txEntities) {
+      List<CompletableFuture<Void>> futures = doCompensate(txEntities);
+      for (int i = 0; i < txEntities.size(); i++) {
+        TxEntity txEntity = txEntities.get(i);
+        CompletableFuture<Void> future = futures.get(i);
+        if (txEntity.getReverseTimeout() > 0 && !future.isDone()) {
+          ScheduledFuture<?> timeout = timeoutScheduler.schedule(
+              () -> future.completeExceptionally(new TimeoutException(
+                  "Compensation is not acknowledged in " + txEntity.getReverseTimeout() + " seconds")),
+              txEntity.getReverseTimeout(), TimeUnit.SECONDS);
+          future.whenComplete((result, e) -> timeout.cancel(false));
+        }
       }
+      return futures;
     }
 
-    private void doCompensate(TxEntity txEntity) {
+    private List<CompletableFuture<Void>> doCompensate(List<TxEntity> txEntities) {
       if (applicationContext != null) {
         if (applicationContext.containsBean(omegaCallbackBeanName)) {
           omegaCallback = applicationContext.getBean(omegaCallbackBeanName, OmegaCallback.class);
-          TxEvent event = new TxEvent(
-              txEntity.getServiceName(),
-              txEntity.getInstanceId(),
-              txEntity.getGlobalTxId(),
-              txEntity.getLocalTxId(),
-              txEntity.getParentTxId(),
-              TxCompensateEvent.name(),
-              txEntity.getCompensationMethod(),
-              txEntity.getPayloads());
-          omegaCallback.compensate(event);
+          List<TxEvent> events = new ArrayList<>(txEntities.size());
+          for (TxEntity txEntity : txEntities) {
+            events.add(new TxEvent(
+                txEntity.getServiceName(),
+                txEntity.getInstanceId(),
+                txEntity.getGlobalTxId(),
+                txEntity.getLocalTxId(),
+                txEntity.getParentTxId(),
+                TxCompensateEvent.name(),
+                txEntity.getCompensationMethod(),
+                txEntity.getPayloads()));
+          }
+          return omegaCallback.compensateAllAsync(events);
         } else {
           LOG.warn("Spring Bean {} doesn't exist in ApplicationContext", omegaCallbackBeanName);
         }
       } else {
         LOG.warn("Spring ApplicationContext is null");
       }
+      return Collections.nCopies(txEntities.size(), CompletableFuture.completedFuture(null));
     }
 
     public void initialize(ApplicationContext applicationContext) {
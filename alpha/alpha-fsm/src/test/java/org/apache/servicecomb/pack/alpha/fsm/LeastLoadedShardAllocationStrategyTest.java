@@ -0,0 +1,145 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.servicecomb.pack.alpha.fsm;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import akka.actor.ActorRef;
+import akka.actor.ActorSystem;
+import akka.testkit.javadsl.TestKit;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import scala.collection.JavaConverters;
+import scala.collection.immutable.IndexedSeq;
+import scala.concurrent.Await;
+import scala.concurrent.Future;
+import scala.concurrent.duration.Duration;
+
+public class LeastLoadedShardAllocationStrategyTest {
+
+  private static ActorSystem system;
+  private static ActorRef region1;
+  private static ActorRef region2;
+
+  private final LeastLoadedShardAllocationStrategy strategy =
+      new LeastLoadedShardAllocationStrategy(10, 3);
+
+  @BeforeClass
+  public static void setup() {
+    system = ActorSystem.create("LeastLoadedShardAllocationStrategyTest");
+    region1 = new TestKit(system).getRef();
+    region2 = new TestKit(system).getRef();
+  }
+
+  @AfterClass
+  public static void tearDown() {
+    TestKit.shutdownActorSystem(system);
+    system = null;
+  }
+
+  @Test
+  public void allocatesShardToRegionHostingLeastSagas() throws Exception {
+    strategy.updateShardEntities(entities("1", 50, "2", 2, "3", 3));
+
+    // region1 hosts fewer shards but more saga actors
+    ActorRef region = await(strategy.allocateShard(region1, "4",
+        allocations(shards("1"), shards("2", "3"))));
+    assertThat(region, is(region2));
+  }
+
+  @Test
+  public void movesShardFromMostLoadedRegion() throws Exception {
+    strategy.updateShardEntities(entities("1", 40, "2", 12, "3", 2));
+
+    Set<String> shards = await(strategy.rebalance(
+        allocations(shards("1", "2"), shards("3")), Collections.emptySet()));
+    // moving shard 1 would turn the imbalance around
+    assertThat(shards, is(Collections.singleton("2")));
+  }
+
+  @Test
+  public void keepsShardsWithinRebalanceThreshold() throws Exception {
+    strategy.updateShardEntities(entities("1", 8, "2", 2));
+
+    Set<String> shards = await(strategy.rebalance(
+        allocations(shards("1"), shards("2")), Collections.emptySet()));
+    assertThat(shards.isEmpty(), is(true));
+  }
+
+  @Test
+  public void keepsShardsOfSmallImbalanceWithDefaultThreshold() throws Exception {
+    LeastLoadedShardAllocationStrategy defaultStrategy = new LeastLoadedShardAllocationStrategy(
+        LeastLoadedShardAllocationStrategy.DEFAULT_REBALANCE_THRESHOLD, 3);
+    // 60 more sagas on region1 would be moved by a threshold counting shards
+    defaultStrategy.updateShardEntities(entities("1", 40, "2", 30, "3", 10));
+
+    Set<String> shards = await(defaultStrategy.rebalance(
+        allocations(shards("1", "2"), shards("3")), Collections.emptySet()));
+    assertThat(shards.isEmpty(), is(true));
+
+    defaultStrategy.updateShardEntities(entities("1", 90, "2", 60, "3", 10));
+    shards = await(defaultStrategy.rebalance(
+        allocations(shards("1", "2"), shards("3")), Collections.emptySet()));
+    assertThat(shards, is(Collections.singleton("2")));
+  }
+
+  @Test
+  public void limitsSimultaneousRebalance() throws Exception {
+    strategy.updateShardEntities(entities("1", 40, "2", 12, "3", 2));
+
+    Set<String> shards = await(strategy.rebalance(
+        allocations(shards("1", "2"), shards("3")),
+        new HashSet<>(Arrays.asList("4", "5", "6"))));
+    assertThat(shards.isEmpty(), is(true));
+  }
+
+  private static Map<String, Integer> entities(Object... shardEntities) {
+    Map<String, Integer> entities = new HashMap<>();
+    for (int i = 0; i < shardEntities.length; i += 2) {
+      entities.put((String) shardEntities[i], (Integer) shardEntities[i + 1]);
+    }
+    return entities;
+  }
+
+  private static IndexedSeq<String> shards(String... shardIds) {
+    return JavaConverters.asScalaBuffer(Arrays.asList(shardIds)).toIndexedSeq();
+  }
+
+  private static Map<ActorRef, IndexedSeq<String>> allocations(IndexedSeq<String> region1Shards,
+      IndexedSeq<String> region2Shards) {
+    Map<ActorRef, IndexedSeq<String>> allocations = new LinkedHashMap<>();
+    allocations.put(region1, region1Shards);
+    allocations.put(region2, region2Shards);
+    return allocations;
+  }
+
+  private static <T> T await(Future<T> future) throws Exception {
+    return Await.result(future, Duration.create(1, TimeUnit.SECONDS));
+  }
+}
@@ -0,0 +1,48 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.servicecomb.pack.alpha.fsm;
+
+import static org.hamcrest.Matchers.both;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.UUID;
+import org.junit.Test;
+
+public class SagaShardRegionActorTest {
+
+  @Test
+  public void spreadsSagasEvenlyOverShards() {
+    int numberOfShards = 100;
+    int sagas = 100000;
+    int[] counts = new int[numberOfShards];
+    for (int i = 0; i < sagas; i++) {
+      int shard = Integer.parseInt(
+          SagaShardRegionActor.shardOf(UUID.randomUUID().toString(), numberOfShards));
+      assertThat(shard, both(greaterThanOrEqualTo(0)).and(lessThan(numberOfShards)));
+      counts[shard]++;
+    }
+    int mean = sagas / numberOfShards;
+    for (int count : counts) {
+      assertThat(count, both(greaterThan(mean * 8 / 10)).and(lessThan(mean * 12 / 10)));
+    }
+  }
+}
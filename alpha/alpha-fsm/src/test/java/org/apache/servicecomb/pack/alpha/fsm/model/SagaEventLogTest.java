@@ -0,0 +1,165 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.servicecomb.pack.alpha.fsm.model;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import org.apache.servicecomb.pack.alpha.core.fsm.TxState;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.SagaAbortedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.SagaStartedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.TxAbortedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.TxEndedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.TxStartedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.base.BaseEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.internal.ComponsitedCheckEvent;
+import org.junit.Test;
+
+public class SagaEventLogTest {
+
+  private final String globalTxId = UUID.randomUUID().toString();
+  private final String localTxId = UUID.randomUUID().toString();
+
+  @Test
+  public void overwritesOldestEventsOverCapacity() {
+    SagaEventLog eventLog = new SagaEventLog(20);
+    for (int i = 0; i < 50; i++) {
+      eventLog.add(txEndedEvent(i));
+    }
+    assertThat(eventLog.size(), is(20));
+    assertThat(eventLog.getDropped(), is(30L));
+    for (int i = 0; i < 20; i++) {
+      assertThat(eventLog.getCreateTime(i), is(30L + i));
+      assertThat(eventLog.getLocalTxId(i), is(localTxId));
+    }
+
+    List<BaseEvent> events = eventLog.toEvents(sagaData());
+    assertThat(events.size(), is(20));
+    assertThat(events.get(0).getCreateTime().getTime(), is(30L));
+    assertThat(events.get(19).getCreateTime().getTime(), is(49L));
+  }
+
+  @Test
+  public void dropsLocalTxIdsOfOverwrittenEvents() {
+    SagaEventLog eventLog = new SagaEventLog(4);
+    String[] localTxIds = new String[50];
+    for (int i = 0; i < localTxIds.length; i++) {
+      localTxIds[i] = UUID.randomUUID().toString();
+      eventLog.add(TxEndedEvent.builder().globalTxId(globalTxId).localTxId(localTxIds[i]).build());
+    }
+    // the two latest events refer to the same local transaction
+    eventLog.add(TxEndedEvent.builder().globalTxId(globalTxId).localTxId(localTxIds[49]).build());
+
+    assertThat(eventLog.getLocalTxIdCount(), is(3));
+    assertThat(eventLog.getLocalTxId(0), is(localTxIds[47]));
+    assertThat(eventLog.getLocalTxId(1), is(localTxIds[48]));
+    assertThat(eventLog.getLocalTxId(2), is(localTxIds[49]));
+    assertThat(eventLog.getLocalTxId(3), is(localTxIds[49]));
+
+    SagaEventLog copy = eventLog.copy();
+    eventLog.add(TxEndedEvent.builder().globalTxId(globalTxId).localTxId(localTxId).build());
+    assertThat(eventLog.getLocalTxId(3), is(localTxId));
+    assertThat(copy.getLocalTxId(0), is(localTxIds[47]));
+    assertThat(copy.getLocalTxIdCount(), is(3));
+  }
+
+  @Test
+  public void ignoresInternalEvents() {
+    SagaEventLog eventLog = new SagaEventLog(SagaEventLog.DEFAULT_CAPACITY);
+    assertFalse(eventLog.add(ComponsitedCheckEvent.builder().build()));
+    assertThat(eventLog.size(), is(0));
+  }
+
+  @Test
+  public void materializesEventsFromTheSaga() {
+    SagaData sagaData = sagaData();
+    sagaData.logEvent(SagaStartedEvent.builder().serviceName("service_g").instanceId("instance_g")
+        .globalTxId(globalTxId).createTime(sagaData.getBeginTime()).timeout(10).build());
+    TxStartedEvent txStartedEvent = TxStartedEvent.builder().serviceName("service_c1")
+        .instanceId("instance_c1").globalTxId(globalTxId).parentTxId(globalTxId)
+        .localTxId(localTxId).compensationMethod("compensate").payloads("payloads".getBytes())
+        .retryMethod("retry").forwardRetries(2).forwardTimeout(3).reverseRetries(4)
+        .reverseTimeout(5).retryDelayInMilliseconds(6).build();
+    sagaData.logEvent(txStartedEvent);
+    TxAbortedEvent txAbortedEvent = TxAbortedEvent.builder().serviceName("service_c1")
+        .instanceId("instance_c1").globalTxId(globalTxId).parentTxId(globalTxId)
+        .localTxId(localTxId).payloads("aborted".getBytes()).build();
+    sagaData.logEvent(txAbortedEvent);
+    sagaData.logEvent(SagaAbortedEvent.builder().serviceName("service_g").instanceId("instance_g")
+        .globalTxId(globalTxId).build());
+
+    List<BaseEvent> events = sagaData.getEvents();
+    assertThat(events.size(), is(4));
+    assertThat(events.get(0), instanceOf(SagaStartedEvent.class));
+    assertThat(((SagaStartedEvent) events.get(0)).getTimeout(), is(10));
+    assertThat(events.get(0).getLocalTxId(), is(globalTxId));
+    assertThat(events.get(1).toString(), is(txStartedEvent.toString()));
+    assertThat(events.get(2).toString(), is(txAbortedEvent.toString()));
+    assertArrayEquals("aborted".getBytes(), ((SagaAbortedEvent) events.get(3)).getPayloads());
+  }
+
+  @Test
+  public void copiesAreIndependent() {
+    SagaEventLog eventLog = new SagaEventLog(SagaEventLog.DEFAULT_CAPACITY);
+    eventLog.add(txEndedEvent(1));
+    SagaEventLog copy = eventLog.copy();
+    eventLog.add(txEndedEvent(2));
+    assertThat(copy.size(), is(1));
+    assertThat(eventLog.size(), is(2));
+  }
+
+  @Test
+  public void keepsEventsWithoutLocalTransaction() {
+    SagaEventLog eventLog = new SagaEventLog(SagaEventLog.DEFAULT_CAPACITY);
+    eventLog.add(TxEndedEvent.builder().globalTxId(globalTxId).build());
+    assertThat(eventLog.getLocalTxId(0), nullValue());
+  }
+
+  private SagaData sagaData() {
+    SagaData sagaData = SagaData.builder()
+        .serviceName("service_g").instanceId("instance_g").globalTxId(globalTxId)
+        .beginTime(new Date(1000))
+        .expirationTime(new Date(11000))
+        .build();
+    sagaData.getTxEntities().put(localTxId, TxEntity.builder()
+        .serviceName("service_c1").instanceId("instance_c1")
+        .globalTxId(globalTxId).parentTxId(globalTxId).localTxId(localTxId)
+        .compensationMethod("compensate").payloads("payloads".getBytes())
+        .retryMethod("retry").forwardRetries(2).forwardTimeout(3).reverseRetries(4)
+        .reverseTimeout(5).retryDelayInMilliseconds(6)
+        .state(TxState.FAILED).throwablePayLoads("aborted".getBytes())
+        .build());
+    return sagaData;
+  }
+
+  private TxEndedEvent txEndedEvent(long createTime) {
+    TxEndedEvent event = TxEndedEvent.builder().serviceName("service_c1")
+        .instanceId("instance_c1").globalTxId(globalTxId).parentTxId(globalTxId)
+        .localTxId(localTxId).build();
+    event.setCreateTime(new Date(createTime));
+    return event;
+  }
+}
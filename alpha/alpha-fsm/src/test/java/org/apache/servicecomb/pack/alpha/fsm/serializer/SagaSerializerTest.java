@@ -0,0 +1,272 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.servicecomb.pack.alpha.fsm.serializer;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assume.assumeTrue;
+
+import akka.actor.ActorSystem;
+import akka.serialization.JavaSerializer;
+import akka.serialization.Serialization;
+import akka.serialization.SerializationExtension;
+import akka.testkit.javadsl.TestKit;
+import com.typesafe.config.ConfigFactory;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.lang.invoke.MethodHandles;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import org.apache.servicecomb.pack.alpha.core.fsm.SuspendedType;
+import org.apache.servicecomb.pack.alpha.core.fsm.TxState;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.SagaAbortedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.SagaStartedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.TxAbortedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.TxCompensateAckFailedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.TxStartedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.base.BaseEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.internal.CompensateFailedEvent;
+import org.apache.servicecomb.pack.alpha.fsm.SagaActorState;
+import org.apache.servicecomb.pack.alpha.fsm.SagaEventSender;
+import org.apache.servicecomb.pack.alpha.fsm.domain.AddTxEventDomain;
+import org.apache.servicecomb.pack.alpha.fsm.domain.SagaEndedDomain;
+import org.apache.servicecomb.pack.alpha.fsm.domain.SagaStartedDomain;
+import org.apache.servicecomb.pack.alpha.fsm.domain.UpdateTxEventDomain;
+import org.apache.servicecomb.pack.alpha.fsm.model.SagaData;
+import org.apache.servicecomb.pack.alpha.fsm.model.TxEntity;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class SagaSerializerTest {
+
+  private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  private static final int TIMED_ROUND_TRIPS = 2000;
+
+  private final SagaSerializer serializer = new SagaSerializer();
+  private final String globalTxId = UUID.randomUUID().toString();
+  private final String localTxId = UUID.randomUUID().toString();
+
+  @Test
+  public void roundTripsDomainEvents() throws Exception {
+    SagaStartedDomain sagaStarted = roundTrip(new SagaStartedDomain(SagaStartedEvent.builder()
+        .serviceName("service_g").instanceId("instance_g").globalTxId(globalTxId).timeout(10)
+        .build()));
+    assertThat(sagaStarted.getEvent(), instanceOf(SagaStartedEvent.class));
+    assertThat(((SagaStartedEvent) sagaStarted.getEvent()).getTimeout(), is(10));
+    assertEquals(sagaStarted.getEvent().getCreateTime().getTime() + 10000,
+        sagaStarted.getExpirationTime().getTime());
+
+    TxStartedEvent txStartedEvent = txStartedEvent();
+    AddTxEventDomain addTxEvent = roundTrip(new AddTxEventDomain(txStartedEvent));
+    assertThat(addTxEvent.getEvent().toString(), is(txStartedEvent.toString()));
+    assertThat(addTxEvent.getCompensationMethod(), is("compensate"));
+    assertArrayEquals(txStartedEvent.getPayloads(), addTxEvent.getPayloads());
+    assertThat(addTxEvent.getReverseRetries(), is(3));
+    assertThat(addTxEvent.getRetryDelayInMilliseconds(), is(100));
+
+    UpdateTxEventDomain updateTxEvent = roundTrip(new UpdateTxEventDomain(
+        TxAbortedEvent.builder().serviceName("service_c1").instanceId("instance_c1")
+            .globalTxId(globalTxId).parentTxId(globalTxId).localTxId(localTxId)
+            .payloads("oops".getBytes()).build()));
+    assertThat(updateTxEvent.getEvent(), instanceOf(TxAbortedEvent.class));
+    assertThat(updateTxEvent.getLocalTxId(), is(localTxId));
+    assertThat(updateTxEvent.getState(), is(TxState.FAILED));
+    assertArrayEquals("oops".getBytes(), updateTxEvent.getThrowablePayLoads());
+
+    UpdateTxEventDomain retriedTxEvent = roundTrip(new UpdateTxEventDomain(
+        TxCompensateAckFailedEvent.builder().serviceName("service_c1").instanceId("instance_c1")
+            .globalTxId(globalTxId).parentTxId(globalTxId).localTxId(localTxId)
+            .payloads("oops".getBytes()).build(), true));
+    assertThat(retriedTxEvent.getEvent(), instanceOf(TxCompensateAckFailedEvent.class));
+    assertThat(retriedTxEvent.getState(), is(TxState.COMPENSATION_SENT));
+    assertArrayEquals("oops".getBytes(), retriedTxEvent.getThrowablePayLoads());
+
+    SagaEndedDomain sagaEnded = roundTrip(new SagaEndedDomain(SagaAbortedEvent.builder()
+        .serviceName("service_g").instanceId("instance_g").globalTxId(globalTxId).build(),
+        SagaActorState.FAILED));
+    assertThat(sagaEnded.getEvent(), instanceOf(SagaAbortedEvent.class));
+    assertThat(sagaEnded.getState(), is(SagaActorState.FAILED));
+    assertThat(sagaEnded.getSuspendedType(), is(SuspendedType.NONE));
+
+    SagaEndedDomain timeout = roundTrip(
+        new SagaEndedDomain(null, SagaActorState.SUSPENDED, SuspendedType.TIMEOUT));
+    assertThat(timeout.getEvent(), nullValue());
+    assertThat(timeout.getState(), is(SagaActorState.SUSPENDED));
+    assertThat(timeout.getSuspendedType(), is(SuspendedType.TIMEOUT));
+  }
+
+  @Test
+  public void roundTripsSagaData() throws Exception {
+    SagaData sagaData = sagaData(3);
+    SagaData copy = roundTrip(sagaData);
+
+    assertThat(copy.getGlobalTxId(), is(globalTxId));
+    assertThat(copy.getServiceName(), is("service_g"));
+    assertThat(copy.getExpirationTime(), is(sagaData.getExpirationTime()));
+    assertThat(copy.getLastState(), is(SagaActorState.FAILED));
+    assertThat(copy.getSuspendedType(), is(SuspendedType.NONE));
+    assertThat(copy.isTerminated(), is(true));
+    assertThat(copy.getCompensationRunningCounter().get(), is(2L));
+    assertThat(copy.getTxEntities().size(), is(3));
+    sagaData.getTxEntities().forEach((k, v) -> {
+      TxEntity txEntity = copy.getTxEntities().get(k);
+      assertThat(txEntity.getState(), is(v.getState()));
+      assertThat(txEntity.getBeginTime(), is(v.getBeginTime()));
+      assertThat(txEntity.getCompensationMethod(), is(v.getCompensationMethod()));
+      assertArrayEquals(v.getPayloads(), txEntity.getPayloads());
+      assertThat(txEntity.getRetryMethod(), is(v.getRetryMethod()));
+      assertThat(txEntity.getForwardRetries(), is(v.getForwardRetries()));
+      assertThat(txEntity.getForwardTimeout(), is(v.getForwardTimeout()));
+      assertThat(txEntity.getRetriesCounter().get(), is(v.getRetriesCounter().get()));
+    });
+    assertThat(copy.getEventLog().getCapacity(), is(sagaData.getEventLog().getCapacity()));
+    assertThat(copy.getEvents().size(), is(sagaData.getEvents().size()));
+    for (int i = 0; i < sagaData.getEvents().size(); i++) {
+      assertThat(copy.getEvents().get(i).toString(), is(sagaData.getEvents().get(i).toString()));
+    }
+  }
+
+  @Test
+  public void isSmallerThanJavaSerialization() throws IOException {
+    SagaData sagaData = sagaData(10);
+    int binarySize = serializer.toBinary(sagaData).length;
+    int javaSize = javaSerialize(sagaData).length;
+    // the events of the saga data are already kept as primitives in its event log
+    assertThat(binarySize * 2, lessThan(javaSize));
+
+    BaseEvent event = txStartedEvent();
+    assertThat(serializer.toBinary(event).length * 4, lessThan(javaSerialize(event).length));
+  }
+
+  /**
+   * Only logs the timings, it is skipped unless the build runs with -Dalpha.test.latency=true.
+   */
+  @Test
+  public void comparesSpeedWithJavaSerialization() throws Exception {
+    assumeTrue(Boolean.getBoolean("alpha.test.latency"));
+    SagaData sagaData = sagaData(10);
+    // the best of a few runs, after the first ones warmed up both paths
+    long binaryNanos = Long.MAX_VALUE;
+    long javaNanos = Long.MAX_VALUE;
+    for (int run = 0; run < 5; run++) {
+      long start = System.nanoTime();
+      for (int i = 0; i < TIMED_ROUND_TRIPS; i++) {
+        roundTrip(sagaData);
+      }
+      binaryNanos = Math.min(binaryNanos, System.nanoTime() - start);
+
+      start = System.nanoTime();
+      for (int i = 0; i < TIMED_ROUND_TRIPS; i++) {
+        javaDeserialize(javaSerialize(sagaData));
+      }
+      javaNanos = Math.min(javaNanos, System.nanoTime() - start);
+    }
+    LOG.info("{} round trips of saga data, saga serializer {} ms, java serialization {} ms",
+        TIMED_ROUND_TRIPS, binaryNanos / 1000000, javaNanos / 1000000);
+  }
+
+  @Test(expected = NotSerializableException.class)
+  public void rejectsUnknownManifest() throws Exception {
+    serializer.fromBinary(new byte[0], "UNKNOWN");
+  }
+
+  @Test
+  public void isBoundToSagaMessages() {
+    ActorSystem system = ActorSystem.create("SagaSerializerTest", ConfigFactory.empty());
+    try {
+      Serialization serialization = SerializationExtension.get(system);
+      assertThat(serialization.findSerializerFor(new AddTxEventDomain(txStartedEvent())),
+          instanceOf(SagaSerializer.class));
+      assertThat(serialization.findSerializerFor(txStartedEvent()),
+          instanceOf(SagaSerializer.class));
+      assertThat(serialization.findSerializerFor(sagaData(1)), instanceOf(SagaSerializer.class));
+      assertThat(serialization.findSerializerFor(CompensateFailedEvent.builder().build()),
+          instanceOf(JavaSerializer.class));
+    } finally {
+      TestKit.shutdownActorSystem(system);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private <T> T roundTrip(T value) throws NotSerializableException {
+    return (T) serializer.fromBinary(serializer.toBinary(value), serializer.manifest(value));
+  }
+
+  private TxStartedEvent txStartedEvent() {
+    return TxStartedEvent.builder()
+        .serviceName("service_c1").instanceId("instance_c1")
+        .globalTxId(globalTxId).parentTxId(globalTxId).localTxId(localTxId)
+        .compensationMethod("compensate").payloads("payloads".getBytes())
+        .reverseRetries(3).reverseTimeout(5).retryDelayInMilliseconds(100)
+        .build();
+  }
+
+  private SagaData sagaData(int txSize) {
+    SagaData sagaData = SagaData.builder()
+        .serviceName("service_g").instanceId("instance_g").globalTxId(globalTxId)
+        .expirationTime(new Date(System.currentTimeMillis() + 10000))
+        .terminated(true)
+        .build();
+    sagaData.setLastState(SagaActorState.FAILED);
+    sagaData.getCompensationRunningCounter().set(2);
+    String[] localTxIds = new String[txSize];
+    for (int i = 0; i < txSize; i++) {
+      localTxIds[i] = UUID.randomUUID().toString();
+      TxEntity txEntity = TxEntity.builder()
+          .serviceName("service_c" + i).instanceId("instance_c" + i)
+          .globalTxId(globalTxId).parentTxId(globalTxId).localTxId(localTxIds[i])
+          .compensationMethod("compensate").payloads(("payloads" + i).getBytes())
+          .retryMethod("retry").forwardRetries(i).forwardTimeout(3)
+          .state(TxState.COMPENSATION_SENT)
+          .build();
+      txEntity.getRetriesCounter().set(i);
+      sagaData.getTxEntities().put(localTxIds[i], txEntity);
+    }
+    List<BaseEvent> events = SagaEventSender.successfulEvents(globalTxId, localTxIds[0],
+        localTxIds[txSize > 1 ? 1 : 0], localTxIds[txSize - 1]);
+    events.forEach(sagaData::logEvent);
+    return sagaData;
+  }
+
+  private static Object javaDeserialize(byte[] bytes) throws IOException, ClassNotFoundException {
+    try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+      return in.readObject();
+    }
+  }
+
+  private static byte[] javaSerialize(Object value) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+      out.writeObject(value);
+    }
+    return bytes.toByteArray();
+  }
+}
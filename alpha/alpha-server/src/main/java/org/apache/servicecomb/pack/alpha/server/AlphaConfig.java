@@ -17,19 +17,31 @@
 
 package org.apache.servicecomb.pack.alpha.server;
 
+import static java.util.concurrent.TimeUnit.SECONDS;
+
 import java.io.IOException;
+import java.util.Date;
 import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
 
 import com.google.common.eventbus.EventBus;
 import org.apache.servicecomb.pack.alpha.core.*;
 import org.apache.servicecomb.pack.alpha.core.fsm.channel.ActorEventChannel;
+import org.apache.servicecomb.pack.alpha.core.metrics.EventScannerMetrics;
+import org.apache.servicecomb.pack.alpha.core.metrics.GroupCommitMetrics;
+import org.apache.servicecomb.pack.alpha.core.state.SagaStateEngine;
+import org.apache.servicecomb.pack.alpha.core.state.SagaStateRepository;
 import org.apache.servicecomb.pack.alpha.server.fsm.GrpcSagaEventService;
 import org.apache.servicecomb.pack.alpha.server.tcc.GrpcTccEventService;
 import org.apache.servicecomb.pack.alpha.server.tcc.callback.TccPendingTaskRunner;
@@ -39,6 +51,7 @@ import org.apache.servicecomb.pack.common.AlphaMetaKeys;
 import org.apache.servicecomb.pack.contract.grpc.ServerMeta;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
@@ -62,9 +75,88 @@ public class AlphaConfig {
   @Value("${alpha.tx.timeout-seconds:600}")
   private int globalTxTimeoutSeconds;
 
+  // the strategy to pick another omega instance when the original one is gone, leastInFlight or consistentHash
+  @Value("${alpha.compensation.instancePicker:leastInFlight}")
+  private String instancePicker;
+
   @Value("${alpha.cluster.master.enabled:false}")
   private boolean masterEnabled;
 
+  // every alpha member scans the global transactions of its own partitions instead of the master scanning all
+  @Value("${alpha.cluster.partition.enabled:false}")
+  private boolean partitionEnabled;
+
+  @Value("${alpha.cluster.partition.count:32}")
+  private int partitionCount;
+
+  // the number of timeouts, compensations and compensated events picked by each EventScanner stage per polling
+  @Value("${alpha.event.scanner.batchSize:1}")
+  private int scannerBatchSize;
+
+  // the threads sending the compensations of the per global transaction queues
+  @Value("${alpha.event.scanner.compensationThreads:4}")
+  private int scannerCompensationThreads;
+
+  private ExecutorService scannerCompensationExecutor;
+
+  // the compensations are sent from per global transaction queues on the compensation threads
+  @Value("${alpha.event.scanner.compensationQueues.enabled:false}")
+  private boolean compensationQueuesEnabled;
+
+  @Value("${alpha.event.abortedTxIndex.enabled:false}")
+  private boolean abortedTxIndexEnabled;
+
+  @Value("${alpha.event.abortedTxIndex.capacity:100000}")
+  private int abortedTxIndexCapacity;
+
+  private AbortedTxIndex abortedTxIndex;
+
+  // the events saved concurrently are written with one batch insert and one commit when the batch size is above 1
+  @Value("${alpha.event.groupCommit.batchSize:1}")
+  private int groupCommitBatchSize;
+
+  @Value("${alpha.event.groupCommit.maxLingerMillis:2}")
+  private long groupCommitMaxLingerMillis;
+
+  private GroupCommitTxEventRepository groupCommitRepository;
+
+  private ExecutorService eventStreamExecutor;
+
+  // the EventScanner aborts the timeout transactions from an in-memory timing wheel instead of polling the tables,
+  // the wheel only holds the timeouts of the events saved by this alpha
+  @Value("${alpha.event.timeoutWheel.enabled:false}")
+  private boolean timeoutWheelEnabled;
+
+  @Value("${alpha.event.timeoutWheel.tickMillis:100}")
+  private long timeoutWheelTickMillis;
+
+  @Value("${alpha.event.timeoutWheel.wheelSize:512}")
+  private int timeoutWheelSize;
+
+  private TxTimeoutTracker timeoutTracker;
+
+  // the terminated global transactions are moved to the TxEventArchive table once they are older than the retention
+  @Value("${alpha.event.archive.interval:60000}")
+  private long archiveInterval;
+
+  @Value("${alpha.event.archive.batchSize:100}")
+  private int archiveBatchSize;
+
+  @Value("${alpha.event.archive.retentionSeconds:86400}")
+  private long archiveRetentionSeconds;
+
+  @Value("${alpha.event.archive.dropPayloads:false}")
+  private boolean archiveDropPayloads;
+
+  private TxEventArchiver archiver;
+
+  // the console statistics are counted from the saved events and persisted periodically instead of queried
+  @Value("${alpha.console.incrementalStats.persistInterval:10000}")
+  private long statsPersistInterval;
+
+  @Value("${alpha.console.incrementalStats.capacity:10000}")
+  private int statsCapacity;
+
   @Autowired
   ApplicationContext applicationContext;
 
@@ -82,23 +174,103 @@ public class AlphaConfig {
   }
 
   @Bean
-  OmegaCallback omegaCallback(Map<String, Map<String, OmegaCallback>> callbacks) {
-    return new PushBackOmegaCallback(pendingCompensations, new CompositeOmegaCallback(callbacks));
+  OmegaCallbackPicker omegaCallbackPicker() {
+    if ("consistentHash".equals(instancePicker)) {
+      return new ConsistentHashOmegaCallbackPicker();
+    }
+    return new LeastInFlightOmegaCallbackPicker();
+  }
+
+  @Bean
+  OmegaCallback omegaCallback(Map<String, Map<String, OmegaCallback>> callbacks, OmegaCallbackPicker picker) {
+    return new PushBackOmegaCallback(pendingCompensations, new CompositeOmegaCallback(callbacks, picker));
   }
   
   @Bean
-  TxEventRepository springTxEventRepository(TxEventEnvelopeRepository eventRepo) {
-    return new SpringTxEventRepository(eventRepo);
+  TxEventRepository springTxEventRepository(TxEventEnvelopeRepository eventRepo, DataSource dataSource,
+      GroupCommitMetrics groupCommitMetrics, ScannerPartitions scannerPartitions,
+      ObjectProvider<SagaStatistics> sagaStatistics) {
+    TxEventRepository eventRepository = new SpringTxEventRepository(eventRepo, scannerBatchSize,
+        partitionEnabled ? scannerPartitions : null);
+    if (groupCommitBatchSize > 1) {
+      groupCommitRepository = new GroupCommitTxEventRepository(eventRepository, dataSource,
+          groupCommitBatchSize, groupCommitMaxLingerMillis, groupCommitMetrics);
+      groupCommitRepository.start();
+      eventRepository = groupCommitRepository;
+    }
+    if (abortedTxIndexEnabled) {
+      // the events of a global transaction may be saved by any member of a cluster
+      abortedTxIndex = new AbortedTxIndex(eventRepository, abortedTxIndexCapacity,
+          !masterEnabled && !partitionEnabled);
+      // global transactions older than the timeout are expected to be finished already
+      abortedTxIndex.warmUp(new Date(System.currentTimeMillis() - SECONDS.toMillis(globalTxTimeoutSeconds)));
+      eventRepository = new IndexedTxEventRepository(eventRepository, abortedTxIndex);
+    }
+    if (timeoutWheelEnabled) {
+      requireSingleNode("alpha.event.timeoutWheel.enabled");
+      timeoutTracker = new TxTimeoutTracker(timeoutWheelTickMillis, timeoutWheelSize);
+      timeoutTracker.recover(eventRepository);
+      eventRepository = new IndexedTxEventRepository(eventRepository, timeoutTracker);
+    }
+    SagaStatistics statistics = sagaStatistics.getIfAvailable();
+    if (statistics != null) {
+      eventRepository = new IndexedTxEventRepository(eventRepository, statistics);
+    }
+    return eventRepository;
+  }
+
+  @Bean
+  CommandRepository springCommandRepository(TxEventEnvelopeRepository eventRepo, CommandEntityRepository commandRepository,
+      ScannerPartitions scannerPartitions) {
+    return new SpringCommandRepository(eventRepo, commandRepository, scannerBatchSize,
+        partitionEnabled ? scannerPartitions : null);
+  }
+
+  @Bean
+  TxTimeoutRepository springTxTimeoutRepository(TxTimeoutEntityRepository timeoutRepo,
+      ScannerPartitions scannerPartitions) {
+    return new SpringTxTimeoutRepository(timeoutRepo, scannerBatchSize, partitionEnabled ? scannerPartitions : null);
+  }
+
+  @Bean
+  ScannerPartitions scannerPartitions() {
+    return new ScannerPartitions(partitionCount);
   }
 
   @Bean
-  CommandRepository springCommandRepository(TxEventEnvelopeRepository eventRepo, CommandEntityRepository commandRepository) {
-    return new SpringCommandRepository(eventRepo, commandRepository);
+  EventScannerMetrics eventScannerMetrics() {
+    return new EventScannerMetrics();
   }
 
   @Bean
-  TxTimeoutRepository springTxTimeoutRepository(TxTimeoutEntityRepository timeoutRepo) {
-    return new SpringTxTimeoutRepository(timeoutRepo);
+  GroupCommitMetrics groupCommitMetrics() {
+    return new GroupCommitMetrics();
+  }
+
+  @Bean
+  @ConditionalOnProperty(name = "alpha.event.archive.enabled", havingValue = "true")
+  TxEventArchiver txEventArchiver(DataSource dataSource, NodeStatus nodeStatus) {
+    archiver = new TxEventArchiver(dataSource, nodeStatus, archiveBatchSize,
+        SECONDS.toMillis(archiveRetentionSeconds), archiveDropPayloads);
+    archiver.start(archiveInterval);
+    LOG.info("Starting the TxEventArchiver.");
+    return archiver;
+  }
+
+  @Bean
+  @ConditionalOnProperty(name = "alpha.console.incrementalStats.enabled", havingValue = "true")
+  SagaStatistics sagaStatistics(DataSource dataSource) {
+    requireSingleNode("alpha.console.incrementalStats.enabled");
+    SagaStatistics statistics = new SagaStatistics(dataSource, statsCapacity);
+    statistics.recover();
+    statistics.start(scheduler, statsPersistInterval);
+    LOG.info("Starting the incremental saga statistics.");
+    return statistics;
+  }
+
+  @Bean
+  SagaStateRepository springSagaStateRepository(SagaStateEntityRepository stateRepo) {
+    return new SpringSagaStateRepository(stateRepo);
   }
 
   @Bean
@@ -119,19 +291,53 @@ public class AlphaConfig {
   TxConsistentService txConsistentService(
       @Value("${alpha.event.pollingInterval:500}") int eventPollingInterval,
       @Value("${alpha.event.scanner.enabled:true}") boolean eventScannerEnabled,
+      @Value("${alpha.event.state-engine.enabled:false}") boolean stateEngineEnabled,
       ScheduledExecutorService scheduler,
       TxEventRepository eventRepository,
       CommandRepository commandRepository,
       TxTimeoutRepository timeoutRepository,
+      SagaStateRepository sagaStateRepository,
       OmegaCallback omegaCallback,
-      NodeStatus nodeStatus) {
+      Map<String, Map<String, OmegaCallback>> omegaCallbacks,
+      OmegaCallbackPicker omegaCallbackPicker,
+      NodeStatus nodeStatus,
+      EventScannerMetrics eventScannerMetrics,
+      ScannerPartitions scannerPartitions) {
+        if (stateEngineEnabled) {
+          requireSingleNode("alpha.event.state-engine.enabled");
+          SagaStateEngine stateEngine = new SagaStateEngine(eventRepository, sagaStateRepository,
+              omegaCallback, scheduler, eventPollingInterval);
+          stateEngine.start();
+          LOG.info("Starting the SagaStateEngine instead of the EventScanner.");
+          return new TxConsistentService(eventRepository, stateEngine, abortedTxIndex);
+        }
         if (eventScannerEnabled) {
-          new EventScanner(scheduler,
-              eventRepository, commandRepository, timeoutRepository,
-              omegaCallback, eventPollingInterval, nodeStatus).run();
-          LOG.info("Starting the EventScanner.");
+          CompensationDispatcher compensationDispatcher = null;
+          if (compensationQueuesEnabled) {
+            scannerCompensationExecutor = Executors.newFixedThreadPool(scannerCompensationThreads);
+            // the dispatcher retries the failed compensations from its queues instead of the pushed back ones
+            compensationDispatcher = new CompensationDispatcher(commandRepository,
+                new CompositeOmegaCallback(omegaCallbacks, omegaCallbackPicker), scannerCompensationExecutor,
+                eventScannerMetrics);
+          }
+          // with partitioning every member scans its own partitions, no matter which one holds the master lock
+          EventScanner.builder()
+              .scheduler(scheduler)
+              .eventRepository(eventRepository)
+              .commandRepository(commandRepository)
+              .timeoutRepository(timeoutRepository)
+              .omegaCallback(omegaCallback)
+              .eventPollingInterval(eventPollingInterval)
+              .nodeStatus(partitionEnabled ? new NodeStatus(NodeStatus.TypeEnum.MASTER) : nodeStatus)
+              .metrics(eventScannerMetrics)
+              .partitions(partitionEnabled ? scannerPartitions : null)
+              .timeoutTracker(timeoutTracker)
+              .compensationDispatcher(compensationDispatcher)
+              .build()
+              .run();
+          LOG.info(partitionEnabled ? "Starting the EventScanner on the owned partitions." : "Starting the EventScanner.");
           }
-        TxConsistentService consistentService = new TxConsistentService(eventRepository);
+        TxConsistentService consistentService = new TxConsistentService(eventRepository, null, abortedTxIndex);
         return consistentService;
   }
 
@@ -158,7 +364,8 @@ public class AlphaConfig {
     ServerMeta serverMeta = ServerMeta.newBuilder()
         .putMeta(AlphaMetaKeys.AkkaEnabled.name(), String.valueOf(false)).build();
     ServerStartable bootstrap = new GrpcStartable(serverConfig, eventBus,
-        new GrpcTxEventEndpointImpl(txConsistentService, omegaCallbacks, serverMeta), grpcTccEventService);
+        new GrpcTxEventEndpointImpl(txConsistentService, omegaCallbacks, serverMeta,
+            eventStreamExecutor(serverConfig)), grpcTccEventService);
     new Thread(bootstrap::start).start();
     tccPendingTaskRunner.start();
     tccEventScanner.start();
@@ -178,7 +385,8 @@ public class AlphaConfig {
     ServerMeta serverMeta = ServerMeta.newBuilder()
         .putMeta(AlphaMetaKeys.AkkaEnabled.name(), String.valueOf(true)).build();
     ServerStartable bootstrap = new GrpcStartable(serverConfig, eventBus,
-        new GrpcSagaEventService(actorEventChannel, omegaCallbacks, serverMeta), grpcTccEventService);
+        new GrpcSagaEventService(actorEventChannel, omegaCallbacks, serverMeta,
+            eventStreamExecutor(serverConfig)), grpcTccEventService);
     new Thread(bootstrap::start).start();
     tccPendingTaskRunner.start();
     tccEventScanner.start();
@@ -190,6 +398,21 @@ public class AlphaConfig {
     return bootstrap;
   }
 
+  private ExecutorService eventStreamExecutor(GrpcServerConfig serverConfig) {
+    eventStreamExecutor = new ThreadPoolExecutor(serverConfig.getEventStreamingThreads(),
+        serverConfig.getEventStreamingThreads(), 0L, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(serverConfig.getEventStreamingQueueSize()));
+    return eventStreamExecutor;
+  }
+
+  // the in-memory state of some features is built from the events saved by this alpha only
+  private void requireSingleNode(String feature) {
+    if (masterEnabled || partitionEnabled) {
+      throw new IllegalStateException(feature + " is limited to a single alpha, it can't be combined with "
+          + "alpha.cluster.master.enabled or alpha.cluster.partition.enabled");
+    }
+  }
+
   @PostConstruct
   void init() {
     //https://github.com/elastic/elasticsearch/issues/25741
@@ -200,5 +423,17 @@ public class AlphaConfig {
   @PreDestroy
   void shutdown() {
     scheduler.shutdownNow();
+    if (scannerCompensationExecutor != null) {
+      scannerCompensationExecutor.shutdownNow();
+    }
+    if (groupCommitRepository != null) {
+      groupCommitRepository.shutdown();
+    }
+    if (eventStreamExecutor != null) {
+      eventStreamExecutor.shutdownNow();
+    }
+    if (archiver != null) {
+      archiver.shutdown();
+    }
   }
 }
@@ -0,0 +1,164 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.servicecomb.pack.alpha.server;
+
+import io.grpc.ForwardingServerCallListener.SimpleForwardingServerCallListener;
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.Status;
+import java.lang.invoke.MethodHandles;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs the callbacks of the calls on an executor with a bounded queue. The server must use a direct
+ * executor, so the callbacks arrive on the transport threads and are handed over to the executor
+ * here. A call whose callback finds the queue full is closed at once with RESOURCE_EXHAUSTED, which
+ * makes omega send to another alpha, instead of failing the stream with an internal error as a
+ * rejecting server executor would. The callbacks of a call still run one after another.
+ */
+class BoundedExecutorInterceptor implements ServerInterceptor {
+
+  private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  private final Executor executor;
+
+  BoundedExecutorInterceptor(Executor executor) {
+    this.executor = executor;
+  }
+
+  @Override
+  public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(ServerCall<ReqT, RespT> call,
+      Metadata headers, ServerCallHandler<ReqT, RespT> next) {
+    SerialExecutor callExecutor = new SerialExecutor(executor);
+    return new SimpleForwardingServerCallListener<ReqT>(next.startCall(call, headers)) {
+      private boolean rejected;
+
+      @Override
+      public void onMessage(ReqT message) {
+        dispatch(() -> super.onMessage(message));
+      }
+
+      @Override
+      public void onHalfClose() {
+        dispatch(super::onHalfClose);
+      }
+
+      @Override
+      public void onReady() {
+        dispatch(super::onReady);
+      }
+
+      // the service must learn about the end of the call even if the executor is full
+      @Override
+      public void onCancel() {
+        dispatchOrRun(super::onCancel);
+      }
+
+      @Override
+      public void onComplete() {
+        dispatchOrRun(super::onComplete);
+      }
+
+      private void dispatch(Runnable callback) {
+        if (rejected) {
+          return;
+        }
+        try {
+          callExecutor.execute(callback);
+        } catch (RejectedExecutionException e) {
+          // no callback of this call is running, so it is safe to close the call here
+          rejected = true;
+          LOG.warn("Rejected call of {}, the executor queue is full", call.getMethodDescriptor().getFullMethodName());
+          call.close(Status.RESOURCE_EXHAUSTED.withDescription("Too many pending calls"), new Metadata());
+        }
+      }
+
+      private void dispatchOrRun(Runnable callback) {
+        try {
+          callExecutor.execute(callback);
+        } catch (RejectedExecutionException e) {
+          callback.run();
+        }
+      }
+    };
+  }
+
+  /**
+   * Runs the tasks of a single call in order, it takes at most one slot of the underlying executor.
+   * A task is only rejected if the call has no task running or waiting.
+   */
+  private static class SerialExecutor implements Executor, Runnable {
+
+    private final Executor executor;
+
+    private final Queue<Runnable> tasks = new ArrayDeque<>();
+
+    private boolean running;
+
+    SerialExecutor(Executor executor) {
+      this.executor = executor;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+      synchronized (this) {
+        tasks.add(task);
+        if (running) {
+          return;
+        }
+        running = true;
+      }
+      try {
+        executor.execute(this);
+      } catch (RejectedExecutionException e) {
+        synchronized (this) {
+          tasks.clear();
+          running = false;
+        }
+        throw e;
+      }
+    }
+
+    @Override
+    public void run() {
+      while (true) {
+        Runnable task;
+        synchronized (this) {
+          task = tasks.poll();
+          if (task == null) {
+            running = false;
+            return;
+          }
+        }
+        try {
+          task.run();
+        } catch (RuntimeException e) {
+          LOG.error("Failed to run callback of grpc call", e);
+        }
+      }
+    }
+  }
+}
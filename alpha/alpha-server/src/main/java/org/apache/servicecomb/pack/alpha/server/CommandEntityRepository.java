@@ -38,7 +38,7 @@ public interface CommandEntityRepository extends CrudRepository<Command, Long> {
       + "WHERE c.globalTxId = :globalTxId "
       + "  AND c.localTxId = :localTxId "
       + "  AND c.status = :fromStatus")
-  void updateStatusByGlobalTxIdAndLocalTxId(
+  int updateStatusByGlobalTxIdAndLocalTxId(
       @Param("fromStatus") String fromStatus,
       @Param("toStatus") String toStatus,
       @Param("globalTxId") String globalTxId,
@@ -57,6 +57,8 @@ public interface CommandEntityRepository extends CrudRepository<Command, Long> {
 
   List<Command> findByGlobalTxIdAndStatus(String globalTxId, String status);
 
+  boolean existsByGlobalTxIdAndStatusNot(String globalTxId, String status);
+
   // TODO: 2018/1/18 we assumed compensation will never fail. if all service instances are not reachable, we have to set up retry mechanism for pending commands
   @Lock(LockModeType.OPTIMISTIC)
   @Query(value = "SELECT * FROM Command AS c "
@@ -66,6 +68,19 @@ public interface CommandEntityRepository extends CrudRepository<Command, Long> {
       + " WHERE c1.status = 'NEW' "
       + " GROUP BY c1.globalTxId "
       + " HAVING MAX( CASE c2.status WHEN 'PENDING' THEN 1 ELSE 0 END ) = 0) "
-      + "ORDER BY c.eventId ASC LIMIT 1", nativeQuery = true)
-  List<Command> findFirstGroupByGlobalTxIdWithoutPendingOrderByIdDesc();
+      + "ORDER BY c.eventId ASC LIMIT ?1", nativeQuery = true)
+  List<Command> findFirstGroupByGlobalTxIdWithoutPendingOrderByIdDesc(int size);
+
+  @Lock(LockModeType.OPTIMISTIC)
+  @Query(value = "SELECT * FROM Command AS c "
+      + "WHERE c.eventId IN ("
+      + " SELECT MAX(c1.eventId) FROM Command AS c1 "
+      + " INNER JOIN Command AS c2 on c1.globalTxId = c2.globalTxId"
+      + " WHERE c1.status = 'NEW' "
+      + "   AND MOD(MOD(COALESCE(c1.partitionKey, 0), ?2), ?3) = ?4 "
+      + " GROUP BY c1.globalTxId "
+      + " HAVING MAX( CASE c2.status WHEN 'PENDING' THEN 1 ELSE 0 END ) = 0) "
+      + "ORDER BY c.eventId ASC LIMIT ?1", nativeQuery = true)
+  List<Command> findFirstGroupByGlobalTxIdWithoutPendingInPartitionsOrderByIdDesc(int size, int count,
+      int members, int index);
 }
@@ -0,0 +1,173 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.servicecomb.pack.alpha.server;
+
+import io.grpc.ForwardingServerCall.SimpleForwardingServerCall;
+import io.grpc.ForwardingServerCallListener.SimpleForwardingServerCallListener;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.Status;
+import java.lang.invoke.MethodHandles;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import org.apache.servicecomb.pack.contract.grpc.GrpcAck;
+import org.apache.servicecomb.pack.contract.grpc.GrpcTxEvent;
+import org.apache.servicecomb.pack.contract.grpc.TxEventServiceGrpc;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Limits the number of calls of every grpc service which are handled at the same time. The limit
+ * applies to the callbacks which run the service code, i.e. a unary call while its handler runs and
+ * a stream while one of its messages is handled. A call over the limit is closed at once with
+ * RESOURCE_EXHAUSTED instead of waiting for a thread, so omega can retry on another alpha. An
+ * OnTxEvents stream is kept, only the message over the limit is answered with an error ack which
+ * omega retries like a failed event. The OnConnected streams, which carry the compensations, are
+ * not limited.
+ */
+class ConcurrencyLimitInterceptor implements ServerInterceptor {
+
+  private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  private static final String ON_CONNECTED = "/OnConnected";
+
+  private final int maxConcurrentCalls;
+
+  private final Map<String, Semaphore> permits = new ConcurrentHashMap<>();
+
+  ConcurrencyLimitInterceptor(int maxConcurrentCalls) {
+    this.maxConcurrentCalls = maxConcurrentCalls;
+  }
+
+  @Override
+  public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(ServerCall<ReqT, RespT> call,
+      Metadata headers, ServerCallHandler<ReqT, RespT> next) {
+    MethodDescriptor<ReqT, RespT> method = call.getMethodDescriptor();
+    if (method.getFullMethodName().endsWith(ON_CONNECTED)) {
+      return next.startCall(call, headers);
+    }
+    String serviceName = method.getServiceName();
+    Semaphore semaphore = permits.computeIfAbsent(serviceName, name -> new Semaphore(maxConcurrentCalls));
+    boolean eventStream = TxEventServiceGrpc.getOnTxEventsMethod().getFullMethodName()
+        .equals(method.getFullMethodName());
+    // the error acks are sent from here while the service may be sending its acks
+    SerializedServerCall<ReqT, RespT> serializedCall = new SerializedServerCall<>(call);
+    return new SimpleForwardingServerCallListener<ReqT>(next.startCall(serializedCall, headers)) {
+      private boolean rejected;
+
+      @Override
+      public void onMessage(ReqT message) {
+        if (eventStream) {
+          if (!semaphore.tryAcquire()) {
+            rejectEvent((GrpcTxEvent) message);
+            return;
+          }
+        } else if (!admit()) {
+          return;
+        }
+        try {
+          super.onMessage(message);
+        } finally {
+          semaphore.release();
+        }
+      }
+
+      @Override
+      public void onHalfClose() {
+        if (eventStream) {
+          super.onHalfClose();
+        } else if (admit()) {
+          try {
+            super.onHalfClose();
+          } finally {
+            semaphore.release();
+          }
+        }
+      }
+
+      private boolean admit() {
+        if (rejected) {
+          return false;
+        }
+        if (semaphore.tryAcquire()) {
+          return true;
+        }
+        rejected = true;
+        LOG.warn("Rejected call of {}, {} calls are in progress", method.getFullMethodName(), maxConcurrentCalls);
+        serializedCall.close(Status.RESOURCE_EXHAUSTED.withDescription("Too many concurrent calls of " + serviceName),
+            new Metadata());
+        return false;
+      }
+
+      @SuppressWarnings("unchecked")
+      private void rejectEvent(GrpcTxEvent event) {
+        LOG.warn("Rejected event {} of {}, {} calls are in progress", event.getSequence(),
+            method.getFullMethodName(), maxConcurrentCalls);
+        serializedCall.sendMessage((RespT) GrpcAck.newBuilder()
+            .setError(Status.Code.RESOURCE_EXHAUSTED + ": Too many concurrent calls of " + serviceName)
+            .setSequence(event.getSequence())
+            .build());
+        // the service didn't see the message, so it doesn't ask for the next one
+        call.request(1);
+      }
+    };
+  }
+
+  int availablePermits(String serviceName) {
+    Semaphore semaphore = permits.get(serviceName);
+    return semaphore == null ? maxConcurrentCalls : semaphore.availablePermits();
+  }
+
+  /**
+   * Sends the headers once before the first message, whoever sends it, and one message at a time.
+   */
+  private static class SerializedServerCall<ReqT, RespT> extends SimpleForwardingServerCall<ReqT, RespT> {
+
+    private boolean headersSent;
+
+    SerializedServerCall(ServerCall<ReqT, RespT> delegate) {
+      super(delegate);
+    }
+
+    @Override
+    public synchronized void sendHeaders(Metadata headers) {
+      if (!headersSent) {
+        headersSent = true;
+        super.sendHeaders(headers);
+      }
+    }
+
+    @Override
+    public synchronized void sendMessage(RespT message) {
+      if (!headersSent) {
+        sendHeaders(new Metadata());
+      }
+      super.sendMessage(message);
+    }
+
+    @Override
+    public synchronized void close(Status status, Metadata trailers) {
+      super.close(status, trailers);
+    }
+  }
+}
@@ -0,0 +1,291 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.servicecomb.pack.alpha.server;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.apache.servicecomb.pack.common.EventType.SagaEndedEvent;
+
+import java.lang.invoke.MethodHandles;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import javax.sql.DataSource;
+
+import org.apache.servicecomb.pack.alpha.core.AlphaException;
+import org.apache.servicecomb.pack.alpha.core.TxEvent;
+import org.apache.servicecomb.pack.alpha.core.TxEventRepository;
+import org.apache.servicecomb.pack.alpha.core.metrics.GroupCommitMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Group commit of the {@link TxEvent}s. The events saved concurrently by the gRPC threads are queued
+ * and written by a single writer thread, one JDBC batch insert and one commit per batch.
+ * {@link #save(TxEvent)} only returns once the batch of the event is committed, so the ack is still sent
+ * after the event is durable. The surrogateId of a group committed event is not populated.
+ *
+ * If a batch fails, its events are saved one by one with the delegated repository so that only the
+ * broken event is reported to its caller.
+ */
+class GroupCommitTxEventRepository implements TxEventRepository {
+  private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  private static final String INSERT_SQL = "INSERT INTO TxEvent "
+      + "(serviceName, instanceId, creationTime, globalTxId, localTxId, parentTxId, type, "
+      + "compensationMethod, expiryTime, retryMethod, retries, payloads, partitionKey) "
+      + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+  private static final long DRAIN_TIMEOUT_MILLIS = SECONDS.toMillis(5);
+
+  private final BlockingQueue<PendingEvent> pendingEvents = new LinkedBlockingQueue<>();
+
+  private final TxEventRepository eventRepository;
+
+  private final JdbcTemplate jdbcTemplate;
+
+  private final TransactionTemplate transactionTemplate;
+
+  private final int batchSize;
+
+  private final long maxLingerNanos;
+
+  private final GroupCommitMetrics metrics;
+
+  private volatile boolean running;
+
+  private Thread writer;
+
+  GroupCommitTxEventRepository(TxEventRepository eventRepository, DataSource dataSource, int batchSize,
+      long maxLingerMillis, GroupCommitMetrics metrics) {
+    this.eventRepository = eventRepository;
+    this.jdbcTemplate = new JdbcTemplate(dataSource);
+    this.transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+    this.batchSize = batchSize;
+    this.maxLingerNanos = MILLISECONDS.toNanos(maxLingerMillis);
+    this.metrics = metrics;
+  }
+
+  void start() {
+    running = true;
+    writer = new Thread(this::writeBatches, "tx-event-group-commit");
+    writer.setDaemon(true);
+    writer.start();
+  }
+
+  void shutdown() {
+    running = false;
+    if (writer != null) {
+      try {
+        writer.join(DRAIN_TIMEOUT_MILLIS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    saveLeftovers();
+  }
+
+  @Override
+  public void save(TxEvent event) {
+    // a duplicated SagaEndedEvent would fail the whole batch on the unique index, the delegated repository
+    // ignores it instead
+    if (!running || SagaEndedEvent.name().equals(event.type())) {
+      eventRepository.save(event);
+      return;
+    }
+    PendingEvent pendingEvent = new PendingEvent(event);
+    pendingEvents.add(pendingEvent);
+    // the leftovers may already be drained by a concurrent shutdown, take the event back unless someone
+    // else has taken it to commit it
+    if (!running && pendingEvents.remove(pendingEvent)) {
+      eventRepository.save(event);
+      return;
+    }
+    try {
+      pendingEvent.committed.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new AlphaException("Interrupted while waiting for the commit of event " + event);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new AlphaException("Failed to save event " + event + ": " + e.getCause());
+    }
+  }
+
+  private void writeBatches() {
+    while (running || !pendingEvents.isEmpty()) {
+      try {
+        List<PendingEvent> batch = nextBatch();
+        if (!batch.isEmpty()) {
+          write(batch);
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        break;
+      } catch (Exception e) {
+        // Need to catch the exception to keep the writer running.
+        LOG.error("Got the exception {} when writing events.", e.getMessage(), e);
+      }
+    }
+    saveLeftovers();
+  }
+
+  private void saveLeftovers() {
+    List<PendingEvent> leftovers = new ArrayList<>();
+    pendingEvents.drainTo(leftovers);
+    leftovers.forEach(this::saveOneByOne);
+  }
+
+  private List<PendingEvent> nextBatch() throws InterruptedException {
+    List<PendingEvent> batch = new ArrayList<>(batchSize);
+    PendingEvent first = pendingEvents.poll(100, MILLISECONDS);
+    if (first == null) {
+      return batch;
+    }
+    batch.add(first);
+    long deadline = System.nanoTime() + maxLingerNanos;
+    while (batch.size() < batchSize) {
+      pendingEvents.drainTo(batch, batchSize - batch.size());
+      long remaining = deadline - System.nanoTime();
+      if (batch.size() >= batchSize || remaining <= 0) {
+        break;
+      }
+      PendingEvent next = pendingEvents.poll(remaining, NANOSECONDS);
+      if (next == null) {
+        break;
+      }
+      batch.add(next);
+    }
+    return batch;
+  }
+
+  private void write(List<PendingEvent> batch) {
+    long start = System.currentTimeMillis();
+    try {
+      transactionTemplate.execute(status -> jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(),
+          (statement, pendingEvent) -> bind(statement, pendingEvent.event)));
+    } catch (RuntimeException e) {
+      LOG.warn("Failed to commit a batch of {} events, saving them one by one.", batch.size(), e);
+      metrics.doBatchFailed();
+      batch.forEach(this::saveOneByOne);
+      return;
+    }
+    metrics.doBatchCommitted(batch.size(), System.currentTimeMillis() - start);
+    batch.forEach(pendingEvent -> pendingEvent.committed.complete(null));
+  }
+
+  private void saveOneByOne(PendingEvent pendingEvent) {
+    try {
+      eventRepository.save(pendingEvent.event);
+      pendingEvent.committed.complete(null);
+    } catch (RuntimeException e) {
+      pendingEvent.committed.completeExceptionally(e);
+    }
+  }
+
+  private void bind(PreparedStatement statement, TxEvent event) throws SQLException {
+    statement.setString(1, event.serviceName());
+    statement.setString(2, event.instanceId());
+    statement.setTimestamp(3, timestampOf(event.creationTime()));
+    statement.setString(4, event.globalTxId());
+    statement.setString(5, event.localTxId());
+    statement.setString(6, event.parentTxId());
+    statement.setString(7, event.type());
+    statement.setString(8, event.compensationMethod());
+    statement.setTimestamp(9, timestampOf(event.expiryTime()));
+    statement.setString(10, event.retryMethod());
+    statement.setInt(11, event.retries());
+    statement.setBytes(12, event.payloads());
+    statement.setObject(13, event.partitionKey(), Types.INTEGER);
+  }
+
+  private Timestamp timestampOf(Date date) {
+    return date == null ? null : new Timestamp(date.getTime());
+  }
+
+  @Override
+  public Optional<List<TxEvent>> findFirstAbortedGlobalTransaction() {
+    return eventRepository.findFirstAbortedGlobalTransaction();
+  }
+
+  @Override
+  public List<TxEvent> findTimeoutEvents() {
+    return eventRepository.findTimeoutEvents();
+  }
+
+  @Override
+  public List<TxEvent> findPendingTimeoutEvents(long id, int limit) {
+    return eventRepository.findPendingTimeoutEvents(id, limit);
+  }
+
+  @Override
+  public Optional<TxEvent> findTxStartedEvent(String globalTxId, String localTxId) {
+    return eventRepository.findTxStartedEvent(globalTxId, localTxId);
+  }
+
+  @Override
+  public List<TxEvent> findTransactions(String globalTxId, String type) {
+    return eventRepository.findTransactions(globalTxId, type);
+  }
+
+  @Override
+  public List<String> findAbortedGlobalTxIds(Date since, int limit) {
+    return eventRepository.findAbortedGlobalTxIds(since, limit);
+  }
+
+  @Override
+  public List<TxEvent> findByGlobalTxId(String globalTxId) {
+    return eventRepository.findByGlobalTxId(globalTxId);
+  }
+
+  @Override
+  public List<TxEvent> findFirstUncompensatedEventByIdGreaterThan(long id, String type) {
+    return eventRepository.findFirstUncompensatedEventByIdGreaterThan(id, type);
+  }
+
+  @Override
+  public List<TxEvent> findFirstCompensatedEventByIdGreaterThan(long id) {
+    return eventRepository.findFirstCompensatedEventByIdGreaterThan(id);
+  }
+
+  private static class PendingEvent {
+    private final TxEvent event;
+    private final CompletableFuture<Void> committed = new CompletableFuture<>();
+
+    PendingEvent(TxEvent event) {
+      this.event = event;
+    }
+  }
+}
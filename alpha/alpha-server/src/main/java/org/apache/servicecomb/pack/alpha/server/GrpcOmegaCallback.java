@@ -20,11 +20,18 @@
 
 package org.apache.servicecomb.pack.alpha.server;
 
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.apache.servicecomb.pack.alpha.core.OmegaCallback;
 import org.apache.servicecomb.pack.alpha.core.TxEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.CompensateAckType;
 import org.apache.servicecomb.pack.contract.grpc.GrpcCompensateCommand;
+import org.apache.servicecomb.pack.contract.grpc.GrpcCompensateCommandBatch;
 
-import com.google.protobuf.ByteString;
+import com.google.protobuf.UnsafeByteOperations;
 
 import io.grpc.stub.StreamObserver;
 
@@ -32,24 +39,80 @@ class GrpcOmegaCallback implements OmegaCallback {
 
   private final StreamObserver<GrpcCompensateCommand> observer;
 
+  // compensate commands sent without the compensated event received yet
+  private final AtomicInteger inFlight = new AtomicInteger();
+
+  private final boolean batchSupported;
+
   GrpcOmegaCallback(StreamObserver<GrpcCompensateCommand> observer) {
+    this(observer, false);
+  }
+
+  GrpcOmegaCallback(StreamObserver<GrpcCompensateCommand> observer, boolean batchSupported) {
     this.observer = observer;
+    this.batchSupported = batchSupported;
   }
 
   @Override
   public void compensate(TxEvent event) {
-    GrpcCompensateCommand command = GrpcCompensateCommand.newBuilder()
+    send(commandOf(event), 1);
+  }
+
+  @Override
+  public List<CompletableFuture<Void>> compensateAllAsync(List<TxEvent> events) {
+    if (!batchSupported || events.size() <= 1) {
+      return OmegaCallback.super.compensateAllAsync(events);
+    }
+    GrpcCompensateCommandBatch.Builder batch = GrpcCompensateCommandBatch.newBuilder();
+    events.forEach(event -> batch.addCommands(commandOf(event)));
+    CompletableFuture<Void> sent = new CompletableFuture<>();
+    try {
+      send(GrpcCompensateCommand.newBuilder().setBatch(batch).build(), events.size());
+      sent.complete(null);
+    } catch (RuntimeException e) {
+      sent.completeExceptionally(e);
+    }
+    return Collections.nCopies(events.size(), sent);
+  }
+
+  private void send(GrpcCompensateCommand command, int commands) {
+    inFlight.addAndGet(commands);
+    try {
+      observer.onNext(command);
+    } catch (RuntimeException e) {
+      inFlight.addAndGet(-commands);
+      throw e;
+    }
+  }
+
+  private static GrpcCompensateCommand commandOf(TxEvent event) {
+    return GrpcCompensateCommand.newBuilder()
         .setGlobalTxId(event.globalTxId())
         .setLocalTxId(event.localTxId())
         .setParentTxId(event.parentTxId() == null ? "" : event.parentTxId())
         .setCompensationMethod(event.compensationMethod())
-        .setPayloads(ByteString.copyFrom(event.payloads()))
+        .setPayloads(UnsafeByteOperations.unsafeWrap(event.payloads()))
         .build();
-    observer.onNext(command);
+  }
+
+  @Override
+  public void getAck(CompensateAckType type) {
+    inFlight.getAndUpdate(count -> count > 0 ? count - 1 : 0);
+  }
+
+  // the commands sent on a closed stream will never be acked
+  void streamClosed() {
+    inFlight.set(0);
+  }
+
+  @Override
+  public int inFlight() {
+    return inFlight.get();
   }
 
   @Override
   public void disconnect() {
     observer.onCompleted();
+    inFlight.set(0);
   }
 }
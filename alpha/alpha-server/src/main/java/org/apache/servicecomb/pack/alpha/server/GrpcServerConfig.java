@@ -58,6 +58,28 @@ public class GrpcServerConfig {
   @Value("${alpha.feature.nativetransport:false}")
   private boolean nativeTransport;
 
+  // the grpc calls are handled by a fixed number of threads instead of an unbounded pool
+  @Value("${alpha.server.executor.threads:0}")
+  private int executorThreads;
+
+  // calls which find this many callbacks waiting for the executor threads are rejected with RESOURCE_EXHAUSTED
+  @Value("${alpha.server.executor.queueSize:1000}")
+  private int executorQueueSize;
+
+  // the events of the OnTxEvents streams are handled by these threads, an event finding the queue full is failed
+  @Value("${alpha.server.eventStreaming.threads:8}")
+  private int eventStreamingThreads;
+
+  @Value("${alpha.server.eventStreaming.queueSize:1000}")
+  private int eventStreamingQueueSize;
+
+  @Value("${alpha.server.maxConcurrentCallsPerService:0}")
+  private int maxConcurrentCallsPerService;
+
+  // co-located omegas connect to this unix domain socket path in addition to the port, linux only
+  @Value("${alpha.server.domainSocket:}")
+  private String domainSocket;
+
   public String getHost() {
     return host;
   }
@@ -105,6 +127,30 @@ public class GrpcServerConfig {
   public boolean isNativeTransport() {
     return nativeTransport;
   }
+
+  public int getExecutorThreads() {
+    return executorThreads;
+  }
+
+  public int getExecutorQueueSize() {
+    return executorQueueSize;
+  }
+
+  public int getEventStreamingThreads() {
+    return eventStreamingThreads;
+  }
+
+  public int getEventStreamingQueueSize() {
+    return eventStreamingQueueSize;
+  }
+
+  public int getMaxConcurrentCallsPerService() {
+    return maxConcurrentCallsPerService;
+  }
+
+  public String getDomainSocket() {
+    return domainSocket;
+  }
 }
 
 
@@ -22,20 +22,30 @@ package org.apache.servicecomb.pack.alpha.server;
 
 import io.netty.channel.EventLoopGroup;
 import io.netty.channel.ServerChannel;
+import io.netty.channel.epoll.Epoll;
 import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerDomainSocketChannel;
 import io.netty.channel.epoll.EpollServerSocketChannel;
 import io.netty.channel.kqueue.KQueueEventLoopGroup;
 import io.netty.channel.kqueue.KQueueServerSocketChannel;
 import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.unix.DomainSocketAddress;
 import java.io.IOException;
 import java.io.InputStream;
 import java.lang.invoke.MethodHandles;
 import java.net.InetSocketAddress;
 import java.net.ServerSocket;
 import java.nio.channels.ServerSocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.IntStream;
 
 import javax.net.ssl.SSLException;
@@ -48,6 +58,8 @@ import org.slf4j.LoggerFactory;
 import io.grpc.BindableService;
 import io.grpc.Server;
 import io.grpc.ServerBuilder;
+import io.grpc.ServerInterceptor;
+import io.grpc.ServerInterceptors;
 import io.grpc.netty.GrpcSslContexts;
 import io.grpc.netty.NettyServerBuilder;
 import io.netty.handler.ssl.ClientAuth;
@@ -58,8 +70,10 @@ public class GrpcStartable implements ServerStartable {
 
   private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
   private Server server;
+  private Server domainSocketServer;
   private final GrpcServerConfig serverConfig;
   private final EventBus eventBus;
+  private ExecutorService executor;
 
   public GrpcStartable(GrpcServerConfig serverConfig, EventBus eventBus, BindableService... services) throws IOException {
     this.serverConfig = serverConfig;
@@ -76,9 +90,28 @@ public class GrpcStartable implements ServerStartable {
             throw new IllegalStateException("Unable to setup grpc to use SSL.", e);
           }
         }
-        Arrays.stream(services).forEach(serverBuilder::addService);
+        List<ServerInterceptor> interceptors = new ArrayList<>();
+        if (serverConfig.getMaxConcurrentCallsPerService() > 0) {
+          interceptors.add(new ConcurrencyLimitInterceptor(serverConfig.getMaxConcurrentCallsPerService()));
+        }
+        if (serverConfig.getExecutorThreads() > 0) {
+          // the interceptor added last runs first, it hands the calls over to the executor
+          executor = new ThreadPoolExecutor(serverConfig.getExecutorThreads(), serverConfig.getExecutorThreads(),
+              0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(serverConfig.getExecutorQueueSize()), threadFactory());
+          interceptors.add(new BoundedExecutorInterceptor(executor));
+          serverBuilder.directExecutor();
+        }
+        addServices(serverBuilder, interceptors, services);
         server = serverBuilder.build();
         serverConfig.setPort(unusedPort.getAsInt());
+        if (serverConfig.getDomainSocket() != null && !serverConfig.getDomainSocket().isEmpty()) {
+          ServerBuilder<?> domainSocketServerBuilder = getDomainSocketServerBuilder(serverConfig.getDomainSocket());
+          if (executor != null) {
+            domainSocketServerBuilder.directExecutor();
+          }
+          addServices(domainSocketServerBuilder, interceptors, services);
+          domainSocketServer = domainSocketServerBuilder.build();
+        }
       }
     } catch (IOException e) {
       throw e;
@@ -87,10 +120,14 @@ public class GrpcStartable implements ServerStartable {
 
   @Override
   public void start() {
-    Runtime.getRuntime().addShutdownHook(new Thread(server::shutdown));
+    Runtime.getRuntime().addShutdownHook(new Thread(this::stop));
 
     try {
       eventBus.post(new GrpcStartableStartedEvent(serverConfig.getPort()));
+      if (domainSocketServer != null) {
+        domainSocketServer.start();
+        LOG.info("Listening on unix domain socket {}", serverConfig.getDomainSocket());
+      }
       server.start();
       server.awaitTermination();
     } catch (IOException e) {
@@ -101,6 +138,19 @@ public class GrpcStartable implements ServerStartable {
     }
   }
 
+  /**
+   * Stops accepting calls, {@link #start()} returns once the running calls are done.
+   */
+  public void stop() {
+    server.shutdown();
+    if (domainSocketServer != null) {
+      domainSocketServer.shutdown();
+    }
+    if (executor != null) {
+      executor.shutdown();
+    }
+  }
+
   @Override
   public GrpcServerConfig getGrpcServerConfig() {
     return this.serverConfig;
@@ -114,6 +164,39 @@ public class GrpcStartable implements ServerStartable {
         .workerEventLoopGroup(selectorEventLoopGroup(0));
   }
 
+  private ServerBuilder<?> getDomainSocketServerBuilder(String path) throws IOException {
+    if (!Epoll.isAvailable()) {
+      throw new IllegalStateException("Unix domain socket requires the epoll native transport.",
+          Epoll.unavailabilityCause());
+    }
+    // the socket file left by the previous alpha process prevents binding
+    Files.deleteIfExists(Paths.get(path));
+    return NettyServerBuilder.forAddress(new DomainSocketAddress(path))
+        .channelType(EpollServerDomainSocketChannel.class)
+        .bossEventLoopGroup(new EpollEventLoopGroup(1))
+        .workerEventLoopGroup(new EpollEventLoopGroup(0));
+  }
+
+  private void addServices(ServerBuilder<?> serverBuilder, List<ServerInterceptor> interceptors,
+      BindableService... services) {
+    if (!interceptors.isEmpty()) {
+      for (BindableService service : services) {
+        serverBuilder.addService(ServerInterceptors.intercept(service, interceptors));
+      }
+    } else {
+      Arrays.stream(services).forEach(serverBuilder::addService);
+    }
+  }
+
+  private ThreadFactory threadFactory() {
+    AtomicInteger count = new AtomicInteger();
+    return runnable -> {
+      Thread thread = new Thread(runnable, "alpha-grpc-" + count.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
+
   private SslContextBuilder getSslContextBuilder(GrpcServerConfig config) {
 
     Properties prop = new Properties();
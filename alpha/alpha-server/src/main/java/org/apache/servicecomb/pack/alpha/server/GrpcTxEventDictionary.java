@@ -0,0 +1,79 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.servicecomb.pack.alpha.server;
+
+import static org.apache.servicecomb.pack.common.EventStreamDictionary.MAX_SIZE;
+
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import java.util.HashMap;
+import java.util.Map;
+import org.apache.servicecomb.pack.contract.grpc.GrpcTxEvent;
+
+/**
+ * The strings defined by omega on one OnTxEvents stream. Events of the stream refer to them by id
+ * instead of repeating the service name, instance id and method signatures, the resolved strings are
+ * interned so that all events share the same instances. Not thread safe, the messages of a stream
+ * are delivered one at a time.
+ */
+public class GrpcTxEventDictionary {
+
+  private static final Interner<String> INTERNER = Interners.newWeakInterner();
+
+  private final Map<Integer, String> strings = new HashMap<>();
+
+  /**
+   * @return the event with all the ids replaced by their strings
+   * @throws IllegalArgumentException if the event refers to an undefined id or defines too many strings
+   */
+  public GrpcTxEvent resolve(GrpcTxEvent message) {
+    for (Map.Entry<Integer, String> definition : message.getDefinitionsMap().entrySet()) {
+      if (strings.size() >= MAX_SIZE && !strings.containsKey(definition.getKey())) {
+        throw new IllegalArgumentException("Too many strings defined on the event stream, the limit is " + MAX_SIZE);
+      }
+      strings.put(definition.getKey(), INTERNER.intern(definition.getValue()));
+    }
+    if (message.getDefinitionsCount() == 0 && message.getServiceNameId() == 0 && message.getInstanceIdId() == 0
+        && message.getCompensationMethodId() == 0 && message.getRetryMethodId() == 0) {
+      return message;
+    }
+    GrpcTxEvent.Builder builder = message.toBuilder().clearDefinitions();
+    if (message.getServiceNameId() != 0) {
+      builder.setServiceName(lookup(message.getServiceNameId())).clearServiceNameId();
+    }
+    if (message.getInstanceIdId() != 0) {
+      builder.setInstanceId(lookup(message.getInstanceIdId())).clearInstanceIdId();
+    }
+    if (message.getCompensationMethodId() != 0) {
+      builder.setCompensationMethod(lookup(message.getCompensationMethodId())).clearCompensationMethodId();
+    }
+    if (message.getRetryMethodId() != 0) {
+      builder.setRetryMethod(lookup(message.getRetryMethodId())).clearRetryMethodId();
+    }
+    return builder.build();
+  }
+
+  private String lookup(int id) {
+    String value = strings.get(id);
+    if (value == null) {
+      throw new IllegalArgumentException("String " + id + " is not defined on the event stream");
+    }
+    return value;
+  }
+}
@@ -21,15 +21,20 @@
 package org.apache.servicecomb.pack.alpha.server;
 
 import static java.util.Collections.emptyMap;
+import static org.apache.servicecomb.pack.common.EventType.TxCompensateAckFailedEvent;
+import static org.apache.servicecomb.pack.common.EventType.TxCompensateAckSucceedEvent;
+import static org.apache.servicecomb.pack.common.EventType.TxCompensatedEvent;
 
 import java.lang.invoke.MethodHandles;
 import java.util.Date;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 
 import org.apache.servicecomb.pack.alpha.core.OmegaCallback;
 import org.apache.servicecomb.pack.alpha.core.TxConsistentService;
 import org.apache.servicecomb.pack.alpha.core.TxEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.CompensateAckType;
 import org.apache.servicecomb.pack.contract.grpc.GrpcAck;
 import org.apache.servicecomb.pack.contract.grpc.GrpcCompensateCommand;
 import org.apache.servicecomb.pack.contract.grpc.GrpcServiceConfig;
@@ -51,32 +56,48 @@ class GrpcTxEventEndpointImpl extends TxEventServiceImplBase {
 
   private final Map<String, Map<String, OmegaCallback>> omegaCallbacks;
   private final ServerMeta serverMeta;
+  private final Executor eventStreamExecutor;
 
   GrpcTxEventEndpointImpl(TxConsistentService txConsistentService,
-      Map<String, Map<String, OmegaCallback>> omegaCallbacks, ServerMeta serverMeta) {
+      Map<String, Map<String, OmegaCallback>> omegaCallbacks, ServerMeta serverMeta,
+      Executor eventStreamExecutor) {
     this.txConsistentService = txConsistentService;
     this.omegaCallbacks = omegaCallbacks;
     this.serverMeta = serverMeta;
+    this.eventStreamExecutor = eventStreamExecutor;
   }
 
   @Override
   public StreamObserver<GrpcServiceConfig> onConnected(StreamObserver<GrpcCompensateCommand> responseObserver) {
     return new StreamObserver<GrpcServiceConfig>() {
+
+      private GrpcOmegaCallback callback;
+
       @Override
       public void onNext(GrpcServiceConfig grpcServiceConfig) {
+        callback = new GrpcOmegaCallback(responseObserver,
+            grpcServiceConfig.getCompensateBatchSupported());
         omegaCallbacks
             .computeIfAbsent(grpcServiceConfig.getServiceName(), key -> new ConcurrentHashMap<>())
-            .put(grpcServiceConfig.getInstanceId(), new GrpcOmegaCallback(responseObserver));
+            .put(grpcServiceConfig.getInstanceId(), callback);
       }
 
       @Override
       public void onError(Throwable throwable) {
         LOG.error(throwable.getMessage());
+        streamClosed();
       }
 
       @Override
       public void onCompleted() {
         LOG.info("Omega client called method onCompleted of GrpcServiceConfig");
+        streamClosed();
+      }
+
+      private void streamClosed() {
+        if (callback != null) {
+          callback.streamClosed();
+        }
       }
     };
   }
@@ -97,6 +118,16 @@ class GrpcTxEventEndpointImpl extends TxEventServiceImplBase {
 
   @Override
   public void onTxEvent(GrpcTxEvent message, StreamObserver<GrpcAck> responseObserver) {
+    responseObserver.onNext(handle(message));
+    responseObserver.onCompleted();
+  }
+
+  @Override
+  public StreamObserver<GrpcTxEvent> onTxEvents(StreamObserver<GrpcAck> responseObserver) {
+    return new GrpcTxEventStreamObserver(responseObserver, this::handle, eventStreamExecutor);
+  }
+
+  private GrpcAck handle(GrpcTxEvent message) {
     boolean ok = txConsistentService.handle(new TxEvent(
         message.getServiceName(),
         message.getInstanceId(),
@@ -111,9 +142,25 @@ class GrpcTxEventEndpointImpl extends TxEventServiceImplBase {
         message.getForwardRetries(),
         message.getPayloads().toByteArray()
     ));
+    CompensateAckType ackType = ackTypeOf(message.getType());
+    if (ackType != null) {
+      OmegaCallback callback = omegaCallbacks.getOrDefault(message.getServiceName(), emptyMap())
+          .get(message.getInstanceId());
+      if (callback != null) {
+        callback.getAck(ackType);
+      }
+    }
+    return ok ? ALLOW : REJECT;
+  }
 
-    responseObserver.onNext(ok ? ALLOW : REJECT);
-    responseObserver.onCompleted();
+  // the events which end a compensation sent to omega, successfully or not
+  private static CompensateAckType ackTypeOf(String type) {
+    if (TxCompensatedEvent.name().equals(type) || TxCompensateAckSucceedEvent.name().equals(type)) {
+      return CompensateAckType.Succeed;
+    } else if (TxCompensateAckFailedEvent.name().equals(type)) {
+      return CompensateAckType.Failed;
+    }
+    return null;
   }
 
   @Override
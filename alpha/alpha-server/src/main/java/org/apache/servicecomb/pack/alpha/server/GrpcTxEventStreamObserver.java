@@ -0,0 +1,143 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.servicecomb.pack.alpha.server;
+
+import io.grpc.Status;
+import io.grpc.stub.StreamObserver;
+import java.lang.invoke.MethodHandles;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Function;
+import org.apache.servicecomb.pack.contract.grpc.GrpcAck;
+import org.apache.servicecomb.pack.contract.grpc.GrpcTxEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Receives the events of an OnTxEvents stream. The strings of an event are resolved in the order of
+ * the stream, then the event is handled on the executor, so a slow event doesn't hold back the
+ * events sent after it. The acks are sent as the events are done and carry the sequence of their
+ * event, omega matches them by it. An omega thread waits for the ack of its event before sending
+ * the next one, so the events of a transaction still arrive one after another.
+ */
+public class GrpcTxEventStreamObserver implements StreamObserver<GrpcTxEvent> {
+
+  private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  private final GrpcTxEventDictionary dictionary = new GrpcTxEventDictionary();
+
+  private final StreamObserver<GrpcAck> responseObserver;
+
+  private final Function<GrpcTxEvent, GrpcAck> handler;
+
+  private final Executor executor;
+
+  // guarded by responseObserver, which must not be called concurrently
+  private int pendingEvents;
+
+  private boolean halfClosed;
+
+  private boolean closed;
+
+  public GrpcTxEventStreamObserver(StreamObserver<GrpcAck> responseObserver,
+      Function<GrpcTxEvent, GrpcAck> handler, Executor executor) {
+    this.responseObserver = responseObserver;
+    this.handler = handler;
+    this.executor = executor;
+  }
+
+  @Override
+  public void onNext(GrpcTxEvent message) {
+    GrpcTxEvent event;
+    try {
+      event = dictionary.resolve(message);
+    } catch (IllegalArgumentException e) {
+      fail(Status.INVALID_ARGUMENT.withDescription(e.getMessage()));
+      return;
+    }
+    synchronized (responseObserver) {
+      pendingEvents++;
+    }
+    try {
+      executor.execute(() -> ack(message.getSequence(), handle(event)));
+    } catch (RejectedExecutionException e) {
+      // like a failed event, its sender retries it on another alpha
+      LOG.warn("Rejected event {}, the event stream executor is full", event);
+      ack(message.getSequence(), GrpcAck.newBuilder().setError("Too many pending events").build());
+    }
+  }
+
+  @Override
+  public void onError(Throwable throwable) {
+    LOG.error(throwable.getMessage());
+    synchronized (responseObserver) {
+      closed = true;
+    }
+  }
+
+  @Override
+  public void onCompleted() {
+    synchronized (responseObserver) {
+      halfClosed = true;
+      completeIfDone();
+    }
+  }
+
+  private GrpcAck handle(GrpcTxEvent event) {
+    try {
+      return handler.apply(event);
+    } catch (Exception e) {
+      // a failed event doesn't break the stream, its sender retries it like a failed OnTxEvent
+      LOG.error("Failed to handle event {}", event, e);
+      return GrpcAck.newBuilder().setError(String.valueOf(e.getMessage())).build();
+    }
+  }
+
+  private void ack(long sequence, GrpcAck ack) {
+    synchronized (responseObserver) {
+      pendingEvents--;
+      if (!closed) {
+        try {
+          responseObserver.onNext(ack.toBuilder().setSequence(sequence).build());
+        } catch (RuntimeException e) {
+          LOG.warn("Failed to send the ack of event {}, the event stream is gone", sequence, e);
+          closed = true;
+          return;
+        }
+      }
+      completeIfDone();
+    }
+  }
+
+  private void fail(Status status) {
+    synchronized (responseObserver) {
+      if (!closed) {
+        closed = true;
+        responseObserver.onError(status.asRuntimeException());
+      }
+    }
+  }
+
+  // the stream is completed only once the acks of all its events are sent
+  private void completeIfDone() {
+    if (halfClosed && pendingEvents == 0 && !closed) {
+      closed = true;
+      responseObserver.onCompleted();
+    }
+  }
+}
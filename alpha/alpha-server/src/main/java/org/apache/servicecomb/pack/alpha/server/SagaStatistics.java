@@ -0,0 +1,249 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.servicecomb.pack.alpha.server;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.apache.servicecomb.pack.common.EventType.SagaEndedEvent;
+import static org.apache.servicecomb.pack.common.EventType.SagaStartedEvent;
+import static org.apache.servicecomb.pack.common.EventType.TxAbortedEvent;
+import static org.apache.servicecomb.pack.common.EventType.TxCompensatedEvent;
+
+import java.lang.invoke.MethodHandles;
+import java.sql.Timestamp;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.apache.servicecomb.pack.alpha.core.TxEvent;
+import org.apache.servicecomb.pack.alpha.core.TxEventListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Saga transaction counters of the console, maintained from the events saved by this alpha instead of
+ * aggregating the TxEvent table on every request. Only the unfinished sagas are tracked one by one, the
+ * finished ones are reduced to counters which are added to the SagaStatistics row periodically. After a restart
+ * the unfinished sagas are reloaded from the TxEvent table, so only the sagas finished since the last persistence
+ * are lost from the counters. The counters only see the events saved by this alpha, so they are limited to a
+ * single alpha and are refused in a cluster.
+ */
+public class SagaStatistics implements TxEventListener {
+  private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  private static final String NAME = "saga";
+
+  private static final String SUMMARY_SQL = "SELECT globalTxId, "
+      + "MAX(CASE WHEN type = 'TxAbortedEvent' THEN 1 ELSE 0 END), "
+      + "MAX(CASE WHEN type = 'TxCompensatedEvent' THEN 1 ELSE 0 END), "
+      + "MAX(CASE WHEN type = 'SagaEndedEvent' THEN 1 ELSE 0 END) "
+      + "FROM TxEvent "
+      + "WHERE type IN ('SagaStartedEvent', 'TxAbortedEvent', 'TxCompensatedEvent', 'SagaEndedEvent') "
+      + "GROUP BY globalTxId "
+      + "HAVING MAX(CASE WHEN type = 'SagaStartedEvent' THEN 1 ELSE 0 END) = 1";
+
+  private static final String UNFINISHED_CONDITION = " AND MAX(CASE WHEN type = 'SagaEndedEvent' THEN 1 ELSE 0 END) = 0";
+
+  private final Map<String, SagaProgress> activeSagas = new ConcurrentHashMap<>();
+
+  // ended sagas which were aborted, they turn into rolled back ones once a late TxCompensatedEvent arrives
+  private final Map<String, Boolean> awaitingCompensation;
+
+  private final AtomicInteger compensating = new AtomicInteger();
+
+  // the counters of the sagas finished since the last persistence
+  private final AtomicInteger finished = new AtomicInteger();
+
+  private final AtomicInteger committed = new AtomicInteger();
+
+  private final AtomicInteger rolledBack = new AtomicInteger();
+
+  // the counters read back at the last persistence
+  private volatile int persistedFinished;
+
+  private volatile int persistedCommitted;
+
+  private volatile int persistedRolledBack;
+
+  private final JdbcTemplate jdbcTemplate;
+
+  SagaStatistics(DataSource dataSource, int awaitingCompensationCapacity) {
+    this.jdbcTemplate = new JdbcTemplate(dataSource);
+    this.awaitingCompensation = Collections.synchronizedMap(new LinkedHashMap<String, Boolean>() {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+        return size() > awaitingCompensationCapacity;
+      }
+    });
+  }
+
+  /**
+   * Restore the persisted counters and reload the unfinished sagas, the counters are computed from the
+   * TxEvent table if they were never persisted.
+   */
+  void recover() {
+    boolean persistedBefore = load();
+    jdbcTemplate.query(persistedBefore ? SUMMARY_SQL + UNFINISHED_CONDITION : SUMMARY_SQL, rs -> {
+      SagaProgress saga = new SagaProgress();
+      saga.aborted = rs.getInt(2) == 1;
+      saga.compensated = rs.getInt(3) == 1;
+      if (rs.getInt(4) == 1) {
+        countFinished(saga);
+      } else {
+        activeSagas.put(rs.getString(1), saga);
+        if (saga.aborted) {
+          compensating.incrementAndGet();
+        }
+      }
+    });
+    if (!persistedBefore) {
+      insert(finished.getAndSet(0), committed.getAndSet(0), rolledBack.getAndSet(0));
+      load();
+    }
+    LOG.info("Recovered the saga statistics with {} unfinished sagas", activeSagas.size());
+  }
+
+  void start(ScheduledExecutorService scheduler, long interval) {
+    scheduler.scheduleWithFixedDelay(() -> {
+      try {
+        // Need to catch the exception to keep the persistence running.
+        persist();
+      } catch (Exception e) {
+        LOG.warn("Failed to persist the saga statistics", e);
+      }
+    }, interval, interval, MILLISECONDS);
+  }
+
+  void persist() {
+    int finishedSagas = finished.getAndSet(0);
+    int committedSagas = committed.getAndSet(0);
+    int rolledBackSagas = rolledBack.getAndSet(0);
+    try {
+      if (!add(finishedSagas, committedSagas, rolledBackSagas)) {
+        insert(finishedSagas, committedSagas, rolledBackSagas);
+      }
+    } catch (RuntimeException e) {
+      // keep the counters for the next persistence
+      finished.addAndGet(finishedSagas);
+      committed.addAndGet(committedSagas);
+      rolledBack.addAndGet(rolledBackSagas);
+      throw e;
+    }
+    load();
+  }
+
+  private boolean add(int finishedSagas, int committedSagas, int rolledBackSagas) {
+    return jdbcTemplate.update("UPDATE SagaStatistics SET finished = finished + ?, committed = committed + ?, "
+            + "rolledBack = rolledBack + ?, updateTime = ? WHERE name = ?",
+        finishedSagas, committedSagas, rolledBackSagas, new Timestamp(System.currentTimeMillis()), NAME) > 0;
+  }
+
+  private void insert(int finishedSagas, int committedSagas, int rolledBackSagas) {
+    jdbcTemplate.update(
+        "INSERT INTO SagaStatistics (name, finished, committed, rolledBack, updateTime) VALUES (?, ?, ?, ?, ?)",
+        NAME, finishedSagas, committedSagas, rolledBackSagas, new Timestamp(System.currentTimeMillis()));
+  }
+
+  private boolean load() {
+    List<Map<String, Object>> persisted = jdbcTemplate.queryForList(
+        "SELECT finished, committed, rolledBack FROM SagaStatistics WHERE name = ?", NAME);
+    if (persisted.isEmpty()) {
+      return false;
+    }
+    persistedFinished = ((Number) persisted.get(0).get("finished")).intValue();
+    persistedCommitted = ((Number) persisted.get(0).get("committed")).intValue();
+    persistedRolledBack = ((Number) persisted.get(0).get("rolledBack")).intValue();
+    return true;
+  }
+
+  @Override
+  public void onEventSaved(TxEvent event) {
+    String globalTxId = event.globalTxId();
+    if (SagaStartedEvent.name().equals(event.type())) {
+      activeSagas.putIfAbsent(globalTxId, new SagaProgress());
+    } else if (TxAbortedEvent.name().equals(event.type())) {
+      activeSagas.computeIfPresent(globalTxId, (id, saga) -> {
+        if (!saga.aborted) {
+          saga.aborted = true;
+          compensating.incrementAndGet();
+        }
+        return saga;
+      });
+    } else if (TxCompensatedEvent.name().equals(event.type())) {
+      SagaProgress saga = activeSagas.computeIfPresent(globalTxId, (id, progress) -> {
+        progress.compensated = true;
+        return progress;
+      });
+      if (saga == null && awaitingCompensation.remove(globalTxId) != null) {
+        rolledBack.incrementAndGet();
+      }
+    } else if (SagaEndedEvent.name().equals(event.type())) {
+      SagaProgress saga = activeSagas.remove(globalTxId);
+      if (saga != null) {
+        if (saga.aborted) {
+          compensating.decrementAndGet();
+          if (!saga.compensated) {
+            awaitingCompensation.put(globalTxId, Boolean.TRUE);
+          }
+        }
+        countFinished(saga);
+      }
+    }
+  }
+
+  private void countFinished(SagaProgress saga) {
+    finished.incrementAndGet();
+    if (saga.aborted && saga.compensated) {
+      rolledBack.incrementAndGet();
+    } else if (!saga.aborted && !saga.compensated) {
+      committed.incrementAndGet();
+    }
+  }
+
+  public int totalTransactions() {
+    return persistedFinished + finished.get() + activeSagas.size();
+  }
+
+  public int pendingTransactions() {
+    return activeSagas.size();
+  }
+
+  public int committedTransactions() {
+    return persistedCommitted + committed.get();
+  }
+
+  public int compensatingTransactions() {
+    return compensating.get();
+  }
+
+  public int rolledBackTransactions() {
+    return persistedRolledBack + rolledBack.get();
+  }
+
+  private static class SagaProgress {
+    private volatile boolean aborted;
+    private volatile boolean compensated;
+  }
+}
@@ -22,14 +22,17 @@ import static org.apache.servicecomb.pack.alpha.core.TaskStatus.NEW;
 import static org.apache.servicecomb.pack.alpha.core.TaskStatus.PENDING;
 
 import java.lang.invoke.MethodHandles;
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 import javax.transaction.Transactional;
 
 import org.apache.servicecomb.pack.alpha.core.Command;
 import org.apache.servicecomb.pack.alpha.core.CommandRepository;
+import org.apache.servicecomb.pack.alpha.core.ScannerPartitions;
 import org.apache.servicecomb.pack.alpha.core.TxEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -40,10 +43,24 @@ public class SpringCommandRepository implements CommandRepository {
 
   private final TxEventEnvelopeRepository eventRepository;
   private final CommandEntityRepository commandRepository;
+  private final int batchSize;
+  private final ScannerPartitions partitions;
 
   SpringCommandRepository(TxEventEnvelopeRepository eventRepository, CommandEntityRepository commandRepository) {
+    this(eventRepository, commandRepository, 1);
+  }
+
+  SpringCommandRepository(TxEventEnvelopeRepository eventRepository, CommandEntityRepository commandRepository,
+      int batchSize) {
+    this(eventRepository, commandRepository, batchSize, null);
+  }
+
+  SpringCommandRepository(TxEventEnvelopeRepository eventRepository, CommandEntityRepository commandRepository,
+      int batchSize, ScannerPartitions partitions) {
     this.eventRepository = eventRepository;
     this.commandRepository = commandRepository;
+    this.batchSize = batchSize;
+    this.partitions = partitions;
   }
 
   @Override
@@ -78,19 +95,37 @@ public class SpringCommandRepository implements CommandRepository {
     return commandRepository.findByGlobalTxIdAndStatus(globalTxId, NEW.name());
   }
 
+  @Override
+  public boolean hasUncompletedCommands(String globalTxId) {
+    return commandRepository.existsByGlobalTxIdAndStatusNot(globalTxId, DONE.name());
+  }
+
+  @Override
+  public boolean markCommandAsPending(String globalTxId, String localTxId) {
+    return commandRepository.updateStatusByGlobalTxIdAndLocalTxId(NEW.name(), PENDING.name(), globalTxId, localTxId) > 0;
+  }
+
   @Transactional
   @Override
   public List<Command> findFirstCommandToCompensate() {
-    List<Command> commands = commandRepository
-        .findFirstGroupByGlobalTxIdWithoutPendingOrderByIdDesc();
-
-    commands.forEach(command ->
-        commandRepository.updateStatusByGlobalTxIdAndLocalTxId(
-            NEW.name(),
-            PENDING.name(),
-            command.globalTxId(),
-            command.localTxId()));
+    List<Command> commands;
+    if (partitions == null) {
+      commands = commandRepository.findFirstGroupByGlobalTxIdWithoutPendingOrderByIdDesc(batchSize);
+    } else if (partitions.isAssigned()) {
+      commands = commandRepository.findFirstGroupByGlobalTxIdWithoutPendingInPartitionsOrderByIdDesc(batchSize,
+          partitions.partitionCount(), partitions.memberCount(), partitions.memberIndex());
+    } else {
+      commands = Collections.emptyList();
+    }
 
-    return commands;
+    // only return the commands claimed by this instance
+    return commands.stream()
+        .filter(command ->
+            commandRepository.updateStatusByGlobalTxIdAndLocalTxId(
+                NEW.name(),
+                PENDING.name(),
+                command.globalTxId(),
+                command.localTxId()) > 0)
+        .collect(Collectors.toList());
   }
 }
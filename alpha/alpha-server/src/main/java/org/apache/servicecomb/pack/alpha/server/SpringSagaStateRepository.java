@@ -0,0 +1,49 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.servicecomb.pack.alpha.server;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.servicecomb.pack.alpha.core.state.SagaState;
+import org.apache.servicecomb.pack.alpha.core.state.SagaStateRepository;
+
+class SpringSagaStateRepository implements SagaStateRepository {
+  private final SagaStateEntityRepository stateRepo;
+
+  SpringSagaStateRepository(SagaStateEntityRepository stateRepo) {
+    this.stateRepo = stateRepo;
+  }
+
+  @Override
+  public void save(SagaState state) {
+    stateRepo.save(state);
+  }
+
+  @Override
+  public void delete(String globalTxId) {
+    stateRepo.deleteByGlobalTxId(globalTxId);
+  }
+
+  @Override
+  public List<SagaState> findUnfinished() {
+    List<SagaState> states = new ArrayList<>();
+    stateRepo.findAll().forEach(states::add);
+    return states;
+  }
+}
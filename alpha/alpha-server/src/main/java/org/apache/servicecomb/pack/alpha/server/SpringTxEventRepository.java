@@ -17,36 +17,105 @@
 
 package org.apache.servicecomb.pack.alpha.server;
 
+import static org.apache.servicecomb.pack.common.EventType.SagaEndedEvent;
 import static org.apache.servicecomb.pack.common.EventType.TxCompensatedEvent;
 
+import java.lang.invoke.MethodHandles;
+import java.util.Collections;
+import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 
+import org.apache.servicecomb.pack.alpha.core.ScannerPartitions;
 import org.apache.servicecomb.pack.alpha.core.TxEvent;
 import org.apache.servicecomb.pack.alpha.core.TxEventRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
 import org.springframework.data.domain.PageRequest;
 
 class SpringTxEventRepository implements TxEventRepository {
-  private static final PageRequest SINGLE_TX_EVENT_REQUEST = PageRequest.of(0, 1);
+  private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  private final PageRequest batchRequest;
   private final TxEventEnvelopeRepository eventRepo;
+  private final ScannerPartitions partitions;
 
   SpringTxEventRepository(TxEventEnvelopeRepository eventRepo) {
+    this(eventRepo, 1);
+  }
+
+  SpringTxEventRepository(TxEventEnvelopeRepository eventRepo, int batchSize) {
+    this(eventRepo, batchSize, null);
+  }
+
+  /**
+   * @param partitions the partitions owned by this node, the scanner queries only return the events of these
+   * partitions if it is not null
+   */
+  SpringTxEventRepository(TxEventEnvelopeRepository eventRepo, int batchSize, ScannerPartitions partitions) {
     this.eventRepo = eventRepo;
+    this.batchRequest = PageRequest.of(0, batchSize);
+    this.partitions = partitions;
   }
 
   @Override
   public void save(TxEvent event) {
-    eventRepo.save(event);
+    if (SagaEndedEvent.name().equals(event.type())) {
+      saveLatest(event);
+    } else {
+      eventRepo.save(event);
+    }
+  }
+
+  // the SagaEndedEvent may be written by both the omega and the alpha, and an alpha may mark the end before the
+  // late sub transactions arrive. The later event replaces the stored one, so that the end stays the last event
+  // of the saga, and the unique constraint of the terminal events rejects the one which loses the race.
+  private void saveLatest(TxEvent event) {
+    try {
+      if (isSaved(event)) {
+        eventRepo.replace(event);
+        LOG.info("Replaced the earlier event by {}", event);
+      } else {
+        eventRepo.save(event);
+      }
+    } catch (DataAccessException e) {
+      if (!isSaved(event)) {
+        throw e;
+      }
+      LOG.info("Ignored the duplicate event {}", event);
+    }
+  }
+
+  private boolean isSaved(TxEvent event) {
+    return eventRepo.existsByGlobalTxIdAndLocalTxIdAndType(event.globalTxId(), event.localTxId(), event.type());
   }
 
   @Override
   public Optional<List<TxEvent>> findFirstAbortedGlobalTransaction() {
+    if (partitions != null) {
+      return partitions.isAssigned()
+          ? eventRepo.findFirstAbortedGlobalTxByTypeInPartitions(
+              partitions.partitionCount(), partitions.memberCount(), partitions.memberIndex())
+          : Optional.empty();
+    }
     return eventRepo.findFirstAbortedGlobalTxByType();
   }
 
   @Override
   public List<TxEvent> findTimeoutEvents() {
-    return eventRepo.findTimeoutEvents(SINGLE_TX_EVENT_REQUEST);
+    if (partitions != null) {
+      return partitions.isAssigned()
+          ? eventRepo.findTimeoutEventsInPartitions(
+              partitions.partitionCount(), partitions.memberCount(), partitions.memberIndex(), batchRequest)
+          : Collections.emptyList();
+    }
+    return eventRepo.findTimeoutEvents(batchRequest);
+  }
+
+  @Override
+  public List<TxEvent> findPendingTimeoutEvents(long id, int limit) {
+    return eventRepo.findPendingTimeoutEvents(id, new Date(TxEvent.MAX_TIMESTAMP), PageRequest.of(0, limit));
   }
 
   @Override
@@ -60,18 +129,35 @@ class SpringTxEventRepository implements TxEventRepository {
   }
 
   @Override
-  public List<TxEvent> findFirstUncompensatedEventByIdGreaterThan(long id, String type) {
-    return eventRepo.findFirstByTypeAndSurrogateIdGreaterThan(type, id, SINGLE_TX_EVENT_REQUEST);
+  public List<String> findAbortedGlobalTxIds(Date since, int limit) {
+    return eventRepo.findAbortedGlobalTxIdsByCreationTimeGreaterThan(since, PageRequest.of(0, limit));
   }
 
   @Override
-  public Optional<TxEvent> findFirstCompensatedEventByIdGreaterThan(long id) {
-    return eventRepo.findFirstByTypeAndSurrogateIdGreaterThan(TxCompensatedEvent.name(), id);
+  public List<TxEvent> findByGlobalTxId(String globalTxId) {
+    return eventRepo.findByGlobalTxIdOrderBySurrogateIdAsc(globalTxId);
+  }
+
+  @Override
+  public List<TxEvent> findFirstUncompensatedEventByIdGreaterThan(long id, String type) {
+    if (partitions != null) {
+      return partitions.isAssigned()
+          ? eventRepo.findFirstByTypeAndSurrogateIdGreaterThanInPartitions(type, id,
+              partitions.partitionCount(), partitions.memberCount(), partitions.memberIndex(), batchRequest)
+          : Collections.emptyList();
+    }
+    return eventRepo.findFirstByTypeAndSurrogateIdGreaterThan(type, id, batchRequest);
   }
 
   @Override
-  public void deleteDuplicateEvents(String type) {
-    eventRepo.findDuplicateEventsByType(type).forEach((txEvent) ->eventRepo.
-            deleteBySurrogateId(txEvent.id()));
+  public List<TxEvent> findFirstCompensatedEventByIdGreaterThan(long id) {
+    if (partitions != null) {
+      return partitions.isAssigned()
+          ? eventRepo.findByTypeAndSurrogateIdGreaterThanInPartitions(TxCompensatedEvent.name(), id,
+              partitions.partitionCount(), partitions.memberCount(), partitions.memberIndex(), batchRequest)
+          : Collections.emptyList();
+    }
+    return eventRepo.findByTypeAndSurrogateIdGreaterThanOrderBySurrogateIdAsc(TxCompensatedEvent.name(), id,
+        batchRequest);
   }
 }
@@ -17,13 +17,17 @@
 
 package org.apache.servicecomb.pack.alpha.server;
 
+import static org.apache.servicecomb.pack.alpha.core.TaskStatus.NEW;
 import static org.apache.servicecomb.pack.alpha.core.TaskStatus.PENDING;
 
 import java.lang.invoke.MethodHandles;
+import java.util.Collections;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import javax.transaction.Transactional;
 
+import org.apache.servicecomb.pack.alpha.core.ScannerPartitions;
 import org.apache.servicecomb.pack.alpha.core.TxTimeout;
 import org.apache.servicecomb.pack.alpha.core.TxTimeoutRepository;
 import org.slf4j.Logger;
@@ -35,8 +39,22 @@ public class SpringTxTimeoutRepository implements TxTimeoutRepository {
 
   private final TxTimeoutEntityRepository timeoutRepo;
 
+  private final PageRequest batchRequest;
+
+  private final ScannerPartitions partitions;
+
   SpringTxTimeoutRepository(TxTimeoutEntityRepository timeoutRepo) {
+    this(timeoutRepo, 1);
+  }
+
+  SpringTxTimeoutRepository(TxTimeoutEntityRepository timeoutRepo, int batchSize) {
+    this(timeoutRepo, batchSize, null);
+  }
+
+  SpringTxTimeoutRepository(TxTimeoutEntityRepository timeoutRepo, int batchSize, ScannerPartitions partitions) {
     this.timeoutRepo = timeoutRepo;
+    this.batchRequest = PageRequest.of(0, batchSize);
+    this.partitions = partitions;
   }
 
   @Override
@@ -56,9 +74,19 @@ public class SpringTxTimeoutRepository implements TxTimeoutRepository {
   @Transactional
   @Override
   public List<TxTimeout> findFirstTimeout() {
-    List<TxTimeout> timeoutEvents = timeoutRepo.findFirstTimeoutTxOrderByExpireTimeAsc(PageRequest.of(0, 1));
-    timeoutEvents.forEach(event -> timeoutRepo
-        .updateStatusByGlobalTxIdAndLocalTxId(PENDING.name(), event.globalTxId(), event.localTxId()));
-    return timeoutEvents;
+    List<TxTimeout> timeoutEvents;
+    if (partitions == null) {
+      timeoutEvents = timeoutRepo.findFirstTimeoutTxOrderByExpireTimeAsc(batchRequest);
+    } else if (partitions.isAssigned()) {
+      timeoutEvents = timeoutRepo.findFirstTimeoutTxInPartitionsOrderByExpireTimeAsc(
+          partitions.partitionCount(), partitions.memberCount(), partitions.memberIndex(), batchRequest);
+    } else {
+      timeoutEvents = Collections.emptyList();
+    }
+    // only return the timeouts claimed by this instance
+    return timeoutEvents.stream()
+        .filter(event -> timeoutRepo.updateStatusByGlobalTxIdAndLocalTxId(
+            NEW.name(), PENDING.name(), event.globalTxId(), event.localTxId()) > 0)
+        .collect(Collectors.toList());
   }
 }
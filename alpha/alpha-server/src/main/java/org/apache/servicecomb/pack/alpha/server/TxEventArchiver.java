@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.servicecomb.pack.alpha.server;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import java.lang.invoke.MethodHandles;
+import java.sql.Timestamp;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import javax.sql.DataSource;
+
+import org.apache.servicecomb.pack.alpha.core.NodeStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Moves the events of the terminated global transactions out of the TxEvent table into the TxEventArchive
+ * table, so that the EventScanner, the ingestion and the console statistics only work on the hot events.
+ * A global transaction is archived once its SagaEndedEvent is older than the retention, its commands and
+ * timeouts are deleted with it. The archived events are only read by the console on demand.
+ */
+class TxEventArchiver {
+  private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  private static final String COLUMNS = "surrogateId, serviceName, instanceId, creationTime, globalTxId, "
+      + "localTxId, parentTxId, type, compensationMethod, expiryTime, retryMethod, retries, payloads";
+
+  private static final String SELECT_ENDED_SQL = "SELECT DISTINCT globalTxId FROM TxEvent "
+      + "WHERE type = 'SagaEndedEvent' AND creationTime < ?";
+
+  private final JdbcTemplate selectTemplate;
+
+  private final JdbcTemplate jdbcTemplate;
+
+  private final TransactionTemplate transactionTemplate;
+
+  private final NodeStatus nodeStatus;
+
+  private final long retentionMillis;
+
+  private final boolean dropPayloads;
+
+  // a long archive batch must not hold back the other tasks of the shared scheduler
+  private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+  TxEventArchiver(DataSource dataSource, NodeStatus nodeStatus, int batchSize, long retentionMillis,
+      boolean dropPayloads) {
+    this.selectTemplate = new JdbcTemplate(dataSource);
+    this.selectTemplate.setMaxRows(batchSize);
+    this.jdbcTemplate = new JdbcTemplate(dataSource);
+    this.transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+    this.nodeStatus = nodeStatus;
+    this.retentionMillis = retentionMillis;
+    this.dropPayloads = dropPayloads;
+  }
+
+  void start(long interval) {
+    scheduler.scheduleWithFixedDelay(() -> {
+      // only one node moves the events, the others would just fight for the same rows
+      if (nodeStatus.isMaster()) {
+        try {
+          // Need to catch the exception to keep the archiver running.
+          archive();
+        } catch (Exception e) {
+          LOG.warn("Failed to archive the terminated global transactions", e);
+        }
+      }
+    }, interval, interval, MILLISECONDS);
+  }
+
+  void shutdown() {
+    scheduler.shutdownNow();
+  }
+
+  /**
+   * Archive one batch of the terminated global transactions.
+   *
+   * @return the number of archived global transactions
+   */
+  int archive() {
+    List<String> globalTxIds = selectTemplate.queryForList(SELECT_ENDED_SQL, String.class,
+        new Timestamp(System.currentTimeMillis() - retentionMillis));
+    if (globalTxIds.isEmpty()) {
+      return 0;
+    }
+    String condition = " WHERE globalTxId IN (" + String.join(", ", Collections.nCopies(globalTxIds.size(), "?")) + ")";
+    Object[] args = globalTxIds.toArray();
+    transactionTemplate.execute(status -> {
+      if (dropPayloads) {
+        jdbcTemplate.update("UPDATE TxEvent SET payloads = NULL" + condition, args);
+      }
+      jdbcTemplate.update("INSERT INTO TxEventArchive (" + COLUMNS + ") SELECT " + COLUMNS + " FROM TxEvent"
+          + condition, args);
+      jdbcTemplate.update("DELETE FROM TxEvent" + condition, args);
+      jdbcTemplate.update("DELETE FROM Command" + condition, args);
+      jdbcTemplate.update("DELETE FROM TxTimeout" + condition, args);
+      return null;
+    });
+    LOG.info("Archived {} terminated global transactions", globalTxIds.size());
+    return globalTxIds.size();
+  }
+}
@@ -17,6 +17,7 @@
 
 package org.apache.servicecomb.pack.alpha.server;
 
+import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 
@@ -27,10 +28,17 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 
 public interface TxEventEnvelopeRepository extends CrudRepository<TxEvent, Long> {
+  @Query("SELECT t FROM TxEvent t WHERE t.globalTxId = ?1 ORDER BY t.surrogateId ASC")
   List<TxEvent> findByGlobalTxId(String globalTxId);
 
+  @Query(value = "SELECT * FROM TxEventArchive WHERE globalTxId = ?1 ORDER BY surrogateId ASC", nativeQuery = true)
+  List<TxEvent> findArchivedByGlobalTxId(String globalTxId);
+
+  List<TxEvent> findByGlobalTxIdOrderBySurrogateIdAsc(String globalTxId);
+
   @Query("SELECT t FROM TxEvent t "
       + "WHERE t.type = 'TxAbortedEvent' AND NOT EXISTS( "
       + "  SELECT t1.globalTxId FROM TxEvent t1"
@@ -48,6 +56,28 @@ public interface TxEventEnvelopeRepository extends CrudRepository<TxEvent, Long>
       + "OR t.globalTxId = t.localTxId)")
   Optional<List<TxEvent>> findFirstAbortedGlobalTxByType();
 
+  @Query("SELECT t FROM TxEvent t "
+      + "WHERE t.type = 'TxAbortedEvent' "
+      + "  AND MOD(MOD(COALESCE(t.partitionKey, 0), :count), :members) = :index "
+      + "  AND NOT EXISTS( "
+      + "  SELECT t1.globalTxId FROM TxEvent t1"
+      + "  WHERE t1.globalTxId = t.globalTxId "
+      + "    AND t1.type IN ('TxEndedEvent', 'SagaEndedEvent')) AND NOT EXISTS ( "
+      + "  SELECT t3.globalTxId FROM TxEvent t3 "
+      + "  WHERE t3.globalTxId = t.globalTxId "
+      + "    AND t3.localTxId = t.localTxId "
+      + "    AND t3.surrogateId != t.surrogateId "
+      + "    AND t3.creationTime > t.creationTime) AND (("
+      + "SELECT MIN(t2.retries) FROM TxEvent t2 "
+      + "WHERE t2.globalTxId = t.globalTxId "
+      + "  AND t2.localTxId = t.localTxId "
+      + "  AND t2.type = 'TxStartedEvent') = 0 "
+      + "OR t.globalTxId = t.localTxId)")
+  Optional<List<TxEvent>> findFirstAbortedGlobalTxByTypeInPartitions(
+      @Param("count") int count,
+      @Param("members") int members,
+      @Param("index") int index);
+
   @Query("SELECT t FROM TxEvent t "
       + "WHERE t.type IN ('TxStartedEvent', 'SagaStartedEvent') "
       + "  AND t.expiryTime < CURRENT_TIMESTAMP AND NOT EXISTS( "
@@ -58,6 +88,35 @@ public interface TxEventEnvelopeRepository extends CrudRepository<TxEvent, Long>
       + ")")
   List<TxEvent> findTimeoutEvents(Pageable pageable);
 
+  @Query("SELECT t FROM TxEvent t "
+      + "WHERE t.type IN ('TxStartedEvent', 'SagaStartedEvent') "
+      + "  AND t.surrogateId > :id "
+      + "  AND t.expiryTime < :maxTime AND NOT EXISTS( "
+      + "  SELECT t1.globalTxId FROM TxEvent t1 "
+      + "  WHERE t1.globalTxId = t.globalTxId "
+      + "    AND t1.localTxId = t.localTxId "
+      + "    AND t1.type != t.type"
+      + ") ORDER BY t.surrogateId ASC")
+  List<TxEvent> findPendingTimeoutEvents(
+      @Param("id") long id,
+      @Param("maxTime") Date maxTime,
+      Pageable pageable);
+
+  @Query("SELECT t FROM TxEvent t "
+      + "WHERE t.type IN ('TxStartedEvent', 'SagaStartedEvent') "
+      + "  AND MOD(MOD(COALESCE(t.partitionKey, 0), :count), :members) = :index "
+      + "  AND t.expiryTime < CURRENT_TIMESTAMP AND NOT EXISTS( "
+      + "  SELECT t1.globalTxId FROM TxEvent t1 "
+      + "  WHERE t1.globalTxId = t.globalTxId "
+      + "    AND t1.localTxId = t.localTxId "
+      + "    AND t1.type != t.type"
+      + ")")
+  List<TxEvent> findTimeoutEventsInPartitions(
+      @Param("count") int count,
+      @Param("members") int members,
+      @Param("index") int index,
+      Pageable pageable);
+
   @Query("SELECT t FROM TxEvent t "
       + "WHERE t.globalTxId = ?1 "
       + "  AND t.localTxId = ?2 "
@@ -75,6 +134,14 @@ public interface TxEventEnvelopeRepository extends CrudRepository<TxEvent, Long>
       + "    AND t1.type IN ('TxStartedEvent', 'SagaStartedEvent') ) = 0 ")
   List<TxEvent> findByEventGlobalTxIdAndEventType(String globalTxId, String type);
 
+  @Query("SELECT DISTINCT t.globalTxId FROM TxEvent t "
+      + "WHERE t.type = 'TxAbortedEvent' AND t.creationTime > ?1 "
+      + "  AND ( SELECT MIN(t1.retries) FROM TxEvent t1 "
+      + "  WHERE t1.globalTxId = t.globalTxId "
+      + "    AND t1.localTxId = t.localTxId "
+      + "    AND t1.type IN ('TxStartedEvent', 'SagaStartedEvent') ) = 0 ")
+  List<String> findAbortedGlobalTxIdsByCreationTimeGreaterThan(Date since, Pageable pageable);
+
   @Query("SELECT t FROM TxEvent t "
       + "WHERE t.globalTxId = ?1 AND t.type = 'TxStartedEvent' AND EXISTS ( "
       + "  SELECT t1.globalTxId"
@@ -112,17 +179,64 @@ public interface TxEventEnvelopeRepository extends CrudRepository<TxEvent, Long>
       + "ORDER BY t.surrogateId ASC")
   List<TxEvent> findFirstByTypeAndSurrogateIdGreaterThan(String type, long surrogateId, Pageable pageable);
 
+  @Query("SELECT t FROM TxEvent t "
+      + "WHERE t.type = :type AND t.surrogateId > :surrogateId "
+      + "  AND MOD(MOD(COALESCE(t.partitionKey, 0), :count), :members) = :index "
+      + "  AND EXISTS ( "
+      + "  SELECT t1.globalTxId FROM TxEvent t1 "
+      + "  WHERE t1.globalTxId = t.globalTxId "
+      + "    AND t1.type = 'TxAbortedEvent' AND NOT EXISTS ( "
+      + "    SELECT t2.globalTxId FROM TxEvent t2 "
+      + "    WHERE t2.globalTxId = t1.globalTxId "
+      + "      AND t2.localTxId = t1.localTxId "
+      + "      AND t2.type = 'TxStartedEvent' "
+      + "      AND t2.creationTime > t1.creationTime)) AND NOT EXISTS ( "
+      + "  SELECT t3.globalTxId FROM TxEvent t3 "
+      + "  WHERE t3.globalTxId = t.globalTxId "
+      + "    AND t3.localTxId = t.localTxId "
+      + "    AND t3.type = 'TxCompensatedEvent') AND ( "
+      + "  SELECT MIN(t4.retries) FROM TxEvent t4 "
+      + "  WHERE t4.globalTxId = t.globalTxId "
+      + "    AND t4.localTxId = t.localTxId "
+      + "    AND t4.type = 'TxStartedEvent' ) = 0 "
+      + "ORDER BY t.surrogateId ASC")
+  List<TxEvent> findFirstByTypeAndSurrogateIdGreaterThanInPartitions(
+      @Param("type") String type,
+      @Param("surrogateId") long surrogateId,
+      @Param("count") int count,
+      @Param("members") int members,
+      @Param("index") int index,
+      Pageable pageable);
+
   Optional<TxEvent> findFirstByTypeAndSurrogateIdGreaterThan(String type, long surrogateId);
 
+  List<TxEvent> findByTypeAndSurrogateIdGreaterThanOrderBySurrogateIdAsc(String type, long surrogateId,
+      Pageable pageable);
+
   @Query("SELECT t FROM TxEvent t "
-      + "WHERE t.type = ?1 AND EXISTS ( "
-      + "  SELECT t1.surrogateId"
-      + "  FROM TxEvent t1 "
-      + "  WHERE t1.globalTxId = t.globalTxId "
-      + "  AND t1.localTxId = t.localTxId "
-      + "  AND t1.type = t.type "
-      + "  AND t1.surrogateId > t.surrogateId )")
-  List<TxEvent> findDuplicateEventsByType(String type);
+      + "WHERE t.type = :type AND t.surrogateId > :surrogateId "
+      + "  AND MOD(MOD(COALESCE(t.partitionKey, 0), :count), :members) = :index "
+      + "ORDER BY t.surrogateId ASC")
+  List<TxEvent> findByTypeAndSurrogateIdGreaterThanInPartitions(
+      @Param("type") String type,
+      @Param("surrogateId") long surrogateId,
+      @Param("count") int count,
+      @Param("members") int members,
+      @Param("index") int index,
+      Pageable pageable);
+
+  boolean existsByGlobalTxIdAndLocalTxIdAndType(String globalTxId, String localTxId, String type);
+
+  @Modifying(clearAutomatically = true)
+  @Query("DELETE FROM TxEvent t WHERE t.globalTxId = ?1 AND t.localTxId = ?2 AND t.type = ?3")
+  void deleteByGlobalTxIdAndLocalTxIdAndType(String globalTxId, String localTxId, String type);
+
+  // the stored event is only gone if the new one is saved
+  @Transactional
+  default void replace(TxEvent event) {
+    deleteByGlobalTxIdAndLocalTxIdAndType(event.globalTxId(), event.localTxId(), event.type());
+    save(event);
+  }
 
   List<TxEvent> findByServiceName(String serviceName);
 
@@ -258,9 +372,4 @@ public interface TxEventEnvelopeRepository extends CrudRepository<TxEvent, Long>
 
   @Query("SELECT count(DISTINCT t.globalTxId) FROM TxEvent t")
   int findTotalCountOfTransactions();
-
-  @Transactional
-  @Modifying(clearAutomatically = true)
-  @Query("DELETE FROM TxEvent WHERE surrogateId = ?1 ")
-  void deleteBySurrogateId(Long surrogateId);
 }
@@ -43,6 +43,19 @@ interface TxTimeoutEntityRepository extends CrudRepository<TxTimeout, Long> {
       @Param("globalTxId") String globalTxId,
       @Param("localTxId") String localTxId);
 
+  @Transactional
+  @Modifying(clearAutomatically = true)
+  @Query("UPDATE org.apache.servicecomb.pack.alpha.core.TxTimeout t "
+      + "SET t.status = :toStatus "
+      + "WHERE t.globalTxId = :globalTxId "
+      + "  AND t.localTxId = :localTxId "
+      + "  AND t.status = :fromStatus")
+  int updateStatusByGlobalTxIdAndLocalTxId(
+      @Param("fromStatus") String fromStatus,
+      @Param("toStatus") String toStatus,
+      @Param("globalTxId") String globalTxId,
+      @Param("localTxId") String localTxId);
+
   @Lock(LockModeType.OPTIMISTIC)
   @Query("SELECT t FROM TxTimeout AS t "
       + "WHERE t.status = 'NEW' "
@@ -50,6 +63,18 @@ interface TxTimeoutEntityRepository extends CrudRepository<TxTimeout, Long> {
       + "ORDER BY t.expiryTime ASC")
   List<TxTimeout> findFirstTimeoutTxOrderByExpireTimeAsc(Pageable pageable);
 
+  @Lock(LockModeType.OPTIMISTIC)
+  @Query("SELECT t FROM TxTimeout AS t "
+      + "WHERE t.status = 'NEW' "
+      + "  AND MOD(MOD(COALESCE(t.partitionKey, 0), :count), :members) = :index "
+      + "  AND t.expiryTime < CURRENT_TIMESTAMP "
+      + "ORDER BY t.expiryTime ASC")
+  List<TxTimeout> findFirstTimeoutTxInPartitionsOrderByExpireTimeAsc(
+      @Param("count") int count,
+      @Param("members") int members,
+      @Param("index") int index,
+      Pageable pageable);
+
   @Transactional
   @Modifying(clearAutomatically = true)
   @Query("UPDATE TxTimeout t "
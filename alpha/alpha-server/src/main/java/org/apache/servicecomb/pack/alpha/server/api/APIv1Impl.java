@@ -40,6 +40,9 @@ public class APIv1Impl implements APIv1 {
   public AlphaMetrics getMetrics() {
     AlphaMetrics alphaMetrics = new AlphaMetrics();
     alphaMetrics.setMetrics(alphaMetricsEndpoint.getMetrics());
+    alphaMetrics.setEventScannerMetrics(alphaMetricsEndpoint.getEventScannerMetrics());
+    alphaMetrics.setGroupCommitMetrics(alphaMetricsEndpoint.getGroupCommitMetrics());
+    alphaMetrics.setShardMetrics(alphaMetricsEndpoint.getShardMetrics());
     alphaMetrics.setNodeType(alphaMetricsEndpoint.getNodeType());
     return alphaMetrics;
   }
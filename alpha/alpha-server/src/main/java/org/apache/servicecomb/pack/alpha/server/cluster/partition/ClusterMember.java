@@ -0,0 +1,81 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.servicecomb.pack.alpha.server.cluster.partition;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+import java.util.Date;
+
+/**
+ * Live alpha member sharing the EventScanner work, the row is refreshed by every heartbeat of the member.
+ */
+@Entity
+@Table(name = "cluster_member")
+public class ClusterMember {
+
+  @Id
+  private String memberId;
+
+  private String serviceName;
+
+  private String instanceId;
+
+  private Date heartbeatTime;
+
+  private String partitions;
+
+  public ClusterMember() {
+
+  }
+
+  public ClusterMember(
+      String memberId,
+      String serviceName,
+      String instanceId,
+      Date heartbeatTime,
+      String partitions) {
+    this.memberId = memberId;
+    this.serviceName = serviceName;
+    this.instanceId = instanceId;
+    this.heartbeatTime = heartbeatTime;
+    this.partitions = partitions;
+  }
+
+  public String getMemberId() {
+    return memberId;
+  }
+
+  public String getServiceName() {
+    return serviceName;
+  }
+
+  public String getInstanceId() {
+    return instanceId;
+  }
+
+  public Date getHeartbeatTime() {
+    return heartbeatTime;
+  }
+
+  public String getPartitions() {
+    return partitions;
+  }
+}
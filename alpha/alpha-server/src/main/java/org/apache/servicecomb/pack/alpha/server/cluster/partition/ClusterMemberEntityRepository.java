@@ -0,0 +1,43 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.servicecomb.pack.alpha.server.cluster.partition;
+
+import java.util.Date;
+import java.util.List;
+
+import javax.transaction.Transactional;
+
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+
+public interface ClusterMemberEntityRepository extends CrudRepository<ClusterMember, String> {
+
+  List<ClusterMember> findByServiceNameAndHeartbeatTimeGreaterThanOrderByMemberIdAsc(String serviceName,
+      Date heartbeatTime);
+
+  @Transactional
+  @Modifying(clearAutomatically = true)
+  @Query("DELETE FROM org.apache.servicecomb.pack.alpha.server.cluster.partition.ClusterMember t "
+      + "WHERE t.serviceName = :serviceName AND t.heartbeatTime <= :heartbeatTime")
+  int deleteExpiredMembers(
+      @Param("serviceName") String serviceName,
+      @Param("heartbeatTime") Date heartbeatTime);
+}
@@ -0,0 +1,120 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.servicecomb.pack.alpha.server.cluster.partition;
+
+import java.lang.invoke.MethodHandles;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import javax.annotation.PreDestroy;
+import org.apache.servicecomb.pack.alpha.core.ScannerPartitions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Cluster partition service, spreads the EventScanner work of the global transactions over all the live alpha
+ * members instead of the master only. Every member refreshes its row of the cluster_member table on each
+ * heartbeat, the members which miss the heartbeats for longer than the expire time are removed and their
+ * partitions are taken over by the others on the next heartbeat.
+ * <p>
+ * Set true to enable, default value false
+ * alpha.cluster.partition.enabled=true
+ * <p>
+ * Number of partitions, default value 32
+ * alpha.cluster.partition.count=32
+ * <p>
+ * Heartbeat interval, default value 1000 millisecond
+ * alpha.cluster.partition.heartbeat=1000
+ * <p>
+ * Member timeout, default value 5000 millisecond
+ * alpha.cluster.partition.expire=5000
+ */
+@Component
+@ConditionalOnProperty(name = "alpha.cluster.partition.enabled", havingValue = "true")
+@EnableScheduling
+public class ClusterPartitionService {
+
+  private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  private final String memberId = UUID.randomUUID().toString();
+
+  @Value("[${alpha.server.host}]:${alpha.server.port}")
+  private String instanceId;
+
+  @Value("${spring.application.name:servicecomb-alpha-server}")
+  private String serviceName;
+
+  @Value("${alpha.cluster.partition.expire:5000}")
+  private int expire;
+
+  @Autowired
+  ClusterMemberEntityRepository memberRepository;
+
+  @Autowired
+  ScannerPartitions partitions;
+
+  public String getMemberId() {
+    return memberId;
+  }
+
+  @Scheduled(fixedDelayString = "${alpha.cluster.partition.heartbeat:1000}")
+  public void heartbeat() {
+    try {
+      Date now = new Date();
+      memberRepository.save(
+          new ClusterMember(memberId, serviceName, instanceId, now, partitions.ownedPartitions().toString()));
+      Date expireTime = new Date(now.getTime() - expire);
+      memberRepository.deleteExpiredMembers(serviceName, expireTime);
+      List<String> members = memberRepository
+          .findByServiceNameAndHeartbeatTimeGreaterThanOrderByMemberIdAsc(serviceName, expireTime)
+          .stream()
+          .map(ClusterMember::getMemberId)
+          .collect(Collectors.toList());
+      rebalance(members.indexOf(memberId), members.size());
+    } catch (Exception e) {
+      // the other members take over the partitions once this member expires
+      LOG.warn("Failed to refresh the cluster membership", e);
+      rebalance(-1, 0);
+    }
+  }
+
+  @PreDestroy
+  public void leave() {
+    rebalance(-1, 0);
+    try {
+      memberRepository.deleteById(memberId);
+    } catch (Exception e) {
+      LOG.warn("Failed to leave the cluster, member {} will expire", memberId, e);
+    }
+  }
+
+  private void rebalance(int memberIndex, int memberCount) {
+    if (partitions.rebalance(memberIndex, memberCount)) {
+      LOG.info("Member {} owns the partitions {} among {} members", memberId, partitions.ownedPartitions(),
+          memberCount);
+    }
+  }
+}
@@ -20,10 +20,12 @@ package org.apache.servicecomb.pack.alpha.server.console.saga;
 import com.fasterxml.jackson.annotation.JsonAutoDetect;
 
 import org.apache.servicecomb.pack.alpha.core.TxEvent;
+import org.apache.servicecomb.pack.alpha.server.SagaStatistics;
 import org.apache.servicecomb.pack.alpha.server.TxEventEnvelopeRepository;
 import org.apache.servicecomb.pack.alpha.server.console.saga.model.Stats;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
@@ -43,8 +45,11 @@ public class SagaTransactionsController {
 
   private final TxEventEnvelopeRepository eventRepository;
 
-  SagaTransactionsController(TxEventEnvelopeRepository eventRepository) {
+  private final SagaStatistics statistics;
+
+  SagaTransactionsController(TxEventEnvelopeRepository eventRepository, ObjectProvider<SagaStatistics> statistics) {
     this.eventRepository = eventRepository;
+    this.statistics = statistics.getIfAvailable();
   }
 
   @GetMapping(value = "/stats")
@@ -69,6 +74,11 @@ public class SagaTransactionsController {
             "updatedAt": 1540450937
         }
          */
+    if (statistics != null) {
+      return ResponseEntity.ok(new Stats(statistics.totalTransactions(), statistics.pendingTransactions(),
+          statistics.committedTransactions(), statistics.compensatingTransactions(),
+          statistics.rolledBackTransactions()));
+    }
     Stats oStats = new Stats(eventRepository.findTotalCountOfTransactions(), eventRepository.findCountOfPendingEvents(),
         eventRepository.findCountOfCommittedEvents(), eventRepository.findCountOfCompensatingEvents(),
         eventRepository.findCountOfRollBackedEvents());
@@ -197,12 +207,14 @@ public class SagaTransactionsController {
   @GetMapping(value = "/findTransactions")
   public ResponseEntity<Collection<SagaTransactionsController.TxEventVo>> findTransactions(
       @RequestParam(required = false, name = "globalTxID") Object globalTxID,
-      @RequestParam(required = false, name = "microServiceName") String microServiceName) {
+      @RequestParam(required = false, name = "microServiceName") String microServiceName,
+      @RequestParam(required = false, name = "archived", defaultValue = "false") boolean archived) {
         /*
         This will return all the list of sub-transactions  for a particular Global ID or MicroService.
         Parameter :
             globalID : GlobalID of the transactions
             microserviceName : Name of the Microservice
+            archived : Also look up the archived transactions of the Global ID (default: false)
         Sample Response
         [
             {
@@ -236,6 +248,10 @@ public class SagaTransactionsController {
     if (events != null) {
       events.forEach(event -> eventVos.add(new SagaTransactionsController.TxEventVo(event)));
     }
+    if (archived && globalTxID != null) {
+      eventRepository.findArchivedByGlobalTxId(globalTxID.toString())
+          .forEach(event -> eventVos.add(new SagaTransactionsController.TxEventVo(event)));
+    }
 
     return ResponseEntity.ok(eventVos);
   }
@@ -15,75 +15,166 @@
  * limitations under the License.
  */
 
+
 package org.apache.servicecomb.pack.alpha.server.fsm;
 
-import com.google.protobuf.ByteString;
+import com.google.protobuf.UnsafeByteOperations;
 import io.grpc.stub.StreamObserver;
 import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import org.apache.servicecomb.pack.alpha.core.OmegaCallback;
 import org.apache.servicecomb.pack.alpha.core.TxEvent;
 import org.apache.servicecomb.pack.alpha.core.exception.CompensateAckFailedException;
 import org.apache.servicecomb.pack.alpha.core.exception.CompensateConnectException;
 import org.apache.servicecomb.pack.alpha.core.fsm.CompensateAckType;
 import org.apache.servicecomb.pack.contract.grpc.GrpcCompensateCommand;
+import org.apache.servicecomb.pack.contract.grpc.GrpcCompensateCommandBatch;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Many compensations can be outstanding on the connection of an omega instance, their acks are
+ * correlated by the global and local transaction id. Compensations sent together are gang sent in
+ * one stream message if the omega instance supports it.
+ */
 class GrpcOmegaCallback implements OmegaCallback {
 
   private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
   private final StreamObserver<GrpcCompensateCommand> observer;
-  private CompensateAckCountDownLatch compensateAckCountDownLatch;
+  private final Map<String, CompletableFuture<Void>> pendingAcks = new ConcurrentHashMap<>();
+  private final boolean batchSupported;
 
   GrpcOmegaCallback(StreamObserver<GrpcCompensateCommand> observer) {
+    this(observer, false);
+  }
+
+  /**
+   * @param batchSupported whether the omega instance runs the commands of a {@link GrpcCompensateCommandBatch}
+   */
+  GrpcOmegaCallback(StreamObserver<GrpcCompensateCommand> observer, boolean batchSupported) {
     this.observer = observer;
+    this.batchSupported = batchSupported;
   }
 
   @Override
   public void compensate(TxEvent event) {
-    compensateAckCountDownLatch = new CompensateAckCountDownLatch(1);
     try {
-      GrpcCompensateCommand command = GrpcCompensateCommand.newBuilder()
-          .setGlobalTxId(event.globalTxId())
-          .setLocalTxId(event.localTxId())
-          .setParentTxId(event.parentTxId() == null ? "" : event.parentTxId())
-          .setCompensationMethod(event.compensationMethod())
-          .setPayloads(ByteString.copyFrom(event.payloads()))
-          .build();
-      observer.onNext(command);
-      compensateAckCountDownLatch.await();
-      if (compensateAckCountDownLatch.getType() == CompensateAckType.Disconnected) {
-        throw new CompensateConnectException("Omega connect exception");
-      }else{
-        LOG.info("compensate ack "+ compensateAckCountDownLatch.getType().name());
-        if(compensateAckCountDownLatch.getType() == CompensateAckType.Failed){
-          throw new CompensateAckFailedException("An exception is thrown inside the compensation method");
-        }
-      }
+      compensateAsync(event).get();
     } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
       throw new RuntimeException(e);
-    } finally {
-      compensateAckCountDownLatch = null;
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new RuntimeException(e.getCause());
     }
   }
 
+  @Override
+  public CompletableFuture<Void> compensateAsync(TxEvent event) {
+    CompletableFuture<Void> future = register(event);
+    send(commandOf(event), Collections.singletonList(future));
+    return future;
+  }
+
+  @Override
+  public List<CompletableFuture<Void>> compensateAllAsync(List<TxEvent> events) {
+    if (!batchSupported || events.size() <= 1) {
+      return OmegaCallback.super.compensateAllAsync(events);
+    }
+    List<CompletableFuture<Void>> futures = new ArrayList<>(events.size());
+    GrpcCompensateCommandBatch.Builder batch = GrpcCompensateCommandBatch.newBuilder();
+    for (TxEvent event : events) {
+      futures.add(register(event));
+      batch.addCommands(commandOf(event));
+    }
+    send(GrpcCompensateCommand.newBuilder().setBatch(batch).build(), futures);
+    return futures;
+  }
+
+  private CompletableFuture<Void> register(TxEvent event) {
+    String key = keyOf(event.globalTxId(), event.localTxId());
+    CompletableFuture<Void> future = new CompletableFuture<>();
+    CompletableFuture<Void> previous = pendingAcks.put(key, future);
+    if (previous != null) {
+      // the compensation is sent again, both are completed by the next ack
+      future.whenComplete((result, e) -> {
+        if (e == null) {
+          previous.complete(null);
+        } else {
+          previous.completeExceptionally(e);
+        }
+      });
+    }
+    future.whenComplete((result, e) -> pendingAcks.remove(key, future));
+    return future;
+  }
+
+  private void send(GrpcCompensateCommand command, List<CompletableFuture<Void>> futures) {
+    try {
+      // the stream observer is not thread safe, commands of many actors share it
+      synchronized (observer) {
+        observer.onNext(command);
+      }
+    } catch (RuntimeException e) {
+      futures.forEach(future -> future.completeExceptionally(e));
+    }
+  }
+
+  private static GrpcCompensateCommand commandOf(TxEvent event) {
+    return GrpcCompensateCommand.newBuilder()
+        .setGlobalTxId(event.globalTxId())
+        .setLocalTxId(event.localTxId())
+        .setParentTxId(event.parentTxId() == null ? "" : event.parentTxId())
+        .setCompensationMethod(event.compensationMethod())
+        .setPayloads(UnsafeByteOperations.unsafeWrap(event.payloads()))
+        .build();
+  }
+
   @Override
   public void disconnect() {
     observer.onCompleted();
-    if (compensateAckCountDownLatch != null) {
-      compensateAckCountDownLatch.countDown(CompensateAckType.Disconnected);
-    }
+    CompensateConnectException exception = new CompensateConnectException("Omega connect exception");
+    pendingAcks.values().forEach(future -> future.completeExceptionally(exception));
   }
 
   @Override
-  public void getAck(CompensateAckType type) {
-    if (compensateAckCountDownLatch != null) {
-      compensateAckCountDownLatch.countDown(type);
+  public void getAck(String globalTxId, String localTxId, CompensateAckType type) {
+    CompletableFuture<Void> future = pendingAcks.get(keyOf(globalTxId, localTxId));
+    if (future == null) {
+      LOG.warn("No compensation is waiting for the ack {} of global tx id {} and local tx id {}",
+          type, globalTxId, localTxId);
+      return;
     }
+    LOG.info("compensate ack " + type.name());
+    if (type == CompensateAckType.Succeed) {
+      future.complete(null);
+    } else if (type == CompensateAckType.Failed) {
+      future.completeExceptionally(
+          new CompensateAckFailedException("An exception is thrown inside the compensation method"));
+    } else {
+      future.completeExceptionally(new CompensateConnectException("Omega connect exception"));
+    }
+  }
+
+  @Override
+  public boolean isWaiting() {
+    return !pendingAcks.isEmpty();
   }
 
   @Override
-  public boolean isWaiting(){
-    return compensateAckCountDownLatch == null ? false : true;
+  public int inFlight() {
+    return pendingAcks.size();
+  }
+
+  private static String keyOf(String globalTxId, String localTxId) {
+    return globalTxId + "/" + localTxId;
   }
 }
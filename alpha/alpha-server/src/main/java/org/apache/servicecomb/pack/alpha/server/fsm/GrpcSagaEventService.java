@@ -24,12 +24,14 @@ import java.lang.invoke.MethodHandles;
 import java.util.Date;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 import org.apache.servicecomb.pack.alpha.core.OmegaCallback;
 import org.apache.servicecomb.pack.alpha.core.fsm.CompensateAckType;
 import org.apache.servicecomb.pack.alpha.core.fsm.event.TxCompensateAckFailedEvent;
 import org.apache.servicecomb.pack.alpha.core.fsm.event.TxCompensateAckSucceedEvent;
 import org.apache.servicecomb.pack.alpha.core.fsm.event.base.BaseEvent;
 import org.apache.servicecomb.pack.alpha.core.fsm.channel.ActorEventChannel;
+import org.apache.servicecomb.pack.alpha.server.GrpcTxEventStreamObserver;
 import org.apache.servicecomb.pack.common.EventType;
 import org.apache.servicecomb.pack.contract.grpc.GrpcAck;
 import org.apache.servicecomb.pack.contract.grpc.GrpcCompensateCommand;
@@ -48,12 +50,15 @@ public class GrpcSagaEventService extends TxEventServiceImplBase {
   private final Map<String, Map<String, OmegaCallback>> omegaCallbacks;
   private final ActorEventChannel actorEventChannel;
   private final ServerMeta serverMeta;
+  private final Executor eventStreamExecutor;
 
   public GrpcSagaEventService(ActorEventChannel actorEventChannel,
-      Map<String, Map<String, OmegaCallback>> omegaCallbacks, ServerMeta serverMeta) {
+      Map<String, Map<String, OmegaCallback>> omegaCallbacks, ServerMeta serverMeta,
+      Executor eventStreamExecutor) {
     this.actorEventChannel = actorEventChannel;
     this.omegaCallbacks = omegaCallbacks;
     this.serverMeta = serverMeta;
+    this.eventStreamExecutor = eventStreamExecutor;
   }
 
   @Override
@@ -64,7 +69,8 @@ public class GrpcSagaEventService extends TxEventServiceImplBase {
 
       @Override
       public void onNext(GrpcServiceConfig grpcServiceConfig) {
-        grpcOmegaCallback = new GrpcOmegaCallback(responseObserver);
+        grpcOmegaCallback = new GrpcOmegaCallback(responseObserver,
+            grpcServiceConfig.getCompensateBatchSupported());
         omegaCallbacks
             .computeIfAbsent(grpcServiceConfig.getServiceName(), key -> new ConcurrentHashMap<>())
             .put(grpcServiceConfig.getInstanceId(), grpcOmegaCallback);
@@ -98,6 +104,16 @@ public class GrpcSagaEventService extends TxEventServiceImplBase {
 
   @Override
   public void onTxEvent(GrpcTxEvent message, StreamObserver<GrpcAck> responseObserver) {
+    responseObserver.onNext(handle(message));
+    responseObserver.onCompleted();
+  }
+
+  @Override
+  public StreamObserver<GrpcTxEvent> onTxEvents(StreamObserver<GrpcAck> responseObserver) {
+    return new GrpcTxEventStreamObserver(responseObserver, this::handle, eventStreamExecutor);
+  }
+
+  private GrpcAck handle(GrpcTxEvent message) {
     if(LOG.isDebugEnabled()){
       LOG.debug("onText {}",message);
     }
@@ -178,7 +194,7 @@ public class GrpcSagaEventService extends TxEventServiceImplBase {
           .createTime(new Date())
           .localTxId(message.getLocalTxId()).build();
       omegaCallbacks.get(message.getServiceName()).get(message.getInstanceId())
-          .getAck(CompensateAckType.Succeed);
+          .getAck(message.getGlobalTxId(), message.getLocalTxId(), CompensateAckType.Succeed);
     } else if (message.getType().equals(EventType.TxCompensateAckFailedEvent.name())) {
       event = TxCompensateAckFailedEvent.builder()
           .payloads(message.getPayloads().toByteArray())
@@ -189,15 +205,14 @@ public class GrpcSagaEventService extends TxEventServiceImplBase {
           .createTime(new Date())
           .localTxId(message.getLocalTxId()).build();
       omegaCallbacks.get(message.getServiceName()).get(message.getInstanceId())
-          .getAck(CompensateAckType.Failed);
+          .getAck(message.getGlobalTxId(), message.getLocalTxId(), CompensateAckType.Failed);
     } else {
       ok = false;
     }
     if (event != null) {
       actorEventChannel.send(event);
     }
-    responseObserver.onNext(ok ? ALLOW : REJECT);
-    responseObserver.onCompleted();
+    return ok ? ALLOW : REJECT;
   }
 
   @Override
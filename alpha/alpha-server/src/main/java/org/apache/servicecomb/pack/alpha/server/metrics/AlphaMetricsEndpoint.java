@@ -19,7 +19,10 @@ package org.apache.servicecomb.pack.alpha.server.metrics;
 
 import org.apache.servicecomb.pack.alpha.core.NodeStatus;
 import org.apache.servicecomb.pack.alpha.core.NodeStatus.TypeEnum;
+import org.apache.servicecomb.pack.alpha.core.metrics.EventScannerMetrics;
+import org.apache.servicecomb.pack.alpha.core.metrics.GroupCommitMetrics;
 import org.apache.servicecomb.pack.alpha.core.metrics.MetricsBean;
+import org.apache.servicecomb.pack.alpha.core.metrics.ShardMetrics;
 import org.apache.servicecomb.pack.alpha.fsm.metrics.MetricsService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Lazy;
@@ -35,10 +38,31 @@ public class AlphaMetricsEndpoint {
   @Autowired(required = false)
   MetricsService metricsService;
 
+  @Autowired(required = false)
+  EventScannerMetrics eventScannerMetrics;
+
+  @Autowired(required = false)
+  GroupCommitMetrics groupCommitMetrics;
+
+  @Autowired(required = false)
+  ShardMetrics shardMetrics;
+
   public MetricsBean getMetrics() {
     return metricsService != null ? metricsService.metrics() : null;
   }
 
+  public EventScannerMetrics getEventScannerMetrics() {
+    return eventScannerMetrics;
+  }
+
+  public GroupCommitMetrics getGroupCommitMetrics() {
+    return groupCommitMetrics;
+  }
+
+  public ShardMetrics getShardMetrics() {
+    return shardMetrics;
+  }
+
   public TypeEnum getNodeType(){
     return nodeStatus.getTypeEnum();
   }
@@ -19,8 +19,11 @@ package org.apache.servicecomb.pack.alpha.server.tcc.callback;
 
 import java.util.concurrent.BlockingQueue;
 
+import org.apache.servicecomb.pack.alpha.core.LeastInFlightOmegaCallbackPicker;
+import org.apache.servicecomb.pack.alpha.core.OmegaCallbackPicker;
 import org.apache.servicecomb.pack.alpha.server.tcc.jpa.ParticipatedEvent;
 import org.apache.servicecomb.pack.common.TransactionStatus;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Component;
 
 @Component
@@ -28,9 +31,12 @@ public class OmegaCallbackWrapper implements OmegaCallback {
 
   private final BlockingQueue<Runnable> pendingTasks;
 
+  private final OmegaCallbackPicker picker;
+
   public OmegaCallbackWrapper(
-      TccPendingTaskRunner tccPendingTaskRunner) {
+      TccPendingTaskRunner tccPendingTaskRunner, ObjectProvider<OmegaCallbackPicker> picker) {
     this.pendingTasks = tccPendingTaskRunner.getPendingTasks();
+    this.picker = picker.getIfAvailable(LeastInFlightOmegaCallbackPicker::new);
   }
 
 
@@ -38,7 +44,8 @@ public class OmegaCallbackWrapper implements OmegaCallback {
   public void invoke(ParticipatedEvent event, TransactionStatus status) {
     OmegaCallback omegaCallback;
     try {
-      omegaCallback = OmegaCallbacksRegistry.retrieve(event.getServiceName(), event.getInstanceId());
+      omegaCallback = OmegaCallbacksRegistry
+          .retrieve(event.getServiceName(), event.getInstanceId(), event.getGlobalTxId(), picker);
     } catch (Exception e) {
       pendingTasks.offer(() -> invoke(event, status));
       throw e;
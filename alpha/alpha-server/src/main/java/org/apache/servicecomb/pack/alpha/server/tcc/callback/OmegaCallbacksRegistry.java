@@ -24,6 +24,8 @@ import java.lang.invoke.MethodHandles;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import org.apache.servicecomb.pack.alpha.core.AlphaException;
+import org.apache.servicecomb.pack.alpha.core.LeastInFlightOmegaCallbackPicker;
+import org.apache.servicecomb.pack.alpha.core.OmegaCallbackPicker;
 import org.apache.servicecomb.pack.contract.grpc.GrpcServiceConfig;
 import org.apache.servicecomb.pack.contract.grpc.GrpcTccCoordinateCommand;
 import org.slf4j.Logger;
@@ -38,6 +40,8 @@ public final class OmegaCallbacksRegistry {
 
   private final static Map<String, Map<String, OmegaCallback>> REGISTRY = new ConcurrentHashMap<>();
 
+  private final static OmegaCallbackPicker DEFAULT_PICKER = new LeastInFlightOmegaCallbackPicker();
+
   public static Map<String, Map<String, OmegaCallback>> getRegistry() {
     return REGISTRY;
   }
@@ -63,14 +67,30 @@ public final class OmegaCallbacksRegistry {
    * @throws AlphaException trigger this exception while missing omega callback by service name
    */
   public static OmegaCallback retrieve(String serviceName, String instanceId) throws AlphaException {
+    return retrieve(serviceName, instanceId, instanceId, DEFAULT_PICKER);
+  }
+
+  /**
+   * Retrieve omega TCC callback by service name and instance id, another instance is picked by the
+   * picker if the instance is gone. The TCC callbacks do not track the coordinations in flight.
+   *
+   * @param serviceName service name
+   * @param instanceId instance id
+   * @param globalTxId global transaction id
+   * @param picker the strategy to pick another instance of the service
+   * @return Grpc omega TCC callback
+   * @throws AlphaException trigger this exception while missing omega callback by service name
+   */
+  public static OmegaCallback retrieve(String serviceName, String instanceId, String globalTxId,
+      OmegaCallbackPicker picker) throws AlphaException {
     Map<String, OmegaCallback> callbackMap = REGISTRY.getOrDefault(serviceName, emptyMap());
-    if (callbackMap.isEmpty()) {
-      throw new AlphaException("No such omega callback found for service " + serviceName);
-    }
     OmegaCallback result = callbackMap.get(instanceId);
     if (null == result) {
       LOG.info("Cannot find the service with the instanceId {}, call the other instance.", instanceId);
-      return callbackMap.values().iterator().next();
+      result = picker.pick(globalTxId, callbackMap, callback -> 0);
+    }
+    if (null == result) {
+      throw new AlphaException("No such omega callback found for service " + serviceName);
     }
     return result;
   }
@@ -21,6 +21,7 @@ CREATE TABLE IF NOT EXISTS TxEvent (
   instanceId varchar(36) NOT NULL,
   creationTime datetime NOT NULL DEFAULT CURRENT_TIMESTAMP,
   globalTxId varchar(36) NOT NULL,
+  partitionKey int(11) DEFAULT NULL,
   localTxId varchar(36) NOT NULL,
   parentTxId varchar(36) DEFAULT NULL,
   type varchar(50) NOT NULL,
@@ -29,9 +30,31 @@ CREATE TABLE IF NOT EXISTS TxEvent (
   payloads blob,
   retries int(11) NOT NULL DEFAULT '0',
   retryMethod varchar(512) DEFAULT NULL,
+  terminalType varchar(50) AS (CASE WHEN type = 'SagaEndedEvent' THEN type ELSE NULL END) STORED,
   PRIMARY KEY (surrogateId),
   INDEX saga_events_index (surrogateId, globalTxId, localTxId, type, expiryTime),
-  INDEX saga_global_tx_index (globalTxId)
+  INDEX saga_global_tx_index (globalTxId),
+  INDEX saga_type_creation_time_index (type, creationTime),
+  UNIQUE INDEX saga_terminal_event_index (globalTxId, localTxId, terminalType)
+) DEFAULT CHARSET=utf8;
+
+CREATE TABLE IF NOT EXISTS TxEventArchive (
+  surrogateId bigint NOT NULL,
+  serviceName varchar(36) NOT NULL,
+  instanceId varchar(36) NOT NULL,
+  creationTime datetime NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  globalTxId varchar(36) NOT NULL,
+  localTxId varchar(36) NOT NULL,
+  parentTxId varchar(36) DEFAULT NULL,
+  type varchar(50) NOT NULL,
+  compensationMethod varchar(512) NOT NULL,
+  expiryTime datetime NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  payloads blob,
+  retries int(11) NOT NULL DEFAULT '0',
+  retryMethod varchar(512) DEFAULT NULL,
+  PRIMARY KEY (surrogateId),
+  INDEX saga_archive_global_tx_index (globalTxId),
+  INDEX saga_archive_creation_time_index (creationTime)
 ) DEFAULT CHARSET=utf8;
 
 CREATE TABLE IF NOT EXISTS Command (
@@ -40,6 +63,7 @@ CREATE TABLE IF NOT EXISTS Command (
   serviceName varchar(36) NOT NULL,
   instanceId varchar(36) NOT NULL,
   globalTxId varchar(36) NOT NULL,
+  partitionKey int(11) DEFAULT NULL,
   localTxId varchar(36) NOT NULL,
   parentTxId varchar(36) DEFAULT NULL,
   compensationMethod varchar(512) NOT NULL,
@@ -57,6 +81,7 @@ CREATE TABLE IF NOT EXISTS TxTimeout (
   serviceName varchar(36) NOT NULL,
   instanceId varchar(36) NOT NULL,
   globalTxId varchar(36) NOT NULL,
+  partitionKey int(11) DEFAULT NULL,
   localTxId varchar(36) NOT NULL,
   parentTxId varchar(36) DEFAULT NULL,
   type varchar(50) NOT NULL,
@@ -67,6 +92,15 @@ CREATE TABLE IF NOT EXISTS TxTimeout (
   INDEX saga_timeouts_index (surrogateId, expiryTime, globalTxId, localTxId, status)
 ) DEFAULT CHARSET=utf8;
 
+CREATE TABLE IF NOT EXISTS SagaState (
+  globalTxId varchar(36) NOT NULL,
+  serviceName varchar(36) NOT NULL,
+  instanceId varchar(36) NOT NULL,
+  status varchar(12),
+  lastModified datetime NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  PRIMARY KEY (globalTxId)
+) DEFAULT CHARSET=utf8;
+
 CREATE TABLE IF NOT EXISTS tcc_global_tx_event (
   surrogateId bigint NOT NULL AUTO_INCREMENT,
   globalTxId varchar(36) NOT NULL,
@@ -122,3 +156,21 @@ CREATE TABLE IF NOT EXISTS master_lock (
   PRIMARY KEY (serviceName)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8;
 
+CREATE TABLE IF NOT EXISTS cluster_member (
+  memberId varchar(36) not NULL,
+  serviceName varchar(36) not NULL,
+  instanceId varchar(255) not NULL,
+  heartbeatTime datetime(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3),
+  partitions varchar(512),
+  PRIMARY KEY (memberId),
+  INDEX cluster_member_index (serviceName, heartbeatTime)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8;
+
+CREATE TABLE IF NOT EXISTS SagaStatistics (
+  name varchar(36) NOT NULL,
+  finished int NOT NULL DEFAULT '0',
+  committed int NOT NULL DEFAULT '0',
+  rolledBack int NOT NULL DEFAULT '0',
+  updateTime datetime NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  PRIMARY KEY (name)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8;
@@ -21,6 +21,7 @@ CREATE TABLE IF NOT EXISTS TxEvent (
   instanceId varchar(36) NOT NULL,
   creationTime timestamp(6) NOT NULL DEFAULT CURRENT_DATE,
   globalTxId varchar(36) NOT NULL,
+  partitionKey int DEFAULT NULL,
   localTxId varchar(36) NOT NULL,
   parentTxId varchar(36) DEFAULT NULL,
   type varchar(50) NOT NULL,
@@ -33,6 +34,32 @@ CREATE TABLE IF NOT EXISTS TxEvent (
 
 CREATE INDEX IF NOT EXISTS saga_events_index ON TxEvent (surrogateId, globalTxId, localTxId, type, expiryTime);
 CREATE INDEX IF NOT EXISTS saga_global_tx_index ON TxEvent (globalTxId);
+CREATE INDEX IF NOT EXISTS saga_type_creation_time_index ON TxEvent (type, creationTime);
+-- the duplicated SagaEndedEvents saved by an earlier alpha are removed once, before the unique index exists
+DELETE FROM TxEvent t USING TxEvent t1
+WHERE NOT EXISTS (SELECT 1 FROM pg_indexes WHERE indexname = 'saga_terminal_event_index')
+  AND t.type = 'SagaEndedEvent' AND t1.type = t.type
+  AND t1.globalTxId = t.globalTxId AND t1.localTxId = t.localTxId AND t1.surrogateId > t.surrogateId;
+CREATE UNIQUE INDEX IF NOT EXISTS saga_terminal_event_index ON TxEvent (globalTxId, localTxId, type) WHERE type = 'SagaEndedEvent';
+
+CREATE TABLE IF NOT EXISTS TxEventArchive (
+  surrogateId bigint PRIMARY KEY,
+  serviceName varchar(36) NOT NULL,
+  instanceId varchar(36) NOT NULL,
+  creationTime timestamp(6) NOT NULL DEFAULT CURRENT_DATE,
+  globalTxId varchar(36) NOT NULL,
+  localTxId varchar(36) NOT NULL,
+  parentTxId varchar(36) DEFAULT NULL,
+  type varchar(50) NOT NULL,
+  compensationMethod varchar(512) NOT NULL,
+  expiryTime timestamp(6) NOT NULL,
+  retryMethod varchar(512) NOT NULL,
+  retries int NOT NULL DEFAULT 0,
+  payloads bytea
+);
+
+CREATE INDEX IF NOT EXISTS saga_archive_global_tx_index ON TxEventArchive (globalTxId);
+CREATE INDEX IF NOT EXISTS saga_archive_creation_time_index ON TxEventArchive (creationTime);
 
 
 CREATE TABLE IF NOT EXISTS Command (
@@ -41,6 +68,7 @@ CREATE TABLE IF NOT EXISTS Command (
   serviceName varchar(36) NOT NULL,
   instanceId varchar(36) NOT NULL,
   globalTxId varchar(36) NOT NULL,
+  partitionKey int DEFAULT NULL,
   localTxId varchar(36) NOT NULL,
   parentTxId varchar(36) DEFAULT NULL,
   compensationMethod varchar(512) NOT NULL,
@@ -59,6 +87,7 @@ CREATE TABLE IF NOT EXISTS TxTimeout (
   serviceName varchar(36) NOT NULL,
   instanceId varchar(36) NOT NULL,
   globalTxId varchar(36) NOT NULL,
+  partitionKey int DEFAULT NULL,
   localTxId varchar(36) NOT NULL,
   parentTxId varchar(36) DEFAULT NULL,
   type varchar(50) NOT NULL,
@@ -69,6 +98,15 @@ CREATE TABLE IF NOT EXISTS TxTimeout (
 
 CREATE INDEX IF NOT EXISTS saga_timeouts_index ON TxTimeout (surrogateId, expiryTime, globalTxId, localTxId, status);
 
+CREATE TABLE IF NOT EXISTS SagaState (
+  globalTxId varchar(36) NOT NULL,
+  serviceName varchar(36) NOT NULL,
+  instanceId varchar(36) NOT NULL,
+  status varchar(12),
+  lastModified TIMESTAMP NOT NULL,
+  PRIMARY KEY (globalTxId)
+);
+
 CREATE TABLE IF NOT EXISTS tcc_global_tx_event (
   surrogateId BIGSERIAL PRIMARY KEY,
   globalTxId varchar(36) NOT NULL,
@@ -125,3 +163,28 @@ CREATE TABLE IF NOT EXISTS master_lock (
 );
 
 CREATE INDEX IF NOT EXISTS master_lock_index ON master_lock (serviceName);
+
+CREATE TABLE IF NOT EXISTS cluster_member (
+  memberId varchar(36) not NULL,
+  serviceName varchar(36) not NULL,
+  instanceId varchar(255) not NULL,
+  heartbeatTime timestamp(3) not NULL,
+  partitions varchar(512),
+  PRIMARY KEY (memberId)
+);
+
+CREATE INDEX IF NOT EXISTS cluster_member_index ON cluster_member (serviceName, heartbeatTime);
+
+CREATE TABLE IF NOT EXISTS SagaStatistics (
+  name varchar(36) NOT NULL,
+  finished int NOT NULL DEFAULT 0,
+  committed int NOT NULL DEFAULT 0,
+  rolledBack int NOT NULL DEFAULT 0,
+  updateTime timestamp(6) NOT NULL DEFAULT CURRENT_DATE,
+  PRIMARY KEY (name)
+);
+
+-- upgrades the tables created by an earlier alpha
+ALTER TABLE TxEvent ADD COLUMN IF NOT EXISTS partitionKey int DEFAULT NULL;
+ALTER TABLE Command ADD COLUMN IF NOT EXISTS partitionKey int DEFAULT NULL;
+ALTER TABLE TxTimeout ADD COLUMN IF NOT EXISTS partitionKey int DEFAULT NULL;
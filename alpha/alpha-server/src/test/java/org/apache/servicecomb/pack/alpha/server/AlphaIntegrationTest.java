@@ -45,6 +45,7 @@ import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
+import java.util.stream.Collectors;
 import javax.annotation.PostConstruct;
 
 import org.apache.servicecomb.pack.alpha.core.*;
@@ -199,6 +200,109 @@ public class AlphaIntegrationTest {
     assertThat(envelope.payloads(), is(payload.getBytes()));
   }
 
+  @Test
+  public void persistsSagaEndedEventOnlyOnce() {
+    blockingStub.onTxEvent(someGrpcEvent(SagaEndedEvent, globalTxId, globalTxId, null));
+    blockingStub.onTxEvent(someGrpcEvent(SagaEndedEvent, globalTxId, globalTxId, null));
+
+    await().atMost(1, SECONDS).until(() -> !eventRepo.findByGlobalTxId(globalTxId).isEmpty());
+
+    List<TxEvent> events = eventRepo.findByGlobalTxId(globalTxId);
+    assertThat(events.size(), is(1));
+    assertThat(events.get(0).type(), is(SagaEndedEvent.name()));
+  }
+
+  @Test
+  public void keepsSagaEndedEventIfItsReplacementFails() {
+    eventRepository.save(new TxEvent(serviceName, instanceId, globalTxId, globalTxId, null,
+        SagaEndedEvent.name(), "", null));
+    try {
+      // the service name is longer than its column
+      eventRepository.save(new TxEvent(serviceName + "-whose-name-is-too-long", instanceId, globalTxId, globalTxId, null,
+          SagaEndedEvent.name(), "", null));
+    } catch (RuntimeException e) {
+      // the stored event must be kept whether the failure is reported or not
+    }
+
+    List<TxEvent> events = eventRepo.findByGlobalTxId(globalTxId);
+    assertThat(events.size(), is(1));
+    assertThat(events.get(0).serviceName(), is(serviceName));
+  }
+
+  @Test
+  public void persistsEventsFromStream() {
+    Queue<GrpcAck> acks = new ConcurrentLinkedQueue<>();
+    StreamObserver<GrpcTxEvent> requestObserver = asyncStub.onTxEvents(new StreamObserver<GrpcAck>() {
+      @Override
+      public void onNext(GrpcAck ack) {
+        acks.add(ack);
+      }
+
+      @Override
+      public void onError(Throwable throwable) {
+      }
+
+      @Override
+      public void onCompleted() {
+      }
+    });
+    requestObserver.onNext(someGrpcEvent(TxStartedEvent).toBuilder().setSequence(1).build());
+    requestObserver.onNext(someGrpcEvent(TxEndedEvent).toBuilder().setSequence(2).build());
+
+    await().atMost(1, SECONDS).until(() -> acks.size() == 2);
+    requestObserver.onCompleted();
+
+    assertThat(acks.stream().map(GrpcAck::getSequence).collect(Collectors.toList()), containsInAnyOrder(1L, 2L));
+    assertThat(acks.stream().anyMatch(GrpcAck::getAborted), is(false));
+    assertThat(eventRepo.findByGlobalTxId(globalTxId).size(), is(2));
+  }
+
+  @Test
+  public void resolvesStringsDefinedOnStream() {
+    Queue<GrpcAck> acks = new ConcurrentLinkedQueue<>();
+    StreamObserver<GrpcTxEvent> requestObserver = asyncStub.onTxEvents(new StreamObserver<GrpcAck>() {
+      @Override
+      public void onNext(GrpcAck ack) {
+        acks.add(ack);
+      }
+
+      @Override
+      public void onError(Throwable throwable) {
+      }
+
+      @Override
+      public void onCompleted() {
+      }
+    });
+    GrpcTxEvent started = someGrpcEvent(TxStartedEvent);
+    requestObserver.onNext(started.toBuilder()
+        .setSequence(1)
+        .putDefinitions(1, started.getServiceName())
+        .putDefinitions(2, started.getCompensationMethod())
+        .clearServiceName()
+        .setServiceNameId(1)
+        .clearCompensationMethod()
+        .setCompensationMethodId(2)
+        .build());
+    requestObserver.onNext(someGrpcEvent(TxEndedEvent).toBuilder()
+        .setSequence(2)
+        .clearServiceName()
+        .setServiceNameId(1)
+        .clearCompensationMethod()
+        .setCompensationMethodId(2)
+        .build());
+
+    await().atMost(1, SECONDS).until(() -> acks.size() == 2);
+    requestObserver.onCompleted();
+
+    List<TxEvent> events = eventRepo.findByGlobalTxId(globalTxId);
+    assertThat(events.size(), is(2));
+    for (TxEvent event : events) {
+      assertThat(event.serviceName(), is(started.getServiceName()));
+      assertThat(event.compensationMethod(), is(started.getCompensationMethod()));
+    }
+  }
+
   @Test
   public void closeStreamOnDisconnected() {
     asyncStub.onConnected(compensateResponseObserver).onNext(serviceConfig);
@@ -429,8 +533,7 @@ public class AlphaIntegrationTest {
     await().atMost(2, SECONDS).until(() -> {
       List<TxEvent> events = eventRepo.findByGlobalTxId(globalTxId);
       return eventRepo.count() == 5 &&
-              events.get(events.size() - 1).type().equals(SagaEndedEvent.name()) &&
-              !events.get(events.size() - 2).type().equals(SagaEndedEvent.name());
+              events.stream().filter(event -> SagaEndedEvent.name().equals(event.type())).count() == 1;
     });
 
     List<TxEvent> events = eventRepo.findByGlobalTxId(globalTxId);
@@ -614,11 +717,15 @@ public class AlphaIntegrationTest {
   @PostConstruct
   void init() {
     // simulates concurrent db connections
-    new EventScanner(
-        Executors.newSingleThreadScheduledExecutor(),
-        eventRepository,
-        commandRepository,
-        timeoutRepository,
-        omegaCallback, 1, new NodeStatus(NodeStatus.TypeEnum.MASTER)).run();
+    EventScanner.builder()
+        .scheduler(Executors.newSingleThreadScheduledExecutor())
+        .eventRepository(eventRepository)
+        .commandRepository(commandRepository)
+        .timeoutRepository(timeoutRepository)
+        .omegaCallback(omegaCallback)
+        .eventPollingInterval(1)
+        .nodeStatus(new NodeStatus(NodeStatus.TypeEnum.MASTER))
+        .build()
+        .run();
   }
 }
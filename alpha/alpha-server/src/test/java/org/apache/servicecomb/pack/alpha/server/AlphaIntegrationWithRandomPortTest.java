@@ -412,7 +412,8 @@ public class AlphaIntegrationWithRandomPortTest {
 
     await().atMost(2, SECONDS).until(() -> {
       List<TxEvent> events = eventRepo.findByGlobalTxId(globalTxId);
-      return eventRepo.count() == 5 && events.get(events.size() - 1).type().equals(SagaEndedEvent.name());
+      return eventRepo.count() == 5 &&
+          events.stream().filter(event -> SagaEndedEvent.name().equals(event.type())).count() == 1;
     });
 
     List<TxEvent> events = eventRepo.findByGlobalTxId(globalTxId);
@@ -596,11 +597,15 @@ public class AlphaIntegrationWithRandomPortTest {
   @PostConstruct
   void init() {
     // simulates concurrent db connections
-    new EventScanner(
-        Executors.newSingleThreadScheduledExecutor(),
-        eventRepository,
-        commandRepository,
-        timeoutRepository,
-        omegaCallback, 1, new NodeStatus(NodeStatus.TypeEnum.MASTER)).run();
+    EventScanner.builder()
+        .scheduler(Executors.newSingleThreadScheduledExecutor())
+        .eventRepository(eventRepository)
+        .commandRepository(commandRepository)
+        .timeoutRepository(timeoutRepository)
+        .omegaCallback(omegaCallback)
+        .eventPollingInterval(1)
+        .nodeStatus(new NodeStatus(NodeStatus.TypeEnum.MASTER))
+        .build()
+        .run();
   }
 }
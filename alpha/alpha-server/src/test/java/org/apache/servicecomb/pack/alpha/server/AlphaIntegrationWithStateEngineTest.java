@@ -0,0 +1,215 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.servicecomb.pack.alpha.server;
+
+import static com.seanyinx.github.unit.scaffolding.Randomness.uniquify;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.apache.servicecomb.pack.common.EventType.SagaEndedEvent;
+import static org.apache.servicecomb.pack.common.EventType.SagaStartedEvent;
+import static org.apache.servicecomb.pack.common.EventType.TxAbortedEvent;
+import static org.apache.servicecomb.pack.common.EventType.TxCompensatedEvent;
+import static org.apache.servicecomb.pack.common.EventType.TxEndedEvent;
+import static org.apache.servicecomb.pack.common.EventType.TxStartedEvent;
+import static org.awaitility.Awaitility.await;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+import com.google.protobuf.ByteString;
+import io.grpc.ManagedChannel;
+import io.grpc.netty.NettyChannelBuilder;
+import io.grpc.stub.StreamObserver;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import org.apache.servicecomb.pack.alpha.core.TxEvent;
+import org.apache.servicecomb.pack.common.EventType;
+import org.apache.servicecomb.pack.contract.grpc.GrpcAck;
+import org.apache.servicecomb.pack.contract.grpc.GrpcCompensateCommand;
+import org.apache.servicecomb.pack.contract.grpc.GrpcServiceConfig;
+import org.apache.servicecomb.pack.contract.grpc.GrpcTxEvent;
+import org.apache.servicecomb.pack.contract.grpc.TxEventServiceGrpc;
+import org.apache.servicecomb.pack.contract.grpc.TxEventServiceGrpc.TxEventServiceBlockingStub;
+import org.apache.servicecomb.pack.contract.grpc.TxEventServiceGrpc.TxEventServiceStub;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = {AlphaApplication.class, AlphaConfig.class},
+    properties = {
+        "alpha.server.host=0.0.0.0",
+        "alpha.server.port=0",
+        "alpha.server.initialPort=9100",
+        "alpha.server.portAutoIncrement=true",
+        "alpha.server.portCount=100",
+        "alpha.event.pollingInterval=100",
+        "alpha.event.state-engine.enabled=true",
+        "alpha.event.abortedTxIndex.enabled=true",
+        "spring.main.allow-bean-definition-overriding=true"
+    })
+public class AlphaIntegrationWithStateEngineTest {
+
+  private static ManagedChannel clientChannel;
+  private static TxEventServiceStub asyncStub;
+  private static TxEventServiceBlockingStub blockingStub;
+
+  private static final String payload = "hello world";
+
+  private final String globalTxId = UUID.randomUUID().toString();
+  private final String localTxId = UUID.randomUUID().toString();
+  private final String serviceName = uniquify("serviceName");
+  private final String instanceId = uniquify("instanceId");
+
+  private final GrpcServiceConfig serviceConfig = GrpcServiceConfig.newBuilder()
+      .setServiceName(serviceName)
+      .setInstanceId(instanceId)
+      .build();
+
+  @Autowired
+  private ServerStartable serverStartable;
+
+  @Autowired
+  private TxEventEnvelopeRepository eventRepo;
+
+  @Autowired
+  private SagaStateEntityRepository sagaStateRepo;
+
+  private final Queue<GrpcCompensateCommand> receivedCommands = new ConcurrentLinkedQueue<>();
+
+  @AfterClass
+  public static void tearDown() {
+    if (clientChannel != null) {
+      clientChannel.shutdown();
+      clientChannel = null;
+    }
+  }
+
+  @Before
+  public void before() {
+    if (clientChannel == null) {
+      clientChannel = NettyChannelBuilder.forAddress("localhost", serverStartable.getGrpcServerConfig().getPort())
+          .usePlaintext().build();
+      asyncStub = TxEventServiceGrpc.newStub(clientChannel);
+      blockingStub = TxEventServiceGrpc.newBlockingStub(clientChannel);
+    }
+    asyncStub.onConnected(new CompensationStreamObserver()).onNext(serviceConfig);
+  }
+
+  @After
+  public void after() {
+    blockingStub.onDisconnected(serviceConfig);
+  }
+
+  @Test
+  public void compensateInReverseOrderAndEndSaga() {
+    String anotherLocalTxId = UUID.randomUUID().toString();
+    blockingStub.onTxEvent(eventOf(SagaStartedEvent, globalTxId, 0));
+    blockingStub.onTxEvent(eventOf(TxStartedEvent, localTxId, 0));
+    blockingStub.onTxEvent(eventOf(TxEndedEvent, localTxId, 0));
+    blockingStub.onTxEvent(eventOf(TxStartedEvent, anotherLocalTxId, 0));
+    blockingStub.onTxEvent(eventOf(TxEndedEvent, anotherLocalTxId, 0));
+    assertThat(sagaStateRepo.existsById(globalTxId), is(true));
+
+    blockingStub.onTxEvent(eventOf(TxAbortedEvent, globalTxId, 0));
+
+    await().atMost(2, SECONDS).until(() -> receivedCommands.size() == 2);
+    assertThat(receivedCommands.poll().getLocalTxId(), is(anotherLocalTxId));
+    assertThat(receivedCommands.poll().getLocalTxId(), is(localTxId));
+
+    await().atMost(2, SECONDS).until(() -> hasSagaEnded() && !sagaStateRepo.existsById(globalTxId));
+  }
+
+  @Test
+  public void doNotStartSubTxOnFailure() {
+    blockingStub.onTxEvent(eventOf(TxStartedEvent, localTxId, 0));
+    blockingStub.onTxEvent(eventOf(TxAbortedEvent, localTxId, 0));
+
+    GrpcAck result = blockingStub.onTxEvent(eventOf(TxStartedEvent, UUID.randomUUID().toString(), 0));
+
+    assertThat(result.getAborted(), is(true));
+  }
+
+  @Test
+  public void abortTimeoutTxStartedEvent() {
+    blockingStub.onTxEvent(eventOf(SagaStartedEvent, globalTxId, 0));
+    blockingStub.onTxEvent(eventOf(TxStartedEvent, localTxId, 1));
+
+    await().atMost(3, SECONDS).until(() -> receivedCommands.size() == 1);
+    assertThat(receivedCommands.poll().getLocalTxId(), is(localTxId));
+    await().atMost(2, SECONDS).until(this::hasSagaEnded);
+
+    TxEvent aborted = eventRepo.findByGlobalTxIdOrderBySurrogateIdAsc(globalTxId).get(2);
+    assertThat(aborted.type(), is(TxAbortedEvent.name()));
+    assertThat(aborted.localTxId(), is(localTxId));
+  }
+
+  @Test
+  public void rejectSubTxOfTimeoutSaga() {
+    blockingStub.onTxEvent(eventOf(SagaStartedEvent, globalTxId, 0));
+    blockingStub.onTxEvent(eventOf(TxStartedEvent, localTxId, 1));
+    await().atMost(3, SECONDS).until(this::hasSagaEnded);
+
+    GrpcAck result = blockingStub.onTxEvent(eventOf(TxStartedEvent, UUID.randomUUID().toString(), 0));
+
+    assertThat(result.getAborted(), is(true));
+  }
+
+  private boolean hasSagaEnded() {
+    return eventRepo.findByGlobalTxId(globalTxId).stream()
+        .anyMatch(event -> SagaEndedEvent.name().equals(event.type()));
+  }
+
+  private GrpcTxEvent eventOf(EventType eventType, String localTxId, int timeout) {
+    return GrpcTxEvent.newBuilder()
+        .setServiceName(serviceName)
+        .setInstanceId(instanceId)
+        .setTimestamp(System.currentTimeMillis())
+        .setGlobalTxId(globalTxId)
+        .setLocalTxId(localTxId)
+        .setParentTxId(globalTxId.equals(localTxId) ? "" : globalTxId)
+        .setType(eventType.name())
+        .setCompensationMethod(getClass().getCanonicalName())
+        .setTimeout(timeout)
+        .setRetryMethod("")
+        .setPayloads(ByteString.copyFrom(payload.getBytes()))
+        .build();
+  }
+
+  private class CompensationStreamObserver implements StreamObserver<GrpcCompensateCommand> {
+
+    @Override
+    public void onNext(GrpcCompensateCommand command) {
+      receivedCommands.add(command);
+      blockingStub.onTxEvent(eventOf(TxCompensatedEvent, command.getLocalTxId(), 0));
+    }
+
+    @Override
+    public void onError(Throwable t) {
+    }
+
+    @Override
+    public void onCompleted() {
+    }
+  }
+}
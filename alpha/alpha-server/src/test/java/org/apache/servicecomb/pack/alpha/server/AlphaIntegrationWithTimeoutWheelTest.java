@@ -0,0 +1,213 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.servicecomb.pack.alpha.server;
+
+import static com.seanyinx.github.unit.scaffolding.Randomness.uniquify;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.apache.servicecomb.pack.common.EventType.SagaEndedEvent;
+import static org.apache.servicecomb.pack.common.EventType.SagaStartedEvent;
+import static org.apache.servicecomb.pack.common.EventType.TxAbortedEvent;
+import static org.apache.servicecomb.pack.common.EventType.TxCompensatedEvent;
+import static org.apache.servicecomb.pack.common.EventType.TxEndedEvent;
+import static org.apache.servicecomb.pack.common.EventType.TxStartedEvent;
+import static org.awaitility.Awaitility.await;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+import com.google.protobuf.ByteString;
+import io.grpc.ManagedChannel;
+import io.grpc.netty.NettyChannelBuilder;
+import io.grpc.stub.StreamObserver;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import org.apache.servicecomb.pack.alpha.core.TxEvent;
+import org.apache.servicecomb.pack.alpha.core.TxTimeout;
+import org.apache.servicecomb.pack.common.EventType;
+import org.apache.servicecomb.pack.contract.grpc.GrpcCompensateCommand;
+import org.apache.servicecomb.pack.contract.grpc.GrpcServiceConfig;
+import org.apache.servicecomb.pack.contract.grpc.GrpcTxEvent;
+import org.apache.servicecomb.pack.contract.grpc.TxEventServiceGrpc;
+import org.apache.servicecomb.pack.contract.grpc.TxEventServiceGrpc.TxEventServiceBlockingStub;
+import org.apache.servicecomb.pack.contract.grpc.TxEventServiceGrpc.TxEventServiceStub;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = {AlphaApplication.class, AlphaConfig.class},
+    properties = {
+        "alpha.server.host=0.0.0.0",
+        "alpha.server.port=0",
+        "alpha.server.initialPort=9100",
+        "alpha.server.portAutoIncrement=true",
+        "alpha.server.portCount=100",
+        "alpha.event.pollingInterval=100",
+        "alpha.event.timeoutWheel.enabled=true",
+        "alpha.event.timeoutWheel.tickMillis=50",
+        "spring.main.allow-bean-definition-overriding=true"
+    })
+public class AlphaIntegrationWithTimeoutWheelTest {
+
+  private static ManagedChannel clientChannel;
+  private static TxEventServiceStub asyncStub;
+  private static TxEventServiceBlockingStub blockingStub;
+
+  private static final String payload = "hello world";
+
+  private final String globalTxId = UUID.randomUUID().toString();
+  private final String localTxId = UUID.randomUUID().toString();
+  private final String serviceName = uniquify("serviceName");
+  private final String instanceId = uniquify("instanceId");
+
+  private final GrpcServiceConfig serviceConfig = GrpcServiceConfig.newBuilder()
+      .setServiceName(serviceName)
+      .setInstanceId(instanceId)
+      .build();
+
+  @Autowired
+  private ServerStartable serverStartable;
+
+  @Autowired
+  private TxEventEnvelopeRepository eventRepo;
+
+  @Autowired
+  private TxTimeoutEntityRepository timeoutEntityRepository;
+
+  private final Queue<GrpcCompensateCommand> receivedCommands = new ConcurrentLinkedQueue<>();
+
+  @AfterClass
+  public static void tearDown() {
+    if (clientChannel != null) {
+      clientChannel.shutdown();
+      clientChannel = null;
+    }
+  }
+
+  @Before
+  public void before() {
+    if (clientChannel == null) {
+      clientChannel = NettyChannelBuilder.forAddress("localhost", serverStartable.getGrpcServerConfig().getPort())
+          .usePlaintext().build();
+      asyncStub = TxEventServiceGrpc.newStub(clientChannel);
+      blockingStub = TxEventServiceGrpc.newBlockingStub(clientChannel);
+    }
+    asyncStub.onConnected(new CompensationStreamObserver()).onNext(serviceConfig);
+  }
+
+  @After
+  public void after() {
+    blockingStub.onDisconnected(serviceConfig);
+  }
+
+  @Test
+  public void abortTimeoutSagaStartedEvent() {
+    blockingStub.onTxEvent(eventOf(SagaStartedEvent, globalTxId, 1));
+
+    await().atMost(3, SECONDS).until(this::hasSagaEnded);
+
+    TxEvent aborted = eventRepo.findByGlobalTxIdOrderBySurrogateIdAsc(globalTxId).get(1);
+    assertThat(aborted.type(), is(TxAbortedEvent.name()));
+    assertThat(aborted.localTxId(), is(globalTxId));
+    assertThat(hasTimeoutRecord(), is(false));
+  }
+
+  @Test
+  public void abortTimeoutTxStartedEvent() {
+    blockingStub.onTxEvent(eventOf(SagaStartedEvent, globalTxId, 0));
+    blockingStub.onTxEvent(eventOf(TxStartedEvent, localTxId, 1));
+
+    await().atMost(3, SECONDS).until(() -> receivedCommands.size() == 1);
+    assertThat(receivedCommands.poll().getLocalTxId(), is(localTxId));
+    await().atMost(2, SECONDS).until(this::hasSagaEnded);
+
+    TxEvent aborted = eventRepo.findByGlobalTxIdOrderBySurrogateIdAsc(globalTxId).get(2);
+    assertThat(aborted.type(), is(TxAbortedEvent.name()));
+    assertThat(aborted.localTxId(), is(localTxId));
+    assertThat(hasTimeoutRecord(), is(false));
+  }
+
+  @Test
+  public void doNotAbortEndedTxStartedEvent() throws InterruptedException {
+    blockingStub.onTxEvent(eventOf(SagaStartedEvent, globalTxId, 0));
+    blockingStub.onTxEvent(eventOf(TxStartedEvent, localTxId, 1));
+    blockingStub.onTxEvent(eventOf(TxEndedEvent, localTxId, 0));
+    blockingStub.onTxEvent(eventOf(SagaEndedEvent, globalTxId, 0));
+
+    TimeUnit.MILLISECONDS.sleep(1500);
+
+    assertThat(receivedCommands.isEmpty(), is(true));
+    assertThat(eventRepo.findByGlobalTxId(globalTxId).stream()
+        .anyMatch(event -> TxAbortedEvent.name().equals(event.type())), is(false));
+  }
+
+  private boolean hasSagaEnded() {
+    return eventRepo.findByGlobalTxId(globalTxId).stream()
+        .anyMatch(event -> SagaEndedEvent.name().equals(event.type()));
+  }
+
+  // the timeouts tracked in memory never go through the TxTimeout table
+  private boolean hasTimeoutRecord() {
+    for (TxTimeout timeout : timeoutEntityRepository.findAll()) {
+      if (globalTxId.equals(timeout.globalTxId())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private GrpcTxEvent eventOf(EventType eventType, String localTxId, int timeout) {
+    return GrpcTxEvent.newBuilder()
+        .setServiceName(serviceName)
+        .setInstanceId(instanceId)
+        .setTimestamp(System.currentTimeMillis())
+        .setGlobalTxId(globalTxId)
+        .setLocalTxId(localTxId)
+        .setParentTxId(globalTxId.equals(localTxId) ? "" : globalTxId)
+        .setType(eventType.name())
+        .setCompensationMethod(getClass().getCanonicalName())
+        .setTimeout(timeout)
+        .setRetryMethod("")
+        .setPayloads(ByteString.copyFrom(payload.getBytes()))
+        .build();
+  }
+
+  private class CompensationStreamObserver implements StreamObserver<GrpcCompensateCommand> {
+
+    @Override
+    public void onNext(GrpcCompensateCommand command) {
+      receivedCommands.add(command);
+      blockingStub.onTxEvent(eventOf(TxCompensatedEvent, command.getLocalTxId(), 0));
+    }
+
+    @Override
+    public void onError(Throwable t) {
+    }
+
+    @Override
+    public void onCompleted() {
+    }
+  }
+}
@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.servicecomb.pack.alpha.server;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.awaitility.Awaitility.await;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.ServerInterceptors;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.StreamObserver;
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import org.apache.servicecomb.pack.contract.grpc.GrpcAck;
+import org.apache.servicecomb.pack.contract.grpc.GrpcTxEvent;
+import org.apache.servicecomb.pack.contract.grpc.TxEventServiceGrpc;
+import org.apache.servicecomb.pack.contract.grpc.TxEventServiceGrpc.TxEventServiceBlockingStub;
+import org.apache.servicecomb.pack.contract.grpc.TxEventServiceGrpc.TxEventServiceImplBase;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class BoundedExecutorInterceptorTest {
+
+  private final CountDownLatch blocked = new CountDownLatch(1);
+
+  private final CountDownLatch release = new CountDownLatch(1);
+
+  private final ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 0L, MILLISECONDS,
+      new ArrayBlockingQueue<>(1));
+
+  private Server server;
+
+  private ManagedChannel channel;
+
+  private TxEventServiceBlockingStub blockingStub;
+
+  @Before
+  public void setUp() throws IOException {
+    String serverName = InProcessServerBuilder.generateName();
+    server = InProcessServerBuilder.forName(serverName)
+        .directExecutor()
+        .addService(ServerInterceptors.intercept(new BlockingTxEventService(),
+            new BoundedExecutorInterceptor(executor)))
+        .build()
+        .start();
+    channel = InProcessChannelBuilder.forName(serverName).build();
+    blockingStub = TxEventServiceGrpc.newBlockingStub(channel);
+  }
+
+  @After
+  public void tearDown() {
+    release.countDown();
+    channel.shutdownNow();
+    server.shutdownNow();
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void rejectsCallsWhenQueueIsFull() throws Exception {
+    CompletableFuture<GrpcAck> blockedCall = CompletableFuture.supplyAsync(
+        () -> blockingStub.onTxEvent(GrpcTxEvent.newBuilder().setType("block").build()));
+    blocked.await();
+    CompletableFuture<GrpcAck> queuedCall = CompletableFuture.supplyAsync(
+        () -> blockingStub.onTxEvent(GrpcTxEvent.getDefaultInstance()));
+    await().atMost(1, SECONDS).until(() -> executor.getQueue().size() == 1);
+
+    try {
+      blockingStub.onTxEvent(GrpcTxEvent.getDefaultInstance());
+      fail("StatusRuntimeException is expected");
+    } catch (StatusRuntimeException e) {
+      assertThat(e.getStatus().getCode(), is(Status.Code.RESOURCE_EXHAUSTED));
+    }
+
+    release.countDown();
+    assertThat(blockedCall.get(5, SECONDS).getAborted(), is(false));
+    assertThat(queuedCall.get(5, SECONDS).getAborted(), is(false));
+    assertThat(blockingStub.onTxEvent(GrpcTxEvent.getDefaultInstance()).getAborted(), is(false));
+  }
+
+  @Test
+  public void runsServiceOnExecutorThreads() throws Exception {
+    CompletableFuture.runAsync(
+        () -> blockingStub.onTxEvent(GrpcTxEvent.newBuilder().setType("block").build()));
+    blocked.await();
+
+    assertThat(executor.getActiveCount(), is(1));
+  }
+
+  private class BlockingTxEventService extends TxEventServiceImplBase {
+    @Override
+    public void onTxEvent(GrpcTxEvent request, StreamObserver<GrpcAck> responseObserver) {
+      if ("block".equals(request.getType())) {
+        blocked.countDown();
+        try {
+          release.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+      responseObserver.onNext(GrpcAck.newBuilder().setAborted(false).build());
+      responseObserver.onCompleted();
+    }
+  }
+}
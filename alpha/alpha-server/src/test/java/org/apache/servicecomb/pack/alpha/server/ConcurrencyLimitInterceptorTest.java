@@ -0,0 +1,209 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.servicecomb.pack.alpha.server;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.awaitility.Awaitility.await;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.ServerInterceptors;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.StreamObserver;
+import java.io.IOException;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import org.apache.servicecomb.pack.contract.grpc.GrpcAck;
+import org.apache.servicecomb.pack.contract.grpc.GrpcCompensateCommand;
+import org.apache.servicecomb.pack.contract.grpc.GrpcServiceConfig;
+import org.apache.servicecomb.pack.contract.grpc.GrpcTxEvent;
+import org.apache.servicecomb.pack.contract.grpc.TxEventServiceGrpc;
+import org.apache.servicecomb.pack.contract.grpc.TxEventServiceGrpc.TxEventServiceBlockingStub;
+import org.apache.servicecomb.pack.contract.grpc.TxEventServiceGrpc.TxEventServiceImplBase;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ConcurrencyLimitInterceptorTest {
+
+  private final CountDownLatch blocked = new CountDownLatch(1);
+
+  private final CountDownLatch release = new CountDownLatch(1);
+
+  private final CountDownLatch connected = new CountDownLatch(1);
+
+  private final ConcurrencyLimitInterceptor interceptor = new ConcurrencyLimitInterceptor(1);
+
+  private Server server;
+
+  private ManagedChannel channel;
+
+  private TxEventServiceBlockingStub blockingStub;
+
+  @Before
+  public void setUp() throws IOException {
+    String serverName = InProcessServerBuilder.generateName();
+    server = InProcessServerBuilder.forName(serverName)
+        .executor(Executors.newFixedThreadPool(4))
+        .addService(ServerInterceptors.intercept(new BlockingTxEventService(), interceptor))
+        .build()
+        .start();
+    channel = InProcessChannelBuilder.forName(serverName).build();
+    blockingStub = TxEventServiceGrpc.newBlockingStub(channel);
+  }
+
+  @After
+  public void tearDown() {
+    release.countDown();
+    channel.shutdownNow();
+    server.shutdownNow();
+  }
+
+  @Test
+  public void rejectsCallsOverTheLimit() throws Exception {
+    CompletableFuture<GrpcAck> blockedCall = CompletableFuture.supplyAsync(
+        () -> blockingStub.onTxEvent(GrpcTxEvent.newBuilder().setType("block").build()));
+    blocked.await();
+
+    try {
+      blockingStub.onTxEvent(GrpcTxEvent.getDefaultInstance());
+      fail("StatusRuntimeException is expected");
+    } catch (StatusRuntimeException e) {
+      assertThat(e.getStatus().getCode(), is(Status.Code.RESOURCE_EXHAUSTED));
+    }
+
+    release.countDown();
+    assertThat(blockedCall.get(5, SECONDS).getAborted(), is(false));
+    await().atMost(1, SECONDS).until(() -> interceptor.availablePermits(TxEventServiceGrpc.SERVICE_NAME) == 1);
+    assertThat(blockingStub.onTxEvent(GrpcTxEvent.getDefaultInstance()).getAborted(), is(false));
+  }
+
+  @Test
+  public void limitsEveryServiceSeparately() throws Exception {
+    CompletableFuture.runAsync(
+        () -> blockingStub.onTxEvent(GrpcTxEvent.newBuilder().setType("block").build()));
+    blocked.await();
+
+    assertThat(interceptor.availablePermits(TxEventServiceGrpc.SERVICE_NAME), is(0));
+    assertThat(interceptor.availablePermits("TccEventService"), is(1));
+  }
+
+  @Test
+  public void answersEventsOverTheLimitWithErrorAcks() throws Exception {
+    CompletableFuture.runAsync(
+        () -> blockingStub.onTxEvent(GrpcTxEvent.newBuilder().setType("block").build()));
+    blocked.await();
+
+    Queue<GrpcAck> acks = new ConcurrentLinkedQueue<>();
+    StreamObserver<GrpcTxEvent> events = TxEventServiceGrpc.newStub(channel).onTxEvents(new NoopObserver<GrpcAck>() {
+      @Override
+      public void onNext(GrpcAck ack) {
+        acks.add(ack);
+      }
+    });
+    events.onNext(GrpcTxEvent.newBuilder().setSequence(1).build());
+    await().atMost(1, SECONDS).until(() -> acks.size() == 1);
+    assertThat(acks.peek().getSequence(), is(1L));
+    assertThat(acks.poll().getError().isEmpty(), is(false));
+
+    release.countDown();
+    await().atMost(1, SECONDS).until(() -> interceptor.availablePermits(TxEventServiceGrpc.SERVICE_NAME) == 1);
+    events.onNext(GrpcTxEvent.newBuilder().setSequence(2).build());
+    await().atMost(1, SECONDS).until(() -> acks.size() == 1);
+    assertThat(acks.peek().getSequence(), is(2L));
+    assertThat(acks.poll().getError().isEmpty(), is(true));
+    events.onCompleted();
+  }
+
+  @Test
+  public void doesNotLimitOnConnected() throws Exception {
+    CompletableFuture.runAsync(
+        () -> blockingStub.onTxEvent(GrpcTxEvent.newBuilder().setType("block").build()));
+    blocked.await();
+
+    TxEventServiceGrpc.newStub(channel).onConnected(new NoopObserver<>())
+        .onNext(GrpcServiceConfig.getDefaultInstance());
+
+    assertThat(connected.await(1, SECONDS), is(true));
+  }
+
+  private class BlockingTxEventService extends TxEventServiceImplBase {
+    @Override
+    public StreamObserver<GrpcServiceConfig> onConnected(StreamObserver<GrpcCompensateCommand> responseObserver) {
+      return new NoopObserver<GrpcServiceConfig>() {
+        @Override
+        public void onNext(GrpcServiceConfig config) {
+          connected.countDown();
+        }
+      };
+    }
+
+    @Override
+    public StreamObserver<GrpcTxEvent> onTxEvents(StreamObserver<GrpcAck> responseObserver) {
+      return new NoopObserver<GrpcTxEvent>() {
+        @Override
+        public void onNext(GrpcTxEvent event) {
+          responseObserver.onNext(GrpcAck.newBuilder().setSequence(event.getSequence()).build());
+        }
+
+        @Override
+        public void onCompleted() {
+          responseObserver.onCompleted();
+        }
+      };
+    }
+
+    @Override
+    public void onTxEvent(GrpcTxEvent request, StreamObserver<GrpcAck> responseObserver) {
+      if ("block".equals(request.getType())) {
+        blocked.countDown();
+        try {
+          release.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+      responseObserver.onNext(GrpcAck.newBuilder().setAborted(false).build());
+      responseObserver.onCompleted();
+    }
+  }
+
+  private static class NoopObserver<T> implements StreamObserver<T> {
+    @Override
+    public void onNext(T value) {
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+    }
+
+    @Override
+    public void onCompleted() {
+    }
+  }
+}
@@ -0,0 +1,192 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.servicecomb.pack.alpha.server;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.awaitility.Awaitility.await;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assume.assumeTrue;
+
+import com.google.common.eventbus.EventBus;
+import io.grpc.ManagedChannel;
+import io.grpc.netty.NettyChannelBuilder;
+import io.grpc.stub.StreamObserver;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollDomainSocketChannel;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.unix.DomainSocketAddress;
+import java.io.File;
+import java.lang.invoke.MethodHandles;
+import java.net.ServerSocket;
+import java.util.Arrays;
+import org.apache.servicecomb.pack.contract.grpc.GrpcServiceConfig;
+import org.apache.servicecomb.pack.contract.grpc.ServerMeta;
+import org.apache.servicecomb.pack.contract.grpc.TxEventServiceGrpc;
+import org.apache.servicecomb.pack.contract.grpc.TxEventServiceGrpc.TxEventServiceBlockingStub;
+import org.apache.servicecomb.pack.contract.grpc.TxEventServiceGrpc.TxEventServiceImplBase;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class DomainSocketTest {
+
+  private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  private static final int WARMUP_CALLS = 2000;
+
+  private static final int MEASURED_CALLS = 5000;
+
+  private static final GrpcServiceConfig SERVICE_CONFIG = GrpcServiceConfig.newBuilder()
+      .setServiceName("domain-socket")
+      .setInstanceId("domain-socket")
+      .build();
+
+  private GrpcStartable startable;
+
+  private Thread serverThread;
+
+  private File domainSocket;
+
+  private EventLoopGroup domainSocketEventLoopGroup;
+
+  private ManagedChannel tcpChannel;
+
+  private ManagedChannel domainSocketChannel;
+
+  private TxEventServiceBlockingStub tcpStub;
+
+  private TxEventServiceBlockingStub domainSocketStub;
+
+  @Before
+  public void setUp() throws Exception {
+    assumeTrue(Epoll.isAvailable());
+    int port;
+    try (ServerSocket socket = new ServerSocket(0)) {
+      port = socket.getLocalPort();
+    }
+    domainSocket = File.createTempFile("alpha", ".sock");
+    domainSocket.delete();
+
+    GrpcServerConfig serverConfig = new GrpcServerConfig();
+    ReflectionTestUtils.setField(serverConfig, "host", "127.0.0.1");
+    ReflectionTestUtils.setField(serverConfig, "port", port);
+    ReflectionTestUtils.setField(serverConfig, "domainSocket", domainSocket.getAbsolutePath());
+    startable = new GrpcStartable(serverConfig, new EventBus(), new ServerMetaService());
+    serverThread = new Thread(startable::start);
+    serverThread.setDaemon(true);
+    serverThread.start();
+
+    domainSocketEventLoopGroup = new EpollEventLoopGroup(1);
+    tcpChannel = NettyChannelBuilder.forAddress("127.0.0.1", port).usePlaintext().build();
+    domainSocketChannel = NettyChannelBuilder.forAddress(new DomainSocketAddress(domainSocket.getAbsolutePath()))
+        .channelType(EpollDomainSocketChannel.class)
+        .eventLoopGroup(domainSocketEventLoopGroup)
+        .usePlaintext()
+        .build();
+    tcpStub = TxEventServiceGrpc.newBlockingStub(tcpChannel);
+    domainSocketStub = TxEventServiceGrpc.newBlockingStub(domainSocketChannel);
+    await().atMost(10, SECONDS).ignoreExceptions().until(() -> {
+      tcpStub.onGetServerMeta(SERVICE_CONFIG);
+      domainSocketStub.onGetServerMeta(SERVICE_CONFIG);
+      return true;
+    });
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    if (tcpChannel != null) {
+      tcpChannel.shutdownNow();
+    }
+    if (domainSocketChannel != null) {
+      domainSocketChannel.shutdownNow();
+    }
+    if (domainSocketEventLoopGroup != null) {
+      domainSocketEventLoopGroup.shutdownGracefully(0, 1, SECONDS);
+    }
+    if (startable != null) {
+      startable.stop();
+      serverThread.join(SECONDS.toMillis(5));
+    }
+    if (domainSocket != null) {
+      domainSocket.delete();
+    }
+  }
+
+  @Test
+  public void servesSameServicesOnDomainSocketAsOnTcp() {
+    ServerMeta tcpMeta = tcpStub.onGetServerMeta(SERVICE_CONFIG);
+    ServerMeta domainSocketMeta = domainSocketStub.onGetServerMeta(SERVICE_CONFIG);
+
+    assertThat(domainSocketMeta.getMetaOrThrow("serviceName"), is(SERVICE_CONFIG.getServiceName()));
+    assertThat(domainSocketMeta, is(tcpMeta));
+  }
+
+  @Test
+  public void stopsListeningOnDomainSocket() throws Exception {
+    startable.stop();
+    serverThread.join(SECONDS.toMillis(5));
+
+    assertThat(serverThread.isAlive(), is(false));
+  }
+
+  /**
+   * Only logs the latencies, it is skipped unless the build runs with -Dalpha.test.latency=true.
+   */
+  @Test
+  public void comparesLatencyOfDomainSocketWithLoopback() {
+    assumeTrue(Boolean.getBoolean("alpha.test.latency"));
+    measure(tcpStub, WARMUP_CALLS);
+    measure(domainSocketStub, WARMUP_CALLS);
+    long[] tcpLatencies = measure(tcpStub, MEASURED_CALLS);
+    long[] domainSocketLatencies = measure(domainSocketStub, MEASURED_CALLS);
+
+    LOG.info("Latency of {} unary calls, tcp loopback p50 {} us p99 {} us, unix domain socket p50 {} us p99 {} us",
+        MEASURED_CALLS,
+        percentile(tcpLatencies, 50), percentile(tcpLatencies, 99),
+        percentile(domainSocketLatencies, 50), percentile(domainSocketLatencies, 99));
+  }
+
+  private long[] measure(TxEventServiceBlockingStub stub, int calls) {
+    long[] latencies = new long[calls];
+    for (int i = 0; i < calls; i++) {
+      long start = System.nanoTime();
+      stub.onGetServerMeta(SERVICE_CONFIG);
+      latencies[i] = System.nanoTime() - start;
+    }
+    return latencies;
+  }
+
+  private long percentile(long[] latencies, int percentile) {
+    long[] sorted = latencies.clone();
+    Arrays.sort(sorted);
+    return sorted[sorted.length * percentile / 100] / 1000;
+  }
+
+  private static class ServerMetaService extends TxEventServiceImplBase {
+    @Override
+    public void onGetServerMeta(GrpcServiceConfig request, StreamObserver<ServerMeta> responseObserver) {
+      responseObserver.onNext(ServerMeta.newBuilder().putMeta("serviceName", request.getServiceName()).build());
+      responseObserver.onCompleted();
+    }
+  }
+}
@@ -0,0 +1,143 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.servicecomb.pack.alpha.server;
+
+import static com.seanyinx.github.unit.scaffolding.Randomness.uniquify;
+import static org.apache.servicecomb.pack.common.EventType.SagaEndedEvent;
+import static org.apache.servicecomb.pack.common.EventType.TxStartedEvent;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.servicecomb.pack.alpha.core.ScannerPartitions;
+import org.apache.servicecomb.pack.alpha.core.TxEvent;
+import org.apache.servicecomb.pack.alpha.core.TxEventRepository;
+import org.apache.servicecomb.pack.alpha.core.metrics.GroupCommitMetrics;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+public class GroupCommitTxEventRepositoryTest {
+  private final TxEventRepository eventRepository = mock(TxEventRepository.class);
+  private final GroupCommitMetrics metrics = new GroupCommitMetrics();
+  private final ExecutorService executor = Executors.newFixedThreadPool(8);
+  private final String globalTxId = uniquify("globalTxId");
+
+  private EmbeddedDatabase database;
+  private GroupCommitTxEventRepository repository;
+
+  @Before
+  public void setUp() {
+    database = new EmbeddedDatabaseBuilder()
+        .generateUniqueName(true)
+        .setType(EmbeddedDatabaseType.HSQL)
+        .addScript("schema.sql")
+        .build();
+    repository = new GroupCommitTxEventRepository(eventRepository, database, 16, 5, metrics);
+    repository.start();
+  }
+
+  @After
+  public void tearDown() {
+    repository.shutdown();
+    executor.shutdownNow();
+    database.shutdown();
+  }
+
+  @Test
+  public void writesConcurrentEventsInBatches() throws Exception {
+    List<Future<?>> futures = new ArrayList<>();
+    for (int i = 0; i < 64; i++) {
+      TxEvent event = eventOf(uniquify("serviceName"));
+      futures.add(executor.submit(() -> repository.save(event)));
+    }
+    for (Future<?> future : futures) {
+      future.get();
+    }
+
+    Integer count = new JdbcTemplate(database)
+        .queryForObject("SELECT COUNT(*) FROM TxEvent WHERE globalTxId = ?", Integer.class, globalTxId);
+    assertThat(count, is(64));
+    Integer partitionKey = new JdbcTemplate(database).queryForObject(
+        "SELECT DISTINCT partitionKey FROM TxEvent WHERE globalTxId = ?", Integer.class, globalTxId);
+    assertThat(partitionKey, is(ScannerPartitions.partitionKeyOf(globalTxId)));
+    assertThat(metrics.getEventCommitted(), is(64L));
+    assertThat(metrics.getBatchCommitted(), lessThan(64L));
+  }
+
+  @Test
+  public void savesFailedBatchOneByOne() {
+    TxEvent brokenEvent = eventOf(null);
+    doThrow(new IllegalArgumentException("broken event")).when(eventRepository)
+        .save(argThat(event -> event.serviceName() == null));
+
+    try {
+      repository.save(brokenEvent);
+      fail("IllegalArgumentException is expected");
+    } catch (IllegalArgumentException e) {
+      assertThat(e.getMessage(), is("broken event"));
+    }
+    assertThat(metrics.getBatchFailed(), is(1L));
+    verify(eventRepository).save(brokenEvent);
+  }
+
+  @Test
+  public void savesSagaEndedEventWithDelegatedRepository() {
+    TxEvent sagaEndedEvent = new TxEvent(uniquify("serviceName"), uniquify("instanceId"), globalTxId, globalTxId,
+        null, SagaEndedEvent.name(), "", "payloads".getBytes());
+
+    repository.save(sagaEndedEvent);
+    repository.save(sagaEndedEvent);
+
+    verify(eventRepository, times(2)).save(sagaEndedEvent);
+    assertThat(metrics.getBatchFailed(), is(0L));
+  }
+
+  @Test
+  public void savesEventWithDelegatedRepositoryAfterShutdown() {
+    TxEvent event = eventOf(uniquify("serviceName"));
+    repository.shutdown();
+
+    repository.save(event);
+
+    verify(eventRepository).save(event);
+    assertThat(metrics.getEventCommitted(), is(0L));
+  }
+
+  private TxEvent eventOf(String serviceName) {
+    return new TxEvent(serviceName, uniquify("instanceId"), globalTxId, uniquify("localTxId"), globalTxId,
+        TxStartedEvent.name(), "method", 0, "", 0, "payloads".getBytes());
+  }
+}
@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.servicecomb.pack.alpha.server;
+
+import static org.apache.servicecomb.pack.common.EventType.TxCompensateEvent;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+
+import io.grpc.stub.StreamObserver;
+import org.apache.servicecomb.pack.alpha.core.TxEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.CompensateAckType;
+import org.apache.servicecomb.pack.contract.grpc.GrpcCompensateCommand;
+import org.junit.Test;
+
+public class GrpcOmegaCallbackTest {
+
+  @SuppressWarnings("unchecked")
+  private final StreamObserver<GrpcCompensateCommand> observer = mock(StreamObserver.class);
+
+  private final GrpcOmegaCallback callback = new GrpcOmegaCallback(observer);
+
+  @Test
+  public void countsFailedAcksAsAnswered() {
+    callback.compensate(eventOf("localTxId1"));
+    callback.compensate(eventOf("localTxId2"));
+    assertThat(callback.inFlight(), is(2));
+
+    callback.getAck(CompensateAckType.Failed);
+    assertThat(callback.inFlight(), is(1));
+
+    callback.getAck(CompensateAckType.Succeed);
+    callback.getAck(CompensateAckType.Succeed);
+    assertThat(callback.inFlight(), is(0));
+  }
+
+  @Test
+  public void forgetsCommandsOfClosedStream() {
+    callback.compensate(eventOf("localTxId1"));
+    callback.compensate(eventOf("localTxId2"));
+
+    callback.streamClosed();
+    assertThat(callback.inFlight(), is(0));
+  }
+
+  @Test
+  public void forgetsCommandsOnDisconnect() {
+    callback.compensate(eventOf("localTxId1"));
+
+    callback.disconnect();
+    assertThat(callback.inFlight(), is(0));
+  }
+
+  private TxEvent eventOf(String localTxId) {
+    return new TxEvent("service", "instance", "globalTxId", localTxId, null,
+        TxCompensateEvent.name(), "compensate", new byte[0]);
+  }
+}
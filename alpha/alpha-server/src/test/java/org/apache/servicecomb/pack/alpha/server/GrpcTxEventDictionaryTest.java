@@ -0,0 +1,92 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.servicecomb.pack.alpha.server;
+
+import static org.apache.servicecomb.pack.common.EventStreamDictionary.MAX_SIZE;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsSame.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import org.apache.servicecomb.pack.contract.grpc.GrpcTxEvent;
+import org.junit.Test;
+
+public class GrpcTxEventDictionaryTest {
+
+  private final GrpcTxEventDictionary dictionary = new GrpcTxEventDictionary();
+
+  @Test
+  public void resolvesStringsDefinedByEarlierEvents() {
+    GrpcTxEvent first = dictionary.resolve(GrpcTxEvent.newBuilder()
+        .putDefinitions(1, "service")
+        .putDefinitions(2, "instance")
+        .putDefinitions(3, "compensate(java.lang.String)")
+        .setServiceNameId(1)
+        .setInstanceIdId(2)
+        .setCompensationMethodId(3)
+        .setRetryMethod("retry")
+        .build());
+    GrpcTxEvent second = dictionary.resolve(GrpcTxEvent.newBuilder()
+        .setServiceNameId(1)
+        .setInstanceIdId(2)
+        .setCompensationMethodId(3)
+        .build());
+
+    assertThat(first.getServiceName(), is("service"));
+    assertThat(first.getInstanceId(), is("instance"));
+    assertThat(first.getCompensationMethod(), is("compensate(java.lang.String)"));
+    assertThat(first.getRetryMethod(), is("retry"));
+    assertThat(first.getDefinitionsCount(), is(0));
+
+    assertThat(second.getServiceName(), is("service"));
+    assertThat(second.getCompensationMethod(), sameInstance(first.getCompensationMethod()));
+    assertThat(second.getServiceNameId(), is(0));
+  }
+
+  @Test
+  public void leavesPlainEventsUntouched() {
+    GrpcTxEvent event = GrpcTxEvent.newBuilder().setServiceName("service").build();
+
+    assertThat(dictionary.resolve(event), sameInstance(event));
+  }
+
+  @Test
+  public void blowsUpOnUndefinedString() {
+    try {
+      dictionary.resolve(GrpcTxEvent.newBuilder().setServiceNameId(1).build());
+      fail("IllegalArgumentException is expected");
+    } catch (IllegalArgumentException e) {
+      assertThat(e.getMessage(), is("String 1 is not defined on the event stream"));
+    }
+  }
+
+  @Test
+  public void blowsUpWhenTooManyStringsAreDefined() {
+    GrpcTxEvent.Builder builder = GrpcTxEvent.newBuilder();
+    for (int i = 1; i <= MAX_SIZE + 1; i++) {
+      builder.putDefinitions(i, "value" + i);
+    }
+    try {
+      dictionary.resolve(builder.build());
+      fail("IllegalArgumentException is expected");
+    } catch (IllegalArgumentException e) {
+      assertThat(e.getMessage().startsWith("Too many strings"), is(true));
+    }
+  }
+}
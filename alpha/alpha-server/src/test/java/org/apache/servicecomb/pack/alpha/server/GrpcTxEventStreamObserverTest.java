@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.servicecomb.pack.alpha.server;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.awaitility.Awaitility.await;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+import io.grpc.stub.StreamObserver;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import org.apache.servicecomb.pack.contract.grpc.GrpcAck;
+import org.apache.servicecomb.pack.contract.grpc.GrpcTxEvent;
+import org.junit.After;
+import org.junit.Test;
+
+public class GrpcTxEventStreamObserverTest {
+
+  private final CountDownLatch release = new CountDownLatch(1);
+
+  private final RecordingObserver responseObserver = new RecordingObserver();
+
+  private final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+  @After
+  public void tearDown() {
+    release.countDown();
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void acksEventsAsTheyAreDone() {
+    GrpcTxEventStreamObserver observer = new GrpcTxEventStreamObserver(responseObserver, this::handle, executor);
+
+    observer.onNext(event("block", 1));
+    observer.onNext(event("pass", 2));
+    observer.onCompleted();
+
+    await().atMost(1, SECONDS).until(() -> responseObserver.acks.size() == 1);
+    assertThat(responseObserver.acks.get(0).getSequence(), is(2L));
+    assertThat(responseObserver.completed, is(false));
+
+    release.countDown();
+    await().atMost(1, SECONDS).until(() -> responseObserver.completed);
+    assertThat(responseObserver.acks.size(), is(2));
+    assertThat(responseObserver.acks.get(1).getSequence(), is(1L));
+  }
+
+  @Test
+  public void failsEventIfExecutorIsFull() {
+    ThreadPoolExecutor fullExecutor = new ThreadPoolExecutor(1, 1, 0L, MILLISECONDS, new ArrayBlockingQueue<>(1));
+    try {
+      GrpcTxEventStreamObserver observer = new GrpcTxEventStreamObserver(responseObserver, this::handle,
+          fullExecutor);
+
+      observer.onNext(event("block", 1));
+      observer.onNext(event("pass", 2));
+      observer.onNext(event("pass", 3));
+
+      assertThat(responseObserver.acks.size(), is(1));
+      assertThat(responseObserver.acks.get(0).getSequence(), is(3L));
+      assertThat(responseObserver.acks.get(0).getError().isEmpty(), is(false));
+    } finally {
+      release.countDown();
+      fullExecutor.shutdownNow();
+    }
+  }
+
+  private GrpcTxEvent event(String type, long sequence) {
+    return GrpcTxEvent.newBuilder().setType(type).setSequence(sequence).build();
+  }
+
+  private GrpcAck handle(GrpcTxEvent event) {
+    if ("block".equals(event.getType())) {
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    return GrpcAck.newBuilder().setAborted(false).build();
+  }
+
+  private static class RecordingObserver implements StreamObserver<GrpcAck> {
+    private final List<GrpcAck> acks = new CopyOnWriteArrayList<>();
+
+    private volatile boolean completed;
+
+    @Override
+    public void onNext(GrpcAck ack) {
+      acks.add(ack);
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+    }
+
+    @Override
+    public void onCompleted() {
+      completed = true;
+    }
+  }
+}
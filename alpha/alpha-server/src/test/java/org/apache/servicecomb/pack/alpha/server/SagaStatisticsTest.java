@@ -0,0 +1,148 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.servicecomb.pack.alpha.server;
+
+import static com.seanyinx.github.unit.scaffolding.Randomness.uniquify;
+import static org.apache.servicecomb.pack.common.EventType.SagaEndedEvent;
+import static org.apache.servicecomb.pack.common.EventType.SagaStartedEvent;
+import static org.apache.servicecomb.pack.common.EventType.TxAbortedEvent;
+import static org.apache.servicecomb.pack.common.EventType.TxCompensatedEvent;
+import static org.apache.servicecomb.pack.common.EventType.TxEndedEvent;
+import static org.apache.servicecomb.pack.common.EventType.TxStartedEvent;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+import java.sql.Timestamp;
+
+import org.apache.servicecomb.pack.alpha.core.TxEvent;
+import org.apache.servicecomb.pack.common.EventType;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+public class SagaStatisticsTest {
+  private final String committedGlobalTxId = uniquify("globalTxId");
+  private final String rolledBackGlobalTxId = uniquify("globalTxId");
+  private final String compensatingGlobalTxId = uniquify("globalTxId");
+  private final String pendingGlobalTxId = uniquify("globalTxId");
+
+  private EmbeddedDatabase database;
+  private JdbcTemplate jdbcTemplate;
+
+  @Before
+  public void setUp() {
+    database = new EmbeddedDatabaseBuilder()
+        .generateUniqueName(true)
+        .setType(EmbeddedDatabaseType.HSQL)
+        .addScript("schema.sql")
+        .build();
+    jdbcTemplate = new JdbcTemplate(database);
+  }
+
+  @After
+  public void tearDown() {
+    database.shutdown();
+  }
+
+  @Test
+  public void countsSagasFromSavedEvents() {
+    SagaStatistics statistics = new SagaStatistics(database, 100);
+
+    save(statistics, committedGlobalTxId, SagaStartedEvent, TxStartedEvent, TxEndedEvent, SagaEndedEvent);
+    save(statistics, rolledBackGlobalTxId, SagaStartedEvent, TxStartedEvent, TxEndedEvent, TxAbortedEvent,
+        TxAbortedEvent, TxCompensatedEvent, SagaEndedEvent);
+    save(statistics, compensatingGlobalTxId, SagaStartedEvent, TxStartedEvent, TxAbortedEvent);
+    save(statistics, pendingGlobalTxId, SagaStartedEvent, TxStartedEvent);
+
+    assertStatistics(statistics, 4, 2, 1, 1, 1);
+
+    save(statistics, compensatingGlobalTxId, SagaEndedEvent);
+    assertStatistics(statistics, 4, 1, 1, 0, 1);
+
+    // the compensation may be reported after the end of the saga
+    save(statistics, compensatingGlobalTxId, TxCompensatedEvent);
+    assertStatistics(statistics, 4, 1, 1, 0, 2);
+  }
+
+  @Test
+  public void computesStatisticsFromEventsWhenNeverPersisted() {
+    insertEvents(committedGlobalTxId, SagaStartedEvent, TxStartedEvent, TxEndedEvent, SagaEndedEvent);
+    insertEvents(rolledBackGlobalTxId, SagaStartedEvent, TxStartedEvent, TxAbortedEvent, TxCompensatedEvent,
+        SagaEndedEvent);
+    insertEvents(compensatingGlobalTxId, SagaStartedEvent, TxStartedEvent, TxAbortedEvent);
+    insertEvents(pendingGlobalTxId, SagaStartedEvent);
+
+    SagaStatistics statistics = new SagaStatistics(database, 100);
+    statistics.recover();
+
+    assertStatistics(statistics, 4, 2, 1, 1, 1);
+
+    save(statistics, compensatingGlobalTxId, TxCompensatedEvent, SagaEndedEvent);
+    assertStatistics(statistics, 4, 1, 1, 0, 2);
+  }
+
+  @Test
+  public void restoresPersistedCountersAndUnfinishedSagas() {
+    SagaStatistics statistics = new SagaStatistics(database, 100);
+    save(statistics, committedGlobalTxId, SagaStartedEvent, SagaEndedEvent);
+    save(statistics, rolledBackGlobalTxId, SagaStartedEvent, TxAbortedEvent, TxCompensatedEvent, SagaEndedEvent);
+    statistics.persist();
+    save(statistics, uniquify("globalTxId"), SagaStartedEvent, SagaEndedEvent);
+    statistics.persist();
+
+    // the finished sagas are not read from the events any more once the counters are persisted
+    insertEvents(committedGlobalTxId, SagaStartedEvent, SagaEndedEvent);
+    insertEvents(compensatingGlobalTxId, SagaStartedEvent, TxAbortedEvent);
+    insertEvents(pendingGlobalTxId, SagaStartedEvent);
+
+    SagaStatistics recovered = new SagaStatistics(database, 100);
+    recovered.recover();
+
+    assertStatistics(recovered, 5, 2, 2, 1, 1);
+  }
+
+  private void assertStatistics(SagaStatistics statistics, int total, int pending, int committed, int compensating,
+      int rolledBack) {
+    assertThat(statistics.totalTransactions(), is(total));
+    assertThat(statistics.pendingTransactions(), is(pending));
+    assertThat(statistics.committedTransactions(), is(committed));
+    assertThat(statistics.compensatingTransactions(), is(compensating));
+    assertThat(statistics.rolledBackTransactions(), is(rolledBack));
+  }
+
+  private void save(SagaStatistics statistics, String globalTxId, EventType... types) {
+    for (EventType type : types) {
+      statistics.onEventSaved(new TxEvent("serviceName", "instanceId", globalTxId, globalTxId, null, type.name(),
+          "method", "payloads".getBytes()));
+    }
+  }
+
+  private void insertEvents(String globalTxId, EventType... types) {
+    for (EventType type : types) {
+      jdbcTemplate.update("INSERT INTO TxEvent (serviceName, instanceId, creationTime, globalTxId, localTxId, type, "
+              + "compensationMethod, expiryTime, retryMethod, retries, payloads) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+          "serviceName", "instanceId", new Timestamp(System.currentTimeMillis()), globalTxId, uniquify("localTxId"),
+          type.name(), "method", new Timestamp(System.currentTimeMillis()), "", 0, "payloads".getBytes());
+    }
+  }
+}
@@ -0,0 +1,116 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.servicecomb.pack.alpha.server;
+
+import static com.seanyinx.github.unit.scaffolding.Randomness.uniquify;
+import static org.apache.servicecomb.pack.common.EventType.SagaEndedEvent;
+import static org.apache.servicecomb.pack.common.EventType.SagaStartedEvent;
+import static org.apache.servicecomb.pack.common.EventType.TxStartedEvent;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.sql.Timestamp;
+
+import org.apache.servicecomb.pack.alpha.core.NodeStatus;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+public class TxEventArchiverTest {
+  private static final long RETENTION_MILLIS = 60000;
+
+  private final String endedGlobalTxId = uniquify("globalTxId");
+  private final String recentGlobalTxId = uniquify("globalTxId");
+  private final String pendingGlobalTxId = uniquify("globalTxId");
+  private final NodeStatus nodeStatus = new NodeStatus(NodeStatus.TypeEnum.MASTER);
+
+  private EmbeddedDatabase database;
+  private JdbcTemplate jdbcTemplate;
+
+  @Before
+  public void setUp() {
+    database = new EmbeddedDatabaseBuilder()
+        .generateUniqueName(true)
+        .setType(EmbeddedDatabaseType.HSQL)
+        .addScript("schema.sql")
+        .build();
+    jdbcTemplate = new JdbcTemplate(database);
+
+    long expired = System.currentTimeMillis() - 2 * RETENTION_MILLIS;
+    insertEvent(endedGlobalTxId, SagaStartedEvent.name(), expired);
+    insertEvent(endedGlobalTxId, TxStartedEvent.name(), expired);
+    insertEvent(endedGlobalTxId, SagaEndedEvent.name(), expired);
+    insertEvent(recentGlobalTxId, SagaStartedEvent.name(), expired);
+    insertEvent(recentGlobalTxId, SagaEndedEvent.name(), System.currentTimeMillis());
+    insertEvent(pendingGlobalTxId, SagaStartedEvent.name(), expired);
+    jdbcTemplate.update("INSERT INTO Command (eventId, serviceName, instanceId, globalTxId, localTxId, "
+        + "compensationMethod, status, version) VALUES (1, 'serviceName', 'instanceId', ?, ?, 'method', 'DONE', 0)",
+        endedGlobalTxId, endedGlobalTxId);
+  }
+
+  @After
+  public void tearDown() {
+    database.shutdown();
+  }
+
+  @Test
+  public void movesTerminatedGlobalTransactionsToArchive() {
+    TxEventArchiver archiver = new TxEventArchiver(database, nodeStatus, 10, RETENTION_MILLIS, false);
+
+    assertThat(archiver.archive(), is(1));
+    assertThat(archiver.archive(), is(0));
+
+    assertThat(countOf("TxEvent", endedGlobalTxId), is(0));
+    assertThat(countOf("Command", endedGlobalTxId), is(0));
+    assertThat(countOf("TxEventArchive", endedGlobalTxId), is(3));
+    assertThat(countOf("TxEvent", recentGlobalTxId), is(2));
+    assertThat(countOf("TxEvent", pendingGlobalTxId), is(1));
+    assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM TxEventArchive WHERE payloads IS NOT NULL",
+        Integer.class), is(3));
+  }
+
+  @Test
+  public void dropsPayloadsOfArchivedEvents() {
+    TxEventArchiver archiver = new TxEventArchiver(database, nodeStatus, 10, RETENTION_MILLIS, true);
+
+    assertThat(archiver.archive(), is(1));
+
+    assertThat(jdbcTemplate.queryForObject("SELECT payloads FROM TxEventArchive WHERE type = ?", byte[].class,
+        SagaStartedEvent.name()), is(nullValue()));
+    assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM TxEvent WHERE payloads IS NULL", Integer.class),
+        is(0));
+  }
+
+  private int countOf(String table, String globalTxId) {
+    return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table + " WHERE globalTxId = ?", Integer.class,
+        globalTxId);
+  }
+
+  private void insertEvent(String globalTxId, String type, long creationTime) {
+    jdbcTemplate.update("INSERT INTO TxEvent (serviceName, instanceId, creationTime, globalTxId, localTxId, type, "
+            + "compensationMethod, expiryTime, retryMethod, retries, payloads) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+        "serviceName", "instanceId", new Timestamp(creationTime), globalTxId, globalTxId, type, "method",
+        new Timestamp(creationTime), "", 0, "payloads".getBytes());
+  }
+}
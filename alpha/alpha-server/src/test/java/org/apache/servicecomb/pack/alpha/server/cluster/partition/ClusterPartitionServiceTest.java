@@ -0,0 +1,96 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.servicecomb.pack.alpha.server.cluster.partition;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.awaitility.Awaitility.await;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.Date;
+import org.apache.servicecomb.pack.alpha.core.ScannerPartitions;
+import org.apache.servicecomb.pack.alpha.server.AlphaApplication;
+import org.apache.servicecomb.pack.alpha.server.AlphaConfig;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+@RunWith(SpringRunner.class)
+@ActiveProfiles("test")
+@SpringBootTest(classes = {AlphaApplication.class, AlphaConfig.class},
+    properties = {
+        "alpha.cluster.partition.enabled=true",
+        "alpha.cluster.partition.count=8",
+        "alpha.cluster.partition.heartbeat=100",
+        "alpha.server.host=0.0.0.0",
+        "alpha.server.port=8093",
+        "alpha.event.pollingInterval=1",
+        "spring.main.allow-bean-definition-overriding=true"
+    })
+public class ClusterPartitionServiceTest {
+
+  private static final String OTHER_MEMBER = "other-member";
+
+  @Value("${spring.application.name:servicecomb-alpha-server}")
+  private String serviceName;
+
+  @Autowired
+  private ClusterPartitionService partitionService;
+
+  @Autowired
+  private ClusterMemberEntityRepository memberRepository;
+
+  @Autowired
+  private ScannerPartitions partitions;
+
+  @After
+  public void tearDown() {
+    if (memberRepository.existsById(OTHER_MEMBER)) {
+      memberRepository.deleteById(OTHER_MEMBER);
+    }
+  }
+
+  @Test
+  public void ownsAllPartitionsWhenAlone() {
+    await().atMost(2, SECONDS).until(() -> partitions.isAssigned() && partitions.memberCount() == 1);
+    assertThat(partitions.ownedPartitions().size(), is(8));
+    assertThat(memberRepository.existsById(partitionService.getMemberId()), is(true));
+  }
+
+  @Test
+  public void sharesPartitionsWithLiveMembers() {
+    await().atMost(2, SECONDS).until(() -> partitions.isAssigned());
+    long generation = partitions.generation();
+
+    memberRepository.save(new ClusterMember(OTHER_MEMBER, serviceName, "[127.0.0.1]:8094",
+        new Date(System.currentTimeMillis() + 60000), "[]"));
+    await().atMost(2, SECONDS).until(() -> partitions.memberCount() == 2);
+    assertThat(partitions.ownedPartitions().size(), is(4));
+    assertThat(partitions.generation() > generation, is(true));
+
+    memberRepository.deleteById(OTHER_MEMBER);
+    await().atMost(2, SECONDS).until(() -> partitions.memberCount() == 1);
+    assertThat(partitions.ownedPartitions().size(), is(8));
+  }
+}
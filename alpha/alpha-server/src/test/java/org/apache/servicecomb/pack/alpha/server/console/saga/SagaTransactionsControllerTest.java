@@ -115,6 +115,7 @@ public class SagaTransactionsControllerTest {
     // Populate events for /findTransactions
     when(eventRepository.findByGlobalTxId("XXXGID")).thenReturn(committedTransactions);
     when(eventRepository.findByServiceName("XXService")).thenReturn(singletonList(someEvent));
+    when(eventRepository.findArchivedByGlobalTxId("XXXGID")).thenReturn(singletonList(someEvent));
   }
 
   @Test
@@ -184,6 +185,13 @@ public class SagaTransactionsControllerTest {
         .andExpect(jsonPath("$", hasSize(0)));
   }
 
+  @Test
+  public void findArchivedTransactionsOnDemand() throws Exception {
+    mockMvc.perform(get("/saga/findTransactions?globalTxID=XXXGID&archived=true"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$", hasSize(5)));
+  }
+
   private TxEvent populateEvents(String type) {
     return new TxEvent(
         uniquify("serviceName"),
@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.servicecomb.pack.alpha.server.fsm;
+
+import static org.apache.servicecomb.pack.common.EventType.TxCompensateEvent;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import io.grpc.stub.StreamObserver;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import org.apache.servicecomb.pack.alpha.core.TxEvent;
+import org.apache.servicecomb.pack.alpha.core.exception.CompensateAckFailedException;
+import org.apache.servicecomb.pack.alpha.core.exception.CompensateConnectException;
+import org.apache.servicecomb.pack.alpha.core.fsm.CompensateAckType;
+import org.apache.servicecomb.pack.contract.grpc.GrpcCompensateCommand;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+public class GrpcOmegaCallbackTest {
+
+  @SuppressWarnings("unchecked")
+  private final StreamObserver<GrpcCompensateCommand> observer = mock(StreamObserver.class);
+
+  private final GrpcOmegaCallback callback = new GrpcOmegaCallback(observer);
+
+  @Test
+  public void correlatesAcksOfOutstandingCompensations() throws Exception {
+    CompletableFuture<Void> first = callback.compensateAsync(eventOf("localTxId1"));
+    CompletableFuture<Void> second = callback.compensateAsync(eventOf("localTxId2"));
+
+    verify(observer, times(2)).onNext(any(GrpcCompensateCommand.class));
+    assertThat(callback.inFlight(), is(2));
+
+    callback.getAck("globalTxId", "localTxId2", CompensateAckType.Succeed);
+    assertThat(second.isDone(), is(true));
+    assertThat(first.isDone(), is(false));
+
+    callback.getAck("globalTxId", "localTxId1", CompensateAckType.Failed);
+    assertFailedWith(first, CompensateAckFailedException.class);
+    assertThat(callback.isWaiting(), is(false));
+  }
+
+  @Test
+  public void failsOutstandingCompensationsOnDisconnect() throws Exception {
+    CompletableFuture<Void> future = callback.compensateAsync(eventOf("localTxId1"));
+
+    callback.disconnect();
+
+    assertFailedWith(future, CompensateConnectException.class);
+    assertThat(callback.inFlight(), is(0));
+  }
+
+  @Test
+  public void gangSendCompensationsInOneCommand() throws Exception {
+    GrpcOmegaCallback batchCallback = new GrpcOmegaCallback(observer, true);
+
+    List<CompletableFuture<Void>> futures = batchCallback.compensateAllAsync(
+        Arrays.asList(eventOf("localTxId2"), eventOf("localTxId1")));
+
+    ArgumentCaptor<GrpcCompensateCommand> captor = ArgumentCaptor.forClass(GrpcCompensateCommand.class);
+    verify(observer).onNext(captor.capture());
+    List<GrpcCompensateCommand> commands = captor.getValue().getBatch().getCommandsList();
+    assertThat(commands.size(), is(2));
+    assertThat(commands.get(0).getLocalTxId(), is("localTxId2"));
+    assertThat(commands.get(1).getLocalTxId(), is("localTxId1"));
+    assertThat(batchCallback.inFlight(), is(2));
+
+    batchCallback.getAck("globalTxId", "localTxId2", CompensateAckType.Succeed);
+    assertThat(futures.get(0).isDone(), is(true));
+    assertThat(futures.get(1).isDone(), is(false));
+  }
+
+  private void assertFailedWith(CompletableFuture<Void> future, Class<?> type) throws Exception {
+    try {
+      future.get();
+      fail("the compensation is expected to fail");
+    } catch (ExecutionException e) {
+      assertThat(e.getCause(), instanceOf(type));
+    }
+  }
+
+  private TxEvent eventOf(String localTxId) {
+    return new TxEvent("service", "instance", "globalTxId", localTxId, null,
+        TxCompensateEvent.name(), "compensate", new byte[0]);
+  }
+}
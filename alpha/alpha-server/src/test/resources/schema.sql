@@ -21,6 +21,27 @@ CREATE TABLE IF NOT EXISTS TxEvent (
   instanceId varchar(36) NOT NULL,
   creationTime TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL,
   globalTxId varchar(36) NOT NULL,
+  partitionKey int DEFAULT NULL,
+  localTxId varchar(36) NOT NULL,
+  parentTxId varchar(36) DEFAULT NULL,
+  type varchar(50) NOT NULL,
+  compensationMethod varchar(512) NOT NULL,
+  expiryTime TIMESTAMP NOT NULL,
+  retryMethod varchar(256) NOT NULL,
+  retries int DEFAULT 0 NOT NULL,
+  payloads blob,
+  terminalType varchar(50) GENERATED ALWAYS AS (CASE WHEN type = 'SagaEndedEvent' THEN type ELSE NULL END),
+  UNIQUE (globalTxId, localTxId, terminalType)
+);
+
+CREATE INDEX IF NOT EXISTS saga_type_creation_time_index ON TxEvent (type, creationTime);
+
+CREATE TABLE IF NOT EXISTS TxEventArchive (
+  surrogateId bigint PRIMARY KEY,
+  serviceName varchar(36) NOT NULL,
+  instanceId varchar(36) NOT NULL,
+  creationTime TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL,
+  globalTxId varchar(36) NOT NULL,
   localTxId varchar(36) NOT NULL,
   parentTxId varchar(36) DEFAULT NULL,
   type varchar(50) NOT NULL,
@@ -37,6 +58,7 @@ CREATE TABLE IF NOT EXISTS Command (
   serviceName varchar(36) NOT NULL,
   instanceId varchar(36) NOT NULL,
   globalTxId varchar(36) NOT NULL,
+  partitionKey int DEFAULT NULL,
   localTxId varchar(36) NOT NULL,
   parentTxId varchar(36) DEFAULT NULL,
   compensationMethod varchar(512) NOT NULL,
@@ -52,6 +74,7 @@ CREATE TABLE IF NOT EXISTS TxTimeout (
   serviceName varchar(36) NOT NULL,
   instanceId varchar(36) NOT NULL,
   globalTxId varchar(36) NOT NULL,
+  partitionKey int DEFAULT NULL,
   localTxId varchar(36) NOT NULL,
   parentTxId varchar(36) DEFAULT NULL,
   type varchar(50) NOT NULL,
@@ -60,6 +83,30 @@ CREATE TABLE IF NOT EXISTS TxTimeout (
   version bigint NOT NULL
 );
 
+CREATE TABLE IF NOT EXISTS SagaState (
+  globalTxId varchar(36) NOT NULL PRIMARY KEY,
+  serviceName varchar(36) NOT NULL,
+  instanceId varchar(36) NOT NULL,
+  status varchar(12),
+  lastModified TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS cluster_member (
+  memberId varchar(36) NOT NULL PRIMARY KEY,
+  serviceName varchar(36) NOT NULL,
+  instanceId varchar(255) NOT NULL,
+  heartbeatTime TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL,
+  partitions varchar(512)
+);
+
+CREATE TABLE IF NOT EXISTS SagaStatistics (
+  name varchar(36) NOT NULL PRIMARY KEY,
+  finished int DEFAULT 0 NOT NULL,
+  committed int DEFAULT 0 NOT NULL,
+  rolledBack int DEFAULT 0 NOT NULL,
+  updateTime TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL
+);
+
 CREATE TABLE IF NOT EXISTS tcc_global_tx_event (
   surrogateId bigint GENERATED BY DEFAULT AS IDENTITY(START WITH 1, INCREMENT BY 1) PRIMARY KEY,
   globalTxId varchar(36) NOT NULL,
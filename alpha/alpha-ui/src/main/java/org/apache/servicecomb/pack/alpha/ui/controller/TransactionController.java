@@ -24,6 +24,7 @@ import java.util.Base64;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.zip.DataFormatException;
 import org.apache.servicecomb.pack.alpha.core.api.APIv1;
 import org.apache.servicecomb.pack.alpha.core.fsm.repository.model.GlobalTransaction;
 import org.apache.servicecomb.pack.alpha.core.fsm.repository.model.PagingGlobalTransactions;
@@ -34,6 +35,7 @@ import org.apache.servicecomb.pack.alpha.ui.vo.EventDTO;
 import org.apache.servicecomb.pack.alpha.ui.vo.SubTransactionDTO;
 import org.apache.servicecomb.pack.alpha.ui.vo.TransactionRowDTO;
 import org.apache.servicecomb.pack.alpha.ui.vo.TransactionStatisticsDTO;
+import org.apache.servicecomb.pack.common.DeflatePayloads;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -189,8 +191,8 @@ public class TransactionController {
           Decoder decoder = Base64.getDecoder();
           String exception;
           try {
-            exception = new String(decoder.decode(event.get("payloads").toString()), "UTF-8");
-          } catch (IOException e) {
+            exception = new String(inflate(decoder.decode(event.get("payloads").toString())), "UTF-8");
+          } catch (IOException | DataFormatException e) {
             exception = "BASE64Decoder error";
             LOG.error(e.getMessage(), e);
           }
@@ -270,6 +272,11 @@ public class TransactionController {
     return globalTransaction;
   }
 
+  // payloads of omega are deflated above the omega.payload.compressionThreshold
+  private byte[] inflate(byte[] payloads) throws DataFormatException {
+    return DeflatePayloads.isDeflated(payloads) ? DeflatePayloads.inflate(payloads) : payloads;
+  }
+
   private AlphaMetrics getAlphaMetrics() {
     AlphaMetrics alphaMetrics = apiv1.getMetrics();
     return alphaMetrics;
@@ -0,0 +1,34 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+-- Upgrades the alpha tables of MySQL created by Pack 0.5.0, run it once before starting the new alpha.
+-- PostgreSQL tables are upgraded by schema-postgresql.sql when alpha starts.
+
+-- the partition of the EventScanner work, the rows stored before belong to the partition 0
+ALTER TABLE TxEvent ADD COLUMN partitionKey int(11) DEFAULT NULL;
+ALTER TABLE Command ADD COLUMN partitionKey int(11) DEFAULT NULL;
+ALTER TABLE TxTimeout ADD COLUMN partitionKey int(11) DEFAULT NULL;
+
+-- a global transaction has at most one SagaEndedEvent, the duplicates saved before are removed first
+DELETE t FROM TxEvent t INNER JOIN TxEvent t1
+  ON t1.globalTxId = t.globalTxId AND t1.localTxId = t.localTxId AND t1.type = t.type AND t1.surrogateId > t.surrogateId
+WHERE t.type = 'SagaEndedEvent';
+ALTER TABLE TxEvent
+  ADD COLUMN terminalType varchar(50) AS (CASE WHEN type = 'SagaEndedEvent' THEN type ELSE NULL END) STORED,
+  ADD UNIQUE INDEX saga_terminal_event_index (globalTxId, localTxId, terminalType);
+
+ALTER TABLE TxEvent ADD INDEX saga_type_creation_time_index (type, creationTime);
@@ -46,6 +46,8 @@ public class AlphaClusterConfig {
 
   private TccMessageHandler tccMessageHandler;
 
+  private int maxEventsInFlight;
+
   /**
    * @deprecated Use {@link Builder} instead.
    */
@@ -69,7 +71,8 @@ public class AlphaClusterConfig {
       MessageSerializer messageSerializer,
       MessageDeserializer messageDeserializer,
       MessageHandler messageHandler,
-      TccMessageHandler tccMessageHandler) {
+      TccMessageHandler tccMessageHandler,
+      int maxEventsInFlight) {
     this.addresses = addresses;
     this.enableSSL = enableSSL;
     this.enableMutualAuth = enableMutualAuth;
@@ -80,6 +83,7 @@ public class AlphaClusterConfig {
     this.messageDeserializer = messageDeserializer;
     this.messageHandler = messageHandler;
     this.tccMessageHandler = tccMessageHandler;
+    this.maxEventsInFlight = maxEventsInFlight;
   }
 
   public static Builder builder() {
@@ -98,7 +102,13 @@ public class AlphaClusterConfig {
     private MessageDeserializer messageDeserializer;
     private MessageHandler messageHandler;
     private TccMessageHandler tccMessageHandler;
+    private int maxEventsInFlight;
 
+    /**
+     * @param addresses host:port of the alpha servers, or unix:///path of the unix domain socket of
+     * a co-located alpha which requires the io.netty:netty-transport-native-epoll dependency with the
+     * linux-x86_64 classifier
+     */
     public Builder addresses(List<String> addresses) {
       this.addresses = addresses;
       return this;
@@ -149,6 +159,15 @@ public class AlphaClusterConfig {
       return this;
     }
 
+    /**
+     * Pipeline up to maxEventsInFlight saga events on the OnTxEvents stream, the events are sent
+     * one by one with OnTxEvent if it is not positive.
+     */
+    public Builder maxEventsInFlight(int maxEventsInFlight) {
+      this.maxEventsInFlight = maxEventsInFlight;
+      return this;
+    }
+
 
     public AlphaClusterConfig build() {
       return new AlphaClusterConfig(this.addresses,
@@ -160,7 +179,8 @@ public class AlphaClusterConfig {
           this.messageSerializer,
           this.messageDeserializer,
           messageHandler,
-          tccMessageHandler);
+          tccMessageHandler,
+          maxEventsInFlight);
     }
   }
 
@@ -203,4 +223,8 @@ public class AlphaClusterConfig {
   public TccMessageHandler getTccMessageHandler() {
     return tccMessageHandler;
   }
+
+  public int getMaxEventsInFlight() {
+    return maxEventsInFlight;
+  }
 }
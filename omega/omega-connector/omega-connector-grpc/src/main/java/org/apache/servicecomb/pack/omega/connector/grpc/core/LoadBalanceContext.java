@@ -32,10 +32,13 @@ public class LoadBalanceContext {
 
   private final GrpcOnErrorHandler grpcOnErrorHandler;
 
+  private final int timeoutSeconds;
+
   public LoadBalanceContext(Map<MessageSender, Long> senders,
       Collection<ManagedChannel> channels, int reconnectDelay, int timeoutSeconds) {
     this.senders = senders;
     this.channels = channels;
+    this.timeoutSeconds = timeoutSeconds;
     this.pendingTaskRunner = new PendingTaskRunner(reconnectDelay);
     this.grpcOnErrorHandler = new GrpcOnErrorHandler(pendingTaskRunner.getPendingTasks(), senders, timeoutSeconds);
     pendingTaskRunner.start();
@@ -57,6 +60,10 @@ public class LoadBalanceContext {
     return grpcOnErrorHandler;
   }
 
+  public int getTimeoutSeconds() {
+    return timeoutSeconds;
+  }
+
   // this is only for test
   public void setSenders(Map<MessageSender, Long> senders) {
     this.senders = senders;
@@ -23,9 +23,15 @@ import io.grpc.ManagedChannelBuilder;
 import io.grpc.netty.GrpcSslContexts;
 import io.grpc.netty.NegotiationType;
 import io.grpc.netty.NettyChannelBuilder;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollDomainSocketChannel;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.unix.DomainSocketAddress;
 import io.netty.handler.ssl.SslContext;
 import io.netty.handler.ssl.SslContextBuilder;
 import io.netty.handler.ssl.SslProvider;
+import io.netty.util.concurrent.DefaultThreadFactory;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
@@ -44,6 +50,8 @@ import org.apache.servicecomb.pack.omega.transaction.MessageSender;
 
 public class LoadBalanceContextBuilder {
 
+  private static final String DOMAIN_SOCKET_SCHEME = "unix://";
+
   private final AlphaClusterConfig clusterConfig;
 
   private final ServiceConfig serviceConfig;
@@ -83,6 +91,9 @@ public class LoadBalanceContextBuilder {
   }
 
   private ManagedChannel buildChannel(String address, Optional<SslContext> sslContext) {
+    if (address.startsWith(DOMAIN_SOCKET_SCHEME)) {
+      return buildDomainSocketChannel(address.substring(DOMAIN_SOCKET_SCHEME.length()));
+    }
     if (sslContext.isPresent()) {
       return NettyChannelBuilder.forTarget(address)
           .negotiationType(NegotiationType.TLS)
@@ -95,6 +106,16 @@ public class LoadBalanceContextBuilder {
     }
   }
 
+  private ManagedChannel buildDomainSocketChannel(String path) {
+    try {
+      Class.forName("io.netty.channel.epoll.Epoll", false, LoadBalanceContextBuilder.class.getClassLoader());
+    } catch (ClassNotFoundException e) {
+      throw new IllegalStateException("Alpha address " + DOMAIN_SOCKET_SCHEME + path
+          + " requires the io.netty:netty-transport-native-epoll dependency with the linux-x86_64 classifier", e);
+    }
+    return DomainSocketChannels.build(path);
+  }
+
   private MessageSender buildSender(
       String address, ManagedChannel channel, AlphaClusterConfig clusterConfig,
       ServiceConfig serviceConfig, LoadBalanceContext loadContext) {
@@ -114,7 +135,8 @@ public class LoadBalanceContextBuilder {
             clusterConfig.getMessageDeserializer(),
             serviceConfig,
             clusterConfig.getMessageHandler(),
-            loadContext
+            loadContext,
+            clusterConfig.getMaxEventsInFlight()
         );
         default:
     }
@@ -152,4 +174,23 @@ public class LoadBalanceContextBuilder {
       throw new IllegalArgumentException("Unable to build SslContext", e);
     }
   }
+
+  // only loaded for unix:// addresses, as the epoll transport is an optional dependency
+  private static class DomainSocketChannels {
+    // shared by the domain socket channels, which do not own it and are rebuilt on reconnection
+    private static final EventLoopGroup EVENT_LOOP_GROUP =
+        new EpollEventLoopGroup(0, new DefaultThreadFactory("omega-domain-socket", true));
+
+    private static ManagedChannel build(String path) {
+      if (!Epoll.isAvailable()) {
+        throw new IllegalStateException("Unix domain socket requires the epoll native transport",
+            Epoll.unavailabilityCause());
+      }
+      return NettyChannelBuilder.forAddress(new DomainSocketAddress(path))
+          .channelType(EpollDomainSocketChannel.class)
+          .eventLoopGroup(EVENT_LOOP_GROUP)
+          .usePlaintext()
+          .build();
+    }
+  }
 }
@@ -19,6 +19,8 @@ package org.apache.servicecomb.pack.omega.connector.grpc.core;
 
 import com.google.common.base.Optional;
 import io.grpc.ManagedChannel;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
 import java.lang.invoke.MethodHandles;
 import org.apache.servicecomb.pack.contract.grpc.ServerMeta;
 import org.apache.servicecomb.pack.omega.transaction.AlphaResponse;
@@ -35,6 +37,11 @@ public abstract class LoadBalanceSenderAdapter implements MessageSender {
 
   private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
+  // an overloaded alpha is only picked if no other alpha is available, it is not disconnected
+  private static final long OVERLOADED = Long.MAX_VALUE - 1;
+
+  private static final long OVERLOAD_BACKOFF_MILLIS = 100;
+
   public LoadBalanceSenderAdapter(
       LoadBalanceContext loadContext,
       MessageSenderPicker senderPicker) {
@@ -57,12 +64,43 @@ public abstract class LoadBalanceSenderAdapter implements MessageSender {
     } catch (OmegaException e) {
       throw e;
     } catch (Exception e) {
-      LOG.error("Retry sending event {} due to failure", event, e);
-      loadContext.getSenders().put(messageSender, Long.MAX_VALUE);
+      if (isOverloaded(e)) {
+        LOG.warn("Alpha {} is overloaded, retry sending event {} on another alpha", messageSender.target(), event);
+        loadContext.getSenders().put(messageSender, OVERLOADED);
+        // the next pick goes to another alpha at once, waiting only helps if there is none left
+        if (allSendersOverloaded()) {
+          backOff();
+        }
+      } else {
+        LOG.error("Retry sending event {} due to failure", event, e);
+        loadContext.getSenders().put(messageSender, Long.MAX_VALUE);
+      }
     }
     return Optional.fromNullable(response);
   }
 
+  private boolean isOverloaded(Exception e) {
+    return e instanceof StatusRuntimeException
+        && ((StatusRuntimeException) e).getStatus().getCode() == Status.Code.RESOURCE_EXHAUSTED;
+  }
+
+  private boolean allSendersOverloaded() {
+    for (Long latency : loadContext.getSenders().values()) {
+      if (latency < OVERLOADED) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private void backOff() {
+    try {
+      Thread.sleep(OVERLOAD_BACKOFF_MILLIS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
   @Override
   public void onConnected() {
     for(MessageSender sender : loadContext.getSenders().keySet()){
@@ -46,6 +46,23 @@ class GrpcCompensateStreamObserver extends ReconnectStreamObserver<GrpcCompensat
 
   @Override
   public void onNext(GrpcCompensateCommand command) {
+    if (command.hasBatch()) {
+      LOG.info("Received {} gang sent compensate commands", command.getBatch().getCommandsCount());
+      // alpha lists the commands in the order they need to be run
+      for (GrpcCompensateCommand each : command.getBatch().getCommandsList()) {
+        try {
+          compensate(each);
+        } catch (Exception e) {
+          LOG.error("Failed to run compensate command, global tx id: {}, local tx id: {}",
+              each.getGlobalTxId(), each.getLocalTxId(), e);
+        }
+      }
+    } else {
+      compensate(command);
+    }
+  }
+
+  private void compensate(GrpcCompensateCommand command) {
     LOG.info("Received compensate command, global tx id: {}, local tx id: {}, compensation method: {}",
         command.getGlobalTxId(), command.getLocalTxId(), command.getCompensationMethod());
 
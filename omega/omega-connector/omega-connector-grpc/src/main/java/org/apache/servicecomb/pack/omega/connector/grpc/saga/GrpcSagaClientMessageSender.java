@@ -18,6 +18,7 @@
 package org.apache.servicecomb.pack.omega.connector.grpc.saga;
 
 import com.google.protobuf.ByteString;
+import com.google.protobuf.UnsafeByteOperations;
 import io.grpc.ManagedChannel;
 import org.apache.servicecomb.pack.contract.grpc.ServerMeta;
 import org.apache.servicecomb.pack.omega.connector.grpc.core.LoadBalanceContext;
@@ -26,6 +27,7 @@ import org.apache.servicecomb.pack.omega.transaction.AlphaResponse;
 import org.apache.servicecomb.pack.omega.transaction.MessageDeserializer;
 import org.apache.servicecomb.pack.omega.transaction.MessageHandler;
 import org.apache.servicecomb.pack.omega.transaction.MessageSerializer;
+import org.apache.servicecomb.pack.omega.transaction.OmegaException;
 import org.apache.servicecomb.pack.omega.transaction.SagaMessageSender;
 import org.apache.servicecomb.pack.omega.transaction.TxEvent;
 import org.apache.servicecomb.pack.contract.grpc.GrpcAck;
@@ -50,6 +52,8 @@ public class GrpcSagaClientMessageSender implements SagaMessageSender {
 
   private final GrpcServiceConfig serviceConfig;
 
+  private final GrpcTxEventStream eventStream;
+
   public GrpcSagaClientMessageSender(
       String address,
       ManagedChannel channel,
@@ -58,6 +62,22 @@ public class GrpcSagaClientMessageSender implements SagaMessageSender {
       ServiceConfig serviceConfig,
       MessageHandler handler,
       LoadBalanceContext loadContext) {
+    this(address, channel, serializer, deserializer, serviceConfig, handler, loadContext, 0);
+  }
+
+  /**
+   * @param maxEventsInFlight the number of events pipelined on the OnTxEvents stream, the events
+   * are sent with unary OnTxEvent calls if it is not positive
+   */
+  public GrpcSagaClientMessageSender(
+      String address,
+      ManagedChannel channel,
+      MessageSerializer serializer,
+      MessageDeserializer deserializer,
+      ServiceConfig serviceConfig,
+      MessageHandler handler,
+      LoadBalanceContext loadContext,
+      int maxEventsInFlight) {
     this.target = address;
     this.asyncEventService = TxEventServiceGrpc.newStub(channel);
     this.blockingEventService = TxEventServiceGrpc.newBlockingStub(channel);
@@ -65,6 +85,8 @@ public class GrpcSagaClientMessageSender implements SagaMessageSender {
     this.compensateStreamObserver =
         new GrpcCompensateStreamObserver(loadContext, this, handler, deserializer);
     this.serviceConfig = serviceConfig(serviceConfig.serviceName(), serviceConfig.instanceId());
+    this.eventStream = maxEventsInFlight > 0 ? new GrpcTxEventStream(asyncEventService, maxEventsInFlight,
+        loadContext.getTimeoutSeconds()) : null;
   }
 
   @Override
@@ -84,7 +106,9 @@ public class GrpcSagaClientMessageSender implements SagaMessageSender {
 
   @Override
   public void close() {
-    // just do nothing here
+    if (eventStream != null) {
+      eventStream.close();
+    }
   }
 
   @Override
@@ -94,12 +118,26 @@ public class GrpcSagaClientMessageSender implements SagaMessageSender {
 
   @Override
   public AlphaResponse send(TxEvent event) {
+    if (eventStream != null && eventStream.isSupported()) {
+      try {
+        return new AlphaResponse(eventStream.send(convertEvent(event)).getAborted());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new OmegaException("Failed to send event " + event + " due to interruption", e);
+      } catch (RuntimeException e) {
+        if (eventStream.isSupported()) {
+          throw e;
+        }
+        // alpha does not implement OnTxEvents, so the event was not handled yet
+      }
+    }
     GrpcAck grpcAck = blockingEventService.onTxEvent(convertEvent(event));
     return new AlphaResponse(grpcAck.getAborted());
   }
 
   private GrpcTxEvent convertEvent(TxEvent event) {
-    ByteString payloads = ByteString.copyFrom(serializer.serialize(event.payloads()));
+    // the serialized array is not shared with anyone, so it is wrapped instead of copied
+    ByteString payloads = UnsafeByteOperations.unsafeWrap(serializer.serialize(event.payloads()));
 
     Builder builder = GrpcTxEvent.newBuilder()
         .setServiceName(serviceConfig.getServiceName())
@@ -126,6 +164,7 @@ public class GrpcSagaClientMessageSender implements SagaMessageSender {
     return GrpcServiceConfig.newBuilder()
         .setServiceName(serviceName)
         .setInstanceId(instanceId)
+        .setCompensateBatchSupported(true)
         .build();
   }
 }
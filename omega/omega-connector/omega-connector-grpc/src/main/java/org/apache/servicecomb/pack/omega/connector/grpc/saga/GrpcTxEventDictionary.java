@@ -0,0 +1,72 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.servicecomb.pack.omega.connector.grpc.saga;
+
+import static org.apache.servicecomb.pack.common.EventStreamDictionary.MAX_SIZE;
+
+import java.util.HashMap;
+import java.util.Map;
+import org.apache.servicecomb.pack.contract.grpc.GrpcTxEvent;
+
+/**
+ * Replaces the strings repeated in every event of an OnTxEvents stream, such as the service name and
+ * the compensation method signature, with small ids. A string is sent in full together with its id the
+ * first time it is used on the stream, alpha keeps the definitions for the lifetime of the stream.
+ * Events must be encoded in the same order they are written to the stream.
+ */
+class GrpcTxEventDictionary {
+
+  private final Map<String, Integer> ids = new HashMap<>();
+
+  void encode(GrpcTxEvent.Builder builder) {
+    int id = idOf(builder, builder.getServiceName());
+    if (id > 0) {
+      builder.clearServiceName().setServiceNameId(id);
+    }
+    id = idOf(builder, builder.getInstanceId());
+    if (id > 0) {
+      builder.clearInstanceId().setInstanceIdId(id);
+    }
+    id = idOf(builder, builder.getCompensationMethod());
+    if (id > 0) {
+      builder.clearCompensationMethod().setCompensationMethodId(id);
+    }
+    id = idOf(builder, builder.getRetryMethod());
+    if (id > 0) {
+      builder.clearRetryMethod().setRetryMethodId(id);
+    }
+  }
+
+  // returns 0 if the value stays inline
+  private int idOf(GrpcTxEvent.Builder builder, String value) {
+    if (value.isEmpty()) {
+      return 0;
+    }
+    Integer id = ids.get(value);
+    if (id == null) {
+      if (ids.size() >= MAX_SIZE) {
+        return 0;
+      }
+      id = ids.size() + 1;
+      ids.put(value, id);
+      builder.putDefinitions(id, value);
+    }
+    return id;
+  }
+}
@@ -0,0 +1,179 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.servicecomb.pack.omega.connector.grpc.saga;
+
+import com.google.common.util.concurrent.SettableFuture;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.stub.StreamObserver;
+import java.lang.invoke.MethodHandles;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.servicecomb.pack.contract.grpc.GrpcAck;
+import org.apache.servicecomb.pack.contract.grpc.GrpcTxEvent;
+import org.apache.servicecomb.pack.contract.grpc.TxEventServiceGrpc.TxEventServiceStub;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Pipelines the events of all the sending threads on one OnTxEvents stream. Every event is tagged
+ * with a sequence number and the caller is released when the ack with the same sequence arrives,
+ * so up to maxInFlight events are on the wire at the same time instead of one per round trip.
+ * A failed stream fails its pending events and a new stream is opened by the next send. An event
+ * which alpha failed to handle, or which is not acked within the sending timeout, fails alone.
+ * Repeated strings are sent once per stream, see {@link GrpcTxEventDictionary}.
+ */
+class GrpcTxEventStream {
+
+  private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  private final TxEventServiceStub asyncEventService;
+
+  private final Semaphore inFlight;
+
+  private final int timeoutSeconds;
+
+  private final AtomicLong sequence = new AtomicLong();
+
+  private AckObserver current;
+
+  private volatile boolean unsupported;
+
+  /**
+   * @param timeoutSeconds how long a sender waits for the ack of its event, it waits without a
+   * deadline if it is not positive
+   */
+  GrpcTxEventStream(TxEventServiceStub asyncEventService, int maxInFlight, int timeoutSeconds) {
+    this.asyncEventService = asyncEventService;
+    this.inFlight = new Semaphore(maxInFlight);
+    this.timeoutSeconds = timeoutSeconds;
+  }
+
+  /**
+   * @return false if alpha does not implement OnTxEvents, OnTxEvent needs to be used instead
+   */
+  boolean isSupported() {
+    return !unsupported;
+  }
+
+  GrpcAck send(GrpcTxEvent event) throws InterruptedException {
+    inFlight.acquire();
+    AckObserver observer;
+    long seq;
+    try {
+      SettableFuture<GrpcAck> ack = SettableFuture.create();
+      synchronized (this) {
+        if (current == null) {
+          current = new AckObserver();
+          current.requestObserver = asyncEventService.onTxEvents(current);
+        }
+        observer = current;
+        seq = sequence.incrementAndGet();
+        GrpcTxEvent.Builder builder = event.toBuilder().setSequence(seq);
+        current.dictionary.encode(builder);
+        current.pendingAcks.put(seq, ack);
+        try {
+          current.requestObserver.onNext(builder.build());
+        } catch (RuntimeException e) {
+          current.pendingAcks.remove(seq);
+          // alpha may have missed the definitions of this event, so the stream cannot be reused
+          current = null;
+          throw e;
+        }
+      }
+      GrpcAck grpcAck;
+      try {
+        grpcAck = timeoutSeconds > 0 ? ack.get(timeoutSeconds, TimeUnit.SECONDS) : ack.get();
+      } catch (TimeoutException e) {
+        observer.pendingAcks.remove(seq);
+        throw Status.DEADLINE_EXCEEDED
+            .withDescription("No ack of event " + seq + " within " + timeoutSeconds + " seconds")
+            .asRuntimeException();
+      }
+      if (!grpcAck.getError().isEmpty()) {
+        throw Status.INTERNAL.withDescription(grpcAck.getError()).asRuntimeException();
+      }
+      return grpcAck;
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof StatusRuntimeException
+          && ((StatusRuntimeException) cause).getStatus().getCode() == Status.Code.UNIMPLEMENTED) {
+        LOG.warn("Alpha does not support OnTxEvents, falling back to OnTxEvent");
+        unsupported = true;
+      }
+      throw cause instanceof RuntimeException ? (RuntimeException) cause : new IllegalStateException(cause);
+    } finally {
+      inFlight.release();
+    }
+  }
+
+  synchronized void close() {
+    if (current != null) {
+      current.requestObserver.onCompleted();
+      current = null;
+    }
+  }
+
+  private class AckObserver implements StreamObserver<GrpcAck> {
+
+    private final Map<Long, SettableFuture<GrpcAck>> pendingAcks = new ConcurrentHashMap<>();
+
+    private final GrpcTxEventDictionary dictionary = new GrpcTxEventDictionary();
+
+    private StreamObserver<GrpcTxEvent> requestObserver;
+
+    @Override
+    public void onNext(GrpcAck ack) {
+      SettableFuture<GrpcAck> future = pendingAcks.remove(ack.getSequence());
+      if (future != null) {
+        future.set(ack);
+      }
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+      LOG.error("Event stream to alpha failed with {} pending events", pendingAcks.size(), throwable);
+      fail(throwable);
+    }
+
+    @Override
+    public void onCompleted() {
+      fail(new IllegalStateException("Event stream was completed by alpha"));
+    }
+
+    private void fail(Throwable cause) {
+      synchronized (GrpcTxEventStream.this) {
+        if (current == this) {
+          current = null;
+        }
+      }
+      for (Long seq : pendingAcks.keySet()) {
+        SettableFuture<GrpcAck> future = pendingAcks.remove(seq);
+        if (future != null) {
+          future.setException(cause);
+        }
+      }
+    }
+  }
+}
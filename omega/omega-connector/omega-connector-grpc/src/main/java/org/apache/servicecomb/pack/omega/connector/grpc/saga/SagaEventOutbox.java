@@ -0,0 +1,335 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.servicecomb.pack.omega.connector.grpc.saga;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.invoke.MethodHandles;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import org.apache.servicecomb.pack.common.EventType;
+import org.apache.servicecomb.pack.omega.transaction.MessageDeserializer;
+import org.apache.servicecomb.pack.omega.transaction.MessageSerializer;
+import org.apache.servicecomb.pack.omega.transaction.OmegaException;
+import org.apache.servicecomb.pack.omega.transaction.TxEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An append-only queue of {@link TxEvent}s kept in a memory-mapped file, so that events stashed
+ * while alpha is unreachable survive an omega restart.
+ *
+ * <p>The file starts with a header holding a magic number, the read position and the write position,
+ * followed by length prefixed records. Space is reclaimed once the queue is drained completely, an
+ * event which does not fit into the remaining space is refused. The file is locked while the outbox is
+ * open, an outbox whose file is locked by another one fails to open.
+ */
+public class SagaEventOutbox {
+
+  private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  private static final int MAGIC = 0x4F425831;
+
+  private static final int READ_POSITION_OFFSET = 4;
+
+  private static final int WRITE_POSITION_OFFSET = 8;
+
+  private static final int HEADER_SIZE = 12;
+
+  public enum SyncPolicy {
+    // leave flushing to the operating system, events survive a process crash but not a power loss
+    NONE,
+    // flush every appended event to disk before acknowledging it
+    ALWAYS,
+    // flush appended events at most once per sync interval
+    INTERVAL
+  }
+
+  private final File file;
+
+  private final RandomAccessFile raf;
+
+  private final MappedByteBuffer buffer;
+
+  private final int capacity;
+
+  private final SyncPolicy syncPolicy;
+
+  private final long syncIntervalMillis;
+
+  private final MessageSerializer serializer;
+
+  private final MessageDeserializer deserializer;
+
+  private int readPosition;
+
+  private int writePosition;
+
+  // read without the lock, so that the senders only synchronize with the outbox if it has events
+  private volatile int depth;
+
+  private boolean dirty;
+
+  private long lastSyncTime;
+
+  public SagaEventOutbox(File file, int capacity, SyncPolicy syncPolicy, long syncIntervalMillis,
+      MessageSerializer serializer, MessageDeserializer deserializer) {
+    if (capacity <= HEADER_SIZE) {
+      throw new IllegalArgumentException("Outbox capacity must be greater than " + HEADER_SIZE + " bytes");
+    }
+    this.file = file;
+    this.syncPolicy = syncPolicy;
+    this.syncIntervalMillis = syncIntervalMillis;
+    this.serializer = serializer;
+    this.deserializer = deserializer;
+    try {
+      this.raf = new RandomAccessFile(file, "rw");
+      lock(raf, file);
+      this.capacity = (int) Math.max(capacity, Math.min(raf.length(), Integer.MAX_VALUE));
+      this.buffer = raf.getChannel().map(MapMode.READ_WRITE, 0, this.capacity);
+    } catch (IOException e) {
+      throw new OmegaException("Failed to open outbox file " + file, e);
+    }
+    recover();
+  }
+
+  // two omegas sharing the file would overwrite each other's events
+  private static void lock(RandomAccessFile raf, File file) throws IOException {
+    FileLock lock;
+    try {
+      lock = raf.getChannel().tryLock();
+    } catch (OverlappingFileLockException e) {
+      lock = null;
+    }
+    if (lock == null) {
+      raf.close();
+      throw new OmegaException("Outbox file " + file
+          + " is used by another omega, set omega.outbox.file to a file of its own");
+    }
+  }
+
+  /**
+   * Appends the event to the end of the outbox.
+   *
+   * @return false if there is no room left for the event
+   */
+  public synchronized boolean append(TxEvent event) {
+    byte[] record = encode(event);
+    if ((long) writePosition + 4 + record.length > capacity) {
+      return false;
+    }
+    ByteBuffer slice = buffer.duplicate();
+    slice.position(writePosition + 4);
+    slice.put(record);
+    buffer.putInt(writePosition, record.length);
+    // the record is only visible after the write position moves past it
+    writePosition += 4 + record.length;
+    buffer.putInt(WRITE_POSITION_OFFSET, writePosition);
+    depth++;
+    dirty = true;
+    if (syncPolicy == SyncPolicy.ALWAYS) {
+      sync();
+    } else {
+      syncIfDue();
+    }
+    return true;
+  }
+
+  /**
+   * @return the oldest event in the outbox, or null if the outbox is empty
+   */
+  public synchronized TxEvent peek() {
+    if (depth == 0) {
+      return null;
+    }
+    return decode(readRecord(readPosition));
+  }
+
+  /**
+   * Removes the oldest event from the outbox, once it was delivered to alpha.
+   */
+  public synchronized void remove() {
+    if (depth == 0) {
+      return;
+    }
+    readPosition += 4 + buffer.getInt(readPosition);
+    depth--;
+    if (depth == 0) {
+      readPosition = HEADER_SIZE;
+      writePosition = HEADER_SIZE;
+      buffer.putInt(WRITE_POSITION_OFFSET, writePosition);
+    }
+    buffer.putInt(READ_POSITION_OFFSET, readPosition);
+    dirty = true;
+    if (syncPolicy == SyncPolicy.ALWAYS) {
+      sync();
+    }
+  }
+
+  public int depth() {
+    return depth;
+  }
+
+  public boolean isEmpty() {
+    return depth == 0;
+  }
+
+  /**
+   * Flushes pending changes if the {@link SyncPolicy#INTERVAL} policy is due.
+   */
+  public synchronized void syncIfDue() {
+    if (syncPolicy == SyncPolicy.INTERVAL && dirty
+        && System.currentTimeMillis() - lastSyncTime >= syncIntervalMillis) {
+      sync();
+    }
+  }
+
+  public synchronized void close() {
+    sync();
+    try {
+      raf.close();
+    } catch (IOException e) {
+      LOG.error("Failed to close outbox file {}", file, e);
+    }
+  }
+
+  private void sync() {
+    buffer.force();
+    dirty = false;
+    lastSyncTime = System.currentTimeMillis();
+  }
+
+  private void recover() {
+    readPosition = buffer.getInt(READ_POSITION_OFFSET);
+    writePosition = buffer.getInt(WRITE_POSITION_OFFSET);
+    if (buffer.getInt(0) != MAGIC
+        || readPosition < HEADER_SIZE || writePosition < readPosition || writePosition > capacity) {
+      if (buffer.getInt(0) == MAGIC) {
+        LOG.warn("Outbox file {} is corrupted, discarding its events", file);
+      }
+      reset();
+      return;
+    }
+    int position = readPosition;
+    while (position < writePosition) {
+      int length = buffer.getInt(position);
+      if (length < 0 || (long) position + 4 + length > writePosition) {
+        LOG.warn("Outbox file {} is truncated at {}, discarding the remaining events", file, position);
+        writePosition = position;
+        buffer.putInt(WRITE_POSITION_OFFSET, writePosition);
+        break;
+      }
+      position += 4 + length;
+      depth++;
+    }
+    if (depth > 0) {
+      LOG.info("Recovered {} events from outbox file {}", depth, file);
+    }
+  }
+
+  private void reset() {
+    readPosition = HEADER_SIZE;
+    writePosition = HEADER_SIZE;
+    depth = 0;
+    buffer.putInt(READ_POSITION_OFFSET, readPosition);
+    buffer.putInt(WRITE_POSITION_OFFSET, writePosition);
+    buffer.putInt(0, MAGIC);
+    sync();
+  }
+
+  private byte[] readRecord(int position) {
+    byte[] record = new byte[buffer.getInt(position)];
+    ByteBuffer slice = buffer.duplicate();
+    slice.position(position + 4);
+    slice.get(record);
+    return record;
+  }
+
+  private byte[] encode(TxEvent event) {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bytes);
+    try {
+      out.writeLong(event.timestamp());
+      out.writeUTF(event.type().name());
+      writeString(out, event.globalTxId());
+      writeString(out, event.localTxId());
+      writeString(out, event.parentTxId());
+      writeString(out, event.compensationMethod());
+      out.writeInt(event.timeout());
+      writeString(out, event.retryMethod());
+      out.writeInt(event.forwardRetries());
+      out.writeInt(event.forwardTimeout());
+      out.writeInt(event.reverseRetries());
+      out.writeInt(event.reverseTimeout());
+      out.writeInt(event.retryDelayInMilliseconds());
+      byte[] payloads = serializer.serialize(event.payloads());
+      out.writeInt(payloads.length);
+      out.write(payloads);
+      out.flush();
+    } catch (IOException e) {
+      throw new OmegaException("Failed to encode event " + event, e);
+    }
+    return bytes.toByteArray();
+  }
+
+  private TxEvent decode(byte[] record) {
+    DataInputStream in = new DataInputStream(new ByteArrayInputStream(record));
+    try {
+      long timestamp = in.readLong();
+      EventType type = EventType.valueOf(in.readUTF());
+      String globalTxId = readString(in);
+      String localTxId = readString(in);
+      String parentTxId = readString(in);
+      String compensationMethod = readString(in);
+      int timeout = in.readInt();
+      String retryMethod = readString(in);
+      int forwardRetries = in.readInt();
+      int forwardTimeout = in.readInt();
+      int reverseRetries = in.readInt();
+      int reverseTimeout = in.readInt();
+      int retryDelayInMilliseconds = in.readInt();
+      byte[] payloads = new byte[in.readInt()];
+      in.readFully(payloads);
+      return new TxEvent(timestamp, type, globalTxId, localTxId, parentTxId, compensationMethod, timeout,
+          retryMethod, forwardRetries, forwardTimeout, reverseRetries, reverseTimeout, retryDelayInMilliseconds,
+          deserializer.deserialize(payloads));
+    } catch (IOException | IllegalArgumentException e) {
+      throw new OmegaException("Failed to decode event from outbox file " + file, e);
+    }
+  }
+
+  private static void writeString(DataOutputStream out, String value) throws IOException {
+    out.writeBoolean(value != null);
+    if (value != null) {
+      out.writeUTF(value);
+    }
+  }
+
+  private static String readString(DataInputStream in) throws IOException {
+    return in.readBoolean() ? in.readUTF() : null;
+  }
+}
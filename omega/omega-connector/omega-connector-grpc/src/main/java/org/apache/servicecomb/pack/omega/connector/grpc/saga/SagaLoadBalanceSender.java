@@ -17,8 +17,18 @@
 
 package org.apache.servicecomb.pack.omega.connector.grpc.saga;
 
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
 import com.google.common.base.Optional;
+import io.netty.util.concurrent.DefaultThreadFactory;
 
+import java.lang.invoke.MethodHandles;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import org.apache.servicecomb.pack.common.EventType;
 import org.apache.servicecomb.pack.omega.connector.grpc.core.LoadBalanceSenderAdapter;
 import org.apache.servicecomb.pack.omega.connector.grpc.core.MessageSenderPicker;
 import org.apache.servicecomb.pack.omega.connector.grpc.core.SenderExecutor;
@@ -27,27 +37,162 @@ import org.apache.servicecomb.pack.omega.transaction.AlphaResponse;
 import org.apache.servicecomb.pack.omega.transaction.OmegaException;
 import org.apache.servicecomb.pack.omega.transaction.SagaMessageSender;
 import org.apache.servicecomb.pack.omega.transaction.TxEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 public class SagaLoadBalanceSender extends LoadBalanceSenderAdapter implements SagaMessageSender {
 
+  private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  // events whose response does not affect the business flow, they can be delivered to alpha later
+  private static final Set<EventType> OUTBOX_EVENT_TYPES = EnumSet.of(
+      EventType.TxEndedEvent,
+      EventType.TxCompensatedEvent,
+      EventType.TxCompensateAckSucceedEvent,
+      EventType.TxCompensateAckFailedEvent);
+
+  private static final AlphaResponse LOCAL_ACK = new AlphaResponse(false);
+
+  private final SagaEventOutbox outbox;
+
+  private final Object drainLock = new Object();
+
+  private final ScheduledExecutorService drainer;
+
   public SagaLoadBalanceSender(LoadBalanceContext loadContext,
       MessageSenderPicker senderPicker) {
+    this(loadContext, senderPicker, null, 0);
+  }
+
+  /**
+   * Stashes the events which don't affect the business flow in the outbox while all alpha servers are
+   * unreachable, and delivers them in order once a server is connected again.
+   */
+  public SagaLoadBalanceSender(LoadBalanceContext loadContext,
+      MessageSenderPicker senderPicker, final SagaEventOutbox outbox, long drainIntervalMillis) {
     super(loadContext, senderPicker);
+    this.outbox = outbox;
+    if (outbox == null) {
+      this.drainer = null;
+    } else {
+      // a daemon thread, the drainer must not keep the application alive if the sender isn't closed
+      this.drainer = Executors.newSingleThreadScheduledExecutor(
+          new DefaultThreadFactory("omega-outbox-drainer", true));
+      drainer.scheduleWithFixedDelay(new Runnable() {
+        @Override
+        public void run() {
+          outbox.syncIfDue();
+          if (!outbox.isEmpty() && !allSendersUnavailable()) {
+            try {
+              drainOutbox();
+            } catch (Exception e) {
+              LOG.warn("Failed to drain outbox, {} events are pending", outbox.depth(), e);
+            }
+          }
+        }
+      }, drainIntervalMillis, drainIntervalMillis, MILLISECONDS);
+    }
   }
 
   @Override
   public AlphaResponse send(TxEvent event) {
-    do {
-      final SagaMessageSender messageSender = pickMessageSender();
-      Optional<AlphaResponse> response = doGrpcSend(messageSender, event, new SenderExecutor<TxEvent>() {
-        @Override
-        public AlphaResponse apply(TxEvent event) {
-          return messageSender.send(event);
+    if (outbox != null) {
+      if (OUTBOX_EVENT_TYPES.contains(event.type())) {
+        Optional<AlphaResponse> response = outbox.isEmpty() ? trySend(event) : Optional.<AlphaResponse>absent();
+        if (response.isPresent()) {
+          return response.get();
+        }
+        if (outbox.append(event)) {
+          return LOCAL_ACK;
         }
-      });
+        LOG.warn("Outbox is full, sending event {} synchronously", event);
+      }
+      // stashed events must reach alpha before anything that happened after them
+      drainOutbox();
+    }
+    return doSend(event);
+  }
+
+  /**
+   * @return the number of events waiting in the outbox for alpha to become reachable
+   */
+  public int getOutboxDepth() {
+    return outbox == null ? 0 : outbox.depth();
+  }
+
+  @Override
+  public void close() {
+    if (drainer != null) {
+      // interrupts a drain waiting for alpha, the undelivered events stay in the outbox
+      drainer.shutdownNow();
+      try {
+        if (!drainer.awaitTermination(1, SECONDS)) {
+          LOG.warn("Outbox drainer did not stop in time");
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      outbox.close();
+    }
+    super.close();
+  }
+
+  private AlphaResponse doSend(TxEvent event) {
+    do {
+      Optional<AlphaResponse> response = sendOnce(this.<SagaMessageSender>pickMessageSender(), event);
       if (response.isPresent()) return response.get();
     } while (!Thread.currentThread().isInterrupted());
 
     throw new OmegaException("Failed to send event " + event + " due to interruption");
   }
+
+  // only tries the connected senders, never waits for a disconnected one to come back
+  private Optional<AlphaResponse> trySend(TxEvent event) {
+    while (!allSendersUnavailable() && !Thread.currentThread().isInterrupted()) {
+      Optional<AlphaResponse> response = sendOnce(this.<SagaMessageSender>pickMessageSender(), event);
+      if (response.isPresent()) {
+        return response;
+      }
+    }
+    return Optional.absent();
+  }
+
+  private Optional<AlphaResponse> sendOnce(final SagaMessageSender messageSender, TxEvent event) {
+    return doGrpcSend(messageSender, event, new SenderExecutor<TxEvent>() {
+      @Override
+      public AlphaResponse apply(TxEvent event) {
+        return messageSender.send(event);
+      }
+    });
+  }
+
+  private void drainOutbox() {
+    // most sends find the outbox empty and don't need to wait for each other
+    if (outbox.isEmpty()) {
+      return;
+    }
+    synchronized (drainLock) {
+      while (!outbox.isEmpty()) {
+        TxEvent event;
+        try {
+          event = outbox.peek();
+        } catch (OmegaException e) {
+          LOG.error("Dropping unreadable event from outbox", e);
+          outbox.remove();
+          continue;
+        }
+        doSend(event);
+        outbox.remove();
+      }
+    }
+  }
+
+  private boolean allSendersUnavailable() {
+    for (Long latency : getLoadContext().getSenders().values()) {
+      if (latency != Long.MAX_VALUE) {
+        return false;
+      }
+    }
+    return true;
+  }
 }
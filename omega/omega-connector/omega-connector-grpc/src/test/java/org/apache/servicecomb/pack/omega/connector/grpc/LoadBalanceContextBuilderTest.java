@@ -21,6 +21,7 @@ import static com.seanyinx.github.unit.scaffolding.Randomness.uniquify;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.core.IsInstanceOf.instanceOf;
+import static org.junit.Assume.assumeTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -28,6 +29,8 @@ import com.google.common.collect.Lists;
 import io.grpc.ManagedChannel;
 import io.grpc.inprocess.InProcessServerBuilder;
 import io.grpc.testing.GrpcCleanupRule;
+import io.netty.channel.epoll.Epoll;
+import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 
@@ -137,6 +140,20 @@ public class LoadBalanceContextBuilderTest {
     shutdownChannels(loadContext);
   }
 
+  @Test
+  public void buildSagaLoadBalanceContextWithDomainSocket() throws IOException {
+    assumeTrue(Epoll.isAvailable());
+    File socket = File.createTempFile("alpha", ".sock");
+    when(clusterConfig.getAddresses()).thenReturn(Lists.newArrayList("unix://" + socket.getAbsolutePath()));
+
+    LoadBalanceContext loadContext = sagaLoadBalanceContextBuilder.build();
+    assertThat(loadContext.getSenders().size(), is(1));
+    assertThat(loadContext.getSenders().keySet().iterator().next(), instanceOf(SagaMessageSender.class));
+    assertThat(loadContext.getChannels().size(), is(1));
+    shutdownChannels(loadContext);
+    socket.delete();
+  }
+
   private void shutdownChannels(LoadBalanceContext loadContext) {
     for (ManagedChannel each : loadContext.getChannels()) {
       each.shutdownNow();
@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.servicecomb.pack.omega.connector.grpc.saga;
+
+import static org.hamcrest.Matchers.contains;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+
+import com.google.protobuf.ByteString;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.servicecomb.pack.contract.grpc.GrpcCompensateCommand;
+import org.apache.servicecomb.pack.contract.grpc.GrpcCompensateCommandBatch;
+import org.apache.servicecomb.pack.omega.connector.grpc.core.LoadBalanceContext;
+import org.apache.servicecomb.pack.omega.transaction.MessageDeserializer;
+import org.apache.servicecomb.pack.omega.transaction.MessageHandler;
+import org.apache.servicecomb.pack.omega.transaction.MessageSender;
+import org.junit.Test;
+
+public class GrpcCompensateStreamObserverTest {
+
+  private final List<String> compensated = new ArrayList<>();
+
+  private final MessageHandler handler = new MessageHandler() {
+    @Override
+    public void onReceive(String globalTxId, String localTxId, String parentTxId, String compensationMethod,
+        Object... payloads) {
+      if ("broken".equals(compensationMethod)) {
+        throw new IllegalStateException("oops");
+      }
+      compensated.add(localTxId);
+    }
+  };
+
+  private final MessageDeserializer deserializer = new MessageDeserializer() {
+    @Override
+    public Object[] deserialize(byte[] message) {
+      return new Object[0];
+    }
+  };
+
+  private final GrpcCompensateStreamObserver observer = new GrpcCompensateStreamObserver(
+      mock(LoadBalanceContext.class), mock(MessageSender.class), handler, deserializer);
+
+  @Test
+  public void runsGangSentCommandsInListedOrder() {
+    observer.onNext(GrpcCompensateCommand.newBuilder()
+        .setBatch(GrpcCompensateCommandBatch.newBuilder()
+            .addCommands(commandOf("localTxId3", "compensate"))
+            .addCommands(commandOf("localTxId2", "broken"))
+            .addCommands(commandOf("localTxId1", "compensate")))
+        .build());
+
+    // a failing command does not stop the rest of the batch
+    assertThat(compensated, contains("localTxId3", "localTxId1"));
+  }
+
+  @Test
+  public void runsSingleCommand() {
+    observer.onNext(commandOf("localTxId1", "compensate"));
+
+    assertThat(compensated, contains("localTxId1"));
+  }
+
+  private GrpcCompensateCommand commandOf(String localTxId, String compensationMethod) {
+    return GrpcCompensateCommand.newBuilder()
+        .setGlobalTxId("globalTxId")
+        .setLocalTxId(localTxId)
+        .setCompensationMethod(compensationMethod)
+        .setPayloads(ByteString.EMPTY)
+        .build();
+  }
+}
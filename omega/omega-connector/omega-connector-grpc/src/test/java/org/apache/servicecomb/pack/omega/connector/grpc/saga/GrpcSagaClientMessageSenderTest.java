@@ -0,0 +1,346 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.servicecomb.pack.omega.connector.grpc.saga;
+
+import static com.seanyinx.github.unit.scaffolding.Randomness.uniquify;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNot.not;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import io.grpc.ManagedChannel;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.StreamObserver;
+import io.grpc.testing.GrpcCleanupRule;
+import io.grpc.util.MutableHandlerRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.servicecomb.pack.common.EventType;
+import org.apache.servicecomb.pack.contract.grpc.GrpcAck;
+import org.apache.servicecomb.pack.contract.grpc.GrpcTxEvent;
+import org.apache.servicecomb.pack.contract.grpc.TxEventServiceGrpc.TxEventServiceImplBase;
+import org.apache.servicecomb.pack.omega.connector.grpc.core.LoadBalanceContext;
+import org.apache.servicecomb.pack.omega.context.ServiceConfig;
+import org.apache.servicecomb.pack.omega.transaction.AlphaResponse;
+import org.apache.servicecomb.pack.omega.transaction.MessageDeserializer;
+import org.apache.servicecomb.pack.omega.transaction.MessageHandler;
+import org.apache.servicecomb.pack.omega.transaction.MessageSerializer;
+import org.apache.servicecomb.pack.omega.transaction.TxEvent;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+public class GrpcSagaClientMessageSenderTest {
+  @Rule
+  public final GrpcCleanupRule grpcCleanup = new GrpcCleanupRule();
+
+  private final MutableHandlerRegistry serviceRegistry = new MutableHandlerRegistry();
+
+  private final String globalTxId = uniquify("globalTxId");
+
+  private final AtomicInteger unaryCalls = new AtomicInteger();
+
+  private final AtomicInteger streams = new AtomicInteger();
+
+  // strings defined on the event streams, every stream assigns the same ids in the tests
+  private final Map<Integer, String> definitions = new ConcurrentHashMap<>();
+
+  private final ExecutorService executor = Executors.newFixedThreadPool(3);
+
+  private final MessageSerializer serializer = new MessageSerializer() {
+    @Override
+    public byte[] serialize(Object[] objects) {
+      return objects[0].toString().getBytes();
+    }
+  };
+
+  private GrpcSagaClientMessageSender sender;
+
+  @Before
+  public void setUp() throws Exception {
+    String serverName = InProcessServerBuilder.generateName();
+    grpcCleanup.register(InProcessServerBuilder.forName(serverName)
+        .fallbackHandlerRegistry(serviceRegistry).build().start());
+    ManagedChannel channel = grpcCleanup.register(InProcessChannelBuilder.forName(serverName).build());
+
+    LoadBalanceContext loadContext = mock(LoadBalanceContext.class);
+    when(loadContext.getTimeoutSeconds()).thenReturn(1);
+
+    sender = new GrpcSagaClientMessageSender(uniquify("address"), channel, serializer,
+        mock(MessageDeserializer.class), new ServiceConfig(uniquify("service")), mock(MessageHandler.class),
+        loadContext, 3);
+  }
+
+  @After
+  public void tearDown() {
+    sender.close();
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void pipelinesEventsOnOneStream() throws Exception {
+    serviceRegistry.addService(new TxEventServiceImplBase() {
+      @Override
+      public StreamObserver<GrpcTxEvent> onTxEvents(final StreamObserver<GrpcAck> responseObserver) {
+        streams.incrementAndGet();
+        return new StreamObserver<GrpcTxEvent>() {
+          private final List<GrpcTxEvent> received = new ArrayList<>();
+
+          @Override
+          public void onNext(GrpcTxEvent event) {
+            received.add(event);
+            // only ack once all the events are in flight, in reverse order
+            if (received.size() == 3) {
+              for (int i = received.size() - 1; i >= 0; i--) {
+                responseObserver.onNext(ackOf(received.get(i)));
+              }
+            }
+          }
+
+          @Override
+          public void onError(Throwable throwable) {
+          }
+
+          @Override
+          public void onCompleted() {
+            responseObserver.onCompleted();
+          }
+        };
+      }
+    });
+
+    List<Future<AlphaResponse>> responses = new ArrayList<>();
+    for (final String method : new String[] {"accept", "reject", "accept"}) {
+      responses.add(executor.submit(new Callable<AlphaResponse>() {
+        @Override
+        public AlphaResponse call() {
+          return sender.send(eventOf(method));
+        }
+      }));
+    }
+
+    assertThat(responses.get(0).get(5, TimeUnit.SECONDS).aborted(), is(false));
+    assertThat(responses.get(1).get(5, TimeUnit.SECONDS).aborted(), is(true));
+    assertThat(responses.get(2).get(5, TimeUnit.SECONDS).aborted(), is(false));
+    assertThat(streams.get(), is(1));
+  }
+
+  @Test
+  public void fallsBackToUnaryCallsIfAlphaDoesNotSupportStreaming() {
+    serviceRegistry.addService(new TxEventServiceImplBase() {
+      @Override
+      public void onTxEvent(GrpcTxEvent request, StreamObserver<GrpcAck> responseObserver) {
+        unaryCalls.incrementAndGet();
+        responseObserver.onNext(ackOf(request));
+        responseObserver.onCompleted();
+      }
+    });
+
+    assertThat(sender.send(eventOf("reject")).aborted(), is(true));
+    assertThat(sender.send(eventOf("accept")).aborted(), is(false));
+    assertThat(unaryCalls.get(), is(2));
+  }
+
+  @Test
+  public void sendsRepeatedStringsOncePerStream() {
+    final List<GrpcTxEvent> received = new ArrayList<>();
+    serviceRegistry.addService(new TxEventServiceImplBase() {
+      @Override
+      public StreamObserver<GrpcTxEvent> onTxEvents(final StreamObserver<GrpcAck> responseObserver) {
+        return new StreamObserver<GrpcTxEvent>() {
+          @Override
+          public void onNext(GrpcTxEvent event) {
+            received.add(event);
+            responseObserver.onNext(ackOf(event));
+          }
+
+          @Override
+          public void onError(Throwable throwable) {
+          }
+
+          @Override
+          public void onCompleted() {
+            responseObserver.onCompleted();
+          }
+        };
+      }
+    });
+
+    sender.send(eventOf("accept"));
+    assertThat(sender.send(eventOf("reject")).aborted(), is(true));
+
+    GrpcTxEvent first = received.get(0);
+    assertThat(first.getServiceName(), is(""));
+    assertThat(first.getCompensationMethod(), is(""));
+    assertThat(first.getDefinitionsOrThrow(first.getCompensationMethodId()), is("accept"));
+
+    GrpcTxEvent second = received.get(1);
+    assertThat(second.getServiceNameId(), is(first.getServiceNameId()));
+    assertThat(second.getInstanceIdId(), is(first.getInstanceIdId()));
+    assertThat(second.getCompensationMethodId(), is(not(first.getCompensationMethodId())));
+    // only the new compensation method is defined
+    assertThat(second.getDefinitionsCount(), is(1));
+  }
+
+  @Test
+  public void reopensStreamAfterFailure() {
+    serviceRegistry.addService(new TxEventServiceImplBase() {
+      @Override
+      public StreamObserver<GrpcTxEvent> onTxEvents(final StreamObserver<GrpcAck> responseObserver) {
+        final boolean broken = streams.incrementAndGet() == 1;
+        return new StreamObserver<GrpcTxEvent>() {
+          @Override
+          public void onNext(GrpcTxEvent event) {
+            if (broken) {
+              responseObserver.onError(Status.UNAVAILABLE.asRuntimeException());
+            } else {
+              responseObserver.onNext(ackOf(event));
+            }
+          }
+
+          @Override
+          public void onError(Throwable throwable) {
+          }
+
+          @Override
+          public void onCompleted() {
+            responseObserver.onCompleted();
+          }
+        };
+      }
+    });
+
+    try {
+      sender.send(eventOf("accept"));
+      fail("StatusRuntimeException is expected");
+    } catch (StatusRuntimeException e) {
+      assertThat(e.getStatus().getCode(), is(Status.Code.UNAVAILABLE));
+    }
+
+    assertThat(sender.send(eventOf("reject")).aborted(), is(true));
+    assertThat(streams.get(), is(2));
+  }
+
+  @Test
+  public void failsOnlyTheEventAlphaFailedToHandle() {
+    serviceRegistry.addService(new TxEventServiceImplBase() {
+      @Override
+      public StreamObserver<GrpcTxEvent> onTxEvents(final StreamObserver<GrpcAck> responseObserver) {
+        streams.incrementAndGet();
+        return new StreamObserver<GrpcTxEvent>() {
+          @Override
+          public void onNext(GrpcTxEvent event) {
+            if (event.getSequence() == 1) {
+              responseObserver.onNext(GrpcAck.newBuilder()
+                  .setSequence(event.getSequence()).setError("database is down").build());
+            } else {
+              responseObserver.onNext(ackOf(event));
+            }
+          }
+
+          @Override
+          public void onError(Throwable throwable) {
+          }
+
+          @Override
+          public void onCompleted() {
+            responseObserver.onCompleted();
+          }
+        };
+      }
+    });
+
+    try {
+      sender.send(eventOf("accept"));
+      fail("StatusRuntimeException is expected");
+    } catch (StatusRuntimeException e) {
+      assertThat(e.getStatus().getCode(), is(Status.Code.INTERNAL));
+      assertThat(e.getStatus().getDescription(), is("database is down"));
+    }
+
+    assertThat(sender.send(eventOf("reject")).aborted(), is(true));
+    assertThat(streams.get(), is(1));
+  }
+
+  @Test
+  public void failsEventNotAckedWithinTimeout() {
+    serviceRegistry.addService(new TxEventServiceImplBase() {
+      @Override
+      public StreamObserver<GrpcTxEvent> onTxEvents(final StreamObserver<GrpcAck> responseObserver) {
+        return new StreamObserver<GrpcTxEvent>() {
+          @Override
+          public void onNext(GrpcTxEvent event) {
+            // the first event is never acked
+            if (event.getSequence() != 1) {
+              responseObserver.onNext(ackOf(event));
+            }
+          }
+
+          @Override
+          public void onError(Throwable throwable) {
+          }
+
+          @Override
+          public void onCompleted() {
+            responseObserver.onCompleted();
+          }
+        };
+      }
+    });
+
+    try {
+      sender.send(eventOf("accept"));
+      fail("StatusRuntimeException is expected");
+    } catch (StatusRuntimeException e) {
+      assertThat(e.getStatus().getCode(), is(Status.Code.DEADLINE_EXCEEDED));
+    }
+
+    assertThat(sender.send(eventOf("reject")).aborted(), is(true));
+  }
+
+  private TxEvent eventOf(String compensationMethod) {
+    return new TxEvent(EventType.TxStartedEvent, globalTxId, uniquify("localTxId"), globalTxId,
+        compensationMethod, 0, "", 0, 0, 0, 0, 0, "blah");
+  }
+
+  private GrpcAck ackOf(GrpcTxEvent event) {
+    definitions.putAll(event.getDefinitionsMap());
+    String compensationMethod = event.getCompensationMethodId() == 0
+        ? event.getCompensationMethod()
+        : definitions.get(event.getCompensationMethodId());
+    return GrpcAck.newBuilder()
+        .setAborted("reject".equals(compensationMethod))
+        .setSequence(event.getSequence())
+        .build();
+  }
+}
@@ -0,0 +1,157 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.servicecomb.pack.omega.connector.grpc.saga;
+
+import static com.seanyinx.github.unit.scaffolding.Randomness.uniquify;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import org.apache.servicecomb.pack.omega.connector.grpc.saga.SagaEventOutbox.SyncPolicy;
+import org.apache.servicecomb.pack.omega.transaction.MessageDeserializer;
+import org.apache.servicecomb.pack.omega.transaction.MessageSerializer;
+import org.apache.servicecomb.pack.omega.transaction.OmegaException;
+import org.apache.servicecomb.pack.omega.transaction.TxCompensateAckFailedEvent;
+import org.apache.servicecomb.pack.omega.transaction.TxEndedEvent;
+import org.apache.servicecomb.pack.omega.transaction.TxEvent;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class SagaEventOutboxTest {
+
+  @Rule
+  public final TemporaryFolder folder = new TemporaryFolder();
+
+  private final MessageSerializer serializer = new MessageSerializer() {
+    @Override
+    public byte[] serialize(Object[] objects) {
+      return objects.length == 0 ? new byte[0] : objects[0].toString().getBytes();
+    }
+  };
+
+  private final MessageDeserializer deserializer = new MessageDeserializer() {
+    @Override
+    public Object[] deserialize(byte[] message) {
+      return message.length == 0 ? new Object[0] : new Object[] {new String(message)};
+    }
+  };
+
+  private final String globalTxId = uniquify("globalTxId");
+
+  private final String localTxId = uniquify("localTxId");
+
+  private File file;
+
+  private SagaEventOutbox outbox;
+
+  @Before
+  public void setUp() throws IOException {
+    file = new File(folder.getRoot(), "omega.outbox");
+    outbox = newOutbox(64 * 1024);
+  }
+
+  @After
+  public void tearDown() {
+    outbox.close();
+  }
+
+  @Test
+  public void returnsEventsInAppendedOrder() {
+    TxEvent ended = new TxEndedEvent(globalTxId, localTxId, null, "method");
+    TxEvent failed = new TxCompensateAckFailedEvent(globalTxId, localTxId, null, "method",
+        new RuntimeException("oops"));
+
+    assertThat(outbox.append(ended), is(true));
+    assertThat(outbox.append(failed), is(true));
+    assertThat(outbox.depth(), is(2));
+
+    assertSameEvent(outbox.peek(), ended);
+    outbox.remove();
+    assertSameEvent(outbox.peek(), failed);
+    outbox.remove();
+
+    assertThat(outbox.isEmpty(), is(true));
+    assertThat(outbox.peek(), is(nullValue()));
+  }
+
+  @Test
+  public void recoversPendingEventsAfterReopening() {
+    TxEvent first = new TxEndedEvent(globalTxId, uniquify("localTxId"), null, "method");
+    TxEvent second = new TxEndedEvent(globalTxId, uniquify("localTxId"), null, "method");
+    outbox.append(first);
+    outbox.append(second);
+    outbox.remove();
+    outbox.close();
+
+    outbox = newOutbox(64 * 1024);
+
+    assertThat(outbox.depth(), is(1));
+    assertSameEvent(outbox.peek(), second);
+  }
+
+  @Test
+  public void refusesEventsOnceFull() {
+    outbox.close();
+    file = new File(folder.getRoot(), "small.outbox");
+    outbox = newOutbox(128);
+
+    TxEvent event = new TxEndedEvent(globalTxId, localTxId, null, "method");
+    int appended = 0;
+    while (outbox.append(event)) {
+      appended++;
+    }
+    assertThat(outbox.depth(), is(appended));
+
+    // space is reclaimed after the outbox is drained
+    while (!outbox.isEmpty()) {
+      outbox.remove();
+    }
+    assertThat(outbox.append(event), is(true));
+  }
+
+  @Test
+  public void refusesFileOpenedByAnotherOutbox() {
+    try {
+      newOutbox(64 * 1024);
+      fail("OmegaException is expected");
+    } catch (OmegaException e) {
+      assertThat(e.getMessage().contains(file.toString()), is(true));
+    }
+
+    // the file can be reopened once the outbox holding it is closed
+    outbox.close();
+    outbox = newOutbox(64 * 1024);
+    assertThat(outbox.isEmpty(), is(true));
+  }
+
+  private SagaEventOutbox newOutbox(int capacity) {
+    return new SagaEventOutbox(file, capacity, SyncPolicy.ALWAYS, 0, serializer, deserializer);
+  }
+
+  private void assertSameEvent(TxEvent actual, TxEvent expected) {
+    assertThat(actual.toString(), is(expected.toString()));
+    assertThat(actual.timestamp(), is(expected.timestamp()));
+  }
+}
@@ -19,42 +19,75 @@ package org.apache.servicecomb.pack.omega.connector.grpc.saga;
 
 import static com.seanyinx.github.unit.scaffolding.AssertUtils.expectFailing;
 import static java.lang.Thread.State.TERMINATED;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.awaitility.Awaitility.await;
 import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.core.Is.is;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 import com.google.common.collect.ImmutableList;
 import io.grpc.Server;
 import io.grpc.ServerBuilder;
+import io.grpc.Status;
+import java.io.File;
 import java.io.IOException;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.Callable;
+import org.apache.servicecomb.pack.common.EventType;
 import org.apache.servicecomb.pack.omega.connector.grpc.AlphaClusterConfig;
 import org.apache.servicecomb.pack.omega.connector.grpc.core.FastestSender;
 import org.apache.servicecomb.pack.omega.connector.grpc.core.LoadBalanceContext;
 import org.apache.servicecomb.pack.omega.connector.grpc.core.LoadBalanceContextBuilder;
 import org.apache.servicecomb.pack.omega.connector.grpc.core.TransactionType;
 import org.apache.servicecomb.pack.omega.context.ServiceConfig;
+import org.apache.servicecomb.pack.omega.transaction.AlphaResponse;
 import org.apache.servicecomb.pack.omega.transaction.MessageSender;
 import org.apache.servicecomb.pack.omega.transaction.OmegaException;
 import org.apache.servicecomb.pack.omega.transaction.SagaMessageSender;
 import org.apache.servicecomb.pack.omega.transaction.TxAbortedEvent;
 import org.apache.servicecomb.pack.omega.transaction.TxEvent;
 import org.apache.servicecomb.pack.omega.transaction.TxStartedEvent;
+import org.apache.servicecomb.pack.omega.connector.grpc.saga.SagaEventOutbox.SyncPolicy;
 import org.junit.BeforeClass;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.Mockito;
 
 public class SagaLoadBalancedSenderTest extends SagaLoadBalancedSenderTestBase {
+  @Rule
+  public final TemporaryFolder folder = new TemporaryFolder();
+
+  private final TxEvent endedEvent = new TxEvent(EventType.TxEndedEvent, globalTxId, localTxId, parentTxId,
+      compensationMethod, 0, "", 0, 0, 0, 0, 0, "blah");
+
   @Override
   protected SagaLoadBalanceSender newMessageSender(String[] addresses) {
+    return new SagaLoadBalanceSender(newLoadContext(addresses), new FastestSender());
+  }
+
+  private SagaLoadBalanceSender newOutboxMessageSender(long drainIntervalMillis) {
+    SagaEventOutbox outbox = new SagaEventOutbox(new File(folder.getRoot(), "omega.outbox"), 4096,
+        SyncPolicy.NONE, 0, serializer, deserializer);
+    return new SagaLoadBalanceSender(newLoadContext(addresses), new FastestSender(), outbox, drainIntervalMillis);
+  }
+
+  private LoadBalanceContext newLoadContext(String[] addresses) {
     AlphaClusterConfig clusterConfig = AlphaClusterConfig.builder()
         .addresses(ImmutableList.copyOf(addresses))
         .enableSSL(false)
@@ -69,7 +102,7 @@ public class SagaLoadBalancedSenderTest extends SagaLoadBalancedSenderTestBase {
         clusterConfig,
         new ServiceConfig(serviceName), 100, 4).build();
 
-    return new SagaLoadBalanceSender(loadContext, new FastestSender());
+    return loadContext;
   }
 
   @BeforeClass
@@ -175,6 +208,126 @@ public class SagaLoadBalancedSenderTest extends SagaLoadBalancedSenderTestBase {
     thread.join();
   }
 
+  @Test
+  public void retryOverloadedSenderWithoutReconnecting() throws Exception {
+    SagaMessageSender underlying = Mockito.mock(SagaMessageSender.class);
+    when(underlying.send(event))
+        .thenThrow(Status.RESOURCE_EXHAUSTED.asRuntimeException())
+        .thenReturn(new AlphaResponse(false));
+
+    setSenders(underlying);
+
+    assertThat(messageSender.send(event).aborted(), is(false));
+    verify(underlying, times(2)).send(event);
+  }
+
+  @Test
+  public void sendToAnotherSenderWhenOneIsOverloaded() throws Exception {
+    SagaMessageSender overloaded = Mockito.mock(SagaMessageSender.class);
+    when(overloaded.send(event)).thenThrow(Status.RESOURCE_EXHAUSTED.asRuntimeException());
+    SagaMessageSender available = Mockito.mock(SagaMessageSender.class);
+    when(available.send(event)).thenReturn(new AlphaResponse(false));
+
+    setSenders(overloaded);
+    messageSender.getLoadContext().getSenders().put(available, 1L);
+
+    long startTime = System.nanoTime();
+    assertThat(messageSender.send(event).aborted(), is(false));
+    assertThat(System.nanoTime() - startTime < MILLISECONDS.toNanos(100), is(true));
+    verify(overloaded, times(1)).send(event);
+    verify(available, times(1)).send(event);
+  }
+
+  @Test
+  public void stashEventsInOutboxWhileClusterIsDown() throws Exception {
+    final SagaLoadBalanceSender outboxSender = newOutboxMessageSender(50);
+    SagaMessageSender underlying = Mockito.mock(SagaMessageSender.class);
+    doThrow(RuntimeException.class).when(underlying).send(any(TxEvent.class));
+    setSenders(outboxSender, underlying);
+
+    try {
+      assertThat(outboxSender.send(endedEvent).aborted(), is(false));
+      assertThat(outboxSender.getOutboxDepth(), is(1));
+
+      // reconnected
+      doReturn(new AlphaResponse(false)).when(underlying).send(any(TxEvent.class));
+      outboxSender.getLoadContext().getSenders().put(underlying, 0L);
+
+      await().atMost(2, SECONDS).until(new Callable<Boolean>() {
+        @Override
+        public Boolean call() throws Exception {
+          return outboxSender.getOutboxDepth() == 0;
+        }
+      });
+
+      ArgumentCaptor<TxEvent> captor = ArgumentCaptor.forClass(TxEvent.class);
+      verify(underlying, times(2)).send(captor.capture());
+      assertThat(captor.getAllValues().get(1).toString(), is(endedEvent.toString()));
+    } finally {
+      outboxSender.close();
+    }
+  }
+
+  @Test
+  public void drainOutboxBeforeSendingLaterEvents() throws Exception {
+    SagaLoadBalanceSender outboxSender = newOutboxMessageSender(60000);
+    SagaMessageSender underlying = Mockito.mock(SagaMessageSender.class);
+    doThrow(RuntimeException.class).when(underlying).send(any(TxEvent.class));
+    setSenders(outboxSender, underlying);
+
+    try {
+      outboxSender.send(endedEvent);
+
+      doReturn(new AlphaResponse(false)).when(underlying).send(any(TxEvent.class));
+      outboxSender.getLoadContext().getSenders().put(underlying, 0L);
+
+      assertThat(outboxSender.send(event).aborted(), is(false));
+      assertThat(outboxSender.getOutboxDepth(), is(0));
+
+      ArgumentCaptor<TxEvent> captor = ArgumentCaptor.forClass(TxEvent.class);
+      InOrder inOrder = inOrder(underlying);
+      inOrder.verify(underlying, times(3)).send(captor.capture());
+      List<TxEvent> sent = captor.getAllValues();
+      assertThat(sent.get(1).toString(), is(endedEvent.toString()));
+      assertThat(sent.get(2), is(event));
+    } finally {
+      outboxSender.close();
+    }
+  }
+
+  @Test
+  public void stopsDaemonDrainerOnClose() throws Exception {
+    Set<Thread> drainers = drainerThreads();
+    SagaLoadBalanceSender outboxSender = newOutboxMessageSender(60000);
+    final Thread drainer;
+    try {
+      Set<Thread> started = drainerThreads();
+      started.removeAll(drainers);
+      assertThat(started.size(), is(1));
+      drainer = started.iterator().next();
+      assertThat(drainer.isDaemon(), is(true));
+    } finally {
+      outboxSender.close();
+    }
+
+    await().atMost(2, SECONDS).until(new Callable<Boolean>() {
+      @Override
+      public Boolean call() throws Exception {
+        return drainer.getState() == TERMINATED;
+      }
+    });
+  }
+
+  private static Set<Thread> drainerThreads() {
+    Set<Thread> drainers = new HashSet<>();
+    for (Thread thread : Thread.getAllStackTraces().keySet()) {
+      if (thread.getName().startsWith("omega-outbox-drainer")) {
+        drainers.add(thread);
+      }
+    }
+    return drainers;
+  }
+
   @Test
   public void broadcastConnectionAndDisconnection() throws Exception {
     messageSender.onConnected();
@@ -340,10 +493,14 @@ public class SagaLoadBalancedSenderTest extends SagaLoadBalancedSenderTestBase {
   }
 
   private void setSenders(SagaMessageSender ... underlyings) {
+    setSenders(messageSender, underlyings);
+  }
+
+  private void setSenders(SagaLoadBalanceSender loadBalanceSender, SagaMessageSender ... underlyings) {
     Map<MessageSender, Long> senders = new HashMap<>();
     for (SagaMessageSender each : underlyings) {
       senders.put(each, 0L);
     }
-    messageSender.getLoadContext().setSenders(senders);
+    loadBalanceSender.getLoadContext().setSenders(senders);
   }
 }
@@ -0,0 +1,70 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.servicecomb.pack.omega.format;
+
+/**
+ * Compresses the payloads of the underlying {@link MessageFormat} which are at least as large as
+ * the threshold with the first codec. Payloads are decoded by the codec whose header they start
+ * with, payloads without a known header are passed to the underlying format as they are, so the
+ * payloads of older omegas are still understood.
+ */
+public class CompressedMessageFormat implements MessageFormat {
+
+  private final MessageFormat format;
+
+  private final int threshold;
+
+  private final PayloadCodec[] codecs;
+
+  /**
+   * @param threshold the minimal size of the payloads to compress, nothing is compressed if it is
+   * not positive
+   * @param codecs the codecs to decode with, the first one is used to encode
+   */
+  public CompressedMessageFormat(MessageFormat format, int threshold, PayloadCodec... codecs) {
+    if (codecs.length == 0) {
+      throw new IllegalArgumentException("At least one payload codec is required");
+    }
+    this.format = format;
+    this.threshold = threshold;
+    this.codecs = codecs;
+  }
+
+  @Override
+  public byte[] serialize(Object[] objects) {
+    byte[] payloads = format.serialize(objects);
+    if (threshold <= 0 || payloads.length < threshold) {
+      return payloads;
+    }
+    byte[] encoded = codecs[0].encode(payloads);
+    return encoded.length < payloads.length ? encoded : payloads;
+  }
+
+  @Override
+  public Object[] deserialize(byte[] message) {
+    if (message.length > 0) {
+      for (PayloadCodec codec : codecs) {
+        if (message[0] == codec.header()) {
+          return format.deserialize(codec.decode(message));
+        }
+      }
+    }
+    return format.deserialize(message);
+  }
+}
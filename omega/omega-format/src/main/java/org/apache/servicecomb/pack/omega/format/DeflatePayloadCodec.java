@@ -0,0 +1,51 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.servicecomb.pack.omega.format;
+
+import java.util.zip.DataFormatException;
+
+import org.apache.servicecomb.pack.common.DeflatePayloads;
+import org.apache.servicecomb.pack.omega.transaction.OmegaException;
+
+/**
+ * Deflate compression of the JDK, in the {@link DeflatePayloads} format which alpha inflates as well.
+ */
+public class DeflatePayloadCodec implements PayloadCodec {
+
+  public static final byte HEADER = DeflatePayloads.HEADER;
+
+  @Override
+  public byte header() {
+    return HEADER;
+  }
+
+  @Override
+  public byte[] encode(byte[] payloads) {
+    return DeflatePayloads.deflate(payloads);
+  }
+
+  @Override
+  public byte[] decode(byte[] payloads) {
+    try {
+      return DeflatePayloads.inflate(payloads);
+    } catch (DataFormatException e) {
+      throw new OmegaException("Unable to inflate payloads", e);
+    }
+  }
+}
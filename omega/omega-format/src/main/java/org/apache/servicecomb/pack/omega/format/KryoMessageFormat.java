@@ -17,8 +17,6 @@
 
 package org.apache.servicecomb.pack.omega.format;
 
-import java.io.ByteArrayInputStream;
-
 import org.apache.servicecomb.pack.omega.transaction.OmegaException;
 
 import com.esotericsoftware.kryo.Kryo;
@@ -55,7 +53,8 @@ public class KryoMessageFormat implements MessageFormat {
   @Override
   public Object[] deserialize(byte[] message) {
     try {
-      Input input = new Input(new ByteArrayInputStream(message));
+      // read the message in place instead of buffering a copy of it
+      Input input = new Input(message);
 
       Kryo kryo = pool.borrow();
       Object[] objects = kryo.readObjectOrNull(input, Object[].class);
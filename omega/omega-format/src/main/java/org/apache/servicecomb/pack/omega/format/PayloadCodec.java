@@ -0,0 +1,42 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.servicecomb.pack.omega.format;
+
+/**
+ * Encodes serialized payloads before they are sent to alpha. Alpha stores and returns the encoded
+ * payloads as they are, they are only decoded by omega when a compensation is invoked.
+ */
+public interface PayloadCodec {
+
+  /**
+   * @return the first byte of every payload encoded by this codec, it must not be a valid first
+   * byte of the underlying {@link MessageFormat}
+   */
+  byte header();
+
+  /**
+   * @return the encoded payloads starting with the {@link #header()}
+   */
+  byte[] encode(byte[] payloads);
+
+  /**
+   * @param payloads the encoded payloads starting with the {@link #header()}
+   */
+  byte[] decode(byte[] payloads);
+}
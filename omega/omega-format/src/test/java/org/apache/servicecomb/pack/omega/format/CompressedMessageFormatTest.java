@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.servicecomb.pack.omega.format;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.apache.servicecomb.pack.omega.transaction.OmegaException;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class CompressedMessageFormatTest extends MessageFormatTestBase {
+
+  private final MessageFormat kryoFormat = new KryoMessageFormat();
+
+  @BeforeClass
+  public static void setUp() {
+    format = new CompressedMessageFormat(new KryoMessageFormat(), 1, new DeflatePayloadCodec());
+  }
+
+  @Test
+  public void compressesPayloadsAboveThreshold() {
+    Object[] payloads = new Object[]{repeated('a', 16 * 1024)};
+
+    byte[] bytes = format.serialize(payloads);
+
+    assertThat(bytes[0], is(DeflatePayloadCodec.HEADER));
+    assertThat(bytes.length, lessThan(kryoFormat.serialize(payloads).length));
+    assertArrayEquals(payloads, format.deserialize(bytes));
+  }
+
+  @Test
+  public void keepsPayloadsBelowThresholdAsTheyAre() {
+    MessageFormat thresholdFormat = new CompressedMessageFormat(kryoFormat, 1024, new DeflatePayloadCodec());
+    Object[] payloads = new Object[]{repeated('a', 512)};
+
+    assertArrayEquals(kryoFormat.serialize(payloads), thresholdFormat.serialize(payloads));
+  }
+
+  @Test
+  public void deserializesUncompressedPayloads() {
+    Object[] payloads = new Object[]{"hello", repeated('a', 16 * 1024)};
+
+    assertArrayEquals(payloads, format.deserialize(kryoFormat.serialize(payloads)));
+  }
+
+  @Test
+  public void rejectsPayloadsNotMatchingDeclaredLength() {
+    PayloadCodec codec = new DeflatePayloadCodec();
+    byte[] deflated = codec.encode(repeated('a', 1024).getBytes());
+
+    assertDecodingFails(codec, withDeclaredLength(deflated, 1023));
+    assertDecodingFails(codec, withDeclaredLength(deflated, 1025));
+    assertDecodingFails(codec, withDeclaredLength(deflated, Integer.MAX_VALUE));
+    assertDecodingFails(codec, Arrays.copyOf(deflated, deflated.length - 4));
+  }
+
+  private static byte[] withDeclaredLength(byte[] deflated, int length) {
+    byte[] bytes = deflated.clone();
+    ByteBuffer.wrap(bytes, 1, 4).putInt(length);
+    return bytes;
+  }
+
+  private static void assertDecodingFails(PayloadCodec codec, byte[] bytes) {
+    try {
+      codec.decode(bytes);
+      fail("OmegaException is expected");
+    } catch (OmegaException e) {
+      assertThat(e.getMessage(), is("Unable to inflate payloads"));
+    }
+  }
+
+  private static String repeated(char c, int length) {
+    char[] chars = new char[length];
+    Arrays.fill(chars, c);
+    return new String(chars);
+  }
+}
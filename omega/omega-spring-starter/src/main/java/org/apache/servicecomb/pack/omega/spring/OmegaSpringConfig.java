@@ -26,6 +26,8 @@ import org.apache.servicecomb.pack.omega.connector.grpc.core.FastestSender;
 import org.apache.servicecomb.pack.omega.connector.grpc.core.LoadBalanceContext;
 import org.apache.servicecomb.pack.omega.connector.grpc.core.LoadBalanceContextBuilder;
 import org.apache.servicecomb.pack.omega.connector.grpc.core.TransactionType;
+import org.apache.servicecomb.pack.omega.connector.grpc.saga.SagaEventOutbox;
+import org.apache.servicecomb.pack.omega.connector.grpc.saga.SagaEventOutbox.SyncPolicy;
 import org.apache.servicecomb.pack.omega.connector.grpc.saga.SagaLoadBalanceSender;
 import org.apache.servicecomb.pack.omega.connector.grpc.tcc.TccLoadBalanceSender;
 import org.apache.servicecomb.pack.omega.context.AlphaMetas;
@@ -34,6 +36,8 @@ import org.apache.servicecomb.pack.omega.context.IdGenerator;
 import org.apache.servicecomb.pack.omega.context.OmegaContext;
 import org.apache.servicecomb.pack.omega.context.ServiceConfig;
 import org.apache.servicecomb.pack.omega.context.UniqueIdGenerator;
+import org.apache.servicecomb.pack.omega.format.CompressedMessageFormat;
+import org.apache.servicecomb.pack.omega.format.DeflatePayloadCodec;
 import org.apache.servicecomb.pack.omega.format.KryoMessageFormat;
 import org.apache.servicecomb.pack.omega.format.MessageFormat;
 import org.apache.servicecomb.pack.omega.transaction.MessageHandler;
@@ -52,6 +56,7 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Lazy;
 
+import java.io.File;
 import java.lang.invoke.MethodHandles;
 
 @Configuration
@@ -105,12 +110,16 @@ class OmegaSpringConfig {
       @Value("${alpha.cluster.ssl.cert:client.crt}") String cert,
       @Value("${alpha.cluster.ssl.key:client.pem}") String key,
       @Value("${alpha.cluster.ssl.certChain:ca.crt}") String certChain,
+      @Value("${alpha.cluster.eventStreaming.maxInFlight:0}") int maxEventsInFlight,
+      @Value("${omega.payload.compressionThreshold:0}") int compressionThreshold,
       @Lazy AlphaClusterDiscovery alphaClusterDiscovery,
       @Lazy MessageHandler handler,
       @Lazy TccMessageHandler tccMessageHandler) {
 
     LOG.info("Discovery alpha cluster address {} from {}",alphaClusterDiscovery.getAddresses() == null ? "" : String.join(",",alphaClusterDiscovery.getAddresses()), alphaClusterDiscovery.getDiscoveryType().name());
-    MessageFormat messageFormat = new KryoMessageFormat();
+    // compressed payloads are always understood, they are only produced above a positive threshold
+    MessageFormat messageFormat = new CompressedMessageFormat(new KryoMessageFormat(),
+        compressionThreshold, new DeflatePayloadCodec());
     AlphaClusterConfig clusterConfig = AlphaClusterConfig.builder()
         .addresses(ImmutableList.copyOf(alphaClusterDiscovery.getAddresses()))
         .enableSSL(enableSSL)
@@ -122,6 +131,7 @@ class OmegaSpringConfig {
         .messageSerializer(messageFormat)
         .messageHandler(handler)
         .tccMessageHandler(tccMessageHandler)
+        .maxEventsInFlight(maxEventsInFlight)
         .build();
     return clusterConfig;
   }
@@ -142,8 +152,28 @@ class OmegaSpringConfig {
   }
 
   @Bean
-  SagaMessageSender sagaLoadBalanceSender(@Qualifier("sagaLoadContext") LoadBalanceContext loadBalanceSenderContext) {
-    final SagaMessageSender sagaMessageSender = new SagaLoadBalanceSender(loadBalanceSenderContext, new FastestSender());
+  SagaMessageSender sagaLoadBalanceSender(@Qualifier("sagaLoadContext") LoadBalanceContext loadBalanceSenderContext,
+      AlphaClusterConfig alphaClusterConfig,
+      ServiceConfig serviceConfig,
+      @Value("${omega.outbox.enabled:false}") boolean outboxEnabled,
+      @Value("${omega.outbox.file:}") String outboxFile,
+      @Value("${omega.outbox.capacity:67108864}") int outboxCapacity,
+      @Value("${omega.outbox.fsync:INTERVAL}") SyncPolicy outboxSyncPolicy,
+      @Value("${omega.outbox.fsyncInterval:1000}") long outboxSyncInterval,
+      @Value("${omega.outbox.drainInterval:500}") long outboxDrainInterval) {
+    final SagaMessageSender sagaMessageSender;
+    if (outboxEnabled) {
+      File file = outboxFile.isEmpty()
+          ? new File(System.getProperty("java.io.tmpdir"), "omega-" + serviceConfig.instanceId() + ".outbox")
+          : new File(outboxFile);
+      LOG.info("Stashing events in outbox {} while alpha is unreachable", file);
+      SagaEventOutbox outbox = new SagaEventOutbox(file, outboxCapacity, outboxSyncPolicy, outboxSyncInterval,
+          alphaClusterConfig.getMessageSerializer(), alphaClusterConfig.getMessageDeserializer());
+      sagaMessageSender = new SagaLoadBalanceSender(loadBalanceSenderContext, new FastestSender(), outbox,
+          outboxDrainInterval);
+    } else {
+      sagaMessageSender = new SagaLoadBalanceSender(loadBalanceSenderContext, new FastestSender());
+    }
     sagaMessageSender.onConnected();
     Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
       @Override
@@ -45,7 +45,17 @@ public class TxEvent {
       String compensationMethod,
       int timeout, String retryMethod, int forwardRetries, int forwardTimeout, int reverseRetries,
       int reverseTimeout, int retryDelayInMilliseconds, Object... payloads) {
-    this.timestamp = System.currentTimeMillis();
+    this(System.currentTimeMillis(), type, globalTxId, localTxId, parentTxId, compensationMethod, timeout,
+        retryMethod, forwardRetries, forwardTimeout, reverseRetries, reverseTimeout, retryDelayInMilliseconds,
+        payloads);
+  }
+
+  // restores an event recorded earlier, keeping the time it happened at
+  public TxEvent(long timestamp, EventType type, String globalTxId, String localTxId, String parentTxId,
+      String compensationMethod,
+      int timeout, String retryMethod, int forwardRetries, int forwardTimeout, int reverseRetries,
+      int reverseTimeout, int retryDelayInMilliseconds, Object... payloads) {
+    this.timestamp = timestamp;
     this.type = type;
     this.globalTxId = globalTxId;
     this.localTxId = localTxId;
@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.servicecomb.pack.common;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * The format of the payloads deflated by omega, which alpha inflates to show them. The header is
+ * followed by the length of the uncompressed payloads, so that they are inflated into an array of
+ * the exact size.
+ */
+public final class DeflatePayloads {
+
+  public static final byte HEADER = (byte) 0xDF;
+
+  private static final int PREFIX_LENGTH = 5;
+
+  private static final int BUFFER_SIZE = 4096;
+
+  // deflate never shrinks data by more than this ratio, a larger declared length is corrupted
+  private static final int MAX_COMPRESSION_RATIO = 1032;
+
+  private DeflatePayloads() {
+  }
+
+  public static boolean isDeflated(byte[] payloads) {
+    return payloads.length >= PREFIX_LENGTH && payloads[0] == HEADER;
+  }
+
+  public static byte[] deflate(byte[] payloads) {
+    Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+    try {
+      deflater.setInput(payloads);
+      deflater.finish();
+      ByteArrayOutputStream output = new ByteArrayOutputStream(payloads.length / 2 + PREFIX_LENGTH);
+      output.write(ByteBuffer.allocate(PREFIX_LENGTH).put(HEADER).putInt(payloads.length).array(), 0, PREFIX_LENGTH);
+      byte[] buffer = new byte[BUFFER_SIZE];
+      while (!deflater.finished()) {
+        int length = deflater.deflate(buffer);
+        output.write(buffer, 0, length);
+      }
+      return output.toByteArray();
+    } finally {
+      deflater.end();
+    }
+  }
+
+  /**
+   * @throws DataFormatException if the payloads are not deflated or don't inflate to the declared length
+   */
+  public static byte[] inflate(byte[] payloads) throws DataFormatException {
+    if (!isDeflated(payloads)) {
+      throw new DataFormatException("Payloads of " + payloads.length + " bytes are not deflated");
+    }
+    int declaredLength = ByteBuffer.wrap(payloads, 1, PREFIX_LENGTH - 1).getInt();
+    if (declaredLength < 0 || declaredLength > (long) (payloads.length - PREFIX_LENGTH) * MAX_COMPRESSION_RATIO) {
+      throw new DataFormatException("Invalid declared length " + declaredLength + " of "
+          + payloads.length + " bytes deflated payloads");
+    }
+    byte[] result = new byte[declaredLength];
+    byte[] overflow = new byte[1];
+    Inflater inflater = new Inflater();
+    try {
+      inflater.setInput(payloads, PREFIX_LENGTH, payloads.length - PREFIX_LENGTH);
+      int offset = 0;
+      while (!inflater.finished()) {
+        int length = offset < result.length
+            ? inflater.inflate(result, offset, result.length - offset)
+            : inflater.inflate(overflow);
+        if (offset == result.length && length > 0) {
+          throw new DataFormatException("Payloads are longer than the declared length " + declaredLength);
+        }
+        if (length == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+          throw new DataFormatException("Payloads are truncated");
+        }
+        offset += length;
+      }
+      if (offset < result.length) {
+        throw new DataFormatException("Payloads are shorter than the declared length " + declaredLength);
+      }
+      return result;
+    } finally {
+      inflater.end();
+    }
+  }
+}
@@ -15,24 +15,16 @@
  * limitations under the License.
  */
 
-package org.apache.servicecomb.pack.alpha.server.fsm;
+package org.apache.servicecomb.pack.common;
 
-import java.util.concurrent.CountDownLatch;
-import org.apache.servicecomb.pack.alpha.core.fsm.CompensateAckType;
-
-public class CompensateAckCountDownLatch extends CountDownLatch {
-  private CompensateAckType type;
-
-  public CompensateAckCountDownLatch(int count) {
-    super(count);
-  }
+/**
+ * The strings omega defines by id on one OnTxEvents stream, instead of repeating them in every event.
+ * Omega stops defining new strings at the limit and alpha rejects the stream which goes beyond it.
+ */
+public final class EventStreamDictionary {
 
-  public CompensateAckType getType() {
-    return type;
-  }
+  public static final int MAX_SIZE = 4096;
 
-  public void countDown(CompensateAckType type) {
-    this.type = type;
-    super.countDown();
+  private EventStreamDictionary() {
   }
-}
\ No newline at end of file
+}